@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2022, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.collision;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import net.runelite.cache.region.Region;
+
+/**
+ * A whole world movement map. Each tile is stored as a single byte, with one bit set for every
+ * direction it is possible to walk to from that tile.
+ * <p>
+ * The file layout is a header of {@code magic, version, region count} followed by the sorted
+ * region ids, and then {@link #REGION_SIZE} bytes of tile data per region, ordered by plane,
+ * then y, then x.
+ */
+public class CollisionMap
+{
+	public static final int NORTH = 0;
+	public static final int NORTH_EAST = 1;
+	public static final int EAST = 2;
+	public static final int SOUTH_EAST = 3;
+	public static final int SOUTH = 4;
+	public static final int SOUTH_WEST = 5;
+	public static final int WEST = 6;
+	public static final int NORTH_WEST = 7;
+
+	static final int[] DX = {0, 1, 1, 1, 0, -1, -1, -1};
+	static final int[] DY = {1, 1, 0, -1, -1, -1, 0, 1};
+
+	static final int MAGIC = 0x524c434d; // RLCM
+	static final int VERSION = 1;
+	static final int PLANE_SIZE = Region.X * Region.Y;
+	static final int REGION_SIZE = Region.Z * PLANE_SIZE;
+
+	private static final int MAX_REGION = 1 << 16;
+
+	private final ByteBuffer buffer;
+	private final int[] regionIds;
+	private final int[] regionOffsets = new int[MAX_REGION];
+
+	CollisionMap(ByteBuffer buffer)
+	{
+		this.buffer = buffer;
+
+		if (buffer.getInt(0) != MAGIC)
+		{
+			throw new IllegalArgumentException("not a collision map");
+		}
+		if (buffer.getInt(4) != VERSION)
+		{
+			throw new IllegalArgumentException("unsupported collision map version " + buffer.getInt(4));
+		}
+
+		int count = buffer.getInt(8);
+		int dataOffset = headerSize(count);
+
+		regionIds = new int[count];
+		Arrays.fill(regionOffsets, -1);
+		for (int i = 0; i < count; ++i)
+		{
+			int id = buffer.getInt(12 + i * 4);
+			regionIds[i] = id;
+			regionOffsets[id] = dataOffset + i * REGION_SIZE;
+		}
+	}
+
+	static int headerSize(int regionCount)
+	{
+		return 12 + regionCount * 4;
+	}
+
+	/**
+	 * Memory maps a collision map previously written with {@link #save(File)}
+	 */
+	public static CollisionMap load(File file) throws IOException
+	{
+		try (RandomAccessFile raf = new RandomAccessFile(file, "r"))
+		{
+			return new CollisionMap(raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, raf.length()));
+		}
+	}
+
+	public void save(File file) throws IOException
+	{
+		try (RandomAccessFile raf = new RandomAccessFile(file, "rw"))
+		{
+			raf.setLength(0);
+			FileChannel channel = raf.getChannel();
+			ByteBuffer data = buffer.duplicate();
+			data.clear();
+			while (data.hasRemaining())
+			{
+				channel.write(data);
+			}
+		}
+	}
+
+	public int[] getRegionIds()
+	{
+		return regionIds.clone();
+	}
+
+	public boolean hasRegion(int regionId)
+	{
+		return regionId >= 0 && regionId < MAX_REGION && regionOffsets[regionId] != -1;
+	}
+
+	/**
+	 * Get the directions which can be walked to from a tile
+	 *
+	 * @return a bitmask of {@code 1 << direction}, or 0 if the tile is not in the map
+	 */
+	public int getMovement(int x, int y, int z)
+	{
+		if (x < 0 || y < 0 || z < 0 || z >= Region.Z)
+		{
+			return 0;
+		}
+
+		int regionId = (x >> 6) << 8 | (y >> 6);
+		if (regionId >= MAX_REGION)
+		{
+			return 0;
+		}
+
+		int offset = regionOffsets[regionId];
+		if (offset == -1)
+		{
+			return 0;
+		}
+
+		return buffer.get(offset + z * PLANE_SIZE + (y & 63) * Region.X + (x & 63)) & 0xFF;
+	}
+
+	public boolean canMove(int x, int y, int z, int direction)
+	{
+		return (getMovement(x, y, z) & (1 << direction)) != 0;
+	}
+}
@@ -0,0 +1,368 @@
+/*
+ * Copyright (c) 2022, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.collision;
+
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.IntFunction;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.cache.ObjectManager;
+import net.runelite.cache.definitions.ObjectDefinition;
+import net.runelite.cache.region.Location;
+import net.runelite.cache.region.Position;
+import net.runelite.cache.region.Region;
+
+/**
+ * Computes collision data for whole regions in the same way the client does when it loads a scene,
+ * and reduces it to a {@link CollisionMap}. Flags mirror the client's CollisionDataFlag.
+ */
+@Slf4j
+public class CollisionMapBuilder
+{
+	private static final int BLOCK_MOVEMENT_NORTH_WEST = 0x1;
+	private static final int BLOCK_MOVEMENT_NORTH = 0x2;
+	private static final int BLOCK_MOVEMENT_NORTH_EAST = 0x4;
+	private static final int BLOCK_MOVEMENT_EAST = 0x8;
+	private static final int BLOCK_MOVEMENT_SOUTH_EAST = 0x10;
+	private static final int BLOCK_MOVEMENT_SOUTH = 0x20;
+	private static final int BLOCK_MOVEMENT_SOUTH_WEST = 0x40;
+	private static final int BLOCK_MOVEMENT_WEST = 0x80;
+	private static final int BLOCK_MOVEMENT_OBJECT = 0x100;
+	private static final int BLOCK_MOVEMENT_FLOOR_DECORATION = 0x40000;
+	private static final int BLOCK_MOVEMENT_FLOOR = 0x200000;
+	private static final int BLOCK_MOVEMENT_FULL = BLOCK_MOVEMENT_OBJECT | BLOCK_MOVEMENT_FLOOR_DECORATION | BLOCK_MOVEMENT_FLOOR;
+
+	/**
+	 * Flags which, when set on the destination tile, block a move in each {@link CollisionMap} direction
+	 */
+	private static final int[] DESTINATION_MASK = {
+		BLOCK_MOVEMENT_FULL | BLOCK_MOVEMENT_SOUTH,
+		BLOCK_MOVEMENT_FULL | BLOCK_MOVEMENT_SOUTH | BLOCK_MOVEMENT_WEST | BLOCK_MOVEMENT_SOUTH_WEST,
+		BLOCK_MOVEMENT_FULL | BLOCK_MOVEMENT_WEST,
+		BLOCK_MOVEMENT_FULL | BLOCK_MOVEMENT_NORTH | BLOCK_MOVEMENT_WEST | BLOCK_MOVEMENT_NORTH_WEST,
+		BLOCK_MOVEMENT_FULL | BLOCK_MOVEMENT_NORTH,
+		BLOCK_MOVEMENT_FULL | BLOCK_MOVEMENT_NORTH | BLOCK_MOVEMENT_EAST | BLOCK_MOVEMENT_NORTH_EAST,
+		BLOCK_MOVEMENT_FULL | BLOCK_MOVEMENT_EAST,
+		BLOCK_MOVEMENT_FULL | BLOCK_MOVEMENT_SOUTH | BLOCK_MOVEMENT_EAST | BLOCK_MOVEMENT_SOUTH_EAST,
+	};
+
+	private static final int TILE_FLAG_BLOCKED = 0x1;
+	private static final int TILE_FLAG_BRIDGE = 0x2;
+
+	private final IntFunction<ObjectDefinition> objects;
+	private final Map<Integer, Region> regions = new HashMap<>();
+	private final Map<Integer, int[]> flags = new HashMap<>();
+
+	public CollisionMapBuilder(ObjectManager objectManager)
+	{
+		this(objectManager::getObject);
+	}
+
+	public CollisionMapBuilder(IntFunction<ObjectDefinition> objects)
+	{
+		this.objects = objects;
+	}
+
+	public void addRegions(Collection<Region> regions)
+	{
+		for (Region region : regions)
+		{
+			addRegion(region);
+		}
+	}
+
+	public void addRegion(Region region)
+	{
+		regions.put(region.getRegionID(), region);
+		flags.put(region.getRegionID(), new int[CollisionMap.REGION_SIZE]);
+	}
+
+	public CollisionMap build()
+	{
+		for (Region region : regions.values())
+		{
+			loadTerrain(region);
+		}
+
+		for (Region region : regions.values())
+		{
+			loadLocations(region);
+		}
+
+		int[] ids = regions.keySet().stream()
+			.mapToInt(Integer::intValue)
+			.sorted()
+			.toArray();
+
+		int headerSize = CollisionMap.headerSize(ids.length);
+		ByteBuffer buffer = ByteBuffer.allocate(headerSize + ids.length * CollisionMap.REGION_SIZE);
+		buffer.putInt(CollisionMap.MAGIC);
+		buffer.putInt(CollisionMap.VERSION);
+		buffer.putInt(ids.length);
+		for (int id : ids)
+		{
+			buffer.putInt(id);
+		}
+
+		for (int id : ids)
+		{
+			Region region = regions.get(id);
+			for (int z = 0; z < Region.Z; ++z)
+			{
+				for (int y = 0; y < Region.Y; ++y)
+				{
+					for (int x = 0; x < Region.X; ++x)
+					{
+						buffer.put((byte) movement(region.getBaseX() + x, region.getBaseY() + y, z));
+					}
+				}
+			}
+		}
+
+		log.debug("Built collision map of {} regions ({} bytes)", ids.length, buffer.capacity());
+
+		buffer.clear();
+		return new CollisionMap(buffer);
+	}
+
+	private int movement(int x, int y, int z)
+	{
+		int movement = 0;
+		for (int dir = 0; dir < 8; ++dir)
+		{
+			int dx = CollisionMap.DX[dir];
+			int dy = CollisionMap.DY[dir];
+
+			if ((getFlags(x + dx, y + dy, z) & DESTINATION_MASK[dir]) != 0)
+			{
+				continue;
+			}
+
+			if (dx != 0 && dy != 0)
+			{
+				// diagonal moves also need both of the adjacent orthogonal moves to be possible
+				int horizontal = dx > 0 ? CollisionMap.EAST : CollisionMap.WEST;
+				int vertical = dy > 0 ? CollisionMap.NORTH : CollisionMap.SOUTH;
+				if ((getFlags(x + dx, y, z) & DESTINATION_MASK[horizontal]) != 0
+					|| (getFlags(x, y + dy, z) & DESTINATION_MASK[vertical]) != 0)
+				{
+					continue;
+				}
+			}
+
+			movement |= 1 << dir;
+		}
+		return movement;
+	}
+
+	private void loadTerrain(Region region)
+	{
+		for (int z = 0; z < Region.Z; ++z)
+		{
+			for (int x = 0; x < Region.X; ++x)
+			{
+				for (int y = 0; y < Region.Y; ++y)
+				{
+					if ((region.getTileSetting(z, x, y) & TILE_FLAG_BLOCKED) == 0)
+					{
+						continue;
+					}
+
+					int plane = collisionPlane(region, x, y, z);
+					if (plane >= 0)
+					{
+						addFlags(region.getBaseX() + x, region.getBaseY() + y, plane, BLOCK_MOVEMENT_FLOOR);
+					}
+				}
+			}
+		}
+	}
+
+	private void loadLocations(Region region)
+	{
+		for (Location location : region.getLocations())
+		{
+			ObjectDefinition def = objects.apply(location.getId());
+			if (def == null || def.getInteractType() == 0)
+			{
+				continue;
+			}
+
+			Position pos = location.getPosition();
+			int plane = collisionPlane(region, pos.getX() - region.getBaseX(), pos.getY() - region.getBaseY(), pos.getZ());
+			if (plane < 0)
+			{
+				continue;
+			}
+
+			int type = location.getType();
+			int orientation = location.getOrientation();
+			if (type >= 0 && type <= 3)
+			{
+				addWall(pos.getX(), pos.getY(), plane, type, orientation);
+			}
+			else if (type >= 9 && type <= 21)
+			{
+				int sizeX = def.getSizeX();
+				int sizeY = def.getSizeY();
+				if (orientation == 1 || orientation == 3)
+				{
+					sizeX = def.getSizeY();
+					sizeY = def.getSizeX();
+				}
+
+				for (int x = 0; x < sizeX; ++x)
+				{
+					for (int y = 0; y < sizeY; ++y)
+					{
+						addFlags(pos.getX() + x, pos.getY() + y, plane, BLOCK_MOVEMENT_OBJECT);
+					}
+				}
+			}
+			else if (type == 22 && def.getInteractType() == 1)
+			{
+				addFlags(pos.getX(), pos.getY(), plane, BLOCK_MOVEMENT_FLOOR_DECORATION);
+			}
+		}
+	}
+
+	private void addWall(int x, int y, int z, int type, int orientation)
+	{
+		if (type == 0)
+		{
+			switch (orientation)
+			{
+				case 0:
+					addFlags(x, y, z, BLOCK_MOVEMENT_WEST);
+					addFlags(x - 1, y, z, BLOCK_MOVEMENT_EAST);
+					break;
+				case 1:
+					addFlags(x, y, z, BLOCK_MOVEMENT_NORTH);
+					addFlags(x, y + 1, z, BLOCK_MOVEMENT_SOUTH);
+					break;
+				case 2:
+					addFlags(x, y, z, BLOCK_MOVEMENT_EAST);
+					addFlags(x + 1, y, z, BLOCK_MOVEMENT_WEST);
+					break;
+				case 3:
+					addFlags(x, y, z, BLOCK_MOVEMENT_SOUTH);
+					addFlags(x, y - 1, z, BLOCK_MOVEMENT_NORTH);
+					break;
+			}
+		}
+		else if (type == 1 || type == 3)
+		{
+			switch (orientation)
+			{
+				case 0:
+					addFlags(x, y, z, BLOCK_MOVEMENT_NORTH_WEST);
+					addFlags(x - 1, y + 1, z, BLOCK_MOVEMENT_SOUTH_EAST);
+					break;
+				case 1:
+					addFlags(x, y, z, BLOCK_MOVEMENT_NORTH_EAST);
+					addFlags(x + 1, y + 1, z, BLOCK_MOVEMENT_SOUTH_WEST);
+					break;
+				case 2:
+					addFlags(x, y, z, BLOCK_MOVEMENT_SOUTH_EAST);
+					addFlags(x + 1, y - 1, z, BLOCK_MOVEMENT_NORTH_WEST);
+					break;
+				case 3:
+					addFlags(x, y, z, BLOCK_MOVEMENT_SOUTH_WEST);
+					addFlags(x - 1, y - 1, z, BLOCK_MOVEMENT_NORTH_EAST);
+					break;
+			}
+		}
+		else if (type == 2)
+		{
+			switch (orientation)
+			{
+				case 0:
+					addFlags(x, y, z, BLOCK_MOVEMENT_NORTH | BLOCK_MOVEMENT_WEST);
+					addFlags(x - 1, y, z, BLOCK_MOVEMENT_EAST);
+					addFlags(x, y + 1, z, BLOCK_MOVEMENT_SOUTH);
+					break;
+				case 1:
+					addFlags(x, y, z, BLOCK_MOVEMENT_NORTH | BLOCK_MOVEMENT_EAST);
+					addFlags(x, y + 1, z, BLOCK_MOVEMENT_SOUTH);
+					addFlags(x + 1, y, z, BLOCK_MOVEMENT_WEST);
+					break;
+				case 2:
+					addFlags(x, y, z, BLOCK_MOVEMENT_SOUTH | BLOCK_MOVEMENT_EAST);
+					addFlags(x + 1, y, z, BLOCK_MOVEMENT_WEST);
+					addFlags(x, y - 1, z, BLOCK_MOVEMENT_NORTH);
+					break;
+				case 3:
+					addFlags(x, y, z, BLOCK_MOVEMENT_SOUTH | BLOCK_MOVEMENT_WEST);
+					addFlags(x, y - 1, z, BLOCK_MOVEMENT_NORTH);
+					addFlags(x - 1, y, z, BLOCK_MOVEMENT_EAST);
+					break;
+			}
+		}
+	}
+
+	/**
+	 * Tiles under a bridge have their collision moved down a plane
+	 */
+	private static int collisionPlane(Region region, int localX, int localY, int z)
+	{
+		if ((region.getTileSetting(1, localX, localY) & TILE_FLAG_BRIDGE) != 0)
+		{
+			return z - 1;
+		}
+		return z;
+	}
+
+	private static int index(int x, int y, int z)
+	{
+		return z * CollisionMap.PLANE_SIZE + (y & 63) * Region.X + (x & 63);
+	}
+
+	private int[] regionFlags(int x, int y)
+	{
+		if (x < 0 || y < 0)
+		{
+			return null;
+		}
+		return flags.get((x >> 6) << 8 | (y >> 6));
+	}
+
+	private int getFlags(int x, int y, int z)
+	{
+		int[] f = regionFlags(x, y);
+		// tiles outside of the loaded regions can't be walked on
+		return f == null ? BLOCK_MOVEMENT_FULL : f[index(x, y, z)];
+	}
+
+	private void addFlags(int x, int y, int z, int flag)
+	{
+		int[] f = regionFlags(x, y);
+		if (f != null)
+		{
+			f[index(x, y, z)] |= flag;
+		}
+	}
+}
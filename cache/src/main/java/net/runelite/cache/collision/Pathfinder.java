@@ -0,0 +1,299 @@
+/*
+ * Copyright (c) 2022, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.collision;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import net.runelite.cache.region.Position;
+
+/**
+ * A* search over a {@link CollisionMap}. Every step, including diagonals, costs one tick, so
+ * Chebyshev distance is used as the heuristic.
+ * <p>
+ * All search state is held in primitive arrays which are reused between queries, so an instance
+ * must not be shared between threads.
+ */
+public class Pathfinder
+{
+	private static final int DEFAULT_MAX_NODES = 1 << 20;
+	private static final int MAX_NODES = 1 << 28;
+
+	private final CollisionMap map;
+	private final int maxNodes;
+
+	// node storage, indexed by node id
+	private int[] nodeTile = new int[1024];
+	private int[] nodeParent = new int[1024];
+	private int[] nodeCost = new int[1024];
+	private boolean[] nodeClosed = new boolean[1024];
+	private int nodeCount;
+
+	// open addressing tile -> node id + 1
+	private int[] table = new int[2048];
+
+	// binary heap of (f << 42 | h << 28 | node id), so ties on f prefer nodes closer to the goal
+	private long[] heap = new long[1024];
+	private int heapSize;
+
+	public Pathfinder(CollisionMap map)
+	{
+		this(map, DEFAULT_MAX_NODES);
+	}
+
+	public Pathfinder(CollisionMap map, int maxNodes)
+	{
+		this.map = map;
+		this.maxNodes = Math.min(maxNodes, MAX_NODES);
+	}
+
+	/**
+	 * Find the shortest walking path between two tiles on the same plane
+	 *
+	 * @return the path including both end points, or null if there is no path
+	 */
+	public List<Position> findPath(Position start, Position end)
+	{
+		if (start.getZ() != end.getZ())
+		{
+			return null;
+		}
+
+		if (start.equals(end))
+		{
+			return Collections.singletonList(start);
+		}
+
+		final int z = start.getZ();
+		final int endX = end.getX(), endY = end.getY();
+		final int goal = pack(endX, endY);
+
+		reset();
+		push(addNode(pack(start.getX(), start.getY()), -1, 0), heuristic(start.getX(), start.getY(), endX, endY));
+
+		while (heapSize > 0)
+		{
+			final int node = pop();
+			if (nodeClosed[node])
+			{
+				continue;
+			}
+			nodeClosed[node] = true;
+
+			final int tile = nodeTile[node];
+			if (tile == goal)
+			{
+				return buildPath(node, z);
+			}
+
+			final int x = tile >>> 16, y = tile & 0xFFFF;
+			final int movement = map.getMovement(x, y, z);
+			final int cost = nodeCost[node] + 1;
+
+			for (int dir = 0; dir < 8; ++dir)
+			{
+				if ((movement & (1 << dir)) == 0)
+				{
+					continue;
+				}
+
+				final int nx = x + CollisionMap.DX[dir], ny = y + CollisionMap.DY[dir];
+				final int next = pack(nx, ny);
+				int id = find(next);
+				if (id == -1)
+				{
+					if (nodeCount >= maxNodes)
+					{
+						return null;
+					}
+					id = addNode(next, node, cost);
+				}
+				else if (nodeClosed[id] || nodeCost[id] <= cost)
+				{
+					continue;
+				}
+				else
+				{
+					nodeParent[id] = node;
+					nodeCost[id] = cost;
+				}
+
+				push(id, heuristic(nx, ny, endX, endY));
+			}
+		}
+
+		return null;
+	}
+
+	private List<Position> buildPath(int node, int z)
+	{
+		List<Position> path = new ArrayList<>(nodeCost[node] + 1);
+		for (; node != -1; node = nodeParent[node])
+		{
+			int tile = nodeTile[node];
+			path.add(new Position(tile >>> 16, tile & 0xFFFF, z));
+		}
+		Collections.reverse(path);
+		return path;
+	}
+
+	private static int pack(int x, int y)
+	{
+		return x << 16 | y;
+	}
+
+	private static int heuristic(int x, int y, int endX, int endY)
+	{
+		return Math.max(Math.abs(x - endX), Math.abs(y - endY));
+	}
+
+	private void reset()
+	{
+		nodeCount = 0;
+		heapSize = 0;
+		Arrays.fill(table, 0);
+	}
+
+	private int addNode(int tile, int parent, int cost)
+	{
+		if (nodeCount == nodeTile.length)
+		{
+			int size = nodeCount * 2;
+			nodeTile = Arrays.copyOf(nodeTile, size);
+			nodeParent = Arrays.copyOf(nodeParent, size);
+			nodeCost = Arrays.copyOf(nodeCost, size);
+			nodeClosed = Arrays.copyOf(nodeClosed, size);
+		}
+
+		int id = nodeCount++;
+		nodeTile[id] = tile;
+		nodeParent[id] = parent;
+		nodeCost[id] = cost;
+		nodeClosed[id] = false;
+
+		if (nodeCount * 2 > table.length)
+		{
+			rehash(table.length * 2);
+		}
+		insert(tile, id);
+		return id;
+	}
+
+	private int find(int tile)
+	{
+		final int mask = table.length - 1;
+		for (int i = hash(tile) & mask; ; i = (i + 1) & mask)
+		{
+			int entry = table[i];
+			if (entry == 0)
+			{
+				return -1;
+			}
+			if (nodeTile[entry - 1] == tile)
+			{
+				return entry - 1;
+			}
+		}
+	}
+
+	private void insert(int tile, int id)
+	{
+		final int mask = table.length - 1;
+		int i = hash(tile) & mask;
+		while (table[i] != 0)
+		{
+			i = (i + 1) & mask;
+		}
+		table[i] = id + 1;
+	}
+
+	private void rehash(int size)
+	{
+		table = new int[size];
+		for (int id = 0; id < nodeCount; ++id)
+		{
+			insert(nodeTile[id], id);
+		}
+	}
+
+	private static int hash(int tile)
+	{
+		int h = tile * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+
+	private void push(int node, int h)
+	{
+		long f = nodeCost[node] + h;
+		long entry = f << 42 | (long) h << 28 | node;
+
+		if (heapSize == heap.length)
+		{
+			heap = Arrays.copyOf(heap, heapSize * 2);
+		}
+
+		int i = heapSize++;
+		while (i > 0)
+		{
+			int parent = (i - 1) >>> 1;
+			if (heap[parent] <= entry)
+			{
+				break;
+			}
+			heap[i] = heap[parent];
+			i = parent;
+		}
+		heap[i] = entry;
+	}
+
+	private int pop()
+	{
+		long top = heap[0];
+		long last = heap[--heapSize];
+
+		int i = 0;
+		int half = heapSize >>> 1;
+		while (i < half)
+		{
+			int child = 2 * i + 1;
+			if (child + 1 < heapSize && heap[child + 1] < heap[child])
+			{
+				child++;
+			}
+			if (last <= heap[child])
+			{
+				break;
+			}
+			heap[i] = heap[child];
+			i = child;
+		}
+		if (heapSize > 0)
+		{
+			heap[i] = last;
+		}
+		return (int) (top & 0xFFFFFFF);
+	}
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2022, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.cache.collision;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import net.runelite.cache.definitions.LocationsDefinition;
+import net.runelite.cache.definitions.MapDefinition;
+import net.runelite.cache.definitions.ObjectDefinition;
+import net.runelite.cache.region.Location;
+import net.runelite.cache.region.Position;
+import net.runelite.cache.region.Region;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class PathfinderTest
+{
+	private static final int WALL = 1;
+	private static final int BOULDER = 2;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private CollisionMap map;
+
+	@Before
+	public void before()
+	{
+		MapDefinition mapDef = new MapDefinition();
+		for (int z = 0; z < Region.Z; ++z)
+		{
+			for (int x = 0; x < Region.X; ++x)
+			{
+				for (int y = 0; y < Region.Y; ++y)
+				{
+					mapDef.getTiles()[z][x][y] = new MapDefinition.Tile();
+				}
+			}
+		}
+		// water at 3205, 3205
+		mapDef.getTiles()[0][5][5].setSettings((byte) 1);
+
+		LocationsDefinition locs = new LocationsDefinition();
+		// a wall along the east side of x=10, open only at the top of the region
+		for (int y = 0; y < Region.Y - 1; ++y)
+		{
+			locs.getLocations().add(new Location(WALL, 0, 2, new Position(10, y, 0)));
+		}
+		// a 2x2 object at 3220, 3220
+		locs.getLocations().add(new Location(BOULDER, 10, 0, new Position(20, 20, 0)));
+
+		Region region = new Region(50, 50);
+		region.loadTerrain(mapDef);
+		region.loadLocations(locs);
+
+		CollisionMapBuilder builder = new CollisionMapBuilder(id ->
+		{
+			ObjectDefinition def = new ObjectDefinition();
+			def.setId(id);
+			if (id == BOULDER)
+			{
+				def.setSizeX(2);
+				def.setSizeY(2);
+			}
+			return def;
+		});
+		builder.addRegion(region);
+		map = builder.build();
+	}
+
+	@Test
+	public void testMovement()
+	{
+		// wall on the east side of 3210
+		assertFalse(map.canMove(3210, 3230, 0, CollisionMap.EAST));
+		assertFalse(map.canMove(3211, 3230, 0, CollisionMap.WEST));
+		assertFalse(map.canMove(3210, 3230, 0, CollisionMap.NORTH_EAST));
+		assertTrue(map.canMove(3210, 3230, 0, CollisionMap.NORTH));
+		assertTrue(map.canMove(3210, 3263, 0, CollisionMap.EAST));
+
+		// blocked floor and objects can't be entered
+		assertFalse(map.canMove(3204, 3205, 0, CollisionMap.EAST));
+		assertFalse(map.canMove(3219, 3221, 0, CollisionMap.EAST));
+		assertFalse(map.canMove(3222, 3222, 0, CollisionMap.SOUTH_WEST));
+
+		// the region edge is not walkable
+		assertFalse(map.canMove(3200, 3230, 0, CollisionMap.WEST));
+		assertEquals(0, map.getMovement(3100, 3100, 0));
+	}
+
+	@Test
+	public void testFindPath()
+	{
+		Pathfinder pathfinder = new Pathfinder(map);
+
+		List<Position> path = pathfinder.findPath(new Position(3205, 3230, 0), new Position(3215, 3230, 0));
+		assertNotNull(path);
+		assertEquals(new Position(3205, 3230, 0), path.get(0));
+		assertEquals(new Position(3215, 3230, 0), path.get(path.size() - 1));
+		// up to y=3263 to get around the wall, and back down
+		assertEquals(68, path.size());
+		assertTrue(path.contains(new Position(3211, 3263, 0)));
+
+		// unobstructed diagonal
+		path = pathfinder.findPath(new Position(3212, 3201, 0), new Position(3217, 3206, 0));
+		assertNotNull(path);
+		assertEquals(6, path.size());
+
+		assertNull(pathfinder.findPath(new Position(3205, 3230, 0), new Position(3205, 3205, 0)));
+		assertNull(pathfinder.findPath(new Position(3205, 3230, 0), new Position(3205, 3230, 1)));
+	}
+
+	@Test
+	public void testSaveLoad() throws IOException
+	{
+		File file = folder.newFile();
+		map.save(file);
+
+		CollisionMap loaded = CollisionMap.load(file);
+		assertTrue(loaded.hasRegion(50 << 8 | 50));
+		for (int x = 3200; x < 3264; ++x)
+		{
+			for (int y = 3200; y < 3264; ++y)
+			{
+				assertEquals(map.getMovement(x, y, 0), loaded.getMovement(x, y, 0));
+			}
+		}
+	}
+}
@@ -27,10 +27,15 @@ package net.runelite.api;
 import java.awt.FontMetrics;
 import java.awt.Graphics2D;
 import java.awt.Polygon;
+import java.awt.Rectangle;
 import java.awt.Shape;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.PathIterator;
+import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -680,7 +685,8 @@ public class Perspective
 	 * @param orientation the orientation of the model (0-2048, where 0 is north)
 	 * @param x           x coord in local space
 	 * @param z           y coord in local space
-	 * @return the clickable area of the model
+	 * @return the clickable area of the model. The shape is read only, and the same instance may be
+	 * returned to other callers asking for the same clickbox until the camera or game cycle changes.
 	 */
 	@Nullable
 	@ApiStatus.Internal
@@ -691,160 +697,360 @@ public class Perspective
 			return null;
 		}
 
-		SimplePolygon bounds = calculateAABB(client, model, orientation, x, y, z);
+		return CLICKBOX_CONTEXT.get().getClickbox(client, model, orientation, x, y, z);
+	}
+
+	private static final ThreadLocal<ClickboxContext> CLICKBOX_CONTEXT = ThreadLocal.withInitial(ClickboxContext::new);
 
-		if (bounds == null)
+	/**
+	 * A view of a shape which hides the mutators of the underlying type, eg. {@link SimplePolygon#intersectWithConvex(SimplePolygon)}
+	 */
+	private static final class ReadOnlyShape implements Shape
+	{
+		private final Shape shape;
+
+		private ReadOnlyShape(Shape shape)
 		{
-			return null;
+			this.shape = shape;
 		}
 
-		if (model.isClickable())
+		@Override
+		public Rectangle getBounds()
 		{
-			return bounds;
+			return shape.getBounds();
 		}
 
-		Shapes<SimplePolygon> bounds2d = calculate2DBounds(client, model, orientation, x, y, z);
-		if (bounds2d == null)
+		@Override
+		public Rectangle2D getBounds2D()
 		{
-			return null;
+			return shape.getBounds2D();
 		}
 
-		for (SimplePolygon poly : bounds2d.getShapes())
+		@Override
+		public boolean contains(double x, double y)
 		{
-			poly.intersectWithConvex(bounds);
+			return shape.contains(x, y);
 		}
 
-		return bounds2d;
-	}
+		@Override
+		public boolean contains(Point2D p)
+		{
+			return shape.contains(p);
+		}
 
-	private static SimplePolygon calculateAABB(Client client, Model m, int jauOrient, int x, int y, int z)
-	{
-		m.calculateExtreme(jauOrient);
-
-		int x1 = m.getCenterX();
-		int y1 = m.getCenterZ();
-		int z1 = m.getCenterY();
-
-		int ex = m.getExtremeX();
-		int ey = m.getExtremeZ();
-		int ez = m.getExtremeY();
-
-		int x2 = x1 + ex;
-		int y2 = y1 + ey;
-		int z2 = z1 + ez;
-
-		x1 -= ex;
-		y1 -= ey;
-		z1 -= ez;
-
-		int[] xa = new int[]{
-			x1, x2, x1, x2,
-			x1, x2, x1, x2
-		};
-		int[] ya = new int[]{
-			y1, y1, y2, y2,
-			y1, y1, y2, y2
-		};
-		int[] za = new int[]{
-			z1, z1, z1, z1,
-			z2, z2, z2, z2
-		};
-
-		int[] x2d = new int[8];
-		int[] y2d = new int[8];
-
-		modelToCanvasCpu(client, 8, x, y, z, 0, xa, ya, za, x2d, y2d);
-
-		return Jarvis.convexHull(x2d, y2d);
+		@Override
+		public boolean intersects(double x, double y, double w, double h)
+		{
+			return shape.intersects(x, y, w, h);
+		}
+
+		@Override
+		public boolean intersects(Rectangle2D r)
+		{
+			return shape.intersects(r);
+		}
+
+		@Override
+		public boolean contains(double x, double y, double w, double h)
+		{
+			return shape.contains(x, y, w, h);
+		}
+
+		@Override
+		public boolean contains(Rectangle2D r)
+		{
+			return shape.contains(r);
+		}
+
+		@Override
+		public PathIterator getPathIterator(AffineTransform at)
+		{
+			return shape.getPathIterator(at);
+		}
+
+		@Override
+		public PathIterator getPathIterator(AffineTransform at, double flatness)
+		{
+			return shape.getPathIterator(at, flatness);
+		}
 	}
 
-	private static Shapes<SimplePolygon> calculate2DBounds(Client client, Model m, int jauOrient, int x, int y, int z)
+	/**
+	 * Thread confined clickbox calculator. Vertices are projected into scratch buffers which are
+	 * reused between calls, and the resulting shapes are cached for the current camera state, so
+	 * that several overlays asking for the same object's clickbox in a frame only compute it once.
+	 * The returned shapes are shared, so they are wrapped in a {@link ReadOnlyShape}.
+	 */
+	private static final class ClickboxContext
 	{
-		int[] x2d = new int[m.getVerticesCount()];
-		int[] y2d = new int[m.getVerticesCount()];
-		final int[] faceColors3 = m.getFaceColors3();
+		private static final int CACHE_SIZE = 256;
+		private static final Object NO_CLICKBOX = new Object();
+
+		private final int[] xa = new int[8];
+		private final int[] ya = new int[8];
+		private final int[] za = new int[8];
+		private final int[] aabbX2d = new int[8];
+		private final int[] aabbY2d = new int[8];
+
+		private int[] x2d = new int[0];
+		private int[] y2d = new int[0];
+		private final List<RectangleUnion.Rectangle> rects = new ArrayList<>();
+
+		private final Model[] cachedModels = new Model[CACHE_SIZE];
+		private final int[] cachedKeys = new int[CACHE_SIZE * 5];
+		private final Object[] cachedShapes = new Object[CACHE_SIZE];
+
+		// camera state the cache was built for
+		private Client client;
+		private int gameCycle;
+		private int cameraX, cameraY, cameraZ;
+		private int cameraPitch, cameraYaw, scale;
+		private int viewportWidth, viewportHeight, viewportXOffset, viewportYOffset;
+
+		Shape getClickbox(Client client, Model model, int orientation, int x, int y, int z)
+		{
+			validate(client);
+
+			final int fingerprint = fingerprint(model);
+			final int slot = (((System.identityHashCode(model) * 31 + orientation) * 31 + x) * 31 + y) * 31 + z & (CACHE_SIZE - 1);
+			final int k = slot * 5;
+			if (cachedModels[slot] == model
+				&& cachedKeys[k] == orientation
+				&& cachedKeys[k + 1] == x
+				&& cachedKeys[k + 2] == y
+				&& cachedKeys[k + 3] == z
+				&& cachedKeys[k + 4] == fingerprint)
+			{
+				Object shape = cachedShapes[slot];
+				return shape == NO_CLICKBOX ? null : (Shape) shape;
+			}
 
-		Perspective.modelToCanvasCpu(client,
-			m.getVerticesCount(),
-			x, y, z,
-			jauOrient,
-			m.getVerticesX(), m.getVerticesZ(), m.getVerticesY(),
-			x2d, y2d);
+			Shape shape = calculateClickbox(client, model, orientation, x, y, z);
 
-		final int radius = 5;
+			cachedModels[slot] = model;
+			cachedKeys[k] = orientation;
+			cachedKeys[k + 1] = x;
+			cachedKeys[k + 2] = y;
+			cachedKeys[k + 3] = z;
+			cachedKeys[k + 4] = fingerprint;
+			if (shape == null)
+			{
+				cachedShapes[slot] = NO_CLICKBOX;
+				return null;
+			}
 
-		int[][] tris = new int[][]{
-			m.getFaceIndices1(),
-			m.getFaceIndices2(),
-			m.getFaceIndices3()
-		};
+			shape = new ReadOnlyShape(shape);
+			cachedShapes[slot] = shape;
+			return shape;
+		}
 
-		int vpX1 = client.getViewportXOffset();
-		int vpY1 = client.getViewportXOffset();
-		int vpX2 = vpX1 + client.getViewportWidth();
-		int vpY2 = vpY1 + client.getViewportHeight();
+		/**
+		 * Clears the cache if the camera, viewport or game cycle has changed since it was populated.
+		 * Including the game cycle keeps animated models, which reuse their vertex buffers, from
+		 * returning a stale clickbox.
+		 */
+		private void validate(Client client)
+		{
+			final int gameCycle = client.getGameCycle();
+			final int cameraX = client.getCameraX();
+			final int cameraY = client.getCameraY();
+			final int cameraZ = client.getCameraZ();
+			final int cameraPitch = client.getCameraPitch();
+			final int cameraYaw = client.getCameraYaw();
+			final int scale = client.getScale();
+			final int viewportWidth = client.getViewportWidth();
+			final int viewportHeight = client.getViewportHeight();
+			final int viewportXOffset = client.getViewportXOffset();
+			final int viewportYOffset = client.getViewportYOffset();
+
+			if (this.client == client
+				&& this.gameCycle == gameCycle
+				&& this.cameraX == cameraX
+				&& this.cameraY == cameraY
+				&& this.cameraZ == cameraZ
+				&& this.cameraPitch == cameraPitch
+				&& this.cameraYaw == cameraYaw
+				&& this.scale == scale
+				&& this.viewportWidth == viewportWidth
+				&& this.viewportHeight == viewportHeight
+				&& this.viewportXOffset == viewportXOffset
+				&& this.viewportYOffset == viewportYOffset)
+			{
+				return;
+			}
 
-		List<RectangleUnion.Rectangle> rects = new ArrayList<>(m.getFaceCount());
+			this.client = client;
+			this.gameCycle = gameCycle;
+			this.cameraX = cameraX;
+			this.cameraY = cameraY;
+			this.cameraZ = cameraZ;
+			this.cameraPitch = cameraPitch;
+			this.cameraYaw = cameraYaw;
+			this.scale = scale;
+			this.viewportWidth = viewportWidth;
+			this.viewportHeight = viewportHeight;
+			this.viewportXOffset = viewportXOffset;
+			this.viewportYOffset = viewportYOffset;
+
+			Arrays.fill(cachedModels, null);
+			Arrays.fill(cachedShapes, null);
+		}
 
-		nextTri:
-		for (int tri = 0; tri < m.getFaceCount(); tri++)
+		/**
+		 * A cheap hash of the model geometry, used to detect models which have been modified in place
+		 */
+		private static int fingerprint(Model m)
 		{
-			if (faceColors3[tri] == -2)
+			final int count = m.getVerticesCount();
+			final int[] vx = m.getVerticesX();
+			final int[] vy = m.getVerticesY();
+			final int[] vz = m.getVerticesZ();
+
+			int h = count * 31 + m.getFaceCount();
+			h = h * 31 + System.identityHashCode(vx);
+			h = h * 31 + (m.isClickable() ? 1 : 0);
+			if (count > 0)
 			{
-				continue;
+				final int step = Math.max(1, count / 8);
+				for (int i = 0; i < count; i += step)
+				{
+					h = ((h * 31 + vx[i]) * 31 + vy[i]) * 31 + vz[i];
+				}
 			}
+			return h;
+		}
 
-			int
-				minX = Integer.MAX_VALUE,
-				minY = Integer.MAX_VALUE,
-				maxX = Integer.MIN_VALUE,
-				maxY = Integer.MIN_VALUE;
+		private Shape calculateClickbox(Client client, Model model, int orientation, int x, int y, int z)
+		{
+			SimplePolygon bounds = calculateAABB(client, model, orientation, x, y, z);
 
-			for (int[] vertex : tris)
+			if (bounds == null)
 			{
-				final int idx = vertex[tri];
-				final int xs = x2d[idx];
-				final int ys = y2d[idx];
+				return null;
+			}
 
-				if (xs == Integer.MIN_VALUE || ys == Integer.MIN_VALUE)
-				{
-					continue nextTri;
-				}
+			if (model.isClickable())
+			{
+				return bounds;
+			}
 
-				if (xs < minX)
-				{
-					minX = xs;
-				}
-				if (xs > maxX)
+			Shapes<SimplePolygon> bounds2d = calculate2DBounds(client, model, orientation, x, y, z);
+			if (bounds2d == null)
+			{
+				return null;
+			}
+
+			for (SimplePolygon poly : bounds2d.getShapes())
+			{
+				poly.intersectWithConvex(bounds);
+			}
+
+			return bounds2d;
+		}
+
+		private SimplePolygon calculateAABB(Client client, Model m, int jauOrient, int x, int y, int z)
+		{
+			m.calculateExtreme(jauOrient);
+
+			int x1 = m.getCenterX();
+			int y1 = m.getCenterZ();
+			int z1 = m.getCenterY();
+
+			int ex = m.getExtremeX();
+			int ey = m.getExtremeZ();
+			int ez = m.getExtremeY();
+
+			int x2 = x1 + ex;
+			int y2 = y1 + ey;
+			int z2 = z1 + ez;
+
+			x1 -= ex;
+			y1 -= ey;
+			z1 -= ez;
+
+			final int[] xa = this.xa, ya = this.ya, za = this.za;
+			for (int i = 0; i < 8; ++i)
+			{
+				xa[i] = (i & 1) == 0 ? x1 : x2;
+				ya[i] = (i & 2) == 0 ? y1 : y2;
+				za[i] = (i & 4) == 0 ? z1 : z2;
+			}
+
+			modelToCanvasCpu(client, 8, x, y, z, 0, xa, ya, za, aabbX2d, aabbY2d);
+
+			return Jarvis.convexHull(aabbX2d, aabbY2d);
+		}
+
+		private Shapes<SimplePolygon> calculate2DBounds(Client client, Model m, int jauOrient, int x, int y, int z)
+		{
+			final int vertexCount = m.getVerticesCount();
+			if (x2d.length < vertexCount)
+			{
+				x2d = new int[vertexCount];
+				y2d = new int[vertexCount];
+			}
+
+			final int[] x2d = this.x2d;
+			final int[] y2d = this.y2d;
+			final int[] faceColors3 = m.getFaceColors3();
+
+			modelToCanvasCpu(client,
+				vertexCount,
+				x, y, z,
+				jauOrient,
+				m.getVerticesX(), m.getVerticesZ(), m.getVerticesY(),
+				x2d, y2d);
+
+			final int radius = 5;
+
+			final int[] indices1 = m.getFaceIndices1();
+			final int[] indices2 = m.getFaceIndices2();
+			final int[] indices3 = m.getFaceIndices3();
+
+			int vpX1 = client.getViewportXOffset();
+			int vpY1 = client.getViewportYOffset();
+			int vpX2 = vpX1 + client.getViewportWidth();
+			int vpY2 = vpY1 + client.getViewportHeight();
+
+			final List<RectangleUnion.Rectangle> rects = this.rects;
+			rects.clear();
+
+			final int faceCount = m.getFaceCount();
+			for (int tri = 0; tri < faceCount; tri++)
+			{
+				if (faceColors3[tri] == -2)
 				{
-					maxX = xs;
+					continue;
 				}
-				if (ys < minY)
+
+				final int a = indices1[tri], b = indices2[tri], c = indices3[tri];
+				final int xa = x2d[a], xb = x2d[b], xc = x2d[c];
+				final int ya = y2d[a], yb = y2d[b], yc = y2d[c];
+
+				if (xa == Integer.MIN_VALUE || ya == Integer.MIN_VALUE
+					|| xb == Integer.MIN_VALUE || yb == Integer.MIN_VALUE
+					|| xc == Integer.MIN_VALUE || yc == Integer.MIN_VALUE)
 				{
-					minY = ys;
+					continue;
 				}
-				if (ys > maxY)
+
+				final int minX = Math.min(xa, Math.min(xb, xc)) - radius;
+				final int minY = Math.min(ya, Math.min(yb, yc)) - radius;
+				final int maxX = Math.max(xa, Math.max(xb, xc)) + radius;
+				final int maxY = Math.max(ya, Math.max(yb, yc)) + radius;
+
+				if (vpX1 > maxX || vpX2 < minX || vpY1 > maxY || vpY2 < minY)
 				{
-					maxY = ys;
+					continue;
 				}
-			}
-
-			minX -= radius;
-			minY -= radius;
-			maxX += radius;
-			maxY += radius;
 
-			if (vpX1 > maxX || vpX2 < minX || vpY1 > maxY || vpY2 < minY)
-			{
-				continue;
+				rects.add(new RectangleUnion.Rectangle(minX, minY, maxX, maxY));
 			}
 
-			RectangleUnion.Rectangle r = new RectangleUnion.Rectangle(minX, minY, maxX, maxY);
-
-			rects.add(r);
+			Shapes<SimplePolygon> union = RectangleUnion.union(rects);
+			rects.clear();
+			return union;
 		}
-
-		return RectangleUnion.union(rects);
 	}
 
 	/**
@@ -0,0 +1,284 @@
+/*
+ * Copyright (c) 2022, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.api.geometry;
+
+import java.awt.Shape;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.PathIterator;
+import java.awt.geom.Rectangle2D;
+import java.util.Arrays;
+
+/**
+ * A reusable list of line segments backed by a single float array. It replaces the
+ * {@link Geometry#clipPath}, {@link Geometry#splitIntoSegments} and {@link Geometry#transformPath}
+ * chain with a single pass that does not allocate once the destination has grown to size.
+ */
+public class LineSegments
+{
+	private static final int INITIAL_CAPACITY = 64;
+
+	private float[] coords = new float[INITIAL_CAPACITY * 4];
+	private int size;
+
+	/**
+	 * @return the number of segments
+	 */
+	public int size()
+	{
+		return size;
+	}
+
+	public boolean isEmpty()
+	{
+		return size == 0;
+	}
+
+	public void clear()
+	{
+		size = 0;
+	}
+
+	public float getX1(int i)
+	{
+		return coords[i * 4];
+	}
+
+	public float getY1(int i)
+	{
+		return coords[i * 4 + 1];
+	}
+
+	public float getX2(int i)
+	{
+		return coords[i * 4 + 2];
+	}
+
+	public float getY2(int i)
+	{
+		return coords[i * 4 + 3];
+	}
+
+	public void add(float x1, float y1, float x2, float y2)
+	{
+		int i = size * 4;
+		if (i + 4 > coords.length)
+		{
+			// grow geometrically, so adding n segments copies O(n) coordinates
+			coords = Arrays.copyOf(coords, coords.length * 2);
+		}
+
+		coords[i] = x1;
+		coords[i + 1] = y1;
+		coords[i + 2] = x2;
+		coords[i + 3] = y2;
+		size++;
+	}
+
+	/**
+	 * Appends the outline of a shape. Curves are flattened.
+	 */
+	public void addShape(Shape shape)
+	{
+		PathIterator it = shape.getPathIterator(null, 1);
+		float[] c = new float[6];
+		float startX = 0, startY = 0, prevX = 0, prevY = 0;
+		while (!it.isDone())
+		{
+			switch (it.currentSegment(c))
+			{
+				case PathIterator.SEG_MOVETO:
+					startX = prevX = c[0];
+					startY = prevY = c[1];
+					break;
+				case PathIterator.SEG_LINETO:
+					add(prevX, prevY, c[0], c[1]);
+					prevX = c[0];
+					prevY = c[1];
+					break;
+				case PathIterator.SEG_CLOSE:
+					if (prevX != startX || prevY != startY)
+					{
+						add(prevX, prevY, startX, startY);
+					}
+					prevX = startX;
+					prevY = startY;
+					break;
+			}
+			it.next();
+		}
+	}
+
+	/**
+	 * Clips every segment to a rectangle, splits what remains into pieces no longer
+	 * than {@code segmentLength}, transforms the end points, and appends the results
+	 * to {@code dest}.
+	 *
+	 * @param clip          the area to keep, or null to keep everything
+	 * @param segmentLength the maximum length of the output segments, or 0 to not split
+	 * @param transform     the transform to apply after clipping, or null for none
+	 * @param dest          where to append the segments; must not be this
+	 */
+	public void clipSplitTransform(Rectangle2D clip, float segmentLength, AffineTransform transform, LineSegments dest)
+	{
+		assert dest != this;
+
+		final double m00, m01, m02, m10, m11, m12;
+		if (transform != null)
+		{
+			m00 = transform.getScaleX();
+			m01 = transform.getShearX();
+			m02 = transform.getTranslateX();
+			m10 = transform.getShearY();
+			m11 = transform.getScaleY();
+			m12 = transform.getTranslateY();
+		}
+		else
+		{
+			m00 = m11 = 1;
+			m01 = m02 = m10 = m12 = 0;
+		}
+
+		final float minX, minY, maxX, maxY;
+		if (clip != null)
+		{
+			minX = (float) clip.getMinX();
+			minY = (float) clip.getMinY();
+			maxX = (float) clip.getMaxX();
+			maxY = (float) clip.getMaxY();
+		}
+		else
+		{
+			minX = minY = maxX = maxY = 0;
+		}
+
+		for (int i = 0; i < size; i++)
+		{
+			float x1 = getX1(i), y1 = getY1(i), x2 = getX2(i), y2 = getY2(i);
+			final float dx = x2 - x1, dy = y2 - y1;
+
+			if (clip != null)
+			{
+				// Liang-Barsky
+				float t0 = 0, t1 = 1;
+				boolean outside = false;
+				for (int e = 0; e < 4; e++)
+				{
+					final float p, q;
+					switch (e)
+					{
+						case 0:
+							p = -dx;
+							q = x1 - minX;
+							break;
+						case 1:
+							p = dx;
+							q = maxX - x1;
+							break;
+						case 2:
+							p = -dy;
+							q = y1 - minY;
+							break;
+						default:
+							p = dy;
+							q = maxY - y1;
+							break;
+					}
+
+					if (p == 0)
+					{
+						if (q < 0)
+						{
+							outside = true;
+							break;
+						}
+						continue;
+					}
+
+					float r = q / p;
+					if (p < 0)
+					{
+						t0 = Math.max(t0, r);
+					}
+					else
+					{
+						t1 = Math.min(t1, r);
+					}
+				}
+
+				if (outside || t0 > t1 || (t0 == t1 && (dx != 0 || dy != 0)))
+				{
+					continue;
+				}
+
+				if (t1 < 1)
+				{
+					x2 = x1 + t1 * dx;
+					y2 = y1 + t1 * dy;
+				}
+				if (t0 > 0)
+				{
+					x1 += t0 * dx;
+					y1 += t0 * dy;
+				}
+			}
+
+			int steps = 0;
+			float sx = 0, sy = 0;
+			if (segmentLength > 0)
+			{
+				float length = (float) Math.hypot(x2 - x1, y2 - y1);
+				steps = (int) ((length - 1e-4) / segmentLength);
+				if (steps > 0)
+				{
+					sx = (x2 - x1) / length * segmentLength;
+					sy = (y2 - y1) / length * segmentLength;
+				}
+			}
+
+			float px = x1, py = y1;
+			float tx = (float) (m00 * px + m01 * py + m02);
+			float ty = (float) (m10 * px + m11 * py + m12);
+			for (int s = 0; s <= steps; s++)
+			{
+				if (s == steps)
+				{
+					px = x2;
+					py = y2;
+				}
+				else
+				{
+					px += sx;
+					py += sy;
+				}
+
+				float nx = (float) (m00 * px + m01 * py + m02);
+				float ny = (float) (m10 * px + m11 * py + m12);
+				dest.add(tx, ty, nx, ny);
+				tx = nx;
+				ty = ny;
+			}
+		}
+	}
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2022, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.api;
+
+import java.awt.Rectangle;
+import java.awt.Shape;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+import net.runelite.api.geometry.Shapes;
+import net.runelite.api.geometry.SimplePolygon;
+import org.junit.Assert;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PerspectiveTest
+{
+	private final Map<String, Object> clientState = new HashMap<>();
+	private final Map<String, Object> modelState = new HashMap<>();
+
+	private Client client;
+	private Model model;
+
+	@Before
+	public void before()
+	{
+		clientState.put("getCameraX", 0);
+		clientState.put("getCameraY", -1000);
+		clientState.put("getCameraZ", 0);
+		clientState.put("getCameraPitch", 0);
+		clientState.put("getCameraYaw", 0);
+		clientState.put("getScale", 512);
+		clientState.put("getViewportWidth", 512);
+		clientState.put("getViewportHeight", 334);
+		clientState.put("getViewportXOffset", 0);
+		clientState.put("getViewportYOffset", 0);
+		clientState.put("getGameCycle", 0);
+		client = stub(Client.class, clientState);
+
+		// a 100x100x100 cube centered on the origin
+		int[] vx = new int[8], vy = new int[8], vz = new int[8];
+		for (int i = 0; i < 8; ++i)
+		{
+			vx[i] = (i & 1) == 0 ? -50 : 50;
+			vy[i] = (i & 2) == 0 ? -50 : 50;
+			vz[i] = (i & 4) == 0 ? -50 : 50;
+		}
+
+		modelState.put("getVerticesCount", 8);
+		modelState.put("getVerticesX", vx);
+		modelState.put("getVerticesY", vy);
+		modelState.put("getVerticesZ", vz);
+		modelState.put("getFaceCount", 2);
+		modelState.put("getFaceIndices1", new int[]{0, 4});
+		modelState.put("getFaceIndices2", new int[]{1, 5});
+		modelState.put("getFaceIndices3", new int[]{2, 6});
+		modelState.put("getFaceColors3", new int[]{0, 0});
+		modelState.put("getCenterX", 0);
+		modelState.put("getCenterY", 0);
+		modelState.put("getCenterZ", 0);
+		modelState.put("getExtremeX", 50);
+		modelState.put("getExtremeY", 50);
+		modelState.put("getExtremeZ", 50);
+		modelState.put("isClickable", false);
+		model = stub(Model.class, modelState);
+	}
+
+	@Test
+	public void testClickbox()
+	{
+		Shape clickbox = Perspective.getClickbox(client, model, 0, 0, 0, 0);
+		assertNotNull(clickbox);
+
+		Rectangle bounds = clickbox.getBounds();
+		Assert.assertTrue(bounds.contains(256, 167));
+		Assert.assertTrue(bounds.width > 0 && bounds.height > 0);
+
+		// the clickbox is shared, so it must not expose the mutable geometry types
+		Assert.assertFalse(clickbox instanceof SimplePolygon);
+		Assert.assertFalse(clickbox instanceof Shapes);
+	}
+
+	@Test
+	public void testClickboxCached()
+	{
+		Shape clickbox = Perspective.getClickbox(client, model, 0, 0, 0, 0);
+		assertSame(clickbox, Perspective.getClickbox(client, model, 0, 0, 0, 0));
+
+		// a different position is a different entry
+		assertNotSame(clickbox, Perspective.getClickbox(client, model, 0, 10, 0, 0));
+	}
+
+	@Test
+	public void testClickboxInvalidatedByCamera()
+	{
+		Shape clickbox = Perspective.getClickbox(client, model, 0, 0, 0, 0);
+
+		clientState.put("getCameraYaw", 100);
+		Shape moved = Perspective.getClickbox(client, model, 0, 0, 0, 0);
+		assertNotSame(clickbox, moved);
+		Assert.assertNotEquals(clickbox.getBounds(), moved.getBounds());
+
+		clientState.put("getGameCycle", 1);
+		assertNotSame(moved, Perspective.getClickbox(client, model, 0, 0, 0, 0));
+	}
+
+	@Test
+	public void testClickboxInvalidatedByModelChange()
+	{
+		Shape clickbox = Perspective.getClickbox(client, model, 0, 0, 0, 0);
+
+		int[] vx = (int[]) modelState.get("getVerticesX");
+		vx[1] = 100;
+		assertNotSame(clickbox, Perspective.getClickbox(client, model, 0, 0, 0, 0));
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> T stub(Class<T> clazz, Map<String, Object> state)
+	{
+		return (T) Proxy.newProxyInstance(clazz.getClassLoader(), new Class<?>[]{clazz}, (proxy, method, args) ->
+		{
+			switch (method.getName())
+			{
+				case "hashCode":
+					return System.identityHashCode(proxy);
+				case "equals":
+					return proxy == args[0];
+				case "toString":
+					return clazz.getSimpleName();
+			}
+			return state.get(method.getName());
+		});
+	}
+}
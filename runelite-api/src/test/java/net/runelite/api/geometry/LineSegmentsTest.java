@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2022, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.api.geometry;
+
+import java.awt.Rectangle;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.GeneralPath;
+import java.awt.geom.PathIterator;
+import java.awt.geom.Rectangle2D;
+import org.junit.Assert;
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+public class LineSegmentsTest
+{
+	private static final float EPSILON = 1e-4f;
+
+	@Test
+	public void testAddShape()
+	{
+		LineSegments lines = new LineSegments();
+		lines.addShape(new Rectangle(0, 0, 4, 2));
+		assertEquals(4, lines.size());
+
+		float length = 0;
+		for (int i = 0; i < lines.size(); i++)
+		{
+			length += Math.hypot(lines.getX2(i) - lines.getX1(i), lines.getY2(i) - lines.getY1(i));
+		}
+		assertEquals(12, length, EPSILON);
+	}
+
+	@Test
+	public void testClipSplitTransform()
+	{
+		LineSegments lines = new LineSegments();
+		lines.add(-2, 1, 6, 1);
+		lines.add(10, 10, 12, 12);
+
+		LineSegments out = new LineSegments();
+		lines.clipSplitTransform(new Rectangle(0, 0, 4, 4), 1, AffineTransform.getScaleInstance(2, 2), out);
+
+		// the first line is clipped to x 0-4 and split into 4, the second is outside
+		assertEquals(4, out.size());
+		for (int i = 0; i < out.size(); i++)
+		{
+			assertEquals(i * 2, out.getX1(i), EPSILON);
+			assertEquals(i * 2 + 2, out.getX2(i), EPSILON);
+			assertEquals(2, out.getY1(i), EPSILON);
+			assertEquals(2, out.getY2(i), EPSILON);
+		}
+	}
+
+	@Test
+	public void testMatchesGeometry()
+	{
+		Rectangle shape = new Rectangle(3, 3, 10, 5);
+		Rectangle clip = new Rectangle(5, 0, 20, 20);
+
+		GeneralPath expected = Geometry.splitIntoSegments(Geometry.clipPath(new GeneralPath(shape), clip), 1);
+
+		LineSegments lines = new LineSegments();
+		lines.addShape(shape);
+		LineSegments out = new LineSegments();
+		lines.clipSplitTransform(clip, 1, null, out);
+
+		Rectangle2D bounds = new Rectangle2D.Float(out.getX1(0), out.getY1(0), 0, 0);
+		for (int i = 0; i < out.size(); i++)
+		{
+			bounds.add(out.getX1(i), out.getY1(i));
+			bounds.add(out.getX2(i), out.getY2(i));
+		}
+
+		Assert.assertEquals(expected.getBounds2D(), bounds);
+		assertEquals(count(expected), out.size());
+	}
+
+	@Test
+	public void testGrow()
+	{
+		LineSegments lines = new LineSegments();
+		for (int i = 0; i < 1000; i++)
+		{
+			lines.add(i, 0, i + 1, 0);
+		}
+
+		assertEquals(1000, lines.size());
+		for (int i = 0; i < lines.size(); i++)
+		{
+			assertEquals(i, lines.getX1(i), EPSILON);
+			assertEquals(i + 1, lines.getX2(i), EPSILON);
+		}
+	}
+
+	private static int count(GeneralPath path)
+	{
+		int lines = 0;
+		for (PathIterator it = path.getPathIterator(null); !it.isDone(); it.next())
+		{
+			if (it.currentSegment(new float[6]) != PathIterator.SEG_MOVETO)
+			{
+				++lines;
+			}
+		}
+		return lines;
+	}
+}
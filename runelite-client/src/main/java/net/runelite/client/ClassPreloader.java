@@ -24,16 +24,74 @@
  */
 package net.runelite.client;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
 import net.runelite.client.ui.FontManager;
 
 /**
  * Loads some slow to initialize classes (hopefully) before they are needed to streamline client startup
  */
 @SuppressWarnings({"ResultOfMethodCallIgnored", "unused"})
+@Slf4j
 class ClassPreloader
 {
+	/**
+	 * Load the classes which were loaded during a traced startup of this version of the client, see
+	 * {@link StartupTrace}. Classes are loaded but not initialized, so this has no side effects.
+	 */
+	static void preloadClassList()
+	{
+		if (!StartupTrace.CLASS_LIST.exists())
+		{
+			return;
+		}
+
+		final long start = System.nanoTime();
+		final List<String> classes;
+		try
+		{
+			classes = Files.readAllLines(StartupTrace.CLASS_LIST.toPath(), StandardCharsets.UTF_8);
+		}
+		catch (IOException ex)
+		{
+			log.warn("unable to read class list", ex);
+			return;
+		}
+
+		if (classes.isEmpty() || !classes.get(0).equals(classListHeader()))
+		{
+			log.debug("Class list is from a different version, ignoring");
+			return;
+		}
+
+		final ClassLoader classLoader = ClassPreloader.class.getClassLoader();
+		int loaded = 0;
+		for (String name : classes.subList(1, classes.size()))
+		{
+			try
+			{
+				Class.forName(name, false, classLoader);
+				++loaded;
+			}
+			catch (ClassNotFoundException | LinkageError ex)
+			{
+				// the list can be out of date for development builds
+			}
+		}
+
+		log.debug("Preloaded {} classes in {}ms", loaded, (System.nanoTime() - start) / 1_000_000);
+	}
+
+	static String classListHeader()
+	{
+		return "# " + RuneLiteProperties.getVersion() + "-" + RuneLiteProperties.getCommit();
+	}
+
 	static void preload()
 	{
 		// This needs to enumerate the system fonts for some reason, and that takes a while
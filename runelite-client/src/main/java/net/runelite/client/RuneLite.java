@@ -159,6 +159,7 @@ public class RuneLite
 		parser.accepts("debug", "Show extra debugging output");
 		parser.accepts("safe-mode", "Disables external plugins and the GPU plugin");
 		parser.accepts("insecure-skip-tls-verification", "Disables TLS verification");
+		parser.accepts("trace-startup", "Write a trace of client startup to the logs directory, and record the classes it loads");
 		parser.accepts("jav_config", "jav_config url")
 			.withRequiredArg()
 			.defaultsTo(RuneLiteProperties.getJavConfig());
@@ -196,6 +197,11 @@ public class RuneLite
 			System.exit(0);
 		}
 
+		if (options.has("trace-startup"))
+		{
+			StartupTrace.enable();
+		}
+
 		if (options.has("debug"))
 		{
 			final Logger logger = (Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME);
@@ -228,6 +234,14 @@ public class RuneLite
 				ClassPreloader.preload();
 			}, "Preloader").start();
 
+			if (!StartupTrace.isEnabled())
+			{
+				// when tracing, let classes load when they are needed so the class list stays accurate
+				Thread classPreloader = new Thread(ClassPreloader::preloadClassList, "Class preloader");
+				classPreloader.setDaemon(true);
+				classPreloader.start();
+			}
+
 			final boolean developerMode = options.has("developer-mode") && RuneLiteProperties.getLauncherVersion() == null;
 
 			if (developerMode)
@@ -253,14 +267,17 @@ public class RuneLite
 
 			final long start = System.currentTimeMillis();
 
-			injector = Guice.createInjector(new RuneLiteModule(
-				okHttpClient,
-				clientLoader,
-				runtimeConfigLoader,
-				developerMode,
-				options.has("safe-mode"),
-				options.valueOf(sessionfile),
-				options.valueOf(configfile)));
+			try (StartupTrace.Span span = StartupTrace.span("startup", "Create injector"))
+			{
+				injector = Guice.createInjector(new RuneLiteModule(
+					okHttpClient,
+					clientLoader,
+					runtimeConfigLoader,
+					developerMode,
+					options.has("safe-mode"),
+					options.valueOf(sessionfile),
+					options.valueOf(configfile)));
+			}
 
 			injector.getInstance(RuneLite.class).start();
 
@@ -268,6 +285,8 @@ public class RuneLite
 			final RuntimeMXBean rb = ManagementFactory.getRuntimeMXBean();
 			final long uptime = rb.getUptime();
 			log.info("Client initialization took {}ms. Uptime: {}ms", end - start, uptime);
+
+			StartupTrace.finish();
 		}
 		catch (Exception e)
 		{
@@ -307,7 +326,7 @@ public class RuneLite
 			System.setProperty("jagex.disableBouncyCastle", "true");
 			// Change user.home so the client places jagexcache in the .runelite directory
 			String oldHome = System.setProperty("user.home", RUNELITE_DIR.getAbsolutePath());
-			try
+			try (StartupTrace.Span span = StartupTrace.span("startup", "Init applet"))
 			{
 				applet.init();
 			}
@@ -321,20 +340,26 @@ public class RuneLite
 
 		SplashScreen.stage(.57, null, "Loading configuration");
 
-		// Load user configuration
-		configManager.load();
+		try (StartupTrace.Span span = StartupTrace.span("startup", "Load configuration"))
+		{
+			// Load user configuration
+			configManager.load();
 
-		// Load the session, including saved configuration
-		sessionManager.loadSession();
+			// Load the session, including saved configuration
+			sessionManager.loadSession();
+		}
 
 		// Tell the plugin manager if client is outdated or not
 		pluginManager.setOutdated(isOutdated);
 
 		// Load the plugins, but does not start them yet.
 		// This will initialize configuration
-		pluginManager.loadCorePlugins();
-		pluginManager.loadSideLoadPlugins();
-		externalPluginManager.loadExternalPlugins();
+		try (StartupTrace.Span span = StartupTrace.span("startup", "Load plugins"))
+		{
+			pluginManager.loadCorePlugins();
+			pluginManager.loadSideLoadPlugins();
+			externalPluginManager.loadExternalPlugins();
+		}
 
 		SplashScreen.stage(.70, null, "Finalizing configuration");
 
@@ -349,7 +374,10 @@ public class RuneLite
 		SplashScreen.stage(.75, null, "Starting core interface");
 
 		// Initialize UI
-		clientUI.init();
+		try (StartupTrace.Span span = StartupTrace.span("startup", "Init UI"))
+		{
+			clientUI.init();
+		}
 
 		// Initialize Discord service
 		discordService.init();
@@ -371,7 +399,10 @@ public class RuneLite
 		}
 
 		// Start plugins
-		pluginManager.startPlugins();
+		try (StartupTrace.Span span = StartupTrace.span("startup", "Start plugins"))
+		{
+			pluginManager.startPlugins();
+		}
 
 		SplashScreen.stop();
 
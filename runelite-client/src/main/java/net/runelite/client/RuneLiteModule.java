@@ -54,6 +54,7 @@ import net.runelite.client.eventbus.EventBus;
 import net.runelite.client.game.ItemManager;
 import net.runelite.client.menus.MenuManager;
 import net.runelite.client.plugins.PluginManager;
+import net.runelite.client.profiler.Profiler;
 import net.runelite.client.task.Scheduler;
 import net.runelite.client.util.DeferredEventBus;
 import net.runelite.client.util.ExecutorServiceExceptionLogger;
@@ -126,8 +127,11 @@ public class RuneLiteModule extends AbstractModule
 
 		bind(Callbacks.class).to(Hooks.class);
 
+		final Profiler profiler = new Profiler();
+		bind(Profiler.class).toInstance(profiler);
+
 		bind(EventBus.class)
-			.toInstance(new EventBus());
+			.toInstance(new EventBus(profiler));
 
 		bind(EventBus.class)
 			.annotatedWith(Names.named("Deferred EventBus"))
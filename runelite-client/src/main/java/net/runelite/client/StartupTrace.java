@@ -0,0 +1,209 @@
+/*
+ * Copyright (c) 2022, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Records timed spans of client startup, enabled with {@code --trace-startup}. When startup finishes the
+ * spans are written to the logs directory in the Chrome trace event format, which can be opened in
+ * chrome://tracing or Perfetto, along with a list of the classes loaded during startup which
+ * {@link ClassPreloader} loads ahead of time on later launches.
+ */
+@Slf4j
+public final class StartupTrace
+{
+	static final File CLASS_LIST = new File(RuneLite.CACHE_DIR, "preload.txt");
+	private static final File TRACE_FILE = new File(RuneLite.LOGS_DIR, "startup-trace.json");
+
+	private static final Span NOOP = () ->
+	{
+	};
+
+	/**
+	 * A timed region of startup, recorded when closed
+	 */
+	public interface Span extends AutoCloseable
+	{
+		@Override
+		void close();
+	}
+
+	@AllArgsConstructor
+	private static class TraceEvent
+	{
+		private String name;
+		private String cat;
+		private String ph;
+		private long ts;
+		private Long dur;
+		private int pid;
+		private long tid;
+		private Map<String, String> args;
+	}
+
+	// nanoTime at jvm start, so span times line up with the jvm uptime
+	private static final long ORIGIN = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(ManagementFactory.getRuntimeMXBean().getUptime());
+	private static final Queue<TraceEvent> events = new ConcurrentLinkedQueue<>();
+	private static final Map<Long, String> threads = Collections.synchronizedMap(new HashMap<>());
+
+	private static volatile boolean enabled;
+
+	private StartupTrace()
+	{
+	}
+
+	static void enable()
+	{
+		enabled = true;
+	}
+
+	public static boolean isEnabled()
+	{
+		return enabled;
+	}
+
+	/**
+	 * Start a span, to be closed with try-with-resources
+	 *
+	 * @param category the stage of startup, eg. "plugin"
+	 * @param name what is being timed
+	 */
+	public static Span span(String category, String name)
+	{
+		if (!enabled)
+		{
+			return NOOP;
+		}
+
+		final long start = System.nanoTime();
+		return () ->
+		{
+			final long end = System.nanoTime();
+			final Thread thread = Thread.currentThread();
+			threads.putIfAbsent(thread.getId(), thread.getName());
+			events.add(new TraceEvent(name, category, "X", micros(start), (end - start) / 1000, 1, thread.getId(), null));
+		};
+	}
+
+	/**
+	 * Write the trace and class list, and stop tracing
+	 */
+	static void finish()
+	{
+		if (!enabled)
+		{
+			return;
+		}
+		enabled = false;
+
+		List<TraceEvent> trace = new ArrayList<>(events);
+		synchronized (threads)
+		{
+			threads.forEach((id, name) -> trace.add(new TraceEvent("thread_name", null, "M", 0, null, 1, id,
+				Collections.singletonMap("name", name))));
+		}
+
+		Gson gson = new GsonBuilder().disableHtmlEscaping().create();
+		try (Writer writer = Files.newBufferedWriter(TRACE_FILE.toPath(), StandardCharsets.UTF_8))
+		{
+			gson.toJson(Collections.singletonMap("traceEvents", trace), writer);
+			log.info("Wrote startup trace to {}", TRACE_FILE);
+		}
+		catch (IOException ex)
+		{
+			log.warn("unable to write startup trace", ex);
+		}
+
+		writeClassList();
+	}
+
+	private static void writeClassList()
+	{
+		Object[] classes;
+		try
+		{
+			// there is no api for this short of an agent, and this is only done when asked for
+			Field field = ClassLoader.class.getDeclaredField("classes");
+			field.setAccessible(true);
+			Collection<?> loaded = (Collection<?>) field.get(StartupTrace.class.getClassLoader());
+			synchronized (loaded)
+			{
+				classes = loaded.toArray();
+			}
+		}
+		catch (ReflectiveOperationException | RuntimeException ex)
+		{
+			log.warn("unable to list loaded classes; add --add-opens=java.base/java.lang=ALL-UNNAMED to the jvm arguments", ex);
+			return;
+		}
+
+		List<String> lines = new ArrayList<>(classes.length + 1);
+		lines.add(ClassPreloader.classListHeader());
+		for (Object clazz : classes)
+		{
+			String name = ((Class<?>) clazz).getName();
+			// generated classes can't be loaded by name
+			if (!name.contains("$$"))
+			{
+				lines.add(name);
+			}
+		}
+
+		try
+		{
+			Files.write(CLASS_LIST.toPath(), lines, StandardCharsets.UTF_8);
+			log.info("Wrote {} classes to {}", lines.size() - 1, CLASS_LIST);
+		}
+		catch (IOException ex)
+		{
+			log.warn("unable to write class list", ex);
+		}
+	}
+
+	private static long micros(long nanos)
+	{
+		return (nanos - ORIGIN) / 1000;
+	}
+}
@@ -24,96 +24,380 @@
  */
 package net.runelite.client.callback;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.inject.Inject;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.function.BooleanSupplier;
+import java.util.function.LongSupplier;
 import javax.inject.Singleton;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.api.Client;
+import net.runelite.api.GameState;
+import net.runelite.client.profiler.Profiler;
 
+/**
+ * Runs tasks on the client thread. Queued tasks are run once per client cycle in order of
+ * {@link Priority}, until the cycle's time budget is spent; the remaining tasks are run on
+ * the following cycles. Idle tasks which have been kept waiting for several cycles by a steady
+ * stream of other tasks are run one at a time regardless of the budget, so they are not starved.
+ * <p>
+ * A task which returns false is deferred until the next game tick or game state change, or
+ * until a back-off of a few cycles has passed, rather than being retried every cycle.
+ */
 @Singleton
 @Slf4j
 public class ClientThread
 {
-	private final ConcurrentLinkedQueue<BooleanSupplier> invokes = new ConcurrentLinkedQueue<>();
+	private static final long FRAME_BUDGET_NANOS = TimeUnit.MILLISECONDS.toNanos(4);
+	private static final int MAX_BACKOFF_CYCLES = 8;
+	// cycles without time left for idle tasks before one is run anyway
+	private static final int MAX_IDLE_WAIT_CYCLES = 8;
 
-	@Inject
-	private Client client;
+	public enum Priority
+	{
+		/**
+		 * Run on the next client cycle
+		 */
+		FRAME,
+		/**
+		 * Run after the next game tick has been processed
+		 */
+		TICK,
+		/**
+		 * Run when a client cycle has time left after the other tasks have run
+		 */
+		IDLE,
+	}
 
-	public void invoke(Runnable r)
+	/**
+	 * A snapshot of the client thread's queues and time budget overruns
+	 */
+	@Value
+	public static class Stats
 	{
-		invoke(() ->
+		int frameTasks;
+		int tickTasks;
+		int idleTasks;
+		int deferredTasks;
+		/**
+		 * The number of cycles in which tasks ran past the time budget
+		 */
+		long overruns;
+		long overrunNanos;
+		long maxOverrunNanos;
+	}
+
+	@RequiredArgsConstructor
+	private static class Task
+	{
+		private final BooleanSupplier supplier;
+		private final Priority priority;
+		private int backoff;
+		private long rearmCycle;
+
+		@Override
+		public String toString()
 		{
-			r.run();
+			return supplier.toString();
+		}
+	}
+
+	/**
+	 * Wraps a {@link Runnable} so that it can still be identified by the profiler
+	 */
+	@RequiredArgsConstructor
+	private static class RunnableTask implements BooleanSupplier
+	{
+		private final Runnable runnable;
+
+		@Override
+		public boolean getAsBoolean()
+		{
+			runnable.run();
 			return true;
-		});
+		}
+
+		@Override
+		public String toString()
+		{
+			return runnable.toString();
+		}
+	}
+
+	private final Client client;
+	private final Profiler profiler;
+	private final LongSupplier nanoTime;
+
+	private final Queue<Task> frameTasks = new ConcurrentLinkedQueue<>();
+	// tick tasks wait in pendingTickTasks until the next game tick
+	private final Queue<Task> pendingTickTasks = new ConcurrentLinkedQueue<>();
+	private final Queue<Task> tickTasks = new ArrayDeque<>();
+	private final Queue<Task> idleTasks = new ConcurrentLinkedQueue<>();
+	private final List<Task> deferredTasks = new ArrayList<>();
+
+	private long cycle;
+	private int lastTick = -1;
+	private GameState lastGameState;
+	private int idleWaitCycles;
+
+	// stats, written by the client thread and read by getStats. The tick and deferred task queues may only be
+	// used on the client thread, so their sizes are recorded at the end of each cycle.
+	private volatile int tickTaskCount;
+	private volatile int deferredTaskCount;
+	private volatile long overruns;
+	private volatile long overrunNanos;
+	private volatile long maxOverrunNanos;
+
+	@Inject
+	private ClientThread(Client client, Profiler profiler)
+	{
+		this(client, profiler, System::nanoTime);
+	}
+
+	@VisibleForTesting
+	ClientThread(Client client, Profiler profiler, LongSupplier nanoTime)
+	{
+		this.client = client;
+		this.profiler = profiler;
+		this.nanoTime = nanoTime;
+	}
+
+	public void invoke(Runnable r)
+	{
+		invoke(new RunnableTask(r));
 	}
 
 	/**
 	 * Will run r on the game thread, at a unspecified point in the future.
-	 * If r returns false, r will be ran again, at a later point
+	 * If r returns false, r will be ran again on the next game tick or game state change, or after
+	 * backing off for up to 8 client cycles, rather than on the next cycle
 	 */
 	public void invoke(BooleanSupplier r)
+	{
+		invoke(Priority.FRAME, r);
+	}
+
+	/**
+	 * Will run r on the game thread, immediately if this is the game thread, otherwise when tasks
+	 * of the given priority are run.
+	 * If r returns false, r will be ran again later, as with {@link #invoke(BooleanSupplier)}
+	 */
+	public void invoke(Priority priority, BooleanSupplier r)
 	{
 		if (client.isClientThread())
 		{
 			if (!r.getAsBoolean())
 			{
-				invokes.add(r);
+				defer(new Task(r, priority));
 			}
 			return;
 		}
 
-		invokeLater(r);
+		invokeLater(priority, r);
 	}
 
 	/**
 	 * Will run r on the game thread after this method returns
-	 * If r returns false, r will be ran again, at a later point
+	 * If r returns false, r will be ran again later, as with {@link #invoke(BooleanSupplier)}
 	 */
 	public void invokeLater(Runnable r)
 	{
-		invokeLater(() ->
-		{
-			r.run();
-			return true;
-		});
+		invokeLater(new RunnableTask(r));
 	}
 
 	public void invokeLater(BooleanSupplier r)
 	{
-		invokes.add(r);
+		invokeLater(Priority.FRAME, r);
+	}
+
+	/**
+	 * Will run r on the game thread after this method returns, when tasks of the given priority are run
+	 */
+	public void invokeLater(Priority priority, Runnable r)
+	{
+		invokeLater(priority, new RunnableTask(r));
+	}
+
+	/**
+	 * Will run r on the game thread after this method returns, when tasks of the given priority are run.
+	 * If r returns false, r will be ran again later, as with {@link #invoke(BooleanSupplier)}
+	 */
+	public void invokeLater(Priority priority, BooleanSupplier r)
+	{
+		queue(new Task(r, priority));
+	}
+
+	public Stats getStats()
+	{
+		return new Stats(frameTasks.size(), pendingTickTasks.size() + tickTaskCount, idleTasks.size(), deferredTaskCount,
+			overruns, overrunNanos, maxOverrunNanos);
 	}
 
 	void invoke()
 	{
 		assert client.isClientThread();
-		Iterator<BooleanSupplier> ir = invokes.iterator();
-		while (ir.hasNext())
+		final long start = nanoTime.getAsLong();
+		final long deadline = start + FRAME_BUDGET_NANOS;
+		++cycle;
+
+		final int tick = client.getTickCount();
+		final GameState gameState = client.getGameState();
+		final boolean newTick = tick != lastTick;
+		final boolean wake = newTick || gameState != lastGameState;
+		lastTick = tick;
+		lastGameState = gameState;
+
+		rearm(wake);
+
+		if (newTick)
 		{
-			BooleanSupplier r = ir.next();
-			boolean remove = true;
-			try
+			Task task;
+			while ((task = pendingTickTasks.poll()) != null)
 			{
-				remove = r.getAsBoolean();
+				tickTasks.add(task);
 			}
-			catch (ThreadDeath d)
+		}
+
+		// tasks queued while running are left for the next cycle
+		boolean withinBudget = run(frameTasks, frameTasks.size(), deadline, true)
+			&& run(tickTasks, tickTasks.size(), deadline, false);
+		if (withinBudget)
+		{
+			run(idleTasks, idleTasks.size(), deadline, false);
+			idleWaitCycles = 0;
+		}
+		else if (!idleTasks.isEmpty() && ++idleWaitCycles >= MAX_IDLE_WAIT_CYCLES)
+		{
+			// the other tasks have used up the budget for too long, run an idle task anyway
+			run(idleTasks, 1, deadline, true);
+			idleWaitCycles = 0;
+		}
+
+		final long overrun = nanoTime.getAsLong() - deadline;
+		if (overrun > 0)
+		{
+			++overruns;
+			overrunNanos += overrun;
+			maxOverrunNanos = Math.max(maxOverrunNanos, overrun);
+		}
+
+		tickTaskCount = tickTasks.size();
+		deferredTaskCount = deferredTasks.size();
+	}
+
+	/**
+	 * Runs up to count tasks from the queue, stopping once the deadline has passed
+	 *
+	 * @param runFirst run the first task even if the deadline has passed, so that the queue always makes progress
+	 * @return true if the deadline has not passed
+	 */
+	private boolean run(Queue<Task> tasks, int count, long deadline, boolean runFirst)
+	{
+		for (int i = 0; i < count; ++i)
+		{
+			if ((i > 0 || !runFirst) && nanoTime.getAsLong() - deadline >= 0)
 			{
-				throw d;
+				return false;
 			}
-			catch (Throwable e)
+
+			Task task = tasks.poll();
+			if (task == null)
 			{
-				log.error("Exception in invoke", e);
+				break;
 			}
-			if (remove)
+
+			if (!run(task))
 			{
-				ir.remove();
+				log.trace("Deferring task {}", task);
+				defer(task);
 			}
-			else
+		}
+		return nanoTime.getAsLong() - deadline < 0;
+	}
+
+	private boolean run(Task task)
+	{
+		final BooleanSupplier r = task.supplier;
+		final boolean profile = profiler.isEnabled();
+		final long start = profile ? System.nanoTime() : 0L;
+		boolean done = true;
+		try
+		{
+			done = r.getAsBoolean();
+		}
+		catch (ThreadDeath d)
+		{
+			throw d;
+		}
+		catch (Throwable e)
+		{
+			log.error("Exception in invoke", e);
+		}
+
+		if (profile)
+		{
+			// time by task class, since the supplier instances are recreated for each invoke
+			Class<?> taskClass = r instanceof RunnableTask ? ((RunnableTask) r).runnable.getClass() : r.getClass();
+			profiler.record(Profiler.Category.CLIENT_THREAD, taskClass, System.nanoTime() - start);
+		}
+		return done;
+	}
+
+	private void defer(Task task)
+	{
+		// back off exponentially while the task stays unable to run
+		task.backoff = Math.min(Math.max(task.backoff * 2, 1), MAX_BACKOFF_CYCLES);
+		task.rearmCycle = cycle + task.backoff;
+		deferredTasks.add(task);
+	}
+
+	/**
+	 * Queues the deferred tasks which are due to run again
+	 *
+	 * @param wake whether all deferred tasks should be run again, because the game state may have changed
+	 */
+	private void rearm(boolean wake)
+	{
+		for (Iterator<Task> it = deferredTasks.iterator(); it.hasNext(); )
+		{
+			Task task = it.next();
+			if (wake || cycle >= task.rearmCycle)
 			{
-				log.trace("Deferring task {}", r);
+				it.remove();
+				if (task.priority == Priority.TICK)
+				{
+					// the task has already waited for a tick
+					tickTasks.add(task);
+				}
+				else
+				{
+					queue(task);
+				}
 			}
 		}
 	}
+
+	private void queue(Task task)
+	{
+		switch (task.priority)
+		{
+			case FRAME:
+				frameTasks.add(task);
+				break;
+			case TICK:
+				pendingTickTasks.add(task);
+				break;
+			case IDLE:
+				idleTasks.add(task);
+				break;
+		}
+	}
 }
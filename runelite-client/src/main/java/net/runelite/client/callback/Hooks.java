@@ -418,15 +418,15 @@ public class Hooks implements Callbacks
 	}
 
 	/**
-	 * Copy an image
+	 * Copy an image into a pooled frame buffer
 	 * @param src
 	 * @return
 	 */
-	private static Image copy(Image src)
+	private Image copy(Image src)
 	{
 		final int width = src.getWidth(null);
 		final int height = src.getHeight(null);
-		BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		BufferedImage image = drawManager.acquireFrameBuffer(width, height);
 		Graphics graphics = image.getGraphics();
 		graphics.drawImage(src, 0, 0, width, height, null);
 		graphics.dispose();
@@ -24,11 +24,14 @@
  */
 package net.runelite.client.config;
 
-import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.client.util.ReflectUtil;
 
@@ -37,11 +40,48 @@ class ConfigInvocationHandler implements InvocationHandler
 {
 	// Special object to represent null values in the cache
 	private static final Object NULL = new Object();
+	// Special object to represent a value which has not been loaded yet
+	private static final Object UNSET = new Object();
 
 	private final ConfigManager manager;
-	private final Cache<Method, Object> cache = CacheBuilder.newBuilder()
-		.maximumSize(256)
-		.build();
+	// Config methods are finite, so the item slots are never evicted
+	private final Map<Method, ItemSlot> slots = new ConcurrentHashMap<>();
+	private final Map<String, List<ItemSlot>> slotsByKey = new ConcurrentHashMap<>();
+
+	/**
+	 * Cached value of a single config getter. Reads are a volatile load; loads and
+	 * invalidations synchronize on the slot so a stale load can't overwrite an invalidation.
+	 */
+	private static final class ItemSlot
+	{
+		private final Type type;
+		private volatile Object value = UNSET;
+		private int generation;
+
+		private ItemSlot(Type type)
+		{
+			this.type = type;
+		}
+
+		private synchronized int generation()
+		{
+			return generation;
+		}
+
+		private synchronized void store(int generation, Object value)
+		{
+			if (this.generation == generation)
+			{
+				this.value = value == null ? NULL : value;
+			}
+		}
+
+		private synchronized void invalidate()
+		{
+			++generation;
+			value = UNSET;
+		}
+	}
 
 	ConfigInvocationHandler(ConfigManager manager)
 	{
@@ -54,10 +94,14 @@ class ConfigInvocationHandler implements InvocationHandler
 		// Use cached configuration value if available
 		if (args == null)
 		{
-			Object cachedValue = cache.getIfPresent(method);
-			if (cachedValue != null)
+			ItemSlot slot = slots.get(method);
+			if (slot != null)
 			{
-				return cachedValue == NULL ? null : cachedValue;
+				Object cachedValue = slot.value;
+				if (cachedValue != UNSET)
+				{
+					return cachedValue == NULL ? null : cachedValue;
+				}
 			}
 		}
 
@@ -95,7 +139,10 @@ class ConfigInvocationHandler implements InvocationHandler
 
 		if (args == null)
 		{
-			log.trace("cache miss (size: {}, group: {}, key: {})", cache.size(), group.value(), item.keyName());
+			ItemSlot slot = slots.computeIfAbsent(method, m -> createSlot(group.value(), item.keyName(), m.getGenericReturnType()));
+			int generation = slot.generation();
+
+			log.trace("cache miss (group: {}, key: {})", group.value(), item.keyName());
 
 			// Getting configuration item
 			String value = manager.getConfiguration(group.value(), item.keyName());
@@ -105,19 +152,19 @@ class ConfigInvocationHandler implements InvocationHandler
 				if (method.isDefault())
 				{
 					Object defaultValue = callDefaultMethod(proxy, method, null);
-					cache.put(method, defaultValue == null ? NULL : defaultValue);
+					slot.store(generation, defaultValue);
 					return defaultValue;
 				}
 
-				cache.put(method, NULL);
+				slot.store(generation, null);
 				return null;
 			}
 
 			// Convert value to return type
 			try
 			{
-				Object objectValue = manager.stringToObject(value, method.getGenericReturnType());
-				cache.put(method, objectValue == null ? NULL : objectValue);
+				Object objectValue = manager.stringToObject(value, slot.type);
+				slot.store(generation, objectValue);
 				return objectValue;
 			}
 			catch (Exception e)
@@ -175,6 +222,14 @@ class ConfigInvocationHandler implements InvocationHandler
 		}
 	}
 
+	private ItemSlot createSlot(String group, String key, Type type)
+	{
+		ItemSlot slot = new ItemSlot(type);
+		slotsByKey.computeIfAbsent(ConfigManager.getWholeKey(group, null, key), k -> new CopyOnWriteArrayList<>())
+			.add(slot);
+		return slot;
+	}
+
 	static Object callDefaultMethod(Object proxy, Method method, Object[] args) throws Throwable
 	{
 		Class<?> declaringClass = method.getDeclaringClass();
@@ -184,9 +239,28 @@ class ConfigInvocationHandler implements InvocationHandler
 			.invokeWithArguments(args);
 	}
 
+	/**
+	 * Invalidate the cached values of the getters for a single config key
+	 */
+	void invalidate(String group, String key)
+	{
+		List<ItemSlot> keySlots = slotsByKey.get(ConfigManager.getWholeKey(group, null, key));
+		if (keySlots != null)
+		{
+			log.trace("cache invalidate (group: {}, key: {})", group, key);
+			for (ItemSlot slot : keySlots)
+			{
+				slot.invalidate();
+			}
+		}
+	}
+
 	void invalidate()
 	{
 		log.trace("cache invalidate");
-		cache.invalidateAll();
+		for (ItemSlot slot : slots.values())
+		{
+			slot.invalidate();
+		}
 	}
 }
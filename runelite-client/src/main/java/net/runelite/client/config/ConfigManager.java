@@ -56,19 +56,23 @@ import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Base64;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.NavigableMap;
 import java.util.Objects;
 import java.util.Properties;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -130,7 +134,8 @@ public class ConfigManager
 	private final ConfigInvocationHandler handler = new ConfigInvocationHandler(this);
 	private final Map<String, String> pendingChanges = new HashMap<>();
 
-	private Properties properties = new Properties();
+	// whole keys are kept sorted so that group, profile, and key prefix queries are range scans
+	private ConcurrentSkipListMap<String, String> properties = new ConcurrentSkipListMap<>();
 
 	// null => we need to make a new profile
 	@Nullable
@@ -228,8 +233,7 @@ public class ConfigManager
 			return;
 		}
 
-		Properties newProperties = new Properties();
-		newProperties.putAll(configuration);
+		ConcurrentSkipListMap<String, String> newProperties = new ConcurrentSkipListMap<>(configuration);
 
 		log.debug("Loading in config from server");
 		swapProperties(newProperties, false);
@@ -246,11 +250,9 @@ public class ConfigManager
 		}
 	}
 
-	private void swapProperties(Properties newProperties, boolean saveToServer)
+	private void swapProperties(ConcurrentSkipListMap<String, String> newProperties, boolean saveToServer)
 	{
-		Set<Object> allKeys = new HashSet<>(newProperties.keySet());
-
-		Properties oldProperties;
+		ConcurrentSkipListMap<String, String> oldProperties;
 		synchronized (this)
 		{
 			handler.invalidate();
@@ -260,27 +262,54 @@ public class ConfigManager
 
 		updateRSProfile();
 
-		allKeys.addAll(oldProperties.keySet());
+		// Both maps are sorted by whole key, so they can be diffed in a single merged pass
+		// without building the union of both key sets
+		Iterator<Map.Entry<String, String>> oldIt = oldProperties.entrySet().iterator();
+		Iterator<Map.Entry<String, String>> newIt = newProperties.entrySet().iterator();
+		Map.Entry<String, String> oldEntry = oldIt.hasNext() ? oldIt.next() : null;
+		Map.Entry<String, String> newEntry = newIt.hasNext() ? newIt.next() : null;
 
-		for (Object wholeKey : allKeys)
+		while (oldEntry != null || newEntry != null)
 		{
-			String[] split = splitKey((String) wholeKey);
-			if (split == null)
+			int cmp = oldEntry == null ? 1
+				: newEntry == null ? -1
+				: oldEntry.getKey().compareTo(newEntry.getKey());
+
+			String wholeKey;
+			String oldValue = null;
+			String newValue = null;
+			if (cmp <= 0)
 			{
-				continue;
+				wholeKey = oldEntry.getKey();
+				oldValue = oldEntry.getValue();
+				oldEntry = oldIt.hasNext() ? oldIt.next() : null;
+			}
+			else
+			{
+				wholeKey = newEntry.getKey();
 			}
 
-			String groupName = split[KEY_SPLITTER_GROUP];
-			String profile = split[KEY_SPLITTER_PROFILE];
-			String key = split[KEY_SPLITTER_KEY];
-			String oldValue = (String) oldProperties.get(wholeKey);
-			String newValue = (String) newProperties.get(wholeKey);
+			if (cmp >= 0)
+			{
+				newValue = newEntry.getValue();
+				newEntry = newIt.hasNext() ? newIt.next() : null;
+			}
 
 			if (Objects.equals(oldValue, newValue))
 			{
 				continue;
 			}
 
+			String[] split = splitKey(wholeKey);
+			if (split == null)
+			{
+				continue;
+			}
+
+			String groupName = split[KEY_SPLITTER_GROUP];
+			String profile = split[KEY_SPLITTER_PROFILE];
+			String key = split[KEY_SPLITTER_KEY];
+
 			log.debug("Loading configuration value {}: {}", wholeKey, newValue);
 
 			ConfigChanged configChanged = new ConfigChanged();
@@ -295,7 +324,7 @@ public class ConfigManager
 			{
 				synchronized (pendingChanges)
 				{
-					pendingChanges.put((String) wholeKey, newValue);
+					pendingChanges.put(wholeKey, newValue);
 				}
 			}
 		}
@@ -315,7 +344,7 @@ public class ConfigManager
 		}
 
 		log.debug("Loading in config from disk for upload");
-		swapProperties(properties, true);
+		swapProperties(toSortedMap(properties), true);
 	}
 
 	public Future<Void> importLocal()
@@ -360,7 +389,26 @@ public class ConfigManager
 		}
 
 		log.debug("Loading in config from disk");
-		swapProperties(newProperties, false);
+		swapProperties(toSortedMap(newProperties), false);
+	}
+
+	private static ConcurrentSkipListMap<String, String> toSortedMap(Properties properties)
+	{
+		ConcurrentSkipListMap<String, String> map = new ConcurrentSkipListMap<>();
+		for (String key : properties.stringPropertyNames())
+		{
+			map.put(key, properties.getProperty(key));
+		}
+		return map;
+	}
+
+	/**
+	 * Get a view of all keys in the map starting with the given prefix
+	 */
+	private static NavigableMap<String, String> prefixRange(NavigableMap<String, String> map, String prefix)
+	{
+		// config keys never contain U+FFFF, so every key with the prefix sorts before prefix + U+FFFF
+		return map.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
 	}
 
 	private void saveToFile(final File propertiesFile) throws IOException
@@ -376,7 +424,9 @@ public class ConfigManager
 			OutputStreamWriter writer = new OutputStreamWriter(out, StandardCharsets.UTF_8))
 		{
 			channel.lock();
-			properties.store(writer, "RuneLite configuration");
+			Properties snapshot = new Properties();
+			snapshot.putAll(properties);
+			snapshot.store(writer, "RuneLite configuration");
 			channel.force(true);
 			// FileChannel.close() frees the lock
 		}
@@ -409,10 +459,7 @@ public class ConfigManager
 
 	public List<String> getConfigurationKeys(String prefix)
 	{
-		return properties.keySet().stream()
-			.map(String.class::cast)
-			.filter(k -> k.startsWith(prefix))
-			.collect(Collectors.toList());
+		return new ArrayList<>(prefixRange(properties, prefix).keySet());
 	}
 
 	public List<String> getRSProfileConfigurationKeys(String group, String profile, String keyPrefix)
@@ -424,12 +471,13 @@ public class ConfigManager
 
 		assert profile.startsWith(RSPROFILE_GROUP);
 
-		String prefix = group + "." + profile + "." + keyPrefix;
-		return properties.keySet().stream()
-			.map(String.class::cast)
-			.filter(k -> k.startsWith(prefix))
-			.map(k -> splitKey(k)[KEY_SPLITTER_KEY])
-			.collect(Collectors.toList());
+		String profilePrefix = group + "." + profile + ".";
+		List<String> keys = new ArrayList<>();
+		for (String wholeKey : prefixRange(properties, profilePrefix + keyPrefix).keySet())
+		{
+			keys.add(wholeKey.substring(profilePrefix.length()));
+		}
+		return keys;
 	}
 
 	public static String getWholeKey(String groupName, String profile, String key)
@@ -462,7 +510,7 @@ public class ConfigManager
 
 	public String getConfiguration(String groupName, String profile, String key)
 	{
-		return properties.getProperty(getWholeKey(groupName, profile, key));
+		return properties.get(getWholeKey(groupName, profile, key));
 	}
 
 	public <T> T getConfiguration(String groupName, String key, Type clazz)
@@ -515,7 +563,7 @@ public class ConfigManager
 		String oldValue;
 		synchronized (this)
 		{
-			oldValue = (String) properties.setProperty(wholeKey, value);
+			oldValue = properties.put(wholeKey, value);
 		}
 
 		if (Objects.equals(oldValue, value))
@@ -524,7 +572,10 @@ public class ConfigManager
 		}
 
 		log.debug("Setting configuration value for {} to {}", wholeKey, value);
-		handler.invalidate();
+		if (profile == null)
+		{
+			handler.invalidate(groupName, key);
+		}
 
 		synchronized (pendingChanges)
 		{
@@ -601,7 +652,7 @@ public class ConfigManager
 		String oldValue;
 		synchronized (this)
 		{
-			oldValue = (String) properties.remove(wholeKey);
+			oldValue = properties.remove(wholeKey);
 		}
 
 		if (oldValue == null)
@@ -610,7 +661,10 @@ public class ConfigManager
 		}
 
 		log.debug("Unsetting configuration value for {}", wholeKey);
-		handler.invalidate();
+		if (profile == null)
+		{
+			handler.invalidate(groupName, key);
+		}
 
 		synchronized (pendingChanges)
 		{
@@ -973,15 +1027,9 @@ public class ConfigManager
 	public List<RuneScapeProfile> getRSProfiles()
 	{
 		String prefix = RSPROFILE_GROUP + "." + RSPROFILE_GROUP + ".";
-		Set<String> profileKeys = new HashSet<>();
-		for (Object oKey : properties.keySet())
+		Set<String> profileKeys = new LinkedHashSet<>();
+		for (String key : prefixRange(properties, prefix).keySet())
 		{
-			String key = (String) oKey;
-			if (!key.startsWith(prefix))
-			{
-				continue;
-			}
-
 			String[] split = splitKey(key);
 			if (split == null)
 			{
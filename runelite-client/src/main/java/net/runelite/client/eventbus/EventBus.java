@@ -26,8 +26,8 @@
 package net.runelite.client.eventbus;
 
 import com.google.common.base.Preconditions;
-import com.google.common.collect.ImmutableMultimap;
-import com.google.common.collect.Iterables;
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ListMultimap;
 import java.lang.invoke.CallSite;
 import java.lang.invoke.LambdaMetafactory;
 import java.lang.invoke.MethodHandle;
@@ -35,24 +35,34 @@ import java.lang.invoke.MethodHandles;
 import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import javax.annotation.concurrent.ThreadSafe;
 import lombok.EqualsAndHashCode;
-import lombok.RequiredArgsConstructor;
 import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
+import net.runelite.client.profiler.Profiler;
 import net.runelite.client.util.ReflectUtil;
 import org.slf4j.Marker;
 import org.slf4j.MarkerFactory;
 
 @Slf4j
-@RequiredArgsConstructor
 @ThreadSafe
 public class EventBus
 {
 	private static final Marker DEDUPLICATE = MarkerFactory.getMarker("DEDUPLICATE");
+	private static final Subscriber[] NO_SUBSCRIBERS = new Subscriber[0];
+	private static final Comparator<Subscriber> SUBSCRIBER_ORDER = Comparator.comparingDouble(Subscriber::getPriority).reversed()
+		.thenComparing(s -> s.object.getClass().getName());
 
 	@Value
 	public static class Subscriber
@@ -77,16 +87,46 @@ public class EventBus
 	}
 
 	private final Consumer<Throwable> exceptionHandler;
+	@Nullable
+	private final Profiler profiler;
 
-	@Nonnull
-	private ImmutableMultimap<Class<?>, Subscriber> subscribers = ImmutableMultimap.of();
+	/**
+	 * Event class to its subscribers, in dispatch order. The arrays are never modified once published;
+	 * registering or unregistering replaces only the arrays of the affected event classes.
+	 */
+	private final Map<Class<?>, Subscriber[]> subscribers = new ConcurrentHashMap<>();
+
+	/**
+	 * Subscriber object to the subscribers it registered, keyed by event class. Guarded by this.
+	 */
+	private final Map<Object, ListMultimap<Class<?>, Subscriber>> subscribersByObject = new IdentityHashMap<>();
 
 	/**
 	 * Instantiates EventBus with default exception handler
 	 */
 	public EventBus()
 	{
-		this((e) -> log.warn(DEDUPLICATE, "Uncaught exception in event subscriber", e));
+		this((Profiler) null);
+	}
+
+	/**
+	 * Instantiates EventBus with default exception handler, timing subscribers with the given profiler
+	 * when it is enabled
+	 */
+	public EventBus(@Nullable Profiler profiler)
+	{
+		this((e) -> log.warn(DEDUPLICATE, "Uncaught exception in event subscriber", e), profiler);
+	}
+
+	public EventBus(Consumer<Throwable> exceptionHandler)
+	{
+		this(exceptionHandler, null);
+	}
+
+	public EventBus(Consumer<Throwable> exceptionHandler, @Nullable Profiler profiler)
+	{
+		this.exceptionHandler = exceptionHandler;
+		this.profiler = profiler;
 	}
 
 	/**
@@ -98,10 +138,7 @@ public class EventBus
 	 */
 	public synchronized void register(@Nonnull final Object object)
 	{
-		final ImmutableMultimap.Builder<Class<?>, Subscriber> builder = ImmutableMultimap.builder();
-		builder.putAll(subscribers);
-		builder.orderValuesBy(Comparator.comparingDouble(Subscriber::getPriority).reversed()
-			.thenComparing(s -> s.object.getClass().getName()));
+		final ListMultimap<Class<?>, Subscriber> added = ArrayListMultimap.create();
 
 		for (Class<?> clazz = object.getClass(); clazz != null; clazz = clazz.getSuperclass())
 		{
@@ -159,25 +196,21 @@ public class EventBus
 				}
 
 				final Subscriber subscriber = new Subscriber(object, method, sub.priority(), lambda);
-				builder.put(parameterClazz, subscriber);
+				added.put(parameterClazz, subscriber);
 				log.debug("Registering {} - {}", parameterClazz, subscriber);
 			}
 		}
 
-		subscribers = builder.build();
+		addSubscribers(object, added);
 	}
 
 	public synchronized <T> Subscriber register(Class<T> clazz, Consumer<T> subFn, float priority)
 	{
-		final ImmutableMultimap.Builder<Class<?>, Subscriber> builder = ImmutableMultimap.builder();
-		builder.putAll(subscribers);
-		builder.orderValuesBy(Comparator.comparingDouble(Subscriber::getPriority).reversed()
-			.thenComparing(s -> s.object.getClass().getName()));
-
+		final ListMultimap<Class<?>, Subscriber> added = ArrayListMultimap.create();
 		Subscriber sub = new Subscriber(subFn, null, priority, (Consumer<Object>) subFn);
-		builder.put(clazz, sub);
+		added.put(clazz, sub);
 
-		subscribers = builder.build();
+		addSubscribers(subFn, added);
 
 		return sub;
 	}
@@ -189,10 +222,16 @@ public class EventBus
 	 */
 	public synchronized void unregister(@Nonnull final Object object)
 	{
-		subscribers = ImmutableMultimap.copyOf(Iterables.filter(
-			subscribers.entries(),
-			e -> e.getValue().getObject() != object
-		));
+		final ListMultimap<Class<?>, Subscriber> registered = subscribersByObject.remove(object);
+		if (registered == null)
+		{
+			return;
+		}
+
+		for (Map.Entry<Class<?>, Collection<Subscriber>> entry : registered.asMap().entrySet())
+		{
+			removeSubscribers(entry.getKey(), entry.getValue());
+		}
 	}
 
 	public synchronized void unregister(Subscriber sub)
@@ -202,10 +241,79 @@ public class EventBus
 			return;
 		}
 
-		subscribers = ImmutableMultimap.copyOf(Iterables.filter(
-			subscribers.entries(),
-			e -> sub != e.getValue()
-		));
+		final ListMultimap<Class<?>, Subscriber> registered = subscribersByObject.get(sub.getObject());
+		if (registered == null)
+		{
+			return;
+		}
+
+		for (Class<?> clazz : new ArrayList<>(registered.keySet()))
+		{
+			final List<Subscriber> subs = registered.get(clazz);
+			if (subs.removeIf(s -> s == sub))
+			{
+				removeSubscribers(clazz, Arrays.asList(sub));
+			}
+		}
+
+		if (registered.isEmpty())
+		{
+			subscribersByObject.remove(sub.getObject());
+		}
+	}
+
+	private void addSubscribers(Object object, ListMultimap<Class<?>, Subscriber> added)
+	{
+		for (Map.Entry<Class<?>, Collection<Subscriber>> entry : added.asMap().entrySet())
+		{
+			final Class<?> clazz = entry.getKey();
+			final Collection<Subscriber> subs = entry.getValue();
+			final Subscriber[] old = subscribers.getOrDefault(clazz, NO_SUBSCRIBERS);
+			final Subscriber[] updated = Arrays.copyOf(old, old.length + subs.size());
+			int i = old.length;
+			for (Subscriber sub : subs)
+			{
+				updated[i++] = sub;
+			}
+			// stable sort, so subscribers with equal ordering stay in registration order
+			Arrays.sort(updated, SUBSCRIBER_ORDER);
+			subscribers.put(clazz, updated);
+		}
+
+		subscribersByObject.computeIfAbsent(object, k -> ArrayListMultimap.create())
+			.putAll(added);
+	}
+
+	private void removeSubscribers(Class<?> clazz, Collection<Subscriber> removed)
+	{
+		final Subscriber[] old = subscribers.get(clazz);
+		if (old == null)
+		{
+			return;
+		}
+
+		final List<Subscriber> kept = new ArrayList<>(old.length);
+		outer:
+		for (Subscriber sub : old)
+		{
+			for (Subscriber r : removed)
+			{
+				if (sub == r)
+				{
+					continue outer;
+				}
+			}
+			kept.add(sub);
+		}
+
+		if (kept.isEmpty())
+		{
+			subscribers.remove(clazz);
+		}
+		else
+		{
+			subscribers.put(clazz, kept.toArray(NO_SUBSCRIBERS));
+		}
 	}
 
 	/**
@@ -216,8 +324,16 @@ public class EventBus
 	 */
 	public void post(@Nonnull final Object event)
 	{
-		for (final Subscriber subscriber : subscribers.get(event.getClass()))
+		final Subscriber[] subs = subscribers.get(event.getClass());
+		if (subs == null)
+		{
+			return;
+		}
+
+		final boolean profile = profiler != null && profiler.isEnabled();
+		for (final Subscriber subscriber : subs)
 		{
+			final long start = profile ? System.nanoTime() : 0L;
 			try
 			{
 				subscriber.invoke(event);
@@ -226,6 +342,11 @@ public class EventBus
 			{
 				exceptionHandler.accept(e);
 			}
+
+			if (profile)
+			{
+				profiler.record(Profiler.Category.EVENT_SUBSCRIBER, subscriber, System.nanoTime() - start);
+			}
 		}
 	}
 }
@@ -24,8 +24,10 @@
  */
 package net.runelite.client.game;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
 import com.google.common.cache.LoadingCache;
 import com.google.common.collect.ImmutableMap;
 import com.google.inject.Inject;
@@ -33,8 +35,11 @@ import java.awt.Color;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ExecutionException;
@@ -64,6 +69,10 @@ import net.runelite.http.api.item.ItemStats;
 @Slf4j
 public class ItemManager
 {
+	private static final long IMAGE_CACHE_BYTES = 8 << 20;
+	private static final long OUTLINE_CACHE_BYTES = 4 << 20;
+	private static final long IMAGE_BATCH_NANOS = TimeUnit.MILLISECONDS.toNanos(2);
+
 	@Value
 	private static class ImageKey
 	{
@@ -80,6 +89,14 @@ public class ItemManager
 		private final Color outlineColor;
 	}
 
+	@Value
+	private static class ItemIcon
+	{
+		private final int modelId;
+		private final short[] colorsToReplace;
+		private final short[] texturesToReplace;
+	}
+
 	private final Client client;
 	private final ClientThread clientThread;
 	private final ItemClient itemClient;
@@ -94,9 +111,15 @@ public class ItemManager
 	private int lowPriceThreshold = 1000;
 
 	private Map<Integer, ItemPrice> itemPrices = Collections.emptyMap();
+	private ItemNameIndex priceNameIndex = new ItemNameIndex(new int[0], new String[0], null);
+	private ItemNameIndex itemNameIndex;
+	private int itemNameIndexCount;
 	private Map<Integer, ItemStats> itemStats = Collections.emptyMap();
 	private final LoadingCache<ImageKey, AsyncBufferedImage> itemImages;
 	private final LoadingCache<OutlineKey, BufferedImage> itemOutlines;
+	// images waiting for their sprite to be created, in request order
+	private final Map<ImageKey, AsyncBufferedImage> pendingImages = new LinkedHashMap<>();
+	private boolean imageBatchQueued;
 
 	// Worn items with weight reducing property have a different worn and inventory ItemID
 	private static final ImmutableMap<Integer, Integer> WORN_ITEMS = ImmutableMap.<Integer, Integer>builder().
@@ -186,20 +209,24 @@ public class ItemManager
 		scheduledExecutorService.submit(this::loadStats);
 
 		itemImages = CacheBuilder.newBuilder()
-			.maximumSize(128L)
-			.expireAfterAccess(1, TimeUnit.HOURS)
+			.maximumWeight(IMAGE_CACHE_BYTES)
+			.weigher((ImageKey key, AsyncBufferedImage image) -> imageBytes(image))
+			.softValues()
+			.recordStats()
 			.build(new CacheLoader<ImageKey, AsyncBufferedImage>()
 			{
 				@Override
 				public AsyncBufferedImage load(ImageKey key) throws Exception
 				{
-					return loadImage(key.itemId, key.itemQuantity, key.stackable);
+					return loadImage(key);
 				}
 			});
 
 		itemOutlines = CacheBuilder.newBuilder()
-			.maximumSize(128L)
-			.expireAfterAccess(1, TimeUnit.HOURS)
+			.maximumWeight(OUTLINE_CACHE_BYTES)
+			.weigher((OutlineKey key, BufferedImage image) -> imageBytes(image))
+			.softValues()
+			.recordStats()
 			.build(new CacheLoader<OutlineKey, BufferedImage>()
 			{
 				@Override
@@ -218,11 +245,17 @@ public class ItemManager
 			if (prices != null)
 			{
 				ImmutableMap.Builder<Integer, ItemPrice> map = ImmutableMap.builderWithExpectedSize(prices.length);
-				for (ItemPrice price : prices)
+				int[] ids = new int[prices.length];
+				String[] names = new String[prices.length];
+				for (int i = 0; i < prices.length; ++i)
 				{
+					ItemPrice price = prices[i];
 					map.put(price.getId(), price);
+					ids[i] = price.getId();
+					names[i] = price.getName();
 				}
 				itemPrices = map.build();
+				priceNameIndex = new ItemNameIndex(ids, names, null);
 			}
 
 			log.debug("Loaded {} prices", itemPrices.size());
@@ -353,17 +386,19 @@ public class ItemManager
 	 * Search for tradeable items based on item name
 	 *
 	 * @param itemName item name
-	 * @return
+	 * @return the matching items, most relevant first
 	 */
 	public List<ItemPrice> search(String itemName)
 	{
-		itemName = itemName.toLowerCase();
+		final Map<Integer, ItemPrice> itemPrices = this.itemPrices;
+		final int[] ids = priceNameIndex.search(itemName, Integer.MAX_VALUE);
 
-		List<ItemPrice> result = new ArrayList<>();
-		for (ItemPrice itemPrice : itemPrices.values())
+		List<ItemPrice> result = new ArrayList<>(ids.length);
+		for (int id : ids)
 		{
-			final String name = itemPrice.getName();
-			if (name.toLowerCase().contains(itemName))
+			// the index may be newer than the map during a reload
+			ItemPrice itemPrice = itemPrices.get(id);
+			if (itemPrice != null)
 			{
 				result.add(itemPrice);
 			}
@@ -371,6 +406,58 @@ public class ItemManager
 		return result;
 	}
 
+	/**
+	 * Get an index of the names of every known item, canonicalized, with items sharing an icon grouped
+	 * together. The index is built on first use and again only when the number of items in the cache
+	 * changes. Must be called on the client thread.
+	 */
+	public ItemNameIndex getItemNameIndex()
+	{
+		assert client.isClientThread();
+
+		final int itemCount = client.getItemCount();
+		if (itemNameIndex != null && itemNameIndexCount == itemCount)
+		{
+			return itemNameIndex;
+		}
+
+		int[] ids = new int[itemCount];
+		String[] names = new String[itemCount];
+		int[] icons = new int[itemCount];
+		Map<ItemIcon, Integer> iconKeys = new HashMap<>();
+		boolean[] seen = new boolean[itemCount];
+		int count = 0;
+		for (int i = 0; i < itemCount; ++i)
+		{
+			int id = canonicalize(i);
+			if (id < 0 || id >= itemCount || seen[id])
+			{
+				continue;
+			}
+			seen[id] = true;
+
+			ItemComposition itemComposition = getItemComposition(id);
+			String name = itemComposition.getName();
+			// The client assigns "null" to item names of items it doesn't know about
+			if (name == null || name.equalsIgnoreCase("null"))
+			{
+				continue;
+			}
+
+			ItemIcon itemIcon = new ItemIcon(itemComposition.getInventoryModel(),
+				itemComposition.getColorToReplaceWith(), itemComposition.getTextureToReplaceWith());
+			ids[count] = id;
+			names[count] = name;
+			icons[count] = iconKeys.computeIfAbsent(itemIcon, k -> iconKeys.size());
+			++count;
+		}
+
+		itemNameIndex = new ItemNameIndex(Arrays.copyOf(ids, count), Arrays.copyOf(names, count), Arrays.copyOf(icons, count));
+		itemNameIndexCount = itemCount;
+		log.debug("Built item name index of {} items", count);
+		return itemNameIndex;
+	}
+
 	/**
 	 * Look up an item's composition
 	 *
@@ -404,33 +491,155 @@ public class ItemManager
 	}
 
 	/**
-	 * Loads item sprite from game, makes transparent, and generates image
-	 *
-	 * @param itemId
-	 * @return
+	 * Loads item sprite from game, makes transparent, and generates image.
+	 * On the client thread the image is created immediately if possible, otherwise it is queued
+	 * to be created in a batch with the other pending images.
 	 */
-	private AsyncBufferedImage loadImage(int itemId, int quantity, boolean stackable)
+	private AsyncBufferedImage loadImage(ImageKey key)
 	{
 		AsyncBufferedImage img = new AsyncBufferedImage(Constants.ITEM_SPRITE_WIDTH, Constants.ITEM_SPRITE_HEIGHT, BufferedImage.TYPE_INT_ARGB);
-		clientThread.invoke(() ->
+		if (client.isClientThread() && renderImage(key, img))
+		{
+			return img;
+		}
+
+		synchronized (pendingImages)
 		{
-			if (client.getGameState().ordinal() < GameState.LOGIN_SCREEN.ordinal())
+			// the image may have been evicted while it was still pending
+			AsyncBufferedImage pending = pendingImages.putIfAbsent(key, img);
+			if (pending != null)
 			{
-				return false;
+				return pending;
 			}
-			SpritePixels sprite = client.createItemSprite(itemId, quantity, 1, SpritePixels.DEFAULT_SHADOW_COLOR,
-				stackable ? ItemQuantityMode.ALWAYS : ItemQuantityMode.NEVER, false, CLIENT_DEFAULT_ZOOM);
-			if (sprite == null)
+
+			if (!imageBatchQueued)
 			{
-				return false;
+				imageBatchQueued = true;
+				clientThread.invokeLater(ClientThread.Priority.IDLE, this::renderImageBatch);
 			}
-			sprite.toBufferedImage(img);
-			img.loaded();
-			return true;
-		});
+		}
 		return img;
 	}
 
+	/**
+	 * Creates the sprites of pending images until the batch's time budget is spent
+	 *
+	 * @return false if the remaining sprites could not be created yet
+	 */
+	private boolean renderImageBatch()
+	{
+		final long deadline = System.nanoTime() + IMAGE_BATCH_NANOS;
+		final List<ImageKey> keys;
+		final List<AsyncBufferedImage> images;
+		synchronized (pendingImages)
+		{
+			keys = new ArrayList<>(pendingImages.keySet());
+			images = new ArrayList<>(pendingImages.values());
+		}
+
+		int failed = 0;
+		boolean outOfTime = false;
+		for (int i = 0; i < keys.size(); ++i)
+		{
+			if (System.nanoTime() - deadline >= 0)
+			{
+				outOfTime = true;
+				break;
+			}
+
+			ImageKey key = keys.get(i);
+			if (renderImage(key, images.get(i)))
+			{
+				synchronized (pendingImages)
+				{
+					pendingImages.remove(key);
+				}
+			}
+			else
+			{
+				++failed;
+			}
+		}
+
+		synchronized (pendingImages)
+		{
+			if (pendingImages.isEmpty())
+			{
+				imageBatchQueued = false;
+				return true;
+			}
+
+			if (outOfTime || pendingImages.size() > failed)
+			{
+				// continue with the images which were not attempted on a later cycle
+				clientThread.invokeLater(ClientThread.Priority.IDLE, this::renderImageBatch);
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private boolean renderImage(ImageKey key, AsyncBufferedImage img)
+	{
+		if (client.getGameState().ordinal() < GameState.LOGIN_SCREEN.ordinal())
+		{
+			return false;
+		}
+		SpritePixels sprite = client.createItemSprite(key.itemId, key.itemQuantity, 1, SpritePixels.DEFAULT_SHADOW_COLOR,
+			key.stackable ? ItemQuantityMode.ALWAYS : ItemQuantityMode.NEVER, false, CLIENT_DEFAULT_ZOOM);
+		if (sprite == null)
+		{
+			return false;
+		}
+		sprite.toBufferedImage(img);
+		img.loaded();
+		return true;
+	}
+
+	/**
+	 * Get the quantity whose item sprite is identical to that of the given quantity. Stacks of 100,000
+	 * and over are drawn rounded down to thousands or millions, and items only change model for
+	 * smaller stacks.
+	 */
+	@VisibleForTesting
+	static int imageQuantity(int quantity, boolean stackable)
+	{
+		if (quantity < 100_000)
+		{
+			return quantity;
+		}
+		if (!stackable)
+		{
+			return 100_000;
+		}
+		if (quantity < 10_000_000)
+		{
+			return quantity / 1_000 * 1_000;
+		}
+		return quantity / 1_000_000 * 1_000_000;
+	}
+
+	private static int imageBytes(BufferedImage image)
+	{
+		return image.getWidth() * image.getHeight() * Integer.BYTES;
+	}
+
+	/**
+	 * Get the hit rate and eviction statistics of the item image cache
+	 */
+	public CacheStats getImageCacheStats()
+	{
+		return itemImages.stats();
+	}
+
+	/**
+	 * Get the hit rate and eviction statistics of the item outline cache
+	 */
+	public CacheStats getOutlineCacheStats()
+	{
+		return itemOutlines.stats();
+	}
+
 	/**
 	 * Get item sprite image as BufferedImage.
 	 * <p>
@@ -461,7 +670,7 @@ public class ItemManager
 	{
 		try
 		{
-			return itemImages.get(new ImageKey(itemId, quantity, stackable));
+			return itemImages.get(new ImageKey(itemId, imageQuantity(quantity, stackable), stackable));
 		}
 		catch (ExecutionException ex)
 		{
@@ -495,7 +704,7 @@ public class ItemManager
 	{
 		try
 		{
-			return itemOutlines.get(new OutlineKey(itemId, itemQuantity, outlineColor));
+			return itemOutlines.get(new OutlineKey(itemId, imageQuantity(itemQuantity, false), outlineColor));
 		}
 		catch (ExecutionException e)
 		{
@@ -0,0 +1,370 @@
+/*
+ * Copyright (c) 2022, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.game;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+/**
+ * An immutable index of item names for substring searches. Names are lower cased once when the index
+ * is built, and every three character sequence of every name maps to a sorted list of the names
+ * containing it. A query only checks the names in the shortest list of its own trigrams. Shorter
+ * queries are answered from the names in sorted order when enough of them start with the query.
+ * <p>
+ * Results are ordered by relevance: exact matches, then matches at the start of the name, then matches
+ * at the start of a word, then any other match. Shorter names come first within each of those.
+ */
+public class ItemNameIndex
+{
+	private static final int GRAM = 3;
+	private static final int CHAR_BITS = 7;
+	private static final int CHAR_MASK = (1 << CHAR_BITS) - 1;
+
+	private static final int TIER_EXACT = 0;
+	private static final int TIER_PREFIX = 1;
+	private static final int TIER_WORD = 2;
+	private static final int TIER_SUBSTRING = 3;
+
+	private final int[] ids;
+	private final String[] names;
+	private final int[] icons;
+
+	/**
+	 * The entries in name order, for prefix searches
+	 */
+	private final int[] sorted;
+
+	/**
+	 * The distinct trigrams, sorted, with the postings of trigram i at postings[offsets[i]] to postings[offsets[i + 1]]
+	 */
+	private final int[] grams;
+	private final int[] offsets;
+	private final int[] postings;
+
+	/**
+	 * Build an index
+	 *
+	 * @param ids   item ids
+	 * @param names item names, in the same order as the ids
+	 * @param icons an icon key per item. Only the most relevant of the items sharing a key is returned
+	 *              from a search. May be null to return every match.
+	 */
+	public ItemNameIndex(int[] ids, String[] names, int[] icons)
+	{
+		if (ids.length != names.length || (icons != null && icons.length != ids.length))
+		{
+			throw new IllegalArgumentException("ids, names and icons must be the same length");
+		}
+
+		this.ids = ids.clone();
+		this.names = new String[names.length];
+		this.icons = icons != null ? icons.clone() : null;
+
+		int pairCount = 0;
+		for (int i = 0; i < names.length; ++i)
+		{
+			this.names[i] = normalize(names[i]);
+			pairCount += Math.max(0, this.names[i].length() - GRAM + 1);
+		}
+
+		// (trigram, entry) pairs sorted by trigram, then by entry
+		long[] pairs = new long[pairCount];
+		int p = 0;
+		for (int i = 0; i < this.names.length; ++i)
+		{
+			String name = this.names[i];
+			for (int c = 0; c + GRAM <= name.length(); ++c)
+			{
+				pairs[p++] = (long) gram(name, c) << 32 | i;
+			}
+		}
+		Arrays.sort(pairs);
+
+		int distinct = 0;
+		int[] postings = new int[pairs.length];
+		int[] grams = new int[pairs.length];
+		int[] offsets = new int[pairs.length + 1];
+		int postingCount = 0;
+		for (int i = 0; i < pairs.length; ++i)
+		{
+			int gram = (int) (pairs[i] >>> 32);
+			int entry = (int) pairs[i];
+			if (distinct == 0 || grams[distinct - 1] != gram)
+			{
+				grams[distinct] = gram;
+				offsets[distinct] = postingCount;
+				++distinct;
+			}
+			else if (postings[postingCount - 1] == entry)
+			{
+				// the trigram is in the name more than once
+				continue;
+			}
+			postings[postingCount++] = entry;
+		}
+		offsets[distinct] = postingCount;
+
+		this.sorted = IntStream.range(0, this.names.length)
+			.boxed()
+			.sorted(Comparator.comparing(i -> this.names[i]))
+			.mapToInt(Integer::intValue)
+			.toArray();
+
+		this.grams = Arrays.copyOf(grams, distinct);
+		this.offsets = Arrays.copyOf(offsets, distinct + 1);
+		this.postings = Arrays.copyOf(postings, postingCount);
+	}
+
+	/**
+	 * Search for items whose names contain the query, ignoring case
+	 *
+	 * @param query the text to search for
+	 * @param limit the maximum number of results
+	 * @return the matching item ids, most relevant first
+	 */
+	public int[] search(String query, int limit)
+	{
+		final String search = normalize(query);
+		if (search.isEmpty() || limit <= 0)
+		{
+			return new int[0];
+		}
+
+		if (search.length() < GRAM)
+		{
+			// Queries shorter than a trigram have to check every name, but usually enough names start
+			// with them to fill the results, and those rank first anyway
+			int from = lowerBound(search);
+			int to = lowerBound(search + Character.MAX_VALUE);
+			if (to - from >= limit)
+			{
+				int[] result = rank(search, sorted, from, to, limit);
+				if (result.length == limit)
+				{
+					return result;
+				}
+			}
+			return rank(search, null, 0, names.length, limit);
+		}
+
+		// pick the trigram of the query with the fewest names, and only check those
+		int from = 0;
+		int to = 0;
+		for (int c = 0; c + GRAM <= search.length(); ++c)
+		{
+			int g = Arrays.binarySearch(grams, gram(search, c));
+			if (g < 0)
+			{
+				return new int[0];
+			}
+
+			if (c == 0 || offsets[g + 1] - offsets[g] < to - from)
+			{
+				from = offsets[g];
+				to = offsets[g + 1];
+			}
+		}
+		return rank(search, postings, from, to, limit);
+	}
+
+	/**
+	 * Order the names containing the query
+	 *
+	 * @param candidates the entries to check, or null for all entries
+	 */
+	private int[] rank(String search, int[] candidates, int from, int to, int limit)
+	{
+		// the sort key of each match is its tier, then the name length, then the entry
+		long[] matches = new long[Math.min(to - from, 64)];
+		int matchCount = 0;
+		for (int i = from; i < to; ++i)
+		{
+			int entry = candidates != null ? candidates[i] : i;
+			String name = names[entry];
+			int idx = name.indexOf(search);
+			if (idx == -1)
+			{
+				continue;
+			}
+
+			int tier;
+			if (idx == 0)
+			{
+				tier = name.length() == search.length() ? TIER_EXACT : TIER_PREFIX;
+			}
+			else
+			{
+				tier = TIER_SUBSTRING;
+				for (; idx != -1; idx = name.indexOf(search, idx + 1))
+				{
+					if (!Character.isLetterOrDigit(name.charAt(idx - 1)))
+					{
+						tier = TIER_WORD;
+						break;
+					}
+				}
+			}
+
+			if (matchCount == matches.length)
+			{
+				matches = Arrays.copyOf(matches, matches.length * 2);
+			}
+			matches[matchCount++] = (long) tier << 56 | (long) Math.min(name.length(), 0xffffff) << 32 | entry;
+		}
+
+		// only the best matches are ordered, widening the selection if icon duplicates were skipped
+		int[] result = new int[Math.min(matchCount, limit)];
+		for (int selected = result.length; ; selected = Math.min(matchCount, selected * 4))
+		{
+			long[] best = smallest(matches, matchCount, selected);
+			int resultCount = 0;
+			Set<Integer> seenIcons = icons != null ? new HashSet<>() : null;
+			for (int i = 0; i < best.length && resultCount < result.length; ++i)
+			{
+				int entry = (int) best[i];
+				if (seenIcons != null && !seenIcons.add(icons[entry]))
+				{
+					continue;
+				}
+				result[resultCount++] = ids[entry];
+			}
+
+			if (resultCount == result.length || selected == matchCount)
+			{
+				return resultCount == result.length ? result : Arrays.copyOf(result, resultCount);
+			}
+		}
+	}
+
+	/**
+	 * Find the position in name order of the first name not less than the given string
+	 */
+	private int lowerBound(String s)
+	{
+		int lo = 0;
+		int hi = sorted.length;
+		while (lo < hi)
+		{
+			int mid = (lo + hi) >>> 1;
+			if (names[sorted[mid]].compareTo(s) < 0)
+			{
+				lo = mid + 1;
+			}
+			else
+			{
+				hi = mid;
+			}
+		}
+		return lo;
+	}
+
+	/**
+	 * Get the k smallest values, sorted, using a bounded max heap
+	 */
+	private static long[] smallest(long[] values, int count, int k)
+	{
+		if (k >= count)
+		{
+			long[] sorted = Arrays.copyOf(values, count);
+			Arrays.sort(sorted);
+			return sorted;
+		}
+
+		long[] heap = new long[k];
+		int size = 0;
+		for (int i = 0; i < count; ++i)
+		{
+			long value = values[i];
+			if (size < k)
+			{
+				// sift up
+				int c = size++;
+				while (c > 0 && heap[(c - 1) / 2] < value)
+				{
+					heap[c] = heap[(c - 1) / 2];
+					c = (c - 1) / 2;
+				}
+				heap[c] = value;
+			}
+			else if (value < heap[0])
+			{
+				// replace the largest and sift down
+				int c = 0;
+				while (true)
+				{
+					int child = c * 2 + 1;
+					if (child >= k)
+					{
+						break;
+					}
+					if (child + 1 < k && heap[child + 1] > heap[child])
+					{
+						++child;
+					}
+					if (heap[child] <= value)
+					{
+						break;
+					}
+					heap[c] = heap[child];
+					c = child;
+				}
+				heap[c] = value;
+			}
+		}
+		Arrays.sort(heap);
+		return heap;
+	}
+
+	/**
+	 * @return the number of names in the index
+	 */
+	public int size()
+	{
+		return names.length;
+	}
+
+	private static String normalize(String name)
+	{
+		return name.toLowerCase();
+	}
+
+	/**
+	 * Pack three characters into an int. Characters outside of ascii share a value, which can only cause
+	 * extra names to be checked.
+	 */
+	private static int gram(String s, int offset)
+	{
+		int gram = 0;
+		for (int i = 0; i < GRAM; ++i)
+		{
+			char c = s.charAt(offset + i);
+			gram = gram << CHAR_BITS | (c < CHAR_MASK ? c : CHAR_MASK);
+		}
+		return gram;
+	}
+}
@@ -28,15 +28,11 @@ package net.runelite.client.game.chatbox;
 import com.google.common.primitives.Ints;
 import com.google.inject.Inject;
 import java.awt.event.KeyEvent;
-import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.Set;
 import java.util.function.Consumer;
 import javax.inject.Singleton;
 import lombok.Getter;
-import lombok.Value;
-import net.runelite.api.Client;
 import net.runelite.api.ItemComposition;
 import net.runelite.api.widgets.ItemQuantityMode;
 import net.runelite.api.widgets.JavaScriptCallback;
@@ -61,7 +57,6 @@ public class ChatboxItemSearch extends ChatboxTextInput
 
 	private final ChatboxPanelManager chatboxPanelManager;
 	private final ItemManager itemManager;
-	private final Client client;
 
 	private final Map<Integer, ItemComposition> results = new LinkedHashMap<>();
 	private String tooltipText;
@@ -70,22 +65,13 @@ public class ChatboxItemSearch extends ChatboxTextInput
 	@Getter
 	private Consumer<Integer> onItemSelected;
 
-	@Value
-	private static class ItemIcon
-	{
-		private final int modelId;
-		private final short[] colorsToReplace;
-		private final short[] texturesToReplace;
-	}
-
 	@Inject
 	private ChatboxItemSearch(ChatboxPanelManager chatboxPanelManager, ClientThread clientThread,
-		ItemManager itemManager, Client client)
+		ItemManager itemManager)
 	{
 		super(chatboxPanelManager, clientThread);
 		this.chatboxPanelManager = chatboxPanelManager;
 		this.itemManager = itemManager;
-		this.client = client;
 
 		lines(1);
 		prompt("Item Search");
@@ -298,33 +284,15 @@ public class ChatboxItemSearch extends ChatboxTextInput
 		results.clear();
 		index = -1;
 
-		String search = getValue().toLowerCase();
+		String search = getValue();
 		if (search.isEmpty())
 		{
 			return;
 		}
 
-		Set<ItemIcon> itemIcons = new HashSet<>();
-		for (int i = 0; i < client.getItemCount() && results.size() < MAX_RESULTS; i++)
+		for (int itemId : itemManager.getItemNameIndex().search(search, MAX_RESULTS))
 		{
-			ItemComposition itemComposition = itemManager.getItemComposition(itemManager.canonicalize(i));
-			String name = itemComposition.getName().toLowerCase();
-
-			// The client assigns "null" to item names of items it doesn't know about
-			// and the item might already be in the results from canonicalize
-			if (!name.equals("null") && name.contains(search) && !results.containsKey(itemComposition.getId()))
-			{
-				// Check if the results already contain the same item image
-				ItemIcon itemIcon = new ItemIcon(itemComposition.getInventoryModel(),
-					itemComposition.getColorToReplaceWith(), itemComposition.getTextureToReplaceWith());
-				if (itemIcons.contains(itemIcon))
-				{
-					continue;
-				}
-
-				itemIcons.add(itemIcon);
-				results.put(itemComposition.getId(), itemComposition);
-			}
+			results.put(itemId, itemManager.getItemComposition(itemId));
 		}
 	}
 
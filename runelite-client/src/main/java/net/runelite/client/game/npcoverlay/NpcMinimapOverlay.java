@@ -31,21 +31,21 @@ import java.awt.Graphics2D;
 import java.util.Map;
 import java.util.function.Predicate;
 import net.runelite.api.NPC;
-import net.runelite.api.NPCComposition;
 import net.runelite.api.Point;
 import net.runelite.client.ui.overlay.Overlay;
 import net.runelite.client.ui.overlay.OverlayLayer;
 import net.runelite.client.ui.overlay.OverlayPosition;
 import net.runelite.client.ui.overlay.OverlayUtil;
-import net.runelite.client.util.Text;
 
 class NpcMinimapOverlay extends Overlay
 {
 	private final Map<NPC, HighlightedNpc> highlightedNpcs;
+	private final NpcRenderCache renderCache;
 
-	NpcMinimapOverlay(Map<NPC, HighlightedNpc> highlightedNpcs)
+	NpcMinimapOverlay(Map<NPC, HighlightedNpc> highlightedNpcs, NpcRenderCache renderCache)
 	{
 		this.highlightedNpcs = highlightedNpcs;
+		this.renderCache = renderCache;
 		setPosition(OverlayPosition.DYNAMIC);
 		setLayer(OverlayLayer.ABOVE_WIDGETS);
 	}
@@ -64,8 +64,8 @@ class NpcMinimapOverlay extends Overlay
 	private void renderNpcOverlay(Graphics2D graphics, HighlightedNpc highlightedNpc)
 	{
 		NPC actor = highlightedNpc.getNpc();
-		NPCComposition npcComposition = actor.getTransformedComposition();
-		if (npcComposition == null || !npcComposition.isInteractible())
+		NpcRenderCache.Entry cached = renderCache.get(actor);
+		if (!cached.isInteractible())
 		{
 			return;
 		}
@@ -82,9 +82,9 @@ class NpcMinimapOverlay extends Overlay
 			Color color = highlightedNpc.getHighlightColor();
 			OverlayUtil.renderMinimapLocation(graphics, minimapLocation, color);
 
-			if (highlightedNpc.isNameOnMinimap() && actor.getName() != null)
+			if (highlightedNpc.isNameOnMinimap() && cached.getName() != null)
 			{
-				String name = Text.removeTags(actor.getName());
+				String name = cached.getName();
 				OverlayUtil.renderTextLocation(graphics, minimapLocation, name, color);
 			}
 		}
@@ -35,7 +35,6 @@ import java.util.Map;
 import java.util.function.Predicate;
 import net.runelite.api.Client;
 import net.runelite.api.NPC;
-import net.runelite.api.NPCComposition;
 import net.runelite.api.Perspective;
 import net.runelite.api.Point;
 import net.runelite.api.coords.LocalPoint;
@@ -44,19 +43,20 @@ import net.runelite.client.ui.overlay.OverlayLayer;
 import net.runelite.client.ui.overlay.OverlayPosition;
 import net.runelite.client.ui.overlay.OverlayUtil;
 import net.runelite.client.ui.overlay.outline.ModelOutlineRenderer;
-import net.runelite.client.util.Text;
 
 class NpcOverlay extends Overlay
 {
 	private final Client client;
 	private final ModelOutlineRenderer modelOutlineRenderer;
 	private final Map<NPC, HighlightedNpc> highlightedNpcs;
+	private final NpcRenderCache renderCache;
 
-	NpcOverlay(Client client, ModelOutlineRenderer modelOutlineRenderer, Map<NPC, HighlightedNpc> highlightedNpcs)
+	NpcOverlay(Client client, ModelOutlineRenderer modelOutlineRenderer, Map<NPC, HighlightedNpc> highlightedNpcs, NpcRenderCache renderCache)
 	{
 		this.client = client;
 		this.modelOutlineRenderer = modelOutlineRenderer;
 		this.highlightedNpcs = highlightedNpcs;
+		this.renderCache = renderCache;
 		setPosition(OverlayPosition.DYNAMIC);
 		setLayer(OverlayLayer.ABOVE_SCENE);
 	}
@@ -64,19 +64,49 @@ class NpcOverlay extends Overlay
 	@Override
 	public Dimension render(Graphics2D graphics)
 	{
-		for (HighlightedNpc highlightedNpc : highlightedNpcs.values())
+		// batched outlines are drawn after everything else, so only batch them when nothing else is drawn
+		final boolean batch = isOutlineOnly();
+		if (batch)
+		{
+			modelOutlineRenderer.startBatch();
+		}
+
+		try
+		{
+			for (HighlightedNpc highlightedNpc : highlightedNpcs.values())
+			{
+				renderNpcOverlay(graphics, highlightedNpc);
+			}
+		}
+		finally
 		{
-			renderNpcOverlay(graphics, highlightedNpc);
+			if (batch)
+			{
+				modelOutlineRenderer.endBatch();
+			}
 		}
 
 		return null;
 	}
 
+	private boolean isOutlineOnly()
+	{
+		for (HighlightedNpc highlightedNpc : highlightedNpcs.values())
+		{
+			if (highlightedNpc.isHull() || highlightedNpc.isTile() || highlightedNpc.isTrueTile()
+				|| highlightedNpc.isSwTile() || highlightedNpc.isSwTrueTile() || highlightedNpc.isName())
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
 	private void renderNpcOverlay(Graphics2D graphics, HighlightedNpc highlightedNpc)
 	{
 		NPC actor = highlightedNpc.getNpc();
-		NPCComposition npcComposition = actor.getTransformedComposition();
-		if (npcComposition == null || !npcComposition.isInteractible())
+		NpcRenderCache.Entry cached = renderCache.get(actor);
+		if (!cached.isInteractible())
 		{
 			return;
 		}
@@ -105,21 +135,17 @@ class NpcOverlay extends Overlay
 
 		if (highlightedNpc.isTrueTile())
 		{
-			LocalPoint lp = LocalPoint.fromWorld(client, actor.getWorldLocation()); // centered on sw tile
-			if (lp != null)
+			LocalPoint centerLp = cached.getTrueTileCenter();
+			if (centerLp != null)
 			{
-				final int size = npcComposition.getSize();
-				final LocalPoint centerLp = new LocalPoint(
-					lp.getX() + Perspective.LOCAL_TILE_SIZE * (size - 1) / 2,
-					lp.getY() + Perspective.LOCAL_TILE_SIZE * (size - 1) / 2);
-				Polygon tilePoly = Perspective.getCanvasTileAreaPoly(client, centerLp, size);
+				Polygon tilePoly = Perspective.getCanvasTileAreaPoly(client, centerLp, cached.getSize());
 				renderPoly(graphics, borderColor, borderWidth, fillColor, tilePoly);
 			}
 		}
 
 		if (highlightedNpc.isSwTile())
 		{
-			int size = npcComposition.getSize();
+			int size = cached.getSize();
 			LocalPoint lp = actor.getLocalLocation();
 
 			int x = lp.getX() - ((size - 1) * Perspective.LOCAL_TILE_SIZE / 2);
@@ -131,7 +157,7 @@ class NpcOverlay extends Overlay
 
 		if (highlightedNpc.isSwTrueTile())
 		{
-			LocalPoint lp = LocalPoint.fromWorld(client, actor.getWorldLocation());
+			LocalPoint lp = cached.getSwTrueTile();
 			if (lp != null)
 			{
 				Polygon tilePoly = Perspective.getCanvasTilePoly(client, lp);
@@ -144,9 +170,9 @@ class NpcOverlay extends Overlay
 			modelOutlineRenderer.drawOutline(actor, (int) highlightedNpc.getBorderWidth(), borderColor, highlightedNpc.getOutlineFeather());
 		}
 
-		if (highlightedNpc.isName() && actor.getName() != null)
+		if (highlightedNpc.isName() && cached.getName() != null)
 		{
-			String npcName = Text.removeTags(actor.getName());
+			String npcName = cached.getName();
 			Point textLocation = actor.getCanvasTextLocation(graphics, npcName, actor.getLogicalHeight() + 40);
 
 			if (textLocation != null)
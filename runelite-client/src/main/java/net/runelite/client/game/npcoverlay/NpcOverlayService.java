@@ -25,6 +25,7 @@
  */
 package net.runelite.client.game.npcoverlay;
 
+import com.google.common.annotations.VisibleForTesting;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -32,10 +33,12 @@ import java.util.Map;
 import java.util.function.Function;
 import javax.inject.Inject;
 import javax.inject.Singleton;
+import lombok.extern.slf4j.Slf4j;
 import net.runelite.api.Client;
 import net.runelite.api.GameState;
 import net.runelite.api.NPC;
 import net.runelite.api.events.GameStateChanged;
+import net.runelite.api.events.GameTick;
 import net.runelite.api.events.NpcChanged;
 import net.runelite.api.events.NpcDespawned;
 import net.runelite.api.events.NpcSpawned;
@@ -46,12 +49,17 @@ import net.runelite.client.ui.overlay.OverlayManager;
 import net.runelite.client.ui.overlay.outline.ModelOutlineRenderer;
 
 @Singleton
+@Slf4j
 public class NpcOverlayService
 {
 	private final Client client;
 	private final ClientThread clientThread;
 	private final List<Function<NPC, HighlightedNpc>> highlightFunctions = new ArrayList<>();
+	// the npcs each highlight function currently matches
+	private final Map<Function<NPC, HighlightedNpc>, Map<NPC, HighlightedNpc>> matches = new HashMap<>();
+	// the highlight of the first function matching each npc
 	private final Map<NPC, HighlightedNpc> highlightedNpcs = new HashMap<>();
+	private final NpcRenderCache renderCache;
 
 	@Inject
 	private NpcOverlayService(Client client, ClientThread clientThread,
@@ -59,8 +67,9 @@ public class NpcOverlayService
 	{
 		this.client = client;
 		this.clientThread = clientThread;
-		overlayManager.add(new NpcOverlay(client, modelOutlineRenderer, highlightedNpcs));
-		overlayManager.add(new NpcMinimapOverlay(highlightedNpcs));
+		this.renderCache = new NpcRenderCache(client);
+		overlayManager.add(new NpcOverlay(client, modelOutlineRenderer, highlightedNpcs, renderCache));
+		overlayManager.add(new NpcMinimapOverlay(highlightedNpcs, renderCache));
 		eventBus.register(this);
 	}
 
@@ -71,26 +80,27 @@ public class NpcOverlayService
 			event.getGameState() == GameState.HOPPING)
 		{
 			highlightedNpcs.clear();
+			for (Map<NPC, HighlightedNpc> m : matches.values())
+			{
+				m.clear();
+			}
+			renderCache.clear();
 		}
 	}
 
+	@Subscribe
+	private void onGameTick(GameTick event)
+	{
+		renderCache.clear();
+	}
+
 	@Subscribe(
 		// Run after plugins, which typically capture NPCs on spawn and reference them in the highlight functions
 		priority = -1
 	)
 	private void onNpcSpawned(NpcSpawned npcSpawned)
 	{
-		final NPC npc = npcSpawned.getNpc();
-
-		for (Function<NPC, HighlightedNpc> f : highlightFunctions)
-		{
-			HighlightedNpc highlightedNpc = f.apply(npc);
-			if (highlightedNpc != null)
-			{
-				highlightedNpcs.put(npc, highlightedNpc);
-				return;
-			}
-		}
+		update(npcSpawned.getNpc());
 	}
 
 	@Subscribe(
@@ -99,7 +109,12 @@ public class NpcOverlayService
 	private void onNpcDespawned(NpcDespawned npcDespawned)
 	{
 		final NPC npc = npcDespawned.getNpc();
+		for (Map<NPC, HighlightedNpc> m : matches.values())
+		{
+			m.remove(npc);
+		}
 		highlightedNpcs.remove(npc);
+		renderCache.invalidate(npc);
 	}
 
 	@Subscribe(
@@ -108,18 +123,51 @@ public class NpcOverlayService
 	private void onNpcChanged(NpcChanged event)
 	{
 		final NPC npc = event.getNpc();
+		renderCache.invalidate(npc);
+		update(npc);
+	}
 
-		highlightedNpcs.remove(npc);
+	/**
+	 * Re-evaluate every highlight function for an npc
+	 */
+	private void update(NPC npc)
+	{
+		for (Function<NPC, HighlightedNpc> f : highlightFunctions)
+		{
+			apply(f, npc);
+		}
+		resolve(npc);
+	}
+
+	private void apply(Function<NPC, HighlightedNpc> f, NPC npc)
+	{
+		HighlightedNpc highlightedNpc = f.apply(npc);
+		Map<NPC, HighlightedNpc> m = matches.get(f);
+		if (highlightedNpc != null)
+		{
+			m.put(npc, highlightedNpc);
+		}
+		else
+		{
+			m.remove(npc);
+		}
+	}
 
+	/**
+	 * Pick the highlight from the first registered function which matches the npc
+	 */
+	private void resolve(NPC npc)
+	{
 		for (Function<NPC, HighlightedNpc> f : highlightFunctions)
 		{
-			HighlightedNpc highlightedNpc = f.apply(npc);
+			HighlightedNpc highlightedNpc = matches.get(f).get(npc);
 			if (highlightedNpc != null)
 			{
 				highlightedNpcs.put(npc, highlightedNpc);
 				return;
 			}
 		}
+		highlightedNpcs.remove(npc);
 	}
 
 	public void rebuild()
@@ -128,31 +176,77 @@ public class NpcOverlayService
 		{
 			highlightedNpcs.clear();
 
-			outer:
+			for (Function<NPC, HighlightedNpc> f : highlightFunctions)
+			{
+				matches.get(f).clear();
+			}
+
 			for (NPC npc : client.getNpcs())
 			{
-				for (Function<NPC, HighlightedNpc> f : highlightFunctions)
-				{
-					HighlightedNpc highlightedNpc = f.apply(npc);
-					if (highlightedNpc != null)
-					{
-						highlightedNpcs.put(npc, highlightedNpc);
-						continue outer;
-					}
-				}
+				update(npc);
 			}
 		});
 	}
 
+	@VisibleForTesting
+	Map<NPC, HighlightedNpc> getHighlightedNpcs()
+	{
+		return highlightedNpcs;
+	}
+
+	/**
+	 * Register a function which picks the highlight for an npc. Functions registered first take precedence.
+	 * The function is added on the client thread, so when called from another thread, npcs are highlighted
+	 * once the client thread has run. Registering a function which is already registered has no effect.
+	 *
+	 * @param p function returning the highlight for an npc, or null to not highlight it
+	 */
 	public void registerHighlighter(Function<NPC, HighlightedNpc> p)
 	{
-		highlightFunctions.add(p);
-		rebuild();
+		clientThread.invoke(() ->
+		{
+			if (matches.containsKey(p))
+			{
+				log.warn("Highlighter {} is already registered", p);
+				return;
+			}
+
+			highlightFunctions.add(p);
+			matches.put(p, new HashMap<>());
+
+			// only the new function needs to be evaluated
+			for (NPC npc : client.getNpcs())
+			{
+				apply(p, npc);
+			}
+
+			for (NPC npc : matches.get(p).keySet())
+			{
+				resolve(npc);
+			}
+		});
 	}
 
+	/**
+	 * Unregister a highlight function. Like {@link #registerHighlighter(Function)}, this takes effect on the client thread.
+	 *
+	 * @param p the function to unregister
+	 */
 	public void unregisterHighlighter(Function<NPC, HighlightedNpc> p)
 	{
-		highlightFunctions.remove(p);
-		rebuild();
+		clientThread.invoke(() ->
+		{
+			Map<NPC, HighlightedNpc> removed = matches.remove(p);
+			if (removed == null)
+			{
+				return;
+			}
+
+			highlightFunctions.remove(p);
+			for (NPC npc : removed.keySet())
+			{
+				resolve(npc);
+			}
+		});
 	}
 }
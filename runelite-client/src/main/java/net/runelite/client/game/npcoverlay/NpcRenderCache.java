@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2022, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.game.npcoverlay;
+
+import java.util.HashMap;
+import java.util.Map;
+import lombok.Value;
+import net.runelite.api.Client;
+import net.runelite.api.NPC;
+import net.runelite.api.NPCComposition;
+import net.runelite.api.Perspective;
+import net.runelite.api.coords.LocalPoint;
+import net.runelite.client.util.Text;
+
+/**
+ * Per-NPC render data which only changes once per game tick, so that the overlays don't have to
+ * recompute it every frame. It is cleared each tick, and entries are rebuilt lazily on the
+ * first frame that needs them.
+ */
+class NpcRenderCache
+{
+	@Value
+	static class Entry
+	{
+		boolean interactible;
+		int size;
+		String name;
+		/**
+		 * The center of the npc's true tile area, or null if it is not in the scene
+		 */
+		LocalPoint trueTileCenter;
+		/**
+		 * The center of the south west tile of the npc's true tile area, or null if it is not in the scene
+		 */
+		LocalPoint swTrueTile;
+	}
+
+	private static final Entry NOT_INTERACTIBLE = new Entry(false, 1, null, null, null);
+
+	private final Client client;
+	private final Map<NPC, Entry> entries = new HashMap<>();
+
+	NpcRenderCache(Client client)
+	{
+		this.client = client;
+	}
+
+	Entry get(NPC npc)
+	{
+		Entry entry = entries.get(npc);
+		if (entry == null)
+		{
+			entry = compute(npc);
+			entries.put(npc, entry);
+		}
+		return entry;
+	}
+
+	void invalidate(NPC npc)
+	{
+		entries.remove(npc);
+	}
+
+	void clear()
+	{
+		entries.clear();
+	}
+
+	private Entry compute(NPC npc)
+	{
+		NPCComposition composition = npc.getTransformedComposition();
+		if (composition == null || !composition.isInteractible())
+		{
+			return NOT_INTERACTIBLE;
+		}
+
+		final int size = composition.getSize();
+		final String name = npc.getName() == null ? null : Text.removeTags(npc.getName());
+
+		LocalPoint trueTileCenter = null;
+		LocalPoint lp = LocalPoint.fromWorld(client, npc.getWorldLocation()); // centered on sw tile
+		if (lp != null)
+		{
+			trueTileCenter = new LocalPoint(
+				lp.getX() + Perspective.LOCAL_TILE_SIZE * (size - 1) / 2,
+				lp.getY() + Perspective.LOCAL_TILE_SIZE * (size - 1) / 2);
+		}
+
+		return new Entry(true, size, name, trueTileCenter, lp);
+	}
+}
@@ -25,8 +25,6 @@
 package net.runelite.client.hiscore;
 
 import com.google.common.annotations.VisibleForTesting;
-import com.google.common.base.CharMatcher;
-import com.google.common.base.Splitter;
 import com.google.common.collect.ImmutableMap;
 import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
@@ -54,13 +52,15 @@ import okhttp3.HttpUrl;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.Response;
+import okio.BufferedSource;
 
 @Slf4j
 @Singleton
 public class HiscoreClient
 {
-	private static final Splitter NEWLINE_SPLITTER = Splitter.on(CharMatcher.anyOf("\r\n")).omitEmptyStrings();
-	private static final Splitter COMMA_SPLITTER = Splitter.on(',').trimResults();
+	private static final int MAX_FIELDS = 3;
+	// enough for any experience value without overflowing a long
+	private static final int MAX_DIGITS = 18;
 
 	private final OkHttpClient client;
 	private final Map<HiscoreEndpoint, List<HiscoreSkill>> mappings;
@@ -157,17 +157,30 @@ public class HiscoreClient
 	@VisibleForTesting
 	HiscoreResult lookup(String username, HiscoreEndpoint endpoint, HttpUrl url) throws IOException
 	{
-		try (Response response = client.newCall(buildRequest(username, url)).execute())
+		try (Response response = client.newCall(buildRequest(username, url, null)).execute())
 		{
-			return processResponse(username, endpoint, response);
+			return processResponse(username, endpoint, response).getResult();
 		}
 	}
 
 	public CompletableFuture<HiscoreResult> lookupAsync(String username, HiscoreEndpoint endpoint)
 	{
-		CompletableFuture<HiscoreResult> future = new CompletableFuture<>();
+		return lookupAsync(username, endpoint, null).thenApply(HiscoreResponse::getResult);
+	}
+
+	/**
+	 * Asynchronously look up a players hiscore, revalidating a previous response
+	 *
+	 * @param username Players username
+	 * @param endpoint Hiscore endpoint
+	 * @param etag ETag of the previous response, or null
+	 * @return the response, which is {@link HiscoreResponse#NOT_MODIFIED} if the previous response is still current
+	 */
+	CompletableFuture<HiscoreResponse> lookupAsync(String username, HiscoreEndpoint endpoint, @Nullable String etag)
+	{
+		CompletableFuture<HiscoreResponse> future = new CompletableFuture<>();
 
-		client.newCall(buildRequest(username, endpoint.getHiscoreURL())).enqueue(new Callback()
+		client.newCall(buildRequest(username, endpoint.getHiscoreURL(), etag)).enqueue(new Callback()
 		{
 			@Override
 			public void onFailure(Call call, IOException e)
@@ -176,12 +189,16 @@ public class HiscoreClient
 			}
 
 			@Override
-			public void onResponse(Call call, Response response) throws IOException
+			public void onResponse(Call call, Response response)
 			{
 				try // NOPMD: UseTryWithResources
 				{
 					future.complete(processResponse(username, endpoint, response));
 				}
+				catch (IOException | RuntimeException e)
+				{
+					future.completeExceptionally(e);
+				}
 				finally
 				{
 					response.close();
@@ -192,7 +209,7 @@ public class HiscoreClient
 		return future;
 	}
 
-	private static Request buildRequest(String username, HttpUrl hiscoreUrl)
+	private static Request buildRequest(String username, HttpUrl hiscoreUrl, @Nullable String etag)
 	{
 		HttpUrl url = hiscoreUrl.newBuilder()
 			.addQueryParameter("player", username)
@@ -200,29 +217,113 @@ public class HiscoreClient
 
 		log.debug("Built URL {}", url);
 
-		return new Request.Builder()
-			.url(url)
-			.build();
+		Request.Builder builder = new Request.Builder()
+			.url(url);
+		if (etag != null)
+		{
+			builder.header("If-None-Match", etag);
+		}
+		return builder.build();
 	}
 
-	private HiscoreResult processResponse(String username, HiscoreEndpoint endpoint, Response response) throws IOException
+	private HiscoreResponse processResponse(String username, HiscoreEndpoint endpoint, Response response) throws IOException
 	{
+		if (response.code() == 304)
+		{
+			return HiscoreResponse.NOT_MODIFIED;
+		}
+
 		if (!response.isSuccessful())
 		{
 			if (response.code() == 404)
 			{
-				return null;
+				return new HiscoreResponse(null, null, false);
 			}
 
 			throw new IOException("Error retrieving data from Jagex Hiscores: " + response);
 		}
 
-		String responseStr = response.body().string();
+		HiscoreResult result = parse(username, endpoint, mappings.get(endpoint), response.body().source());
+		return new HiscoreResponse(result, response.header("ETag"), false);
+	}
+
+	/**
+	 * Parse a hiscore CSV response directly from the response bytes. Each line is
+	 * {@code rank,level[,experience]}, and maps to the next skill of the endpoint mapping.
+	 * No intermediate strings are created.
+	 */
+	@VisibleForTesting
+	static HiscoreResult parse(String username, HiscoreEndpoint endpoint, List<HiscoreSkill> mapping, BufferedSource source) throws IOException
+	{
+		final HiscoreResult result = new HiscoreResult(username);
+		final long[] fields = new long[MAX_FIELDS];
+		Iterator<HiscoreSkill> map = mapping.iterator();
+		int line = 0;
 
-		ImmutableMap.Builder<HiscoreSkill, Skill> skills = ImmutableMap.builder();
-		Iterator<HiscoreSkill> map = mappings.get(endpoint).iterator();
-		for (String line : NEWLINE_SPLITTER.split(responseStr))
+		while (!source.exhausted())
 		{
+			// parse one line
+			int numFields = 0;
+			int digits = 0;
+			long value = 0;
+			boolean negative = false;
+			boolean trailing = false;
+			boolean empty = true;
+			boolean valid = true;
+
+			while (!source.exhausted())
+			{
+				byte b = source.readByte();
+				if (b == '\n' || b == '\r')
+				{
+					break;
+				}
+
+				empty = false;
+				if (!valid)
+				{
+					continue;
+				}
+
+				if (b >= '0' && b <= '9')
+				{
+					if (trailing || digits == MAX_DIGITS)
+					{
+						valid = false;
+						continue;
+					}
+					value = value * 10 + (b - '0');
+					++digits;
+				}
+				else if (b == '-' && digits == 0 && !negative)
+				{
+					negative = true;
+				}
+				else if (b == ' ' || b == '\t')
+				{
+					// trim whitespace around fields
+					trailing = digits > 0 || negative;
+				}
+				else if (b == ',' && digits > 0 && numFields < MAX_FIELDS - 1)
+				{
+					fields[numFields++] = negative ? -value : value;
+					digits = 0;
+					value = 0;
+					negative = false;
+					trailing = false;
+				}
+				else
+				{
+					valid = false;
+				}
+			}
+
+			if (empty)
+			{
+				continue;
+			}
+
+			++line;
 			if (!map.hasNext())
 			{
 				log.warn("{} returned extra data", endpoint);
@@ -235,23 +336,22 @@ public class HiscoreClient
 				continue;
 			}
 
-			List<String> record = COMMA_SPLITTER.splitToList(line);
-			try
+			if (valid && digits > 0)
 			{
-				int rank = Integer.parseInt(record.get(0));
-				int level = Integer.parseInt(record.get(1));
-				long experience = -1;
-				if (record.size() == 3)
-				{
-					experience = Long.parseLong(record.get(2));
-				}
-
-				skills.put(skill, new Skill(rank, level, experience));
+				fields[numFields++] = negative ? -value : value;
 			}
-			catch (Exception e)
+			else
 			{
-				log.warn("invalid hiscore line \"{}\"", line, e);
+				valid = false;
 			}
+
+			if (!valid || numFields < 2 || !isInt(fields[0]) || !isInt(fields[1]))
+			{
+				log.warn("invalid hiscore line {} for {}", line, skill);
+				continue;
+			}
+
+			result.set(skill, (int) fields[0], (int) fields[1], numFields == 3 ? fields[2] : -1);
 		}
 
 		if (map.hasNext())
@@ -259,6 +359,11 @@ public class HiscoreClient
 			log.warn("{} returned less data than expected ({} expected next)", endpoint, map.next());
 		}
 
-		return new HiscoreResult(username, skills.build());
+		return result;
+	}
+
+	private static boolean isInt(long value)
+	{
+		return value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE;
 	}
 }
@@ -24,18 +24,44 @@
  */
 package net.runelite.client.hiscore;
 
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.LoadingCache;
-import com.google.common.collect.ImmutableMap;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+import javax.annotation.Nullable;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.client.RuneLite;
 
 @Singleton
+@Slf4j
 public class HiscoreManager
 {
 	@AllArgsConstructor
@@ -46,20 +72,83 @@ public class HiscoreManager
 		HiscoreEndpoint type;
 	}
 
-	static final HiscoreResult EMPTY = new HiscoreResult(null, ImmutableMap.of());
-	static final HiscoreResult NONE = new HiscoreResult(null, ImmutableMap.of());
+	@AllArgsConstructor
+	static class Entry
+	{
+		/**
+		 * The result, or null if the player is not on the hiscores
+		 */
+		@Nullable
+		final HiscoreResult result;
+		@Nullable
+		final String etag;
+		final long fetched;
+		/**
+		 * When the last lookup failed, or 0
+		 */
+		final long failed;
+	}
+
+	private static final File CACHE_FILE = new File(RuneLite.CACHE_DIR, "hiscores");
+	private static final int CACHE_VERSION = 1;
+
+	/**
+	 * Results younger than this are used without revalidation
+	 */
+	static final long FRESH_MILLIS = TimeUnit.HOURS.toMillis(1);
+	/**
+	 * Failed lookups are retried by {@link #lookupAsync(String, HiscoreEndpoint)} after this long. Synchronous
+	 * lookups always retry, so a failure is never returned as a result.
+	 */
+	static final long RETRY_MILLIS = TimeUnit.SECONDS.toMillis(30);
+	/**
+	 * Stale results are served by {@link #lookupAsync(String, HiscoreEndpoint)} while they are revalidated,
+	 * up to this age
+	 */
+	private static final long MAX_AGE_MILLIS = TimeUnit.DAYS.toMillis(1);
+	/**
+	 * Cache weight, in hiscore entries. A full result is ~90 entries.
+	 */
+	private static final long MAXIMUM_WEIGHT = 100_000L;
+	static final int MAX_CONCURRENT_LOOKUPS = 4;
 
-	private final LoadingCache<HiscoreKey, HiscoreResult> hiscoreCache;
 	private final HiscoreClient hiscoreClient;
+	private final File cacheFile;
+	private final LongSupplier clock;
+	private final Cache<HiscoreKey, Entry> hiscoreCache;
+	private final Map<HiscoreKey, CompletableFuture<Entry>> inFlight = new ConcurrentHashMap<>();
+	private final Queue<Runnable> pending = new ArrayDeque<>();
+	private int running;
+	private final AtomicBoolean dirty = new AtomicBoolean();
 
 	@Inject
 	private HiscoreManager(ScheduledExecutorService executor, HiscoreClient hiscoreClient)
+	{
+		this(hiscoreClient, CACHE_FILE, System::currentTimeMillis);
+
+		executor.execute(this::load);
+		executor.scheduleWithFixedDelay(this::save, 1, 1, TimeUnit.MINUTES);
+	}
+
+	@VisibleForTesting
+	HiscoreManager(HiscoreClient hiscoreClient, File cacheFile, LongSupplier clock)
 	{
 		this.hiscoreClient = hiscoreClient;
+		this.cacheFile = cacheFile;
+		this.clock = clock;
 		hiscoreCache = CacheBuilder.newBuilder()
-			.maximumSize(128L)
-			.expireAfterWrite(1, TimeUnit.HOURS)
-			.build(new HiscoreLoader(executor, hiscoreClient));
+			.maximumWeight(MAXIMUM_WEIGHT)
+			.<HiscoreKey, Entry>weigher((k, v) -> 1 + (v.result != null ? v.result.size() : 0))
+			.expireAfterWrite(MAX_AGE_MILLIS, TimeUnit.MILLISECONDS)
+			.ticker(new Ticker()
+			{
+				@Override
+				public long read()
+				{
+					return TimeUnit.MILLISECONDS.toNanos(clock.getAsLong());
+				}
+			})
+			.build();
 	}
 
 	/**
@@ -73,25 +162,30 @@ public class HiscoreManager
 	public HiscoreResult lookup(String username, HiscoreEndpoint endpoint) throws IOException
 	{
 		HiscoreKey hiscoreKey = new HiscoreKey(username, endpoint);
-		HiscoreResult hiscoreResult = hiscoreCache.getIfPresent(hiscoreKey);
-		if (hiscoreResult != null && hiscoreResult != EMPTY)
+		Entry entry = hiscoreCache.getIfPresent(hiscoreKey);
+		if (entry != null && isFresh(entry))
 		{
-			return hiscoreResult == NONE ? null : hiscoreResult;
+			return entry.result;
 		}
 
-		hiscoreResult = hiscoreClient.lookup(username, endpoint);
-		if (hiscoreResult == null)
+		try
 		{
-			hiscoreCache.put(hiscoreKey, NONE);
-			return null;
+			return fetch(hiscoreKey, entry).join().result;
+		}
+		catch (CompletionException ex)
+		{
+			Throwable cause = ex.getCause();
+			if (cause instanceof IOException)
+			{
+				throw (IOException) cause;
+			}
+			throw new IOException(cause);
 		}
-
-		hiscoreCache.put(hiscoreKey, hiscoreResult);
-		return hiscoreResult;
 	}
 
 	/**
-	 * Asynchronously look up a players hiscore from a specified endpoint
+	 * Asynchronously look up a players hiscore from a specified endpoint. If the cached result
+	 * is stale, it is returned while a new one is fetched.
 	 *
 	 * @param username Players username
 	 * @param endpoint Hiscore endpoint
@@ -100,13 +194,247 @@ public class HiscoreManager
 	public HiscoreResult lookupAsync(String username, HiscoreEndpoint endpoint)
 	{
 		HiscoreKey hiscoreKey = new HiscoreKey(username, endpoint);
-		HiscoreResult hiscoreResult = hiscoreCache.getIfPresent(hiscoreKey);
-		if (hiscoreResult != null && hiscoreResult != EMPTY)
+		Entry entry = hiscoreCache.getIfPresent(hiscoreKey);
+		if (entry == null || !(isFresh(entry) || isRetryPending(entry)))
+		{
+			fetch(hiscoreKey, entry);
+		}
+		return entry != null ? entry.result : null;
+	}
+
+	private boolean isFresh(Entry entry)
+	{
+		return clock.getAsLong() - entry.fetched < FRESH_MILLIS;
+	}
+
+	private boolean isRetryPending(Entry entry)
+	{
+		return entry.failed != 0 && clock.getAsLong() - entry.failed < RETRY_MILLIS;
+	}
+
+	/**
+	 * Fetch a hiscore, joining the lookup already in flight for the same player and endpoint if there is one
+	 */
+	private CompletableFuture<Entry> fetch(HiscoreKey hiscoreKey, @Nullable Entry previous)
+	{
+		CompletableFuture<Entry> future = new CompletableFuture<>();
+		CompletableFuture<Entry> existing = inFlight.putIfAbsent(hiscoreKey, future);
+		if (existing != null)
+		{
+			return existing;
+		}
+
+		future.whenComplete((e, ex) -> inFlight.remove(hiscoreKey, future));
+		submit(() -> request(hiscoreKey, previous, future));
+		return future;
+	}
+
+	private void request(HiscoreKey hiscoreKey, @Nullable Entry previous, CompletableFuture<Entry> future)
+	{
+		log.debug("Submitting hiscore lookup for {} type {}", hiscoreKey.getUsername(), hiscoreKey.getType());
+
+		String etag = previous != null ? previous.etag : null;
+		CompletableFuture<HiscoreResponse> response;
+		try
+		{
+			response = hiscoreClient.lookupAsync(hiscoreKey.getUsername(), hiscoreKey.getType(), etag);
+		}
+		catch (RuntimeException ex)
+		{
+			response = new CompletableFuture<>();
+			response.completeExceptionally(ex);
+		}
+
+		response.whenComplete((r, ex) ->
+		{
+			try
+			{
+				long now = clock.getAsLong();
+				if (ex != null)
+				{
+					log.warn("Unable to look up hiscore!", ex);
+					// keep serving what we have, and hold off async lookups for a while
+					hiscoreCache.put(hiscoreKey, previous != null
+						? new Entry(previous.result, previous.etag, previous.fetched, now)
+						: new Entry(null, null, 0L, now));
+					future.completeExceptionally(ex);
+					return;
+				}
+
+				Entry entry = r.isNotModified() && previous != null
+					? new Entry(previous.result, previous.etag, now, 0L)
+					: new Entry(r.getResult(), r.getEtag(), now, 0L);
+				hiscoreCache.put(hiscoreKey, entry);
+				dirty.set(true);
+				future.complete(entry);
+			}
+			finally
+			{
+				finished();
+			}
+		});
+	}
+
+	private void submit(Runnable request)
+	{
+		synchronized (pending)
+		{
+			if (running >= MAX_CONCURRENT_LOOKUPS)
+			{
+				pending.add(request);
+				return;
+			}
+			++running;
+		}
+		request.run();
+	}
+
+	private void finished()
+	{
+		Runnable next;
+		synchronized (pending)
+		{
+			next = pending.poll();
+			if (next == null)
+			{
+				--running;
+				return;
+			}
+		}
+		// start the next request from the completion of the previous one. This must not wait on the shared
+		// executor, since synchronous lookups may be blocking it, and it is cheap because HiscoreClient.lookupAsync
+		// only enqueues the call.
+		next.run();
+	}
+
+	@VisibleForTesting
+	void load()
+	{
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(cacheFile))))
+		{
+			if (in.readInt() != CACHE_VERSION)
+			{
+				return;
+			}
+
+			final long now = clock.getAsLong();
+			int count = in.readInt();
+			for (int i = 0; i < count; ++i)
+			{
+				String username = in.readUTF();
+				HiscoreEndpoint endpoint = parseEnum(HiscoreEndpoint.class, in.readUTF());
+				long fetched = in.readLong();
+				String etag = in.readBoolean() ? in.readUTF() : null;
+				HiscoreResult result = new HiscoreResult(username);
+				int size = in.readUnsignedByte();
+				for (int j = 0; j < size; ++j)
+				{
+					HiscoreSkill skill = parseEnum(HiscoreSkill.class, in.readUTF());
+					int rank = in.readInt();
+					int level = in.readInt();
+					long experience = in.readLong();
+					if (skill != null)
+					{
+						result.set(skill, rank, level, experience);
+					}
+				}
+
+				if (endpoint != null && now - fetched < MAX_AGE_MILLIS)
+				{
+					// entries fetched since startup take precedence
+					hiscoreCache.asMap().putIfAbsent(new HiscoreKey(username, endpoint), new Entry(result, etag, fetched, 0L));
+				}
+			}
+
+			log.debug("Loaded {} hiscores from disk", count);
+		}
+		catch (FileNotFoundException ex)
 		{
-			return hiscoreResult == NONE ? null : hiscoreResult;
+			log.debug("No hiscore cache");
 		}
+		catch (IOException ex)
+		{
+			log.warn("Unable to load hiscore cache", ex);
+		}
+	}
+
+	@Nullable
+	private static <T extends Enum<T>> T parseEnum(Class<T> clazz, String name)
+	{
+		try
+		{
+			return Enum.valueOf(clazz, name);
+		}
+		catch (IllegalArgumentException ex)
+		{
+			// removed since the cache was written
+			return null;
+		}
+	}
 
-		hiscoreCache.refresh(hiscoreKey);
-		return null;
+	@VisibleForTesting
+	void save()
+	{
+		if (!dirty.getAndSet(false))
+		{
+			return;
+		}
+
+		try
+		{
+			File parent = cacheFile.getParentFile();
+			parent.mkdirs();
+
+			File tempFile = File.createTempFile("hiscores", null, parent);
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile))))
+			{
+				List<Map.Entry<HiscoreKey, Entry>> entries = new ArrayList<>();
+				for (Map.Entry<HiscoreKey, Entry> e : hiscoreCache.asMap().entrySet())
+				{
+					if (e.getValue().result != null)
+					{
+						entries.add(e);
+					}
+				}
+
+				out.writeInt(CACHE_VERSION);
+				out.writeInt(entries.size());
+				for (Map.Entry<HiscoreKey, Entry> e : entries)
+				{
+					Entry entry = e.getValue();
+					out.writeUTF(e.getKey().getUsername());
+					out.writeUTF(e.getKey().getType().name());
+					out.writeLong(entry.fetched);
+					out.writeBoolean(entry.etag != null);
+					if (entry.etag != null)
+					{
+						out.writeUTF(entry.etag);
+					}
+					out.writeByte(entry.result.size());
+					for (Map.Entry<HiscoreSkill, Skill> s : entry.result.getSkills().entrySet())
+					{
+						Skill skill = s.getValue();
+						out.writeUTF(s.getKey().name());
+						out.writeInt(skill.getRank());
+						out.writeInt(skill.getLevel());
+						out.writeLong(skill.getExperience());
+					}
+				}
+			}
+
+			try
+			{
+				Files.move(tempFile.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			}
+			catch (AtomicMoveNotSupportedException ex)
+			{
+				log.debug("atomic move not supported", ex);
+				Files.move(tempFile.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+		}
+		catch (IOException ex)
+		{
+			log.warn("Unable to save hiscore cache", ex);
+		}
 	}
 }
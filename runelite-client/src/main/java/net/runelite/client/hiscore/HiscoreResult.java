@@ -24,17 +24,97 @@
  */
 package net.runelite.client.hiscore;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.Map;
-import lombok.Value;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
 
-@Value
+/**
+ * A players hiscore entries, stored as primitive arrays indexed by {@link HiscoreSkill} ordinal.
+ */
+@EqualsAndHashCode
+@ToString
 public class HiscoreResult
 {
-	private String player;
-	private Map<HiscoreSkill, Skill> skills;
+	private static final HiscoreSkill[] SKILLS = HiscoreSkill.values();
+	/**
+	 * Rank of skills which are not present in the result
+	 */
+	private static final int ABSENT = Integer.MIN_VALUE;
+
+	@Getter
+	private final String player;
+	private final int[] ranks = new int[SKILLS.length];
+	private final int[] levels = new int[SKILLS.length];
+	private final long[] experience = new long[SKILLS.length];
+	@EqualsAndHashCode.Exclude
+	@ToString.Exclude
+	private int size;
+
+	public HiscoreResult(String player, Map<HiscoreSkill, Skill> skills)
+	{
+		this(player);
+		for (Map.Entry<HiscoreSkill, Skill> entry : skills.entrySet())
+		{
+			Skill skill = entry.getValue();
+			set(entry.getKey(), skill.getRank(), skill.getLevel(), skill.getExperience());
+		}
+	}
+
+	HiscoreResult(String player)
+	{
+		this.player = player;
+		Arrays.fill(ranks, ABSENT);
+	}
+
+	/**
+	 * Set an entry of the result. This is only for use while the result is being built,
+	 * before it is published to other threads.
+	 */
+	void set(HiscoreSkill skill, int rank, int level, long experience)
+	{
+		int idx = skill.ordinal();
+		if (ranks[idx] == ABSENT)
+		{
+			++size;
+		}
+		ranks[idx] = rank;
+		levels[idx] = level;
+		this.experience[idx] = experience;
+	}
+
+	/**
+	 * The number of entries in the result
+	 */
+	int size()
+	{
+		return size;
+	}
 
 	public Skill getSkill(HiscoreSkill skill)
 	{
-		return skills.get(skill);
+		int idx = skill.ordinal();
+		if (ranks[idx] == ABSENT)
+		{
+			return null;
+		}
+		return new Skill(ranks[idx], levels[idx], experience[idx]);
+	}
+
+	public Map<HiscoreSkill, Skill> getSkills()
+	{
+		Map<HiscoreSkill, Skill> skills = new EnumMap<>(HiscoreSkill.class);
+		for (HiscoreSkill skill : SKILLS)
+		{
+			int idx = skill.ordinal();
+			if (ranks[idx] != ABSENT)
+			{
+				skills.put(skill, new Skill(ranks[idx], levels[idx], experience[idx]));
+			}
+		}
+		return Collections.unmodifiableMap(skills);
 	}
 }
@@ -0,0 +1,267 @@
+/*
+ * Copyright (c) 2022, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.party;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.Value;
+import net.runelite.client.party.messages.PartyMemberMessage;
+
+/**
+ * Packs the binary encoded messages sent in a game tick into a single frame, and unpacks frames
+ * received from other members.
+ * <p>
+ * A frame is {@code 0x00, seq, base} followed by {@code type id, length, payload} for each
+ * message, all as varints. Messages may be encoded as a delta against the last message of
+ * the same type from frame {@code base}; a base of 0 means the frame is self contained. The
+ * relay server has no acknowledgements, so full frames are sent periodically and when a member
+ * joins, and receivers which have missed part of the chain drop deltas until the next one.
+ */
+class BinaryFrameCodec
+{
+	/**
+	 * The first byte of every binary frame. Json messages always start with '{'.
+	 */
+	static final byte FRAME_MAGIC = 0;
+	private static final int KEYFRAME_INTERVAL = 16;
+
+	@Value
+	private static class Registration
+	{
+		int typeId;
+		Class<? extends PartyMemberMessage> messageClass;
+		PartyMessageCodec<PartyMemberMessage> codec;
+	}
+
+	private static class Receiver
+	{
+		private int lastSeq = -1;
+		private final Map<Class<?>, PartyMemberMessage> last = new HashMap<>();
+	}
+
+	private final Map<Class<?>, Registration> byClass = new HashMap<>();
+	private final Map<Integer, Registration> byId = new HashMap<>();
+
+	// sending
+	private final Map<Class<?>, PartyMemberMessage> pending = new LinkedHashMap<>();
+	private final Map<Class<?>, PartyMemberMessage> lastSent = new HashMap<>();
+	private final BinaryMessageOutput frame = new BinaryMessageOutput();
+	private final BinaryMessageOutput payload = new BinaryMessageOutput();
+	private int seq;
+	private boolean keyframe = true;
+
+	// receiving, by member id
+	private final Map<Long, Receiver> receivers = new HashMap<>();
+
+	@SuppressWarnings("unchecked")
+	synchronized <T extends PartyMemberMessage> void register(Class<T> messageClass, int typeId, PartyMessageCodec<T> codec)
+	{
+		Registration existing = byId.get(typeId);
+		if (existing != null && existing.getMessageClass() != messageClass)
+		{
+			throw new IllegalArgumentException("type id " + typeId + " is already used by " + existing.getMessageClass().getName());
+		}
+
+		Registration registration = new Registration(typeId, messageClass, (PartyMessageCodec<PartyMemberMessage>) codec);
+		byClass.put(messageClass, registration);
+		byId.put(typeId, registration);
+	}
+
+	synchronized void unregister(Class<? extends PartyMemberMessage> messageClass)
+	{
+		Registration registration = byClass.remove(messageClass);
+		if (registration != null)
+		{
+			byId.remove(registration.getTypeId());
+			pending.remove(messageClass);
+			lastSent.remove(messageClass);
+		}
+	}
+
+	synchronized boolean isRegistered(Class<?> messageClass)
+	{
+		return byClass.containsKey(messageClass);
+	}
+
+	/**
+	 * Queue a message for the next frame, merging it with any message of the same type already queued
+	 *
+	 * @return true if this is the first message queued since the last flush
+	 */
+	synchronized boolean queue(PartyMemberMessage message)
+	{
+		final boolean first = pending.isEmpty();
+		final Class<?> messageClass = message.getClass();
+		PartyMemberMessage queued = pending.get(messageClass);
+		pending.put(messageClass, queued == null ? message : byClass.get(messageClass).getCodec().merge(queued, message));
+		return first;
+	}
+
+	/**
+	 * Encode the queued messages into a frame
+	 *
+	 * @return the frame, or null if no messages are queued
+	 */
+	synchronized byte[] flush()
+	{
+		if (pending.isEmpty())
+		{
+			return null;
+		}
+
+		++seq;
+		final boolean full = keyframe || seq % KEYFRAME_INTERVAL == 0;
+		if (full)
+		{
+			lastSent.clear();
+		}
+
+		frame.reset();
+		frame.writeByte(FRAME_MAGIC);
+		frame.writeVarint(seq);
+		frame.writeVarint(full ? 0 : seq - 1);
+
+		for (PartyMemberMessage message : pending.values())
+		{
+			Registration registration = byClass.get(message.getClass());
+
+			payload.reset();
+			registration.getCodec().encode(message, lastSent.get(message.getClass()), payload);
+
+			frame.writeVarint(registration.getTypeId());
+			frame.writeVarint(payload.size());
+			frame.writeBytes(payload.buffer(), 0, payload.size());
+
+			lastSent.put(message.getClass(), message);
+		}
+
+		pending.clear();
+		keyframe = false;
+		return frame.toByteArray();
+	}
+
+	/**
+	 * Make the next frame self contained, eg. because a member has joined who has not seen earlier frames
+	 */
+	synchronized void requestKeyframe()
+	{
+		keyframe = true;
+	}
+
+	/**
+	 * Remove the queued messages without encoding them, eg. to send them another way
+	 *
+	 * @return the queued messages
+	 */
+	synchronized List<PartyMemberMessage> drain()
+	{
+		if (pending.isEmpty())
+		{
+			return Collections.emptyList();
+		}
+
+		List<PartyMemberMessage> messages = new ArrayList<>(pending.values());
+		pending.clear();
+		return messages;
+	}
+
+	/**
+	 * Forget the frames received from a member, eg. because it has left the party
+	 */
+	synchronized void removeReceiver(long memberId)
+	{
+		receivers.remove(memberId);
+	}
+
+	synchronized void reset()
+	{
+		pending.clear();
+		lastSent.clear();
+		receivers.clear();
+		keyframe = true;
+	}
+
+	/**
+	 * Decode a frame from a member
+	 *
+	 * @return the decoded messages, in the order they were sent
+	 */
+	synchronized List<PartyMemberMessage> decode(long memberId, byte[] data)
+	{
+		BinaryMessageInput in = new BinaryMessageInput(data);
+		if (in.readByte() != FRAME_MAGIC)
+		{
+			throw new IllegalStateException("not a binary frame");
+		}
+
+		final int frameSeq = in.readVarint();
+		final int base = in.readVarint();
+
+		Receiver receiver = receivers.computeIfAbsent(memberId, k -> new Receiver());
+		if (base == 0)
+		{
+			receiver.last.clear();
+		}
+
+		final boolean intact = base == 0 || receiver.lastSeq == base;
+		receiver.lastSeq = intact ? frameSeq : -1;
+
+		List<PartyMemberMessage> messages = Collections.emptyList();
+		while (in.remaining() > 0)
+		{
+			final int typeId = in.readVarint();
+			final BinaryMessageInput messageIn = in.slice(in.readVarint());
+
+			Registration registration = byId.get(typeId);
+			if (registration == null)
+			{
+				// a type this client doesn't know about
+				continue;
+			}
+
+			final Class<? extends PartyMemberMessage> messageClass = registration.getMessageClass();
+			PartyMemberMessage message = registration.getCodec().decode(messageIn, intact ? receiver.last.get(messageClass) : null);
+			if (message == null)
+			{
+				continue;
+			}
+
+			message.setMemberId(memberId);
+			receiver.last.put(messageClass, message);
+
+			if (messages.isEmpty())
+			{
+				messages = new ArrayList<>(2);
+			}
+			messages.add(message);
+		}
+
+		return messages;
+	}
+}
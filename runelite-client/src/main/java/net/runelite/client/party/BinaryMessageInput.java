@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2022, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.party;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads binary party messages written with {@link BinaryMessageOutput}
+ */
+public class BinaryMessageInput
+{
+	private final byte[] buf;
+	private int pos;
+	private final int limit;
+
+	public BinaryMessageInput(byte[] buf)
+	{
+		this(buf, 0, buf.length);
+	}
+
+	public BinaryMessageInput(byte[] buf, int off, int len)
+	{
+		this.buf = buf;
+		this.pos = off;
+		this.limit = off + len;
+	}
+
+	public int readByte()
+	{
+		if (pos >= limit)
+		{
+			throw new IllegalStateException("end of message");
+		}
+		return buf[pos++] & 0xFF;
+	}
+
+	public boolean readBoolean()
+	{
+		return readByte() != 0;
+	}
+
+	public int readVarint()
+	{
+		int value = 0;
+		for (int shift = 0; shift < 35; shift += 7)
+		{
+			int b = readByte();
+			value |= (b & 0x7F) << shift;
+			if ((b & 0x80) == 0)
+			{
+				return value;
+			}
+		}
+		throw new IllegalStateException("malformed varint");
+	}
+
+	public int readSignedVarint()
+	{
+		int value = readVarint();
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	public String readString()
+	{
+		int len = readVarint();
+		if (len < 0 || len > remaining())
+		{
+			throw new IllegalStateException("bad string length " + len);
+		}
+		String s = new String(buf, pos, len, StandardCharsets.UTF_8);
+		pos += len;
+		return s;
+	}
+
+	public int remaining()
+	{
+		return limit - pos;
+	}
+
+	/**
+	 * Split off the next {@code len} bytes as their own input, and skip past them
+	 */
+	BinaryMessageInput slice(int len)
+	{
+		if (len < 0 || len > remaining())
+		{
+			throw new IllegalStateException("bad length " + len);
+		}
+		BinaryMessageInput in = new BinaryMessageInput(buf, pos, len);
+		pos += len;
+		return in;
+	}
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright (c) 2021, Woox <https://github.com/wooxsolo>
+ * Copyright (c) 2022, Adam <Adam@sigterm.info>
  * All rights reserved.
  *
  * Redistribution and use in source and binary forms, with or without
@@ -22,64 +22,91 @@
  * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
  * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
  */
-package net.runelite.client.ui.overlay.outline;
+package net.runelite.client.party;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 
 /**
- * A class which manages 1024-sized blocks of memory.
+ * A growable byte buffer for writing binary party messages
  */
-class IntBlockBuffer
+public class BinaryMessageOutput
 {
-	public static final int BLOCK_BITS = 10;
-	public static final int BLOCK_SIZE = 1 << BLOCK_BITS;
+	private byte[] buf = new byte[64];
+	private int pos;
 
-	private int[] memory = new int[0];
-	private int[] unusedBlockIndices = new int[0];
-	private int unusedBlockIndicesLength;
-
-	private void increaseBlockCount()
+	public void writeByte(int b)
 	{
-		int currBlockCount = memory.length >> BLOCK_BITS;
-		int newBlockCount = Math.max(1, currBlockCount * 2);
-		memory = Arrays.copyOf(memory, newBlockCount * BLOCK_SIZE);
-		unusedBlockIndices = Arrays.copyOf(unusedBlockIndices, newBlockCount);
-		for (int i = currBlockCount; i < newBlockCount; i++)
-		{
-			unusedBlockIndices[unusedBlockIndicesLength++] = i;
-		}
+		ensure(1);
+		buf[pos++] = (byte) b;
 	}
 
-	/**
-	 * Retrieves the whole memory buffer.
-	 */
-	public int[] getMemory()
+	public void writeBoolean(boolean b)
 	{
-		return memory;
+		writeByte(b ? 1 : 0);
 	}
 
 	/**
-	 * Marks a new block as used.
-	 *
-	 * @return The index of the block.
+	 * Write an unsigned LEB128 varint
 	 */
-	public int useNewBlock()
+	public void writeVarint(int value)
 	{
-		if (unusedBlockIndicesLength == 0)
+		ensure(5);
+		while ((value & ~0x7F) != 0)
 		{
-			increaseBlockCount();
+			buf[pos++] = (byte) ((value & 0x7F) | 0x80);
+			value >>>= 7;
 		}
-
-		return unusedBlockIndices[--unusedBlockIndicesLength];
+		buf[pos++] = (byte) value;
 	}
 
 	/**
-	 * Marks a block as unused.
-	 *
-	 * @param index The index of the block. The block should be in use before calling this method.
+	 * Write a zigzag encoded varint, so that small negative values are also short
 	 */
-	public void freeBlock(int index)
+	public void writeSignedVarint(int value)
+	{
+		writeVarint((value << 1) ^ (value >> 31));
+	}
+
+	public void writeString(String s)
+	{
+		byte[] b = s.getBytes(StandardCharsets.UTF_8);
+		writeVarint(b.length);
+		writeBytes(b, 0, b.length);
+	}
+
+	public void writeBytes(byte[] b, int off, int len)
+	{
+		ensure(len);
+		System.arraycopy(b, off, buf, pos, len);
+		pos += len;
+	}
+
+	public int size()
 	{
-		unusedBlockIndices[unusedBlockIndicesLength++] = index;
+		return pos;
+	}
+
+	public void reset()
+	{
+		pos = 0;
+	}
+
+	byte[] buffer()
+	{
+		return buf;
+	}
+
+	public byte[] toByteArray()
+	{
+		return Arrays.copyOf(buf, pos);
+	}
+
+	private void ensure(int n)
+	{
+		if (pos + n > buf.length)
+		{
+			buf = Arrays.copyOf(buf, Math.max(buf.length * 2, pos + n));
+		}
 	}
 }
@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2022, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.party;
+
+import net.runelite.client.party.messages.PartyMemberMessage;
+
+/**
+ * A compact binary encoding for a frequently sent party message. Messages with a registered codec
+ * are coalesced and sent once per game tick in a single binary frame, instead of as JSON.
+ *
+ * @param <T> the message type
+ */
+public interface PartyMessageCodec<T extends PartyMemberMessage>
+{
+	/**
+	 * Encode a message
+	 *
+	 * @param message  the message to encode
+	 * @param baseline the last message of this type sent, which the receiver is guaranteed to have,
+	 *                 or null if the message must be encoded standalone
+	 * @param out      the output
+	 */
+	void encode(T message, T baseline, BinaryMessageOutput out);
+
+	/**
+	 * Decode a message
+	 *
+	 * @param in       the input
+	 * @param baseline the last message of this type received from the sender, or null if it is not known
+	 * @return the message, or null if it was encoded against a baseline which is not known
+	 */
+	T decode(BinaryMessageInput in, T baseline);
+
+	/**
+	 * Combine two messages sent in the same game tick into one
+	 */
+	default T merge(T older, T newer)
+	{
+		return newer;
+	}
+}
@@ -44,6 +44,7 @@ import net.runelite.api.ChatMessageType;
 import net.runelite.api.Client;
 import net.runelite.api.GameState;
 import net.runelite.api.ItemComposition;
+import net.runelite.api.events.GameTick;
 import net.runelite.client.chat.ChatMessageManager;
 import net.runelite.client.chat.QueuedMessage;
 import net.runelite.client.eventbus.EventBus;
@@ -212,6 +213,9 @@ public class PartyService
 			log.debug("User {} joins party, {} members", partyMember, members.size());
 		}
 
+		// the new member has none of the state earlier binary frames were encoded against
+		wsClient.requestKeyframe();
+
 		final PartyMember localMember = getLocalMember();
 		// Send info to other clients that this user successfully finished joining party
 		if (localMember != null && localMember == partyMember)
@@ -222,6 +226,12 @@ public class PartyService
 		}
 	}
 
+	@Subscribe(priority = -1) // run after plugins, which queue their updates on the game tick
+	public void onGameTick(final GameTick event)
+	{
+		wsClient.flush();
+	}
+
 	@Subscribe(priority = 1) // run prior to plugins so that the member is removed by the time the plugins see it.
 	public void onUserPart(final UserPart message)
 	{
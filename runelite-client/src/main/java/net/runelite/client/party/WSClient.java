@@ -27,11 +27,15 @@ package net.runelite.client.party;
 import com.google.gson.Gson;
 import com.google.gson.JsonParseException;
 import com.google.protobuf.InvalidProtocolBufferException;
-import java.io.InputStreamReader;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Singleton;
@@ -41,6 +45,7 @@ import net.runelite.client.RuneLite;
 import net.runelite.client.eventbus.EventBus;
 import net.runelite.client.party.events.UserJoin;
 import net.runelite.client.party.events.UserPart;
+import net.runelite.client.party.messages.BinaryFrameSupport;
 import net.runelite.client.party.messages.PartyMemberMessage;
 import net.runelite.client.party.messages.WebsocketMessage;
 import okhttp3.HttpUrl;
@@ -55,10 +60,18 @@ import okio.ByteString;
 @Singleton
 public class WSClient extends WebSocketListener implements AutoCloseable
 {
+	private static final long FLUSH_DELAY_MS = 600;
+
 	private final EventBus eventBus;
 	private final OkHttpClient okHttpClient;
 	private final HttpUrl runeliteWs;
+	private final ScheduledExecutorService executor;
 	private final Collection<Class<? extends WebsocketMessage>> messages = new HashSet<>();
+	private final BinaryFrameCodec frameCodec = new BinaryFrameCodec();
+	// the other members of the party, and those of them which have said they can decode binary frames
+	private final Set<Long> partyMembers = ConcurrentHashMap.newKeySet();
+	private final Set<Long> binaryMembers = ConcurrentHashMap.newKeySet();
+	private volatile long memberId;
 
 	private volatile Gson gson;
 	@Getter
@@ -66,11 +79,12 @@ public class WSClient extends WebSocketListener implements AutoCloseable
 	private WebSocket webSocket;
 
 	@Inject
-	private WSClient(EventBus eventBus, OkHttpClient okHttpClient, @Named("runelite.ws") HttpUrl runeliteWs)
+	private WSClient(EventBus eventBus, OkHttpClient okHttpClient, @Named("runelite.ws") HttpUrl runeliteWs, ScheduledExecutorService executor)
 	{
 		this.eventBus = eventBus;
 		this.okHttpClient = okHttpClient;
 		this.runeliteWs = runeliteWs;
+		this.executor = executor;
 		this.gson = WebsocketGsonFactory.build(WebsocketGsonFactory.factory(messages));
 	}
 
@@ -93,6 +107,9 @@ public class WSClient extends WebSocketListener implements AutoCloseable
 		}
 
 		this.sessionId = sessionId;
+		frameCodec.reset();
+		partyMembers.clear();
+		binaryMembers.clear();
 
 		if (sessionId != null)
 		{
@@ -138,8 +155,34 @@ public class WSClient extends WebSocketListener implements AutoCloseable
 		}
 	}
 
+	/**
+	 * Register a message with a binary encoding. Messages of this type are coalesced and sent
+	 * once per game tick in a binary frame, if every member of the party can decode binary frames.
+	 * Otherwise they are sent as json. The message is also registered for json, so that it can
+	 * still be received from clients which send it that way.
+	 *
+	 * @param message the message class
+	 * @param typeId  an id for the message type, unique among binary messages
+	 * @param codec   the encoding
+	 */
+	public <T extends PartyMemberMessage> void registerBinaryMessage(final Class<T> message, int typeId, PartyMessageCodec<T> codec)
+	{
+		frameCodec.register(message, typeId, codec);
+		registerMessage(message);
+	}
+
+	public void unregisterBinaryMessage(final Class<? extends PartyMemberMessage> message)
+	{
+		frameCodec.unregister(message);
+		unregisterMessage(message);
+	}
+
 	void join(long partyId, long memberId)
 	{
+		this.memberId = memberId;
+		partyMembers.clear();
+		binaryMembers.clear();
+
 		final Party.Join join = Party.Join.newBuilder()
 			.setPartyId(partyId)
 			.setMemberId(memberId)
@@ -161,6 +204,22 @@ public class WSClient extends WebSocketListener implements AutoCloseable
 	}
 
 	void send(WebsocketMessage message)
+	{
+		if (message instanceof PartyMemberMessage && frameCodec.isRegistered(message.getClass()) && isBinaryEnabled())
+		{
+			log.debug("Queueing: {}", message);
+			if (frameCodec.queue((PartyMemberMessage) message))
+			{
+				// flushed at the end of the game tick, but don't hold messages forever if there are no ticks
+				executor.schedule(this::flush, FLUSH_DELAY_MS, TimeUnit.MILLISECONDS);
+			}
+			return;
+		}
+
+		sendJson(message);
+	}
+
+	private void sendJson(WebsocketMessage message)
 	{
 		log.debug("Sending: {}", message);
 		final String json = gson.toJson(message, WebsocketMessage.class);
@@ -173,6 +232,52 @@ public class WSClient extends WebSocketListener implements AutoCloseable
 		send(c2s);
 	}
 
+	/**
+	 * Send the binary messages queued since the last flush as a single frame
+	 */
+	void flush()
+	{
+		if (!isBinaryEnabled())
+		{
+			// a member without binary support joined, or every member left, since these were queued
+			for (PartyMemberMessage message : frameCodec.drain())
+			{
+				sendJson(message);
+			}
+			return;
+		}
+
+		final byte[] frame = frameCodec.flush();
+		if (frame == null)
+		{
+			return;
+		}
+
+		final Party.Data data = Party.Data.newBuilder()
+			.setData(com.google.protobuf.ByteString.copyFrom(frame))
+			.build();
+		final Party.C2S c2s = Party.C2S.newBuilder()
+			.setData(data)
+			.build();
+		send(c2s);
+	}
+
+	/**
+	 * Make the next binary frame self contained, for members which have not seen the earlier ones
+	 */
+	void requestKeyframe()
+	{
+		frameCodec.requestKeyframe();
+	}
+
+	/**
+	 * Whether there are other members in the party, and every one of them has said it can decode binary frames
+	 */
+	private boolean isBinaryEnabled()
+	{
+		return !partyMembers.isEmpty() && binaryMembers.containsAll(partyMembers);
+	}
+
 	private void send(Party.C2S message)
 	{
 		if (webSocket == null)
@@ -219,21 +324,53 @@ public class WSClient extends WebSocketListener implements AutoCloseable
 				Party.UserJoin join = s2c.getJoin();
 				UserJoin userJoin = new UserJoin(join.getPartyId(), join.getMemberId());
 				log.debug("Got: {}", userJoin);
+				if (join.getMemberId() != memberId)
+				{
+					partyMembers.add(join.getMemberId());
+				}
 				eventBus.post(userJoin);
+				// tell the new member, or if it is us, the existing members, that we can decode binary frames
+				sendJson(new BinaryFrameSupport());
 				break;
 			case PART:
 				Party.UserPart part = s2c.getPart();
 				UserPart userPart = new UserPart(part.getMemberId());
 				log.debug("Got: {}", userPart);
+				partyMembers.remove(part.getMemberId());
+				binaryMembers.remove(part.getMemberId());
+				frameCodec.removeReceiver(part.getMemberId());
 				eventBus.post(userPart);
 				break;
 			case DATA:
 				Party.PartyData data = s2c.getData();
+				final com.google.protobuf.ByteString payload = data.getData();
+
+				if (!payload.isEmpty() && payload.byteAt(0) == BinaryFrameCodec.FRAME_MAGIC)
+				{
+					final List<PartyMemberMessage> messages;
+					try
+					{
+						messages = frameCodec.decode(data.getMemberId(), payload.toByteArray());
+					}
+					catch (IllegalStateException e)
+					{
+						log.debug("Failed to deserialize binary frame", e);
+						return;
+					}
+
+					for (PartyMemberMessage message : messages)
+					{
+						log.debug("Got: {}", message);
+						eventBus.post(message);
+					}
+					return;
+				}
+
 				final WebsocketMessage message;
 
 				try
 				{
-					message = gson.fromJson(new InputStreamReader(data.getData().newInput()), WebsocketMessage.class);
+					message = gson.fromJson(payload.toStringUtf8(), WebsocketMessage.class);
 				}
 				catch (JsonParseException e)
 				{
@@ -241,6 +378,15 @@ public class WSClient extends WebSocketListener implements AutoCloseable
 					return;
 				}
 
+				if (message instanceof BinaryFrameSupport)
+				{
+					log.debug("Member {} supports binary frames", data.getMemberId());
+					binaryMembers.add(data.getMemberId());
+					// earlier messages to this member were json, so it has nothing to apply deltas to
+					frameCodec.requestKeyframe();
+					return;
+				}
+
 				if (message instanceof PartyMemberMessage)
 				{
 					((PartyMemberMessage) message).setMemberId(data.getMemberId());
@@ -65,6 +65,7 @@ import javax.swing.SwingUtilities;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.client.RuneLite;
+import net.runelite.client.StartupTrace;
 import net.runelite.client.config.Config;
 import net.runelite.client.config.ConfigManager;
 import net.runelite.client.config.RuneLiteConfig;
@@ -389,7 +390,7 @@ public class PluginManager
 		for (Class<? extends Plugin> pluginClazz : sortedPlugins)
 		{
 			Plugin plugin;
-			try
+			try (StartupTrace.Span span = StartupTrace.span("plugin", "Instantiate " + pluginClazz.getSimpleName()))
 			{
 				plugin = instantiate(this.plugins, (Class<Plugin>) pluginClazz);
 				newPlugins.add(plugin);
@@ -435,7 +436,7 @@ public class PluginManager
 
 		activePlugins.add(plugin);
 
-		try
+		try (StartupTrace.Span span = StartupTrace.span("plugin", "Start " + plugin.getClass().getSimpleName()))
 		{
 			plugin.startUp();
 
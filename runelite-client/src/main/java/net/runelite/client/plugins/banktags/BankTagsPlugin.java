@@ -244,6 +244,7 @@ public class BankTagsPlugin extends Plugin implements MouseWheelListener
 		mouseManager.unregisterMouseWheelListener(this);
 		clientThread.invokeLater(tabInterface::destroy);
 		spriteManager.removeSpriteOverrides(TabSprites.values());
+		tagManager.invalidate();
 	}
 
 	@Subscribe
@@ -434,6 +435,8 @@ public class BankTagsPlugin extends Plugin implements MouseWheelListener
 	@Subscribe
 	public void onConfigChanged(ConfigChanged configChanged)
 	{
+		tagManager.onConfigChanged(configChanged);
+
 		if (configChanged.getGroup().equals(CONFIG_GROUP) && configChanged.getKey().equals("useTabs"))
 		{
 			if (config.tabs())
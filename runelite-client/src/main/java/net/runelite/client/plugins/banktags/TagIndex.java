@@ -0,0 +1,197 @@
+/*
+ * Copyright (c) 2022, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.plugins.banktags;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import net.runelite.client.util.Text;
+
+/**
+ * An in memory copy of the item tags in the config, indexed both ways. Items are keyed the same as
+ * in the config, by canonical item id or by negative variation base id. Tags are kept in sorted
+ * order so every tag starting with a search can be found at once.
+ */
+class TagIndex
+{
+	private static final String[] NO_TAGS = new String[0];
+	private static final int[] NO_ITEMS = new int[0];
+
+	private final Map<Integer, String[]> itemTags = new HashMap<>();
+	private final NavigableMap<String, int[]> tagItems = new TreeMap<>();
+
+	/**
+	 * The items having a tag which starts with the last search
+	 */
+	private String prefix;
+	private int[] prefixItems;
+
+	/**
+	 * Replace the tags of an item
+	 *
+	 * @param key  the item key
+	 * @param tags the comma separated tags, or null to remove them all
+	 */
+	synchronized void set(int key, String tags)
+	{
+		for (String tag : itemTags.getOrDefault(key, NO_TAGS))
+		{
+			int[] items = remove(tagItems.get(tag), key);
+			if (items.length == 0)
+			{
+				tagItems.remove(tag);
+			}
+			else
+			{
+				tagItems.put(tag, items);
+			}
+		}
+		itemTags.remove(key);
+		prefix = null;
+
+		if (tags == null || tags.isEmpty())
+		{
+			return;
+		}
+
+		Set<String> parsed = new LinkedHashSet<>(Text.fromCSV(tags.toLowerCase()));
+		String[] interned = new String[parsed.size()];
+		int i = 0;
+		for (String tag : parsed)
+		{
+			// share one instance of each tag between every item having it
+			String existing = tagItems.ceilingKey(tag);
+			if (tag.equals(existing))
+			{
+				tag = existing;
+			}
+
+			tagItems.put(tag, add(tagItems.getOrDefault(tag, NO_ITEMS), key));
+			interned[i++] = tag;
+		}
+		itemTags.put(key, interned);
+	}
+
+	synchronized int size()
+	{
+		return itemTags.size();
+	}
+
+	/**
+	 * Get the tags of an item, in the order they were added
+	 */
+	synchronized String[] getTags(int key)
+	{
+		return itemTags.getOrDefault(key, NO_TAGS);
+	}
+
+	/**
+	 * Get the keys of the items with a tag, in ascending order
+	 */
+	synchronized int[] getItems(String tag)
+	{
+		return tagItems.getOrDefault(tag, NO_ITEMS);
+	}
+
+	/**
+	 * Check whether either of an item's keys has a tag starting with the given prefix. The items
+	 * for the prefix are collected on the first call, so checking every item in the bank against
+	 * the same search is one lookup per key.
+	 */
+	synchronized boolean hasTagStartingWith(int key, int variationKey, String prefix)
+	{
+		if (!prefix.equals(this.prefix))
+		{
+			int[] items = NO_ITEMS;
+			for (int[] tagged : tagItems.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values())
+			{
+				items = union(items, tagged);
+			}
+			this.prefix = prefix;
+			this.prefixItems = items;
+		}
+
+		return Arrays.binarySearch(prefixItems, key) >= 0 || Arrays.binarySearch(prefixItems, variationKey) >= 0;
+	}
+
+	private static int[] add(int[] items, int key)
+	{
+		int idx = Arrays.binarySearch(items, key);
+		if (idx >= 0)
+		{
+			return items;
+		}
+
+		idx = -idx - 1;
+		int[] added = new int[items.length + 1];
+		System.arraycopy(items, 0, added, 0, idx);
+		added[idx] = key;
+		System.arraycopy(items, idx, added, idx + 1, items.length - idx);
+		return added;
+	}
+
+	private static int[] remove(int[] items, int key)
+	{
+		int idx = Arrays.binarySearch(items, key);
+		if (idx < 0)
+		{
+			return items;
+		}
+
+		int[] removed = new int[items.length - 1];
+		System.arraycopy(items, 0, removed, 0, idx);
+		System.arraycopy(items, idx + 1, removed, idx, items.length - idx - 1);
+		return removed;
+	}
+
+	private static int[] union(int[] a, int[] b)
+	{
+		int[] union = new int[a.length + b.length];
+		int i = 0, j = 0, n = 0;
+		while (i < a.length || j < b.length)
+		{
+			int next;
+			if (j == b.length || (i < a.length && a[i] < b[j]))
+			{
+				next = a[i++];
+			}
+			else if (i == a.length || b[j] < a[i])
+			{
+				next = b[j++];
+			}
+			else
+			{
+				next = a[i++];
+				++j;
+			}
+			union[n++] = next;
+		}
+		return n == union.length ? union : Arrays.copyOf(union, n);
+	}
+}
@@ -26,21 +26,25 @@
 package net.runelite.client.plugins.banktags;
 
 import com.google.common.base.Strings;
+import com.google.common.primitives.Ints;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 import javax.inject.Inject;
 import javax.inject.Singleton;
+import lombok.extern.slf4j.Slf4j;
 import net.runelite.client.config.ConfigManager;
+import net.runelite.client.events.ConfigChanged;
 import net.runelite.client.game.ItemManager;
 import net.runelite.client.game.ItemVariationMapping;
 import static net.runelite.client.plugins.banktags.BankTagsPlugin.CONFIG_GROUP;
 import net.runelite.client.util.Text;
 
 @Singleton
+@Slf4j
 public class TagManager
 {
 	static final String ITEM_KEY_PREFIX = "item_";
@@ -48,6 +52,12 @@ public class TagManager
 	private final ItemManager itemManager;
 	private final Map<String, BankTag> customTags = new HashMap<>();
 
+	/**
+	 * The tags of every item, read from the config on first use and then kept up to date
+	 * from {@link ConfigChanged}
+	 */
+	private TagIndex index;
+
 	@Inject
 	private TagManager(
 		final ItemManager itemManager,
@@ -72,7 +82,7 @@ public class TagManager
 
 	Collection<String> getTags(int itemId, boolean variation)
 	{
-		return new LinkedHashSet<>(Text.fromCSV(getTagString(itemId, variation).toLowerCase()));
+		return new LinkedHashSet<>(Arrays.asList(getIndex().getTags(getItemId(itemId, variation))));
 	}
 
 	void setTagString(int itemId, String tags, boolean variation)
@@ -120,28 +130,20 @@ public class TagManager
 			return true;
 		}
 
-		Collection<String> tags = getTags(itemId, false);
-		tags.addAll(getTags(itemId, true));
-		return tags.stream().anyMatch(tag -> tag.startsWith(Text.standardize(search)));
+		return getIndex().hasTagStartingWith(getItemId(itemId, false), getItemId(itemId, true), Text.standardize(search));
 	}
 
 	public List<Integer> getItemsForTag(String tag)
 	{
-		final String prefix = CONFIG_GROUP + "." + ITEM_KEY_PREFIX;
-		return configManager.getConfigurationKeys(prefix).stream()
-			.map(item -> Integer.parseInt(item.replace(prefix, "")))
-			.filter(item -> getTags(item, false).contains(tag) || getTags(item, true).contains(tag))
-			.collect(Collectors.toList());
+		return Ints.asList(getIndex().getItems(tag));
 	}
 
 	public void removeTag(String tag)
 	{
-		final String prefix = CONFIG_GROUP + "." + ITEM_KEY_PREFIX;
-		configManager.getConfigurationKeys(prefix).forEach(item ->
+		for (int id : getIndex().getItems(Text.standardize(tag)))
 		{
-			int id = Integer.parseInt(item.replace(prefix, ""));
 			removeTag(id, tag);
-		});
+		}
 	}
 
 	public void removeTag(int itemId, String tag)
@@ -186,6 +188,51 @@ public class TagManager
 		return itemId;
 	}
 
+	synchronized void onConfigChanged(ConfigChanged configChanged)
+	{
+		if (index == null
+			|| configChanged.getProfile() != null
+			|| !configChanged.getGroup().equals(CONFIG_GROUP)
+			|| !configChanged.getKey().startsWith(ITEM_KEY_PREFIX))
+		{
+			return;
+		}
+
+		Integer key = Ints.tryParse(configChanged.getKey().substring(ITEM_KEY_PREFIX.length()));
+		if (key != null)
+		{
+			index.set(key, configChanged.getNewValue());
+		}
+	}
+
+	/**
+	 * Drop the index, for when config changes can no longer be followed
+	 */
+	synchronized void invalidate()
+	{
+		index = null;
+	}
+
+	private synchronized TagIndex getIndex()
+	{
+		if (index == null)
+		{
+			final String prefix = CONFIG_GROUP + "." + ITEM_KEY_PREFIX;
+			TagIndex index = new TagIndex();
+			for (String wholeKey : configManager.getConfigurationKeys(prefix))
+			{
+				Integer key = Ints.tryParse(wholeKey.substring(prefix.length()));
+				if (key != null)
+				{
+					index.set(key, configManager.getConfiguration(CONFIG_GROUP, ITEM_KEY_PREFIX + key));
+				}
+			}
+			this.index = index;
+			log.debug("Indexed tags of {} items", index.size());
+		}
+		return index;
+	}
+
 	public void registerTag(String name, BankTag tag)
 	{
 		customTags.put(name, tag);
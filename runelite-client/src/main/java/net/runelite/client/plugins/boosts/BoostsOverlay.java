@@ -52,6 +52,7 @@ class BoostsOverlay extends OverlayPanel
 		this.config = config;
 		setPosition(OverlayPosition.TOP_LEFT);
 		setPriority(OverlayPriority.MED);
+		setCacheRendering(true);
 	}
 
 	@Override
@@ -86,8 +86,8 @@ import net.runelite.client.config.RuneLiteConfig;
 import net.runelite.client.eventbus.Subscribe;
 import net.runelite.client.events.ChatInput;
 import net.runelite.client.game.ItemManager;
-import net.runelite.client.hiscore.HiscoreClient;
 import net.runelite.client.hiscore.HiscoreEndpoint;
+import net.runelite.client.hiscore.HiscoreManager;
 import net.runelite.client.hiscore.HiscoreResult;
 import net.runelite.client.hiscore.HiscoreSkill;
 import net.runelite.client.hiscore.Skill;
@@ -192,7 +192,7 @@ public class ChatCommandsPlugin extends Plugin
 	private ChatKeyboardListener chatKeyboardListener;
 
 	@Inject
-	private HiscoreClient hiscoreClient;
+	private HiscoreManager hiscoreManager;
 
 	@Inject
 	private ChatClient chatClient;
@@ -1455,7 +1455,7 @@ public class ChatCommandsPlugin extends Plugin
 
 		try
 		{
-			final HiscoreResult result = hiscoreClient.lookup(lookup.getName(), lookup.getEndpoint());
+			final HiscoreResult result = hiscoreManager.lookup(lookup.getName(), lookup.getEndpoint());
 			if (result == null)
 			{
 				log.warn("unable to look up skill {} for {}: not found", skill, search);
@@ -1507,7 +1507,7 @@ public class ChatCommandsPlugin extends Plugin
 
 		try
 		{
-			HiscoreResult playerStats = hiscoreClient.lookup(lookup.getName(), lookup.getEndpoint());
+			HiscoreResult playerStats = hiscoreManager.lookup(lookup.getName(), lookup.getEndpoint());
 
 			if (playerStats == null)
 			{
@@ -1632,7 +1632,7 @@ public class ChatCommandsPlugin extends Plugin
 				HiscoreEndpoint.LEAGUE :
 				lookup.getEndpoint();
 
-			final HiscoreResult result = hiscoreClient.lookup(lookup.getName(), endPoint);
+			final HiscoreResult result = hiscoreManager.lookup(lookup.getName(), endPoint);
 
 			if (result == null)
 			{
@@ -1711,7 +1711,7 @@ public class ChatCommandsPlugin extends Plugin
 		{
 			final Skill hiscoreSkill;
 			final HiscoreLookup lookup = getCorrectLookupFor(chatMessage);
-			final HiscoreResult result = hiscoreClient.lookup(lookup.getName(), lookup.getEndpoint());
+			final HiscoreResult result = hiscoreManager.lookup(lookup.getName(), lookup.getEndpoint());
 
 			if (result == null)
 			{
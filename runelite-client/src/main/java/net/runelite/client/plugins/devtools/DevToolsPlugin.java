@@ -158,6 +158,7 @@ public class DevToolsPlugin extends Plugin
 	private DevToolsButton soundEffects;
 	private DevToolsButton scriptInspector;
 	private DevToolsButton inventoryInspector;
+	private DevToolsButton profiler;
 	private DevToolsButton roofs;
 	private DevToolsButton shell;
 	private DevToolsButton grabItemDrops;
@@ -207,6 +208,7 @@ public class DevToolsPlugin extends Plugin
 		soundEffects = new DevToolsButton("Sound Effects");
 		scriptInspector = new DevToolsButton("Script Inspector");
 		inventoryInspector = new DevToolsButton("Inventory Inspector");
+		profiler = new DevToolsButton("Profiler");
 		roofs = new DevToolsButton("Roofs");
 		shell = new DevToolsButton("Shell");
 
@@ -0,0 +1,192 @@
+/*
+ * Copyright (c) 2022, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.plugins.devtools;
+
+import java.awt.BorderLayout;
+import java.awt.Dimension;
+import java.awt.FlowLayout;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.text.SimpleDateFormat;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import javax.inject.Inject;
+import javax.swing.JButton;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTable;
+import javax.swing.Timer;
+import javax.swing.table.AbstractTableModel;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.client.RuneLite;
+import net.runelite.client.profiler.Profiler;
+
+@Slf4j
+class ProfilerInspector extends DevToolsFrame
+{
+	private static final String[] COLUMNS = {"Type", "Name", "Calls", "Total ms", "Mean µs", "p50 µs", "p99 µs", "Max µs"};
+	private static final int REFRESH_INTERVAL_MS = 1000;
+
+	private final Profiler profiler;
+	private final ProfilerTableModel model = new ProfilerTableModel();
+	private final Timer refreshTimer;
+
+	@Inject
+	ProfilerInspector(Profiler profiler)
+	{
+		this.profiler = profiler;
+
+		setTitle("RuneLite Profiler");
+		setLayout(new BorderLayout());
+
+		final JTable table = new JTable(model);
+		table.setAutoCreateRowSorter(true);
+		final JScrollPane scrollPane = new JScrollPane(table);
+		scrollPane.setPreferredSize(new Dimension(900, 500));
+		add(scrollPane, BorderLayout.CENTER);
+
+		final JPanel buttons = new JPanel(new FlowLayout(FlowLayout.LEFT));
+
+		final JButton resetBtn = new JButton("Reset");
+		resetBtn.addActionListener(e ->
+		{
+			profiler.reset();
+			refresh();
+		});
+		buttons.add(resetBtn);
+
+		final JButton dumpBtn = new JButton("Dump JSON");
+		dumpBtn.addActionListener(e -> dump());
+		buttons.add(dumpBtn);
+
+		add(buttons, BorderLayout.SOUTH);
+
+		refreshTimer = new Timer(REFRESH_INTERVAL_MS, e -> refresh());
+
+		pack();
+	}
+
+	private void refresh()
+	{
+		model.setEntries(profiler.snapshot());
+	}
+
+	private void dump()
+	{
+		final File file = new File(RuneLite.LOGS_DIR, "profile-" + new SimpleDateFormat("yyyy-MM-dd_HH-mm-ss").format(new Date()) + ".json");
+		try (Writer writer = new OutputStreamWriter(Files.newOutputStream(file.toPath()), StandardCharsets.UTF_8))
+		{
+			profiler.dump(writer);
+			log.info("Wrote profile to {}", file);
+		}
+		catch (IOException ex)
+		{
+			log.warn("Unable to write profile", ex);
+		}
+	}
+
+	@Override
+	public void open()
+	{
+		profiler.setEnabled(true);
+		refreshTimer.start();
+		super.open();
+	}
+
+	@Override
+	public void close()
+	{
+		super.close();
+		refreshTimer.stop();
+		profiler.setEnabled(false);
+	}
+
+	private static class ProfilerTableModel extends AbstractTableModel
+	{
+		private List<Profiler.Entry> entries = Collections.emptyList();
+
+		void setEntries(List<Profiler.Entry> entries)
+		{
+			this.entries = entries;
+			fireTableDataChanged();
+		}
+
+		@Override
+		public int getRowCount()
+		{
+			return entries.size();
+		}
+
+		@Override
+		public int getColumnCount()
+		{
+			return COLUMNS.length;
+		}
+
+		@Override
+		public String getColumnName(int column)
+		{
+			return COLUMNS[column];
+		}
+
+		@Override
+		public Class<?> getColumnClass(int column)
+		{
+			return column < 2 ? String.class : Long.class;
+		}
+
+		@Override
+		public Object getValueAt(int row, int column)
+		{
+			final Profiler.Entry entry = entries.get(row);
+			switch (column)
+			{
+				case 0:
+					return entry.getCategory().getName();
+				case 1:
+					return entry.getName();
+				case 2:
+					return entry.getCount();
+				case 3:
+					return entry.getTotalNanos() / 1_000_000L;
+				case 4:
+					return entry.getMeanNanos() / 1_000L;
+				case 5:
+					return entry.getP50Nanos() / 1_000L;
+				case 6:
+					return entry.getP99Nanos() / 1_000L;
+				case 7:
+					return entry.getMaxNanos() / 1_000L;
+				default:
+					return null;
+			}
+		}
+	}
+}
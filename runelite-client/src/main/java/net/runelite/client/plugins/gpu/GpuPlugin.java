@@ -199,6 +199,11 @@ public class GpuPlugin extends Plugin implements DrawCallbacks
 	private GpuIntBuffer modelBufferSmall;
 	private GpuIntBuffer modelBuffer;
 
+	/**
+	 * readback buffer for screenshots, grown as needed
+	 */
+	private ByteBuffer screenshotBuffer;
+
 	private int unorderedModels;
 
 	/**
@@ -424,6 +429,7 @@ public class GpuPlugin extends Plugin implements DrawCallbacks
 			client.setUnlockedFps(false);
 
 			sceneUploader.releaseSortingBuffers();
+			sceneUploader.releaseStagingBuffers();
 
 			if (lwjglInitted)
 			{
@@ -462,6 +468,7 @@ public class GpuPlugin extends Plugin implements DrawCallbacks
 			modelBufferSmall = null;
 			modelBuffer = null;
 			modelBufferUnordered = null;
+			screenshotBuffer = null;
 
 			lastAnisotropicFilteringLevel = -1;
 
@@ -1368,13 +1375,19 @@ public class GpuPlugin extends Plugin implements DrawCallbacks
 			graphics.dispose();
 		}
 
-		ByteBuffer buffer = ByteBuffer.allocateDirect(width * height * 4)
-			.order(ByteOrder.nativeOrder());
+		if (screenshotBuffer == null || screenshotBuffer.capacity() < width * height * 4)
+		{
+			screenshotBuffer = ByteBuffer.allocateDirect(width * height * 4)
+				.order(ByteOrder.nativeOrder());
+		}
+
+		ByteBuffer buffer = screenshotBuffer;
+		buffer.clear();
 
 		GL43C.glReadBuffer(awtContext.getBufferMode());
 		GL43C.glReadPixels(0, 0, width, height, GL43C.GL_RGBA, GL43C.GL_UNSIGNED_BYTE, buffer);
 
-		BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		BufferedImage image = drawManager.acquireFrameBuffer(width, height);
 		int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
 
 		for (int y = 0; y < height; ++y)
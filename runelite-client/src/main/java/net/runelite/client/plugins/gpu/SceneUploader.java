@@ -24,8 +24,20 @@
  */
 package net.runelite.client.plugins.gpu;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Stopwatch;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.Uninterruptibles;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 import lombok.extern.slf4j.Slf4j;
@@ -48,154 +60,428 @@ import net.runelite.api.WallObject;
 @Slf4j
 class SceneUploader
 {
-	@Inject
-	private Client client;
+	private static final int ZONE_SIZE = 8;
+	private static final int ZONES = (Constants.SCENE_SIZE + ZONE_SIZE - 1) / ZONE_SIZE;
+	private static final int MAX_HELPER_THREADS = 3;
+
+	/**
+	 * A square of tiles, on every plane, which is packed into a staging buffer by a single thread
+	 */
+	private static class Zone
+	{
+		private final List<Tile> tiles = new ArrayList<>();
+		// models which are first seen in this zone
+		private final List<Model> models = new ArrayList<>();
+
+		private GpuIntBuffer vertexBuffer;
+		private GpuFloatBuffer uvBuffer;
+		private int vertexStart;
+		private int vertexEnd;
+		private int uvStart;
+		private int uvEnd;
+	}
+
+	private final Client client;
+	private final int helperThreads;
+	// started by the first upload, and stopped when the staging buffers are released
+	private ExecutorService executor;
 
 	int sceneId = (int) System.nanoTime();
-	private int offset;
-	private int uvoffset;
 
+	private final Zone[] zones = new Zone[ZONES * ZONES];
+	private final AtomicInteger nextZone = new AtomicInteger();
+	private final List<Future<?>> helpers = new ArrayList<>();
+	// staging buffers of the uploading thread followed by those of the helpers, kept between uploads
+	private GpuIntBuffer[] vertexStagingBuffers;
+	private GpuFloatBuffer[] uvStagingBuffers;
+
+	@Inject
+	private SceneUploader(Client client)
+	{
+		this(client, Math.min(Runtime.getRuntime().availableProcessors() - 1, MAX_HELPER_THREADS));
+	}
+
+	@VisibleForTesting
+	SceneUploader(Client client, int helperThreads)
+	{
+		this.client = client;
+		this.helperThreads = Math.max(helperThreads, 0);
+
+		for (int i = 0; i < zones.length; ++i)
+		{
+			zones[i] = new Zone();
+		}
+	}
+
+	/**
+	 * Uploads the scene. The scene is split into zones which are packed concurrently into staging
+	 * buffers, and the zones are then copied into the vertex and uv buffers in order.
+	 */
 	void upload(Scene scene, GpuIntBuffer vertexbuffer, GpuFloatBuffer uvBuffer)
 	{
 		Stopwatch stopwatch = Stopwatch.createStarted();
 
 		++sceneId;
-		offset = 0;
-		uvoffset = 0;
 		vertexbuffer.clear();
 		uvBuffer.clear();
 
-		for (int z = 0; z < Constants.MAX_Z; ++z)
+		final Tile[][][] tiles = scene.getTiles();
+		for (int zoneX = 0; zoneX < ZONES; ++zoneX)
 		{
-			for (int x = 0; x < Constants.SCENE_SIZE; ++x)
+			for (int zoneY = 0; zoneY < ZONES; ++zoneY)
 			{
-				for (int y = 0; y < Constants.SCENE_SIZE; ++y)
+				Zone zone = zones[zoneX * ZONES + zoneY];
+				zone.tiles.clear();
+				zone.models.clear();
+
+				for (int z = 0; z < Constants.MAX_Z; ++z)
 				{
-					Tile tile = scene.getTiles()[z][x][y];
-					if (tile != null)
+					for (int x = zoneX * ZONE_SIZE; x < Math.min((zoneX + 1) * ZONE_SIZE, Constants.SCENE_SIZE); ++x)
 					{
-						upload(tile, vertexbuffer, uvBuffer);
+						for (int y = zoneY * ZONE_SIZE; y < Math.min((zoneY + 1) * ZONE_SIZE, Constants.SCENE_SIZE); ++y)
+						{
+							Tile tile = tiles[z][x][y];
+							if (tile != null)
+							{
+								addTile(zone, tile);
+							}
+						}
 					}
 				}
 			}
 		}
 
+		packZones();
+
+		int vertexCount = 0;
+		int uvCount = 0;
+		for (Zone zone : zones)
+		{
+			vertexCount += zone.vertexEnd - zone.vertexStart;
+			uvCount += zone.uvEnd - zone.uvStart;
+		}
+
+		vertexbuffer.ensureCapacity(vertexCount);
+		uvBuffer.ensureCapacity(uvCount);
+
+		int offset = 0;
+		int uvoffset = 0;
+		for (Zone zone : zones)
+		{
+			relocate(zone, offset, uvoffset);
+
+			IntBuffer vertices = zone.vertexBuffer.getBuffer().duplicate();
+			vertices.position(zone.vertexStart);
+			vertices.limit(zone.vertexEnd);
+			vertexbuffer.getBuffer().put(vertices);
+
+			FloatBuffer uvs = zone.uvBuffer.getBuffer().duplicate();
+			uvs.position(zone.uvStart);
+			uvs.limit(zone.uvEnd);
+			uvBuffer.getBuffer().put(uvs);
+
+			// don't hold on to the scene until the next upload
+			zone.tiles.clear();
+			zone.models.clear();
+
+			// each vertex is 4 ints, and each uv 4 floats
+			offset += (zone.vertexEnd - zone.vertexStart) / 4;
+			uvoffset += (zone.uvEnd - zone.uvStart) / 4;
+		}
+
 		stopwatch.stop();
 		log.debug("Scene upload time: {}", stopwatch);
 	}
 
-	private void upload(Tile tile, GpuIntBuffer vertexBuffer, GpuFloatBuffer uvBuffer)
+	/**
+	 * Release the staging buffers and stop the helper threads. They are created again by the next upload.
+	 */
+	void releaseStagingBuffers()
+	{
+		if (executor != null)
+		{
+			executor.shutdown();
+			executor = null;
+		}
+
+		vertexStagingBuffers = null;
+		uvStagingBuffers = null;
+
+		for (Zone zone : zones)
+		{
+			zone.tiles.clear();
+			zone.models.clear();
+			zone.vertexBuffer = null;
+			zone.uvBuffer = null;
+		}
+	}
+
+	private void addTile(Zone zone, Tile tile)
 	{
 		Tile bridge = tile.getBridge();
 		if (bridge != null)
 		{
-			upload(bridge, vertexBuffer, uvBuffer);
+			addTile(zone, bridge);
 		}
 
-		SceneTilePaint sceneTilePaint = tile.getSceneTilePaint();
-		if (sceneTilePaint != null)
+		zone.tiles.add(tile);
+
+		WallObject wallObject = tile.getWallObject();
+		if (wallObject != null)
 		{
-			sceneTilePaint.setBufferOffset(offset);
-			if (sceneTilePaint.getTexture() != -1)
-			{
-				sceneTilePaint.setUvBufferOffset(uvoffset);
-			}
-			else
+			addModel(zone, wallObject.getRenderable1());
+			addModel(zone, wallObject.getRenderable2());
+		}
+
+		GroundObject groundObject = tile.getGroundObject();
+		if (groundObject != null)
+		{
+			addModel(zone, groundObject.getRenderable());
+		}
+
+		DecorativeObject decorativeObject = tile.getDecorativeObject();
+		if (decorativeObject != null)
+		{
+			addModel(zone, decorativeObject.getRenderable());
+			addModel(zone, decorativeObject.getRenderable2());
+		}
+
+		GameObject[] gameObjects = tile.getGameObjects();
+		for (GameObject gameObject : gameObjects)
+		{
+			if (gameObject != null)
 			{
-				sceneTilePaint.setUvBufferOffset(-1);
+				addModel(zone, gameObject.getRenderable());
 			}
-			Point tilePoint = tile.getSceneLocation();
-			int len = upload(sceneTilePaint,
-				tile.getRenderLevel(), tilePoint.getX(), tilePoint.getY(),
-				vertexBuffer, uvBuffer,
-				0, 0, false);
-			sceneTilePaint.setBufferLen(len);
-			offset += len;
-			if (sceneTilePaint.getTexture() != -1)
+		}
+	}
+
+	private void addModel(Zone zone, Renderable renderable)
+	{
+		if (!(renderable instanceof Model))
+		{
+			return;
+		}
+
+		Model model = (Model) renderable;
+		if (model.getSceneId() == sceneId)
+		{
+			return; // model has already been added to a zone
+		}
+
+		model.setSceneId(sceneId);
+		zone.models.add(model);
+	}
+
+	/**
+	 * Packs the zones on the helper threads and the calling thread
+	 */
+	private void packZones()
+	{
+		if (vertexStagingBuffers == null)
+		{
+			vertexStagingBuffers = new GpuIntBuffer[helperThreads + 1];
+			uvStagingBuffers = new GpuFloatBuffer[helperThreads + 1];
+			for (int i = 0; i <= helperThreads; ++i)
 			{
-				uvoffset += len;
+				vertexStagingBuffers[i] = new GpuIntBuffer();
+				uvStagingBuffers[i] = new GpuFloatBuffer();
 			}
 		}
 
-		SceneTileModel sceneTileModel = tile.getSceneTileModel();
-		if (sceneTileModel != null)
+		for (int i = 0; i <= helperThreads; ++i)
+		{
+			vertexStagingBuffers[i].clear();
+			uvStagingBuffers[i].clear();
+		}
+
+		if (executor == null && helperThreads > 0)
+		{
+			executor = Executors.newFixedThreadPool(helperThreads, new ThreadFactoryBuilder()
+				.setNameFormat("scene-uploader-%d")
+				.setDaemon(true)
+				.build());
+		}
+
+		final int[][][] tileHeights = client.getTileHeights();
+		try
 		{
-			sceneTileModel.setBufferOffset(offset);
-			if (sceneTileModel.getTriangleTextureId() != null)
+			nextZone.set(0);
+			for (int i = 1; i <= helperThreads; ++i)
 			{
-				sceneTileModel.setUvBufferOffset(uvoffset);
+				final int slot = i;
+				helpers.add(executor.submit(() -> packZones(slot, tileHeights)));
 			}
-			else
+
+			packZones(0, tileHeights);
+
+			for (Future<?> helper : helpers)
 			{
-				sceneTileModel.setUvBufferOffset(-1);
+				Uninterruptibles.getUninterruptibly(helper);
 			}
-			Point tilePoint = tile.getSceneLocation();
-			int len = upload(sceneTileModel,
-				tilePoint.getX(), tilePoint.getY(),
-				vertexBuffer, uvBuffer,
-				0, 0, false);
-			sceneTileModel.setBufferLen(len);
-			offset += len;
-			if (sceneTileModel.getTriangleTextureId() != null)
+		}
+		catch (ExecutionException ex)
+		{
+			throw new RuntimeException(ex.getCause());
+		}
+		finally
+		{
+			// if packing failed, stop the helpers from taking more zones, and wait for them to finish the
+			// zones they have before their staging buffers are used again. Cancelling the futures would not
+			// wait for helpers which are already running.
+			nextZone.set(zones.length);
+			for (Future<?> helper : helpers)
 			{
-				uvoffset += len;
+				try
+				{
+					Uninterruptibles.getUninterruptibly(helper);
+				}
+				catch (ExecutionException ex)
+				{
+					// the upload has already failed
+				}
 			}
+			helpers.clear();
 		}
+	}
 
-		WallObject wallObject = tile.getWallObject();
-		if (wallObject != null)
+	private void packZones(int slot, int[][][] tileHeights)
+	{
+		final GpuIntBuffer vertexBuffer = vertexStagingBuffers[slot];
+		final GpuFloatBuffer uvBuffer = uvStagingBuffers[slot];
+
+		int i;
+		while ((i = nextZone.getAndIncrement()) < zones.length)
+		{
+			pack(zones[i], tileHeights, vertexBuffer, uvBuffer);
+		}
+	}
+
+	/**
+	 * Packs a zone into a staging buffer. The buffer offsets of the zone are relative to the start of the zone
+	 * until the zone is relocated.
+	 */
+	private void pack(Zone zone, int[][][] tileHeights, GpuIntBuffer vertexBuffer, GpuFloatBuffer uvBuffer)
+	{
+		zone.vertexBuffer = vertexBuffer;
+		zone.uvBuffer = uvBuffer;
+		zone.vertexStart = vertexBuffer.getBuffer().position();
+		zone.uvStart = uvBuffer.getBuffer().position();
+
+		int offset = 0;
+		int uvoffset = 0;
+		for (Tile tile : zone.tiles)
 		{
-			Renderable renderable1 = wallObject.getRenderable1();
-			if (renderable1 instanceof Model)
+			SceneTilePaint sceneTilePaint = tile.getSceneTilePaint();
+			if (sceneTilePaint != null)
 			{
-				uploadSceneModel((Model) renderable1, vertexBuffer, uvBuffer);
+				sceneTilePaint.setBufferOffset(offset);
+				if (sceneTilePaint.getTexture() != -1)
+				{
+					sceneTilePaint.setUvBufferOffset(uvoffset);
+				}
+				else
+				{
+					sceneTilePaint.setUvBufferOffset(-1);
+				}
+				Point tilePoint = tile.getSceneLocation();
+				int len = upload(sceneTilePaint, tileHeights,
+					tile.getRenderLevel(), tilePoint.getX(), tilePoint.getY(),
+					vertexBuffer, uvBuffer,
+					0, 0, false);
+				sceneTilePaint.setBufferLen(len);
+				offset += len;
+				if (sceneTilePaint.getTexture() != -1)
+				{
+					uvoffset += len;
+				}
 			}
 
-			Renderable renderable2 = wallObject.getRenderable2();
-			if (renderable2 instanceof Model)
+			SceneTileModel sceneTileModel = tile.getSceneTileModel();
+			if (sceneTileModel != null)
 			{
-				uploadSceneModel((Model) renderable2, vertexBuffer, uvBuffer);
+				sceneTileModel.setBufferOffset(offset);
+				if (sceneTileModel.getTriangleTextureId() != null)
+				{
+					sceneTileModel.setUvBufferOffset(uvoffset);
+				}
+				else
+				{
+					sceneTileModel.setUvBufferOffset(-1);
+				}
+				Point tilePoint = tile.getSceneLocation();
+				int len = upload(sceneTileModel,
+					tilePoint.getX(), tilePoint.getY(),
+					vertexBuffer, uvBuffer,
+					0, 0, false);
+				sceneTileModel.setBufferLen(len);
+				offset += len;
+				if (sceneTileModel.getTriangleTextureId() != null)
+				{
+					uvoffset += len;
+				}
 			}
 		}
 
-		GroundObject groundObject = tile.getGroundObject();
-		if (groundObject != null)
+		for (Model model : zone.models)
 		{
-			Renderable renderable = groundObject.getRenderable();
-			if (renderable instanceof Model)
+			model.setBufferOffset(offset);
+			if (model.getFaceTextures() != null)
 			{
-				uploadSceneModel((Model) renderable, vertexBuffer, uvBuffer);
+				model.setUvBufferOffset(uvoffset);
 			}
-		}
-
-		DecorativeObject decorativeObject = tile.getDecorativeObject();
-		if (decorativeObject != null)
-		{
-			Renderable renderable = decorativeObject.getRenderable();
-			if (renderable instanceof Model)
+			else
 			{
-				uploadSceneModel((Model) renderable, vertexBuffer, uvBuffer);
+				model.setUvBufferOffset(-1);
 			}
 
-			Renderable renderable2 = decorativeObject.getRenderable2();
-			if (renderable2 instanceof Model)
+			int len = pushModel(model, vertexBuffer, uvBuffer);
+
+			offset += len;
+			if (model.getFaceTextures() != null)
 			{
-				uploadSceneModel((Model) renderable2, vertexBuffer, uvBuffer);
+				uvoffset += len;
 			}
 		}
 
-		GameObject[] gameObjects = tile.getGameObjects();
-		for (GameObject gameObject : gameObjects)
+		zone.vertexEnd = vertexBuffer.getBuffer().position();
+		zone.uvEnd = uvBuffer.getBuffer().position();
+	}
+
+	/**
+	 * Moves the buffer offsets of a packed zone to where the zone starts in the scene buffers
+	 */
+	private static void relocate(Zone zone, int offset, int uvoffset)
+	{
+		for (Tile tile : zone.tiles)
 		{
-			if (gameObject == null)
+			SceneTilePaint sceneTilePaint = tile.getSceneTilePaint();
+			if (sceneTilePaint != null)
 			{
-				continue;
+				sceneTilePaint.setBufferOffset(sceneTilePaint.getBufferOffset() + offset);
+				if (sceneTilePaint.getUvBufferOffset() != -1)
+				{
+					sceneTilePaint.setUvBufferOffset(sceneTilePaint.getUvBufferOffset() + uvoffset);
+				}
+			}
+
+			SceneTileModel sceneTileModel = tile.getSceneTileModel();
+			if (sceneTileModel != null)
+			{
+				sceneTileModel.setBufferOffset(sceneTileModel.getBufferOffset() + offset);
+				if (sceneTileModel.getUvBufferOffset() != -1)
+				{
+					sceneTileModel.setUvBufferOffset(sceneTileModel.getUvBufferOffset() + uvoffset);
+				}
 			}
+		}
 
-			Renderable renderable = gameObject.getRenderable();
-			if (renderable instanceof Model)
+		for (Model model : zone.models)
+		{
+			model.setBufferOffset(model.getBufferOffset() + offset);
+			if (model.getUvBufferOffset() != -1)
 			{
-				uploadSceneModel((Model) gameObject.getRenderable(), vertexBuffer, uvBuffer);
+				model.setUvBufferOffset(model.getUvBufferOffset() + uvoffset);
 			}
 		}
 	}
@@ -203,8 +489,13 @@ class SceneUploader
 	int upload(SceneTilePaint tile, int tileZ, int tileX, int tileY, GpuIntBuffer vertexBuffer, GpuFloatBuffer uvBuffer,
 		int offsetX, int offsetY, boolean padUvs)
 	{
-		final int[][][] tileHeights = client.getTileHeights();
+		return upload(tile, client.getTileHeights(), tileZ, tileX, tileY, vertexBuffer, uvBuffer, offsetX, offsetY, padUvs);
+	}
 
+	private static int upload(SceneTilePaint tile, int[][][] tileHeights, int tileZ, int tileX, int tileY,
+		GpuIntBuffer vertexBuffer, GpuFloatBuffer uvBuffer,
+		int offsetX, int offsetY, boolean padUvs)
+	{
 		final int localX = offsetX;
 		final int localY = offsetY;
 
@@ -351,33 +642,6 @@ class SceneUploader
 		return cnt;
 	}
 
-	private void uploadSceneModel(Model model, GpuIntBuffer vertexBuffer, GpuFloatBuffer uvBuffer)
-	{
-		if (model.getSceneId() == sceneId)
-		{
-			return; // model has already been uploaded
-		}
-
-		model.setBufferOffset(offset);
-		if (model.getFaceTextures() != null)
-		{
-			model.setUvBufferOffset(uvoffset);
-		}
-		else
-		{
-			model.setUvBufferOffset(-1);
-		}
-		model.setSceneId(sceneId);
-
-		int len = pushModel(model, vertexBuffer, uvBuffer);
-
-		offset += len;
-		if (model.getFaceTextures() != null)
-		{
-			uvoffset += len;
-		}
-	}
-
 	public int pushModel(Model model, GpuIntBuffer vertexBuffer, GpuFloatBuffer uvBuffer)
 	{
 		final int triangleCount = Math.min(model.getFaceCount(), GpuPlugin.MAX_TRIANGLE);
@@ -68,8 +68,17 @@ class InteractHighlightOverlay extends Overlay
 	@Override
 	public Dimension render(Graphics2D graphics)
 	{
-		renderMouseover();
-		renderTarget();
+		// only outlines are drawn, so batching them doesn't change the draw order
+		modelOutlineRenderer.startBatch();
+		try
+		{
+			renderMouseover();
+			renderTarget();
+		}
+		finally
+		{
+			modelOutlineRenderer.endBatch();
+		}
 		return null;
 	}
 
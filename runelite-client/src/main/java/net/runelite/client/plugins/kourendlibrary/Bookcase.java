@@ -25,10 +25,11 @@
 package net.runelite.client.plugins.kourendlibrary;
 
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
+import lombok.AccessLevel;
 import lombok.Getter;
 import net.runelite.api.coords.WorldPoint;
 
@@ -57,10 +58,14 @@ class Bookcase
 	private Book book;
 
 	/**
-	 * Books that can be in this slot. Will only be populated if library.state != SolvedState.NO_DATA
+	 * Books that can be in this slot, as of the library revision they were computed at.
+	 * Use {@link Library#getPossibleBooks(Bookcase)}, which keeps them up to date.
 	 */
-	@Getter
-	private Set<Book> possibleBooks = new HashSet<>();
+	@Getter(AccessLevel.PACKAGE)
+	private Set<Book> possibleBooks = Collections.emptySet();
+
+	@Getter(AccessLevel.PACKAGE)
+	private int possibleBooksRevision = -1;
 
 	void clearBook()
 	{
@@ -74,6 +79,12 @@ class Bookcase
 		this.isBookSet = true;
 	}
 
+	void setPossibleBooks(Set<Book> possibleBooks, int revision)
+	{
+		this.possibleBooks = possibleBooks;
+		this.possibleBooksRevision = revision;
+	}
+
 	String getLocationString()
 	{
 		StringBuilder b = new StringBuilder();
@@ -108,7 +108,7 @@ class KourendLibraryOverlay extends Overlay
 			{
 				boolean bookIsKnown = bookcase.isBookSet();
 				Book book = bookcase.getBook();
-				Set<Book> possible = bookcase.getPossibleBooks();
+				Set<Book> possible = library.getPossibleBooks(bookcase);
 				if (bookIsKnown && book == null)
 				{
 					for (Book b : possible)
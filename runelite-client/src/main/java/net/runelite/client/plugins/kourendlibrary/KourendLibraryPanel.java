@@ -134,7 +134,7 @@ class KourendLibraryPanel extends PluginPanel
 				}
 				else
 				{
-					for (Book book : bookcase.getPossibleBooks())
+					for (Book book : library.getPossibleBooks(bookcase))
 					{
 						if (book != null)
 						{
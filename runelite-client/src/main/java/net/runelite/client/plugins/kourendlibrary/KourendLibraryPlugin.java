@@ -399,7 +399,7 @@ public class KourendLibraryPlugin extends Plugin
 			// and a hint arrow is not already being displayed
 			for (Bookcase bookcase : library.getBookcases())
 			{
-				final Set<Book> books = bookcase.getPossibleBooks();
+				final Set<Book> books = library.getPossibleBooks(bookcase);
 
 				if (!books.isEmpty())
 				{
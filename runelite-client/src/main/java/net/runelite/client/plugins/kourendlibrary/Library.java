@@ -24,14 +24,15 @@
  */
 package net.runelite.client.plugins.kourendlibrary;
 
+import com.google.common.annotations.VisibleForTesting;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.IntStream;
+import java.util.Set;
 import javax.inject.Singleton;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
@@ -59,14 +60,55 @@ import static net.runelite.client.plugins.kourendlibrary.Book.*;
 @Slf4j
 class Library
 {
+	private static final Book[] BOOKS = values();
+	private static final int SPECIAL_BOOKS = buildSpecialBooks();
+
 	private final Map<WorldPoint, Bookcase> byPoint = new HashMap<>();
 	private final Map<Integer, ArrayList<Bookcase>> byLevel = new HashMap<>();
 	private final List<Bookcase> byIndex = new ArrayList<>();
 
-	private final List<List<Book>> sequences = populateSequences();
+	private final Book[][] sequences = populateSequences();
+
+	/**
+	 * Position of each book, by ordinal, within each sequence
+	 */
+	private final int[][] sequenceOffsets;
 
 	private final int step;
 
+	/**
+	 * Tallies of the observed bookcases for each way the library can be laid out, indexed by
+	 * {@code sequence * byIndex.size() + zero}, where zero is the bookcase index of the first book in the sequence.
+	 * These are kept up to date as bookcases are marked, so checking a layout against every observation is
+	 * constant time.
+	 * <ul>
+	 * <li>matched - bookcases which hold the book the layout expects</li>
+	 * <li>mismatched - bookcases which hold something other than the book the layout expects</li>
+	 * <li>aligned - bookcases holding a book which fall on every step-th bookcase of the layout</li>
+	 * </ul>
+	 */
+	private final int[] matched;
+	private final int[] mismatched;
+	private final int[] aligned;
+
+	/**
+	 * Number of bookcases with one index which have been found to hold a book. A layout
+	 * with fewer aligned bookcases than this places one of them between books.
+	 */
+	private int booksFound;
+
+	/**
+	 * The zero index of each sequence given the most recently found book, and a mask of the
+	 * sequences which best match the observations
+	 */
+	private final int[] zeros;
+	private int likelySequences;
+
+	/**
+	 * Incremented whenever the possible books of any bookcase may have changed
+	 */
+	private int revision;
+
 	@Getter
 	private SolvedState state;
 
@@ -79,7 +121,25 @@ class Library
 	Library()
 	{
 		populateBooks();
-		step = byIndex.size() / values().length;
+		step = byIndex.size() / BOOKS.length;
+
+		sequenceOffsets = new int[sequences.length][BOOKS.length];
+		for (int s = 0; s < sequences.length; ++s)
+		{
+			Arrays.fill(sequenceOffsets[s], -1);
+			for (int i = 0; i < sequences[s].length; ++i)
+			{
+				Book book = sequences[s][i];
+				assert sequenceOffsets[s][book.ordinal()] == -1;
+				sequenceOffsets[s][book.ordinal()] = i;
+			}
+		}
+
+		matched = new int[sequences.length * byIndex.size()];
+		mismatched = new int[matched.length];
+		aligned = new int[matched.length];
+		zeros = new int[sequences.length];
+
 		reset();
 	}
 
@@ -93,6 +153,25 @@ class Library
 		return Collections.unmodifiableList(byIndex);
 	}
 
+	@VisibleForTesting
+	Book[][] getSequences()
+	{
+		return sequences;
+	}
+
+	/**
+	 * Get the books that can be in a bookcase. This is only populated if the state is not {@link SolvedState#NO_DATA},
+	 * and is empty for bookcases which are known to hold a book.
+	 */
+	synchronized Set<Book> getPossibleBooks(Bookcase bookcase)
+	{
+		if (bookcase.getPossibleBooksRevision() != revision)
+		{
+			bookcase.setPossibleBooks(toSet(getPossibleBooksMask(bookcase)), revision);
+		}
+		return bookcase.getPossibleBooks();
+	}
+
 	void setCustomer(int customerId, Book book)
 	{
 		this.customerId = customerId;
@@ -105,9 +184,14 @@ class Library
 		for (Bookcase b : byIndex)
 		{
 			b.clearBook();
-			b.getPossibleBooks().clear();
 		}
-		log.info("Library is now reset");
+		Arrays.fill(matched, 0);
+		Arrays.fill(mismatched, 0);
+		Arrays.fill(aligned, 0);
+		booksFound = 0;
+		likelySequences = 0;
+		++revision;
+		log.debug("Library is now reset");
 	}
 
 	synchronized void mark(WorldPoint loc, Book book)
@@ -133,7 +217,7 @@ class Library
 		{
 			// Reset if the book we found isn't what we expected
 
-			if (book != null && !bookcase.getPossibleBooks().contains(book))
+			if (book != null && (getPossibleBooksMask(bookcase) & bit(book)) == 0)
 			{
 				reset();
 			}
@@ -143,9 +227,10 @@ class Library
 		{
 			// Reset if we found nothing when we expected something that wasn't a Dark Manuscript or Varlamore Envoy
 			// since the layout has changed
+			int possible = getPossibleBooksMask(bookcase);
 			if (book == null
-				&& !bookcase.getPossibleBooks().isEmpty()
-				&& bookcase.getPossibleBooks().stream().noneMatch(b -> b.isDarkManuscript() || b == VARLAMORE_ENVOY))
+				&& possible != 0
+				&& (possible & SPECIAL_BOOKS) == 0)
 			{
 				reset();
 			}
@@ -156,10 +241,11 @@ class Library
 			}
 		}
 
-		log.info("Setting bookcase {} to {}", bookcase.getIndex(), book);
+		log.debug("Setting bookcase {} to {}", bookcase.getIndex(), book);
+		++revision;
 		for (; ; )
 		{
-			bookcase.setBook(book);
+			setBook(bookcase, book);
 
 			// Basing the sequences on null is not supported, though possible
 			if (book == null)
@@ -177,114 +263,177 @@ class Library
 
 			state = SolvedState.INCOMPLETE;
 
-			// Map each sequence to the number of bookcases that match the sequence
-			// return 0 if it is a mismatch.
+			// Each sequence can only be zeroed in one place for the book to be in this bookcase. The certainty of
+			// the sequence is the number of bookcases that match it there, or 0 if any are a mismatch.
 			// Keep in mind that Bookcases with dark manuscripts may be set to null.
-			int[] certainty = sequences.stream().mapToInt(sequence ->
+			int max = 0;
+			int[] certainty = new int[sequences.length];
+			for (int s = 0; s < sequences.length; ++s)
 			{
-				int zero = getBookcaseZeroIndexForSequenceWithBook(sequence, bookcaseIndex, book);
+				int zero = Math.floorMod(bookcaseIndex - step * sequenceOffsets[s][book.ordinal()], byIndex.size());
+				int layout = s * byIndex.size() + zero;
+				zeros[s] = zero;
+				certainty[s] = mismatched[layout] == 0 && aligned[layout] == booksFound ? matched[layout] : 0;
+				max = Math.max(max, certainty[s]);
+			}
+			log.debug("Certainty is now {}", certainty);
 
-				int found = 0;
-				for (int i = 0; i < byIndex.size(); i++)
+			// We have books set, but 0 sequences match, Something is wrong, reset.
+			if (max == 0)
+			{
+				reset();
+				continue;
+			}
+
+			// The most likely sequences are written onto the bookcases
+			likelySequences = 0;
+			for (int s = 0; s < sequences.length; ++s)
+			{
+				if (certainty[s] == max)
 				{
-					int ai = (i + zero) % byIndex.size();
-					Bookcase iBookcase = byIndex.get(ai);
-					if (i % step == 0)
+					likelySequences |= 1 << s;
+				}
+			}
+
+			if (Integer.bitCount(likelySequences) == 1)
+			{
+				state = SolvedState.COMPLETE;
+			}
+			return;
+		}
+	}
+
+	private void setBook(Bookcase bookcase, Book book)
+	{
+		if (bookcase.isBookSet())
+		{
+			tally(bookcase, bookcase.getBook(), -1);
+		}
+		bookcase.setBook(book);
+		tally(bookcase, book, 1);
+	}
+
+	/**
+	 * Add or remove an observed bookcase from the tallies of every layout which places a book in it.
+	 * Each index holds a book in 26 zero positions of each sequence, and is aligned to the
+	 * books of the sequence in a couple more, which is all that needs to be visited.
+	 */
+	private void tally(Bookcase bookcase, Book book, int delta)
+	{
+		// Only bookcases with one id can be relied on to hold nothing between books
+		boolean found = book != null && bookcase.getIndex().size() == 1;
+		if (found)
+		{
+			booksFound += delta;
+		}
+
+		final int size = byIndex.size();
+		for (int index : bookcase.getIndex())
+		{
+			for (int s = 0; s < sequences.length; ++s)
+			{
+				Book[] sequence = sequences[s];
+				int base = s * size;
+				for (int i = 0, seqI = 0, zero = index; i < size; i += step, ++seqI, zero -= step)
+				{
+					if (zero < 0)
 					{
-						int seqI = i / step;
-						if (iBookcase.isBookSet() && seqI < sequence.size())
-						{
-							Book seqBook = sequence.get(seqI);
-							boolean isSeqManuscript = seqBook == null || seqBook.isDarkManuscript();
-							if (!((isSeqManuscript && iBookcase.getBook() == null) || (iBookcase.getBook() == seqBook)))
-							{
-								log.debug("Bailing @ i={} ai={} {}; {} != {}", i, ai, iBookcase.getIndex(), iBookcase.getBook(), seqBook);
-								found = 0;
-								break;
-							}
-							found++;
-						}
+						zero += size;
 					}
-					else
+
+					if (seqI < sequence.length)
 					{
-						// Only bail if this isn't a double bookcase
-						if (iBookcase.isBookSet() && iBookcase.getBook() != null && iBookcase.getIndex().size() == 1)
+						Book seqBook = sequence[seqI];
+						if (book == seqBook || (book == null && seqBook.isDarkManuscript()))
+						{
+							matched[base + zero] += delta;
+						}
+						else
 						{
-							log.debug("Bailing @ i={} ai={} {}; {} is set", i, ai, iBookcase.getIndex(), iBookcase.getBook());
-							found = 0;
-							break;
+							mismatched[base + zero] += delta;
 						}
 					}
-				}
-				return found;
-			}).toArray();
-			log.info("Certainty is now {}", certainty);
 
-			for (Bookcase b : byIndex)
-			{
-				b.getPossibleBooks().clear();
+					if (found)
+					{
+						aligned[base + zero] += delta;
+					}
+				}
 			}
+		}
+	}
 
-			// Write the most likely sequences onto the bookcases
-			int max = IntStream.of(certainty).max().getAsInt();
+	/**
+	 * Get the books which the most likely sequences place in a bookcase, as a mask of book ordinals
+	 */
+	private int getPossibleBooksMask(Bookcase bookcase)
+	{
+		if (bookcase.getBook() != null)
+		{
+			return 0;
+		}
 
-			// We have books set, but 0 sequences match, Something is wrong, reset.
-			if (max == 0)
+		int mask = 0;
+		for (int s = 0; s < sequences.length; ++s)
+		{
+			if ((likelySequences & 1 << s) == 0)
 			{
-				reset();
 				continue;
 			}
 
-			IntStream.range(0, sequences.size())
-				.filter(i -> certainty[i] == max)
-				.forEach(isequence ->
+			for (int index : bookcase.getIndex())
+			{
+				int i = Math.floorMod(index - zeros[s], byIndex.size());
+				int seqI = i / step;
+				if (i % step == 0 && seqI < sequences[s].length)
 				{
-					List<Book> sequence = sequences.get(isequence);
-					int zero = getBookcaseZeroIndexForSequenceWithBook(sequence, bookcaseIndex, book);
+					mask |= bit(sequences[s][seqI]);
+				}
+			}
+		}
+		return mask;
+	}
 
-					for (int i = 0; i < byIndex.size(); i++)
-					{
-						int ai = (i + zero) % byIndex.size();
-						Bookcase iBookcase = byIndex.get(ai);
-						if (iBookcase.getBook() == null)
-						{
-							int iseq = i / step;
-							if (i % step == 0 && iseq < sequence.size())
-							{
-								Book seqBook = sequence.get(iseq);
-								iBookcase.getPossibleBooks().add(seqBook);
-							}
-						}
-					}
-				});
-			if (IntStream.range(0, certainty.length).filter(i -> certainty[i] == max).count() == 1)
+	private static int bit(Book book)
+	{
+		return 1 << book.ordinal();
+	}
+
+	private static Set<Book> toSet(int mask)
+	{
+		if (mask == 0)
+		{
+			return Collections.emptySet();
+		}
+
+		EnumSet<Book> books = EnumSet.noneOf(Book.class);
+		for (Book book : BOOKS)
+		{
+			if ((mask & bit(book)) != 0)
 			{
-				state = SolvedState.COMPLETE;
+				books.add(book);
 			}
-			return;
 		}
+		return Collections.unmodifiableSet(books);
 	}
 
-	/**
-	 * Find the bookcase index that is index zero in the sequence, identifying by the book in bookcase
-	 */
-	private int getBookcaseZeroIndexForSequenceWithBook(List<Book> sequences, int bookcaseIndex, Book book)
+	private static int buildSpecialBooks()
 	{
-		int bookSequence = sequences.indexOf(book);
-		assert bookSequence >= 0;
-
-		bookcaseIndex -= step * bookSequence;
-		while (bookcaseIndex < 0)
+		int mask = bit(VARLAMORE_ENVOY);
+		for (Book book : BOOKS)
 		{
-			bookcaseIndex += byIndex.size();
+			if (book.isDarkManuscript())
+			{
+				mask |= bit(book);
+			}
 		}
-		return bookcaseIndex;
+		return mask;
 	}
 
-	private List<List<Book>> populateSequences()
+	private static Book[][] populateSequences()
 	{
-		List<List<Book>> books = Arrays.asList(
-			Arrays.asList(
+		return new Book[][]{
+			{
 				DARK_MANUSCRIPT_13516,
 				KILLING_OF_A_KING,
 				DARK_MANUSCRIPT_13520,
@@ -311,8 +460,8 @@ class Library
 				SOUL_JOURNEY,
 				DARK_MANUSCRIPT_13518,
 				TRANSPORTATION_INCANTATIONS
-			),
-			Arrays.asList(
+			},
+			{
 				DARK_MANUSCRIPT_13516,
 				KILLING_OF_A_KING,
 				DARK_MANUSCRIPT_13520,
@@ -339,8 +488,8 @@ class Library
 				DARK_MANUSCRIPT_13517,
 				DARK_MANUSCRIPT_13518,
 				TRANSPORTATION_INCANTATIONS
-			),
-			Arrays.asList(
+			},
+			{
 				RICKTORS_DIARY_7,
 				VARLAMORE_ENVOY,
 				DARK_MANUSCRIPT_13514,
@@ -367,8 +516,8 @@ class Library
 				DARK_MANUSCRIPT_13523,
 				DARK_MANUSCRIPT_13518,
 				TRANSPORTATION_INCANTATIONS
-			),
-			Arrays.asList(
+			},
+			{
 				RADAS_CENSUS,
 				DARK_MANUSCRIPT_13522,
 				RICKTORS_DIARY_7,
@@ -395,8 +544,8 @@ class Library
 				TRANSPORTATION_INCANTATIONS,
 				SOUL_JOURNEY,
 				VARLAMORE_ENVOY
-			),
-			Arrays.asList(
+			},
+			{
 				RADAS_CENSUS,
 				TRANSVERGENCE_THEORY,
 				TREACHERY_OF_ROYALTY,
@@ -423,15 +572,8 @@ class Library
 				EATHRAM_RADA_EXTRACT,
 				DARK_MANUSCRIPT_13518,
 				TRANSPORTATION_INCANTATIONS
-			)
-		);
-
-		for (int i = 0; i < books.size(); i++)
-		{
-			assert new HashSet<>(books.get(i)).size() == books.get(i).size();
-			books.set(i, Collections.unmodifiableList(books.get(i)));
-		}
-		return Collections.unmodifiableList(books);
+			}
+		};
 	}
 
 	private void add(int x, int y, int z, int i)
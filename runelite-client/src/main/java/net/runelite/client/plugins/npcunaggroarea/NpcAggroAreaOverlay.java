@@ -37,7 +37,7 @@ import net.runelite.api.Perspective;
 import net.runelite.api.Player;
 import net.runelite.api.Point;
 import net.runelite.api.coords.LocalPoint;
-import net.runelite.api.geometry.Geometry;
+import net.runelite.api.geometry.LineSegments;
 import net.runelite.client.ui.overlay.Overlay;
 import net.runelite.client.ui.overlay.OverlayLayer;
 import net.runelite.client.ui.overlay.OverlayPosition;
@@ -51,6 +51,9 @@ class NpcAggroAreaOverlay extends Overlay
 	private final NpcAggroAreaConfig config;
 	private final NpcAggroAreaPlugin plugin;
 
+	private final LineSegments visibleLines = new LineSegments();
+	private final GeneralPath path = new GeneralPath();
+
 	@Inject
 	private NpcAggroAreaOverlay(Client client, NpcAggroAreaConfig config, NpcAggroAreaPlugin plugin)
 	{
@@ -77,8 +80,8 @@ class NpcAggroAreaOverlay extends Overlay
 			return null;
 		}
 
-		GeneralPath lines = plugin.getLinesToDisplay()[client.getPlane()];
-		if (lines == null)
+		LineSegments lines = plugin.getLinesToDisplay();
+		if (lines.isEmpty())
 		{
 			return null;
 		}
@@ -93,7 +96,7 @@ class NpcAggroAreaOverlay extends Overlay
 		return null;
 	}
 
-	private void renderPath(Graphics2D graphics, GeneralPath path, Color color)
+	private void renderPath(Graphics2D graphics, LineSegments lines, Color color)
 	{
 		LocalPoint playerLp = client.getLocalPlayer().getLocalLocation();
 		Rectangle viewArea = new Rectangle(
@@ -105,16 +108,23 @@ class NpcAggroAreaOverlay extends Overlay
 		graphics.setColor(color);
 		graphics.setStroke(new BasicStroke(1));
 
-		path = Geometry.clipPath(path, viewArea);
-		path = Geometry.filterPath(path, (p1, p2) ->
-			Perspective.localToCanvas(client, new LocalPoint((int)p1[0], (int)p1[1]), client.getPlane()) != null &&
-			Perspective.localToCanvas(client, new LocalPoint((int)p2[0], (int)p2[1]), client.getPlane()) != null);
-		path = Geometry.transformPath(path, coords ->
+		visibleLines.clear();
+		lines.clipSplitTransform(viewArea, 0, null, visibleLines);
+
+		final int plane = client.getPlane();
+		path.reset();
+		for (int i = 0; i < visibleLines.size(); i++)
 		{
-			Point point = Perspective.localToCanvas(client, new LocalPoint((int)coords[0], (int)coords[1]), client.getPlane());
-			coords[0] = point.getX();
-			coords[1] = point.getY();
-		});
+			Point p1 = Perspective.localToCanvas(client, new LocalPoint((int) visibleLines.getX1(i), (int) visibleLines.getY1(i)), plane);
+			Point p2 = Perspective.localToCanvas(client, new LocalPoint((int) visibleLines.getX2(i), (int) visibleLines.getY2(i)), plane);
+			if (p1 == null || p2 == null)
+			{
+				continue;
+			}
+
+			path.moveTo(p1.getX(), p1.getY());
+			path.lineTo(p2.getX(), p2.getY());
+		}
 
 		graphics.draw(path);
 	}
@@ -30,7 +30,7 @@ import com.google.inject.Provides;
 import java.awt.Polygon;
 import java.awt.Rectangle;
 import java.awt.geom.Area;
-import java.awt.geom.GeneralPath;
+import java.awt.geom.AffineTransform;
 import java.awt.image.BufferedImage;
 import java.time.Duration;
 import java.time.Instant;
@@ -44,14 +44,13 @@ import net.runelite.api.ItemID;
 import net.runelite.api.NPC;
 import net.runelite.api.NPCComposition;
 import net.runelite.api.Perspective;
-import net.runelite.api.coords.LocalPoint;
 import net.runelite.api.coords.WorldArea;
 import net.runelite.api.coords.WorldPoint;
 import net.runelite.client.events.ConfigChanged;
 import net.runelite.api.events.GameStateChanged;
 import net.runelite.api.events.GameTick;
 import net.runelite.api.events.NpcSpawned;
-import net.runelite.api.geometry.Geometry;
+import net.runelite.api.geometry.LineSegments;
 import net.runelite.client.Notifier;
 import net.runelite.client.config.ConfigManager;
 import net.runelite.client.eventbus.Subscribe;
@@ -125,7 +124,12 @@ public class NpcAggroAreaPlugin extends Plugin
 	private final WorldPoint[] safeCenters = new WorldPoint[2];
 
 	@Getter
-	private final GeneralPath[] linesToDisplay = new GeneralPath[Constants.MAX_Z];
+	private final LineSegments linesToDisplay = new LineSegments();
+
+	// safe area outline in world space, rebuilt only when the safe centers change
+	private final LineSegments safeAreaOutline = new LineSegments();
+	private final WorldPoint[] outlineCenters = new WorldPoint[2];
+	private final AffineTransform worldToLocal = new AffineTransform();
 
 	@Getter
 	private boolean active;
@@ -168,7 +172,9 @@ public class NpcAggroAreaPlugin extends Plugin
 		npcNamePatterns = null;
 		active = false;
 
-		Arrays.fill(linesToDisplay, null);
+		linesToDisplay.clear();
+		safeAreaOutline.clear();
+		Arrays.fill(outlineCenters, null);
 	}
 
 	private Area generateSafeArea()
@@ -193,33 +199,31 @@ public class NpcAggroAreaPlugin extends Plugin
 		return area;
 	}
 
-	private void transformWorldToLocal(float[] coords)
-	{
-		final LocalPoint lp = LocalPoint.fromWorld(client, (int)coords[0], (int)coords[1]);
-		coords[0] = lp.getX() - Perspective.LOCAL_TILE_SIZE / 2f;
-		coords[1] = lp.getY() - Perspective.LOCAL_TILE_SIZE / 2f;
-	}
-
 	private void calculateLinesToDisplay()
 	{
+		linesToDisplay.clear();
+
 		if (!active || !config.showAreaLines())
 		{
-			Arrays.fill(linesToDisplay, null);
 			return;
 		}
 
+		if (!Arrays.equals(safeCenters, outlineCenters))
+		{
+			safeAreaOutline.clear();
+			safeAreaOutline.addShape(generateSafeArea());
+			System.arraycopy(safeCenters, 0, outlineCenters, 0, safeCenters.length);
+		}
+
 		Rectangle sceneRect = new Rectangle(
 			client.getBaseX() + 1, client.getBaseY() + 1,
 			Constants.SCENE_SIZE - 2, Constants.SCENE_SIZE - 2);
 
-		for (int i = 0; i < linesToDisplay.length; i++)
-		{
-			GeneralPath lines = new GeneralPath(generateSafeArea());
-			lines = Geometry.clipPath(lines, sceneRect);
-			lines = Geometry.splitIntoSegments(lines, 1);
-			lines = Geometry.transformPath(lines, this::transformWorldToLocal);
-			linesToDisplay[i] = lines;
-		}
+		// world to local, at the south west corner of each tile so the lines follow tile edges
+		worldToLocal.setToScale(Perspective.LOCAL_TILE_SIZE, Perspective.LOCAL_TILE_SIZE);
+		worldToLocal.translate(-client.getBaseX(), -client.getBaseY());
+
+		safeAreaOutline.clipSplitTransform(sceneRect, 1, worldToLocal, linesToDisplay);
 	}
 
 	private void removeTimer()
@@ -72,65 +72,83 @@ class ObjectIndicatorsOverlay extends Overlay
 	public Dimension render(Graphics2D graphics)
 	{
 		Stroke stroke = new BasicStroke((float) config.borderWidth());
-		for (ColorTileObject colorTileObject : plugin.getObjects())
+		// batched outlines are drawn after everything else, so only batch them when nothing else is drawn
+		final boolean batch = config.highlightOutline()
+			&& !config.highlightHull() && !config.highlightClickbox() && !config.highlightTile();
+		if (batch)
 		{
-			TileObject object = colorTileObject.getTileObject();
-			Color color = colorTileObject.getColor();
+			modelOutlineRenderer.startBatch();
+		}
 
-			if (object.getPlane() != client.getPlane())
+		try
+		{
+			for (ColorTileObject colorTileObject : plugin.getObjects())
 			{
-				continue;
-			}
+				TileObject object = colorTileObject.getTileObject();
+				Color color = colorTileObject.getColor();
 
-			ObjectComposition composition = colorTileObject.getComposition();
-			if (composition.getImpostorIds() != null)
-			{
-				// This is a multiloc
-				composition = composition.getImpostor();
-				// Only mark the object if the name still matches
-				if (composition == null
-					|| Strings.isNullOrEmpty(composition.getName())
-					|| "null".equals(composition.getName())
-					|| !composition.getName().equals(colorTileObject.getName()))
+				if (object.getPlane() != client.getPlane())
 				{
 					continue;
 				}
-			}
 
-			if (color == null || !config.rememberObjectColors())
-			{
-				// Fallback to the current config if the object is marked before the addition of multiple colors
-				color = config.markerColor();
-			}
+				ObjectComposition composition = colorTileObject.getComposition();
+				if (composition.getImpostorIds() != null)
+				{
+					// This is a multiloc
+					composition = composition.getImpostor();
+					// Only mark the object if the name still matches
+					if (composition == null
+						|| Strings.isNullOrEmpty(composition.getName())
+						|| "null".equals(composition.getName())
+						|| !composition.getName().equals(colorTileObject.getName()))
+					{
+						continue;
+					}
+				}
 
-			if (config.highlightHull())
-			{
-				renderConvexHull(graphics, object, color, stroke);
-			}
+				if (color == null || !config.rememberObjectColors())
+				{
+					// Fallback to the current config if the object is marked before the addition of multiple colors
+					color = config.markerColor();
+				}
 
-			if (config.highlightOutline())
-			{
-				modelOutlineRenderer.drawOutline(object, (int)config.borderWidth(), color, config.outlineFeather());
-			}
+				if (config.highlightHull())
+				{
+					renderConvexHull(graphics, object, color, stroke);
+				}
 
-			if (config.highlightClickbox())
-			{
-				Shape clickbox = object.getClickbox();
-				if (clickbox != null)
+				if (config.highlightOutline())
 				{
-					Color clickBoxColor = ColorUtil.colorWithAlpha(color, color.getAlpha() / 12);
-					OverlayUtil.renderPolygon(graphics, clickbox, color, clickBoxColor, stroke);
+					modelOutlineRenderer.drawOutline(object, (int)config.borderWidth(), color, config.outlineFeather());
 				}
-			}
 
-			if (config.highlightTile())
-			{
-				Polygon tilePoly = object.getCanvasTilePoly();
-				if (tilePoly != null)
+				if (config.highlightClickbox())
 				{
-					Color tileColor = ColorUtil.colorWithAlpha(color, color.getAlpha() / 12);
-					OverlayUtil.renderPolygon(graphics, tilePoly, color, tileColor, stroke);
+					Shape clickbox = object.getClickbox();
+					if (clickbox != null)
+					{
+						Color clickBoxColor = ColorUtil.colorWithAlpha(color, color.getAlpha() / 12);
+						OverlayUtil.renderPolygon(graphics, clickbox, color, clickBoxColor, stroke);
+					}
 				}
+
+				if (config.highlightTile())
+				{
+					Polygon tilePoly = object.getCanvasTilePoly();
+					if (tilePoly != null)
+					{
+						Color tileColor = ColorUtil.colorWithAlpha(color, color.getAlpha() / 12);
+						OverlayUtil.renderPolygon(graphics, tilePoly, color, tileColor, stroke);
+					}
+				}
+			}
+		}
+		finally
+		{
+			if (batch)
+			{
+				modelOutlineRenderer.endBatch();
 			}
 		}
 
@@ -79,7 +79,9 @@ import net.runelite.client.plugins.PluginDescriptor;
 import net.runelite.client.plugins.party.data.PartyData;
 import net.runelite.client.plugins.party.data.PartyTilePingData;
 import net.runelite.client.plugins.party.messages.LocationUpdate;
+import net.runelite.client.plugins.party.messages.LocationUpdateCodec;
 import net.runelite.client.plugins.party.messages.StatusUpdate;
+import net.runelite.client.plugins.party.messages.StatusUpdateCodec;
 import net.runelite.client.plugins.party.messages.TilePing;
 import net.runelite.client.task.Schedule;
 import net.runelite.client.ui.ClientToolbar;
@@ -195,8 +197,8 @@ public class PartyPlugin extends Plugin
 		overlayManager.add(partyStatusOverlay);
 		keyManager.registerKeyListener(hotkeyListener);
 		wsClient.registerMessage(TilePing.class);
-		wsClient.registerMessage(LocationUpdate.class);
-		wsClient.registerMessage(StatusUpdate.class);
+		wsClient.registerBinaryMessage(LocationUpdate.class, 1, new LocationUpdateCodec());
+		wsClient.registerBinaryMessage(StatusUpdate.class, 2, new StatusUpdateCodec());
 		// Delay sync so the eventbus can register prior to the sync response
 		SwingUtilities.invokeLater(this::requestSync);
 	}
@@ -215,8 +217,8 @@ public class PartyPlugin extends Plugin
 		overlayManager.remove(partyStatusOverlay);
 		keyManager.unregisterKeyListener(hotkeyListener);
 		wsClient.unregisterMessage(TilePing.class);
-		wsClient.unregisterMessage(LocationUpdate.class);
-		wsClient.unregisterMessage(StatusUpdate.class);
+		wsClient.unregisterBinaryMessage(LocationUpdate.class);
+		wsClient.unregisterBinaryMessage(StatusUpdate.class);
 		lastLocation = null;
 		lastStatus = null;
 	}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2022, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.plugins.party.messages;
+
+import net.runelite.api.coords.WorldPoint;
+import net.runelite.client.party.BinaryMessageInput;
+import net.runelite.client.party.BinaryMessageOutput;
+import net.runelite.client.party.PartyMessageCodec;
+
+/**
+ * Encodes locations as a delta from the previous location when possible, which is typically
+ * a couple of bytes
+ */
+public class LocationUpdateCodec implements PartyMessageCodec<LocationUpdate>
+{
+	private static final int FLAG_DELTA = 1;
+
+	@Override
+	public void encode(LocationUpdate message, LocationUpdate baseline, BinaryMessageOutput out)
+	{
+		final WorldPoint point = message.getWorldPoint();
+		if (baseline != null)
+		{
+			final WorldPoint base = baseline.getWorldPoint();
+			out.writeByte(FLAG_DELTA);
+			out.writeSignedVarint(point.getX() - base.getX());
+			out.writeSignedVarint(point.getY() - base.getY());
+		}
+		else
+		{
+			out.writeByte(0);
+			out.writeVarint(point.getX());
+			out.writeVarint(point.getY());
+		}
+		out.writeVarint(point.getPlane());
+	}
+
+	@Override
+	public LocationUpdate decode(BinaryMessageInput in, LocationUpdate baseline)
+	{
+		final int flags = in.readByte();
+		final int x, y;
+		if ((flags & FLAG_DELTA) != 0)
+		{
+			if (baseline == null)
+			{
+				return null;
+			}
+
+			final WorldPoint base = baseline.getWorldPoint();
+			x = base.getX() + in.readSignedVarint();
+			y = base.getY() + in.readSignedVarint();
+		}
+		else
+		{
+			x = in.readVarint();
+			y = in.readVarint();
+		}
+		final int plane = in.readVarint();
+		return new LocationUpdate(new WorldPoint(x, y, plane));
+	}
+}
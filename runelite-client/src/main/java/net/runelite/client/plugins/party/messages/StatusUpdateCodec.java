@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2022, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.plugins.party.messages;
+
+import net.runelite.client.party.BinaryMessageInput;
+import net.runelite.client.party.BinaryMessageOutput;
+import net.runelite.client.party.PartyMessageCodec;
+
+/**
+ * Encodes status updates as a bitmask of the fields which are present, followed by their values.
+ * Status updates already only contain the fields which have changed, so no baseline is needed.
+ */
+public class StatusUpdateCodec implements PartyMessageCodec<StatusUpdate>
+{
+	private static final int NAME = 1;
+	private static final int HEALTH_CURRENT = 1 << 1;
+	private static final int HEALTH_MAX = 1 << 2;
+	private static final int PRAYER_CURRENT = 1 << 3;
+	private static final int PRAYER_MAX = 1 << 4;
+	private static final int RUN_ENERGY = 1 << 5;
+	private static final int SPEC_ENERGY = 1 << 6;
+	private static final int VENGEANCE = 1 << 7;
+	private static final int VENGEANCE_ACTIVE = 1 << 8;
+
+	@Override
+	public void encode(StatusUpdate message, StatusUpdate baseline, BinaryMessageOutput out)
+	{
+		int mask = 0;
+		mask |= message.getCharacterName() != null ? NAME : 0;
+		mask |= message.getHealthCurrent() != null ? HEALTH_CURRENT : 0;
+		mask |= message.getHealthMax() != null ? HEALTH_MAX : 0;
+		mask |= message.getPrayerCurrent() != null ? PRAYER_CURRENT : 0;
+		mask |= message.getPrayerMax() != null ? PRAYER_MAX : 0;
+		mask |= message.getRunEnergy() != null ? RUN_ENERGY : 0;
+		mask |= message.getSpecEnergy() != null ? SPEC_ENERGY : 0;
+		if (message.getVengeanceActive() != null)
+		{
+			mask |= VENGEANCE | (message.getVengeanceActive() ? VENGEANCE_ACTIVE : 0);
+		}
+
+		out.writeVarint(mask);
+		if (message.getCharacterName() != null)
+		{
+			out.writeString(message.getCharacterName());
+		}
+		writeInt(out, message.getHealthCurrent());
+		writeInt(out, message.getHealthMax());
+		writeInt(out, message.getPrayerCurrent());
+		writeInt(out, message.getPrayerMax());
+		writeInt(out, message.getRunEnergy());
+		writeInt(out, message.getSpecEnergy());
+	}
+
+	@Override
+	public StatusUpdate decode(BinaryMessageInput in, StatusUpdate baseline)
+	{
+		final int mask = in.readVarint();
+		final StatusUpdate update = new StatusUpdate();
+		if ((mask & NAME) != 0)
+		{
+			update.setCharacterName(in.readString());
+		}
+		update.setHealthCurrent(readInt(in, mask, HEALTH_CURRENT));
+		update.setHealthMax(readInt(in, mask, HEALTH_MAX));
+		update.setPrayerCurrent(readInt(in, mask, PRAYER_CURRENT));
+		update.setPrayerMax(readInt(in, mask, PRAYER_MAX));
+		update.setRunEnergy(readInt(in, mask, RUN_ENERGY));
+		update.setSpecEnergy(readInt(in, mask, SPEC_ENERGY));
+		if ((mask & VENGEANCE) != 0)
+		{
+			update.setVengeanceActive((mask & VENGEANCE_ACTIVE) != 0);
+		}
+		return update;
+	}
+
+	@Override
+	public StatusUpdate merge(StatusUpdate older, StatusUpdate newer)
+	{
+		return new StatusUpdate(
+			newer.getCharacterName() != null ? newer.getCharacterName() : older.getCharacterName(),
+			newer.getHealthCurrent() != null ? newer.getHealthCurrent() : older.getHealthCurrent(),
+			newer.getHealthMax() != null ? newer.getHealthMax() : older.getHealthMax(),
+			newer.getPrayerCurrent() != null ? newer.getPrayerCurrent() : older.getPrayerCurrent(),
+			newer.getPrayerMax() != null ? newer.getPrayerMax() : older.getPrayerMax(),
+			newer.getRunEnergy() != null ? newer.getRunEnergy() : older.getRunEnergy(),
+			newer.getSpecEnergy() != null ? newer.getSpecEnergy() : older.getSpecEnergy(),
+			newer.getVengeanceActive() != null ? newer.getVengeanceActive() : older.getVengeanceActive()
+		);
+	}
+
+	private static void writeInt(BinaryMessageOutput out, Integer value)
+	{
+		if (value != null)
+		{
+			// boosted levels can't go negative, but don't rely on it
+			out.writeSignedVarint(value);
+		}
+	}
+
+	private static Integer readInt(BinaryMessageInput in, int mask, int bit)
+	{
+		return (mask & bit) != 0 ? in.readSignedVarint() : null;
+	}
+}
@@ -33,10 +33,12 @@ import java.awt.Graphics2D;
 import java.awt.Point;
 import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
 import javax.inject.Inject;
+import lombok.extern.slf4j.Slf4j;
 import net.runelite.api.Client;
 import net.runelite.api.GameState;
 import net.runelite.api.InventoryID;
@@ -50,7 +52,9 @@ import net.runelite.api.widgets.WidgetInfo;
 import net.runelite.client.game.SpriteManager;
 import net.runelite.client.plugins.puzzlesolver.solver.PuzzleSolver;
 import net.runelite.client.plugins.puzzlesolver.solver.PuzzleState;
+import net.runelite.client.plugins.puzzlesolver.solver.heuristics.Heuristic;
 import net.runelite.client.plugins.puzzlesolver.solver.heuristics.ManhattanDistance;
+import net.runelite.client.plugins.puzzlesolver.solver.heuristics.PatternDatabase;
 import net.runelite.client.plugins.puzzlesolver.solver.pathfinding.IDAStar;
 import net.runelite.client.plugins.puzzlesolver.solver.pathfinding.IDAStarMM;
 import net.runelite.client.ui.overlay.Overlay;
@@ -62,6 +66,7 @@ import net.runelite.client.ui.overlay.components.BackgroundComponent;
 import net.runelite.client.ui.overlay.components.TextComponent;
 import net.runelite.client.util.ImageUtil;
 
+@Slf4j
 public class PuzzleSolverOverlay extends Overlay
 {
 	private static final int INFO_BOX_WIDTH = 100;
@@ -436,19 +441,33 @@ public class PuzzleSolverOverlay extends Overlay
 		}
 
 		PuzzleState puzzleState = new PuzzleState(items);
+		Heuristic heuristic = getHeuristic();
 
 		if (useNormalSolver)
 		{
-			solver = new PuzzleSolver(new IDAStar(new ManhattanDistance()), puzzleState);
+			solver = new PuzzleSolver(new IDAStar(heuristic), puzzleState);
 		}
 		else
 		{
-			solver = new PuzzleSolver(new IDAStarMM(new ManhattanDistance()), puzzleState);
+			solver = new PuzzleSolver(new IDAStarMM(heuristic), puzzleState);
 		}
 
 		solverFuture = executorService.submit(solver);
 	}
 
+	private static Heuristic getHeuristic()
+	{
+		try
+		{
+			return PatternDatabase.getDefault();
+		}
+		catch (IOException e)
+		{
+			log.warn("unable to load puzzle pattern database", e);
+			return new ManhattanDistance();
+		}
+	}
+
 	private BufferedImage getDownArrow()
 	{
 		return spriteManager.getSprite(MINIMAP_DESTINATION_FLAG, 1);
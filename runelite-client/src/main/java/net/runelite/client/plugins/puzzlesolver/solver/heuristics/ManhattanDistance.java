@@ -35,8 +35,39 @@ import static net.runelite.client.plugins.puzzlesolver.solver.PuzzleSolver.BLANK
  *
  * https://heuristicswiki.wikispaces.com/Manhattan+Distance
  */
-public class ManhattanDistance implements Heuristic
+public class ManhattanDistance extends PatternDatabase
 {
+	public ManhattanDistance()
+	{
+		super(groups(), tables());
+	}
+
+	/**
+	 * Each tile is a group on its own
+	 */
+	private static int[][] groups()
+	{
+		int[][] groups = new int[TILES][];
+		for (int tile = 0; tile < TILES; ++tile)
+		{
+			groups[tile] = new int[]{tile};
+		}
+		return groups;
+	}
+
+	private static byte[][] tables()
+	{
+		byte[][] tables = new byte[TILES][CELLS];
+		for (int tile = 0; tile < TILES; ++tile)
+		{
+			for (int cell = 0; cell < CELLS; ++cell)
+			{
+				tables[tile][cell] = (byte) (Math.abs(cell % DIMENSION - tile % DIMENSION) + Math.abs(cell / DIMENSION - tile / DIMENSION));
+			}
+		}
+		return tables;
+	}
+
 	@Override
 	public int computeValue(PuzzleState state)
 	{
@@ -0,0 +1,380 @@
+/*
+ * Copyright (c) 2022, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.plugins.puzzlesolver.solver.heuristics;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import net.runelite.client.plugins.puzzlesolver.solver.PuzzleState;
+import static net.runelite.client.plugins.puzzlesolver.solver.PuzzleSolver.BLANK_TILE_VALUE;
+import static net.runelite.client.plugins.puzzlesolver.solver.PuzzleSolver.DIMENSION;
+
+/**
+ * An additive pattern database. The tiles are split into disjoint groups, and for each group a table
+ * holds the number of moves of that group's tiles needed to bring them home, ignoring every other tile.
+ * Since no move is counted by two groups the values can be summed into an admissible heuristic.
+ * <p>
+ * A table is indexed by the cells its tiles are on, so a move only changes the entry of the moved
+ * tile's group, and the index changes by a fixed weight per tile.
+ */
+public class PatternDatabase implements Heuristic
+{
+	static final int CELLS = DIMENSION * DIMENSION;
+	static final int TILES = CELLS - 1;
+
+	private static final String RESOURCE = "patterns.dat";
+
+	/**
+	 * Groups of three tiles which are close to each other when solved
+	 */
+	public static final int[][] DEFAULT_GROUPS = {
+		{0, 1, 5},
+		{2, 3, 4},
+		{6, 7, 8},
+		{9, 14, 19},
+		{10, 15, 20},
+		{11, 12, 13},
+		{16, 17, 21},
+		{18, 22, 23},
+	};
+
+	private static PatternDatabase defaultDatabase;
+
+	private final int[][] groups;
+	private final byte[][] tables;
+	private final int[] groupOf = new int[TILES];
+	private final int[] weightOf = new int[TILES];
+
+	protected PatternDatabase(int[][] groups, byte[][] tables)
+	{
+		this.groups = groups;
+		this.tables = tables;
+
+		Arrays.fill(groupOf, -1);
+		for (int group = 0; group < groups.length; ++group)
+		{
+			int weight = 1;
+			for (int tile : groups[group])
+			{
+				if (groupOf[tile] != -1)
+				{
+					throw new IllegalArgumentException("Tile " + tile + " is in more than one group");
+				}
+
+				groupOf[tile] = group;
+				weightOf[tile] = weight;
+				weight *= CELLS;
+			}
+
+			if (tables[group].length != weight)
+			{
+				throw new IllegalArgumentException("Table " + group + " has the wrong size");
+			}
+		}
+
+		for (int tile = 0; tile < TILES; ++tile)
+		{
+			if (groupOf[tile] == -1)
+			{
+				throw new IllegalArgumentException("Tile " + tile + " is not in a group");
+			}
+		}
+	}
+
+	/**
+	 * Get the database shipped with the client, loading it on first use
+	 */
+	public static synchronized PatternDatabase getDefault() throws IOException
+	{
+		if (defaultDatabase == null)
+		{
+			try (InputStream in = PatternDatabase.class.getResourceAsStream(RESOURCE))
+			{
+				if (in == null)
+				{
+					throw new FileNotFoundException(RESOURCE);
+				}
+
+				defaultDatabase = read(in);
+			}
+		}
+		return defaultDatabase;
+	}
+
+	public static PatternDatabase read(InputStream in) throws IOException
+	{
+		DataInputStream data = new DataInputStream(new GZIPInputStream(in));
+		int[][] groups = new int[data.readUnsignedByte()][];
+		byte[][] tables = new byte[groups.length][];
+		for (int group = 0; group < groups.length; ++group)
+		{
+			groups[group] = new int[data.readUnsignedByte()];
+			for (int i = 0; i < groups[group].length; ++i)
+			{
+				groups[group][i] = data.readUnsignedByte();
+			}
+
+			tables[group] = new byte[tableSize(groups[group].length)];
+			data.readFully(tables[group]);
+		}
+		return new PatternDatabase(groups, tables);
+	}
+
+	public void write(OutputStream out) throws IOException
+	{
+		GZIPOutputStream gzip = new GZIPOutputStream(out);
+		DataOutputStream data = new DataOutputStream(gzip);
+		data.writeByte(groups.length);
+		for (int group = 0; group < groups.length; ++group)
+		{
+			data.writeByte(groups[group].length);
+			for (int tile : groups[group])
+			{
+				data.writeByte(tile);
+			}
+			data.write(tables[group]);
+		}
+		data.flush();
+		gzip.finish();
+	}
+
+	/**
+	 * Build the tables for the given tile groups. Each table is filled by a breadth first search
+	 * back from the solved board over the positions of the group's tiles and the blank, where
+	 * moving the blank over a tile outside of the group is free.
+	 */
+	public static PatternDatabase generate(int[][] groups)
+	{
+		byte[][] tables = new byte[groups.length][];
+		for (int group = 0; group < groups.length; ++group)
+		{
+			tables[group] = generateTable(groups[group]);
+		}
+		return new PatternDatabase(groups, tables);
+	}
+
+	private static byte[] generateTable(int[] tiles)
+	{
+		final int patterns = tableSize(tiles.length);
+		final int states = patterns * CELLS;
+
+		// the cost of each (pattern, blank) state, or -1 if it has not been reached and -2 if it is queued
+		final byte[] cost = new byte[states];
+		Arrays.fill(cost, (byte) -1);
+
+		int solved = 0;
+		for (int i = tiles.length - 1; i >= 0; --i)
+		{
+			solved = solved * CELLS + tiles[i];
+		}
+
+		final int[] stack = new int[states];
+		int[] current = new int[states];
+		int[] next = new int[states];
+		current[0] = solved * CELLS + TILES;
+		cost[current[0]] = -2;
+		int currentSize = 1;
+
+		for (int level = 0; currentSize > 0; ++level)
+		{
+			int stackSize = 0;
+			for (int i = 0; i < currentSize; ++i)
+			{
+				int state = current[i];
+				// it may have been reached for free since it was queued
+				if (cost[state] == -2)
+				{
+					cost[state] = (byte) level;
+					stack[stackSize++] = state;
+				}
+			}
+
+			int nextSize = 0;
+			while (stackSize > 0)
+			{
+				int state = stack[--stackSize];
+				int pattern = state / CELLS;
+				int blank = state % CELLS;
+				int x = blank % DIMENSION;
+				int y = blank / DIMENSION;
+
+				for (int dir = 0; dir < 4; ++dir)
+				{
+					int to;
+					switch (dir)
+					{
+						case 0:
+							to = x > 0 ? blank - 1 : -1;
+							break;
+						case 1:
+							to = x < DIMENSION - 1 ? blank + 1 : -1;
+							break;
+						case 2:
+							to = y > 0 ? blank - DIMENSION : -1;
+							break;
+						default:
+							to = y < DIMENSION - 1 ? blank + DIMENSION : -1;
+							break;
+					}
+
+					if (to == -1)
+					{
+						continue;
+					}
+
+					// find whether a tile of the group is in the way
+					int moved = pattern;
+					for (int i = 0, weight = 1; i < tiles.length; ++i, weight *= CELLS)
+					{
+						if ((pattern / weight) % CELLS == to)
+						{
+							moved = pattern + (blank - to) * weight;
+							break;
+						}
+					}
+
+					int neighbour = moved * CELLS + to;
+					if (moved == pattern)
+					{
+						if (cost[neighbour] < 0)
+						{
+							cost[neighbour] = (byte) level;
+							stack[stackSize++] = neighbour;
+						}
+					}
+					else if (cost[neighbour] == -1)
+					{
+						cost[neighbour] = -2;
+						next[nextSize++] = neighbour;
+					}
+				}
+			}
+
+			int[] tmp = current;
+			current = next;
+			currentSize = nextSize;
+			next = tmp;
+		}
+
+		final byte[] table = new byte[patterns];
+		for (int pattern = 0; pattern < patterns; ++pattern)
+		{
+			// patterns with two tiles on the same cell are never reached and are left at 0
+			int min = Integer.MAX_VALUE;
+			for (int blank = 0; blank < CELLS; ++blank)
+			{
+				int c = cost[pattern * CELLS + blank];
+				if (c >= 0)
+				{
+					min = Math.min(min, c);
+				}
+			}
+			table[pattern] = (byte) (min == Integer.MAX_VALUE ? 0 : min);
+		}
+		return table;
+	}
+
+	private static int tableSize(int tiles)
+	{
+		int size = 1;
+		for (int i = 0; i < tiles; ++i)
+		{
+			size *= CELLS;
+		}
+		return size;
+	}
+
+	public int getGroupCount()
+	{
+		return groups.length;
+	}
+
+	/**
+	 * Get the group a tile belongs to
+	 */
+	public int getGroup(int tile)
+	{
+		return groupOf[tile];
+	}
+
+	/**
+	 * Get how much the index of a tile's group changes per cell the tile moves
+	 */
+	public int getWeight(int tile)
+	{
+		return weightOf[tile];
+	}
+
+	/**
+	 * Compute the table index of a group
+	 *
+	 * @param group     the group
+	 * @param positions the cell of each tile
+	 */
+	public int getIndex(int group, int[] positions)
+	{
+		int index = 0;
+		for (int tile : groups[group])
+		{
+			index += positions[tile] * weightOf[tile];
+		}
+		return index;
+	}
+
+	public int getValue(int group, int index)
+	{
+		return tables[group][index] & 0xff;
+	}
+
+	@Override
+	public int computeValue(PuzzleState state)
+	{
+		int[] positions = new int[TILES];
+		for (int y = 0; y < DIMENSION; ++y)
+		{
+			for (int x = 0; x < DIMENSION; ++x)
+			{
+				int piece = state.getPiece(x, y);
+				if (piece != BLANK_TILE_VALUE)
+				{
+					positions[piece] = y * DIMENSION + x;
+				}
+			}
+		}
+
+		int value = 0;
+		for (int group = 0; group < groups.length; ++group)
+		{
+			value += getValue(group, getIndex(group, positions));
+		}
+		return value;
+	}
+}
@@ -25,26 +25,96 @@
  */
 package net.runelite.client.plugins.puzzlesolver.solver.pathfinding;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import lombok.extern.slf4j.Slf4j;
 import net.runelite.client.plugins.puzzlesolver.solver.PuzzleState;
 import net.runelite.client.plugins.puzzlesolver.solver.heuristics.Heuristic;
+import net.runelite.client.plugins.puzzlesolver.solver.heuristics.PatternDatabase;
 
 /**
  * An implementation of the IDA* algorithm.
  *
  * https://en.wikipedia.org/wiki/Iterative_deepening_A*
+ *
+ * With a {@link PatternDatabase} heuristic the search runs over packed boards on several threads,
+ * otherwise it expands {@link PuzzleState}s directly.
  */
+@Slf4j
 public class IDAStar extends Pathfinder
 {
+	/**
+	 * The number of subtrees per thread the root is split into, so threads which finish early
+	 * can pick up more work
+	 */
+	private static final int SUBTREES_PER_THREAD = 16;
+	private static final int MAX_SPLIT_DEPTH = 12;
+
+	private final int threads;
+	private long nodes;
+
 	public IDAStar(Heuristic heuristic)
+	{
+		this(heuristic, Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2)));
+	}
+
+	public IDAStar(Heuristic heuristic, int threads)
 	{
 		super(heuristic);
+		this.threads = threads;
+	}
+
+	/**
+	 * Get the number of boards expanded by the last search
+	 */
+	public long getNodes()
+	{
+		return nodes;
 	}
 
 	@Override
 	public List<PuzzleState> computePath(PuzzleState root)
 	{
+		if (getHeuristic() instanceof PatternDatabase)
+		{
+			int[] moves;
+			try
+			{
+				moves = solve((PatternDatabase) getHeuristic(), root);
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+				return null;
+			}
+
+			// replay the moves to build the states to show
+			List<PuzzleState> path = new ArrayList<>(moves.length + 1);
+			PuzzleState state = root;
+			path.add(state);
+			for (int move : moves)
+			{
+				for (PuzzleState next : state.computeMoves())
+				{
+					if (next.getEmptyPiece() == move)
+					{
+						state = next;
+						break;
+					}
+				}
+				path.add(state);
+			}
+			return path;
+		}
+
 		PuzzleState goalNode = path(root);
 
 		List<PuzzleState> path = new ArrayList<>();
@@ -59,6 +129,162 @@ public class IDAStar extends Pathfinder
 		return path;
 	}
 
+	/**
+	 * Run IDA* over packed boards. The tree is split at the first depth with enough subtrees to keep
+	 * every thread busy, and each iteration searches the subtrees in parallel with the same bound.
+	 *
+	 * @return the cells the blank moves to
+	 */
+	private int[] solve(PatternDatabase database, PuzzleState root) throws InterruptedException
+	{
+		final AtomicBoolean stop = new AtomicBoolean();
+		final PackedSearch rootSearch = new PackedSearch(database, root, stop);
+		final int rootBlank = rootSearch.getBlank();
+		nodes = 0;
+
+		List<int[]> subtrees = new ArrayList<>();
+		subtrees.add(new int[0]);
+		for (int depth = 1; depth <= MAX_SPLIT_DEPTH && subtrees.size() < threads * SUBTREES_PER_THREAD; ++depth)
+		{
+			subtrees.clear();
+			int[] solution = split(rootSearch, -1, new int[depth], 0, subtrees);
+			if (solution != null)
+			{
+				return solution;
+			}
+		}
+
+		ExecutorService executor = threads > 1
+			? Executors.newFixedThreadPool(threads, new ThreadFactoryBuilder()
+				.setNameFormat("puzzle-solver-%d")
+				.setDaemon(true)
+				.build())
+			: null;
+		try
+		{
+			int bound = rootSearch.getHeuristic();
+			while (true)
+			{
+				if (Thread.interrupted())
+				{
+					throw new InterruptedException();
+				}
+
+				List<PackedSearch> searches = new ArrayList<>(subtrees.size());
+				if (executor != null)
+				{
+					List<Callable<PackedSearch>> tasks = new ArrayList<>(subtrees.size());
+					for (int[] prefix : subtrees)
+					{
+						final int iterationBound = bound;
+						tasks.add(() -> searchSubtree(database, root, stop, prefix, iterationBound, rootBlank));
+					}
+
+					for (Future<PackedSearch> future : executor.invokeAll(tasks))
+					{
+						searches.add(future.get());
+					}
+				}
+				else
+				{
+					for (int[] prefix : subtrees)
+					{
+						PackedSearch search = searchSubtree(database, root, stop, prefix, bound, rootBlank);
+						searches.add(search);
+						if (stop.get())
+						{
+							break;
+						}
+					}
+				}
+
+				int nextBound = Integer.MAX_VALUE;
+				int[] solution = null;
+				for (int i = 0; i < searches.size(); ++i)
+				{
+					PackedSearch search = searches.get(i);
+					nodes += search.getNodes();
+					nextBound = Math.min(nextBound, search.getNextBound());
+					if (solution == null)
+					{
+						solution = search.getSolution(subtrees.get(i));
+					}
+				}
+
+				if (solution != null)
+				{
+					log.debug("Solved in {} moves, {} nodes", solution.length, nodes);
+					return solution;
+				}
+
+				if (nextBound == Integer.MAX_VALUE)
+				{
+					throw new IllegalStateException("Puzzle is unsolvable");
+				}
+
+				bound = nextBound;
+			}
+		}
+		catch (ExecutionException e)
+		{
+			throw new RuntimeException(e.getCause());
+		}
+		finally
+		{
+			stop.set(true);
+			if (executor != null)
+			{
+				executor.shutdownNow();
+			}
+		}
+	}
+
+	private static PackedSearch searchSubtree(PatternDatabase database, PuzzleState root, AtomicBoolean stop, int[] prefix, int bound, int rootBlank)
+	{
+		PackedSearch search = new PackedSearch(database, root, stop);
+		search.searchSubtree(prefix, bound, rootBlank);
+		return search;
+	}
+
+	/**
+	 * Collect every sequence of moves of the given length from the root, without immediately undoing
+	 * a move. If a shorter sequence solves the board it is returned instead.
+	 */
+	private static int[] split(PackedSearch search, int prevBlank, int[] prefix, int g, List<int[]> subtrees)
+	{
+		if (search.getHeuristic() == 0)
+		{
+			return Arrays.copyOf(prefix, g);
+		}
+
+		if (g == prefix.length)
+		{
+			subtrees.add(prefix.clone());
+			return null;
+		}
+
+		int from = search.getBlank();
+		for (int dir = 0; dir < 4; ++dir)
+		{
+			int to = PackedSearch.neighbour(from, dir);
+			if (to == -1 || to == prevBlank)
+			{
+				continue;
+			}
+
+			search.move(to);
+			prefix[g] = to;
+			int[] solution = split(search, from, prefix, g + 1, subtrees);
+			search.move(from);
+
+			if (solution != null)
+			{
+				return solution;
+			}
+		}
+		return null;
+	}
+
 	private PuzzleState path(PuzzleState root)
 	{
 		int bound = root.getHeuristicValue(getHeuristic());
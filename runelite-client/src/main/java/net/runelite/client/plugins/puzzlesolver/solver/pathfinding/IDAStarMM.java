@@ -73,7 +73,13 @@ public class IDAStarMM extends IDAStar
 		stateList.remove(stateList.size() - 1);
 
 		//Pathfinder for 4x4
-		path.addAll(super.computePath(currentState));
+		List<PuzzleState> subPath = super.computePath(currentState);
+		if (subPath == null)
+		{
+			// interrupted, the thread's interrupt status is still set for the caller
+			return null;
+		}
+		path.addAll(subPath);
 
 		path.addAll(0, stateList);
 
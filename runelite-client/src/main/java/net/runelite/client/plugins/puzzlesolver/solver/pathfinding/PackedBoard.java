@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2022, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.plugins.puzzlesolver.solver.pathfinding;
+
+/**
+ * A 5x5 board packed into two longs, 5 bits per cell. Cells 0-11 are in the low long and cells 12-23
+ * in the high long, which leaves 4 spare bits in each. Cell 24 is split between the 4 spare bits of
+ * the low long and the lowest spare bit of the high long.
+ */
+final class PackedBoard
+{
+	private static final int BITS = 5;
+	private static final long MASK = (1 << BITS) - 1;
+	private static final int CELLS_PER_LONG = 12;
+	private static final int SPARE_SHIFT = CELLS_PER_LONG * BITS;
+
+	private long lo;
+	private long hi;
+
+	int get(int cell)
+	{
+		if (cell < CELLS_PER_LONG)
+		{
+			return (int) (lo >>> (cell * BITS) & MASK);
+		}
+		else if (cell < CELLS_PER_LONG * 2)
+		{
+			return (int) (hi >>> ((cell - CELLS_PER_LONG) * BITS) & MASK);
+		}
+		else
+		{
+			return (int) (lo >>> SPARE_SHIFT) | (int) (hi >>> SPARE_SHIFT & 1) << 4;
+		}
+	}
+
+	void set(int cell, int value)
+	{
+		if (cell < CELLS_PER_LONG)
+		{
+			int shift = cell * BITS;
+			lo = lo & ~(MASK << shift) | (long) value << shift;
+		}
+		else if (cell < CELLS_PER_LONG * 2)
+		{
+			int shift = (cell - CELLS_PER_LONG) * BITS;
+			hi = hi & ~(MASK << shift) | (long) value << shift;
+		}
+		else
+		{
+			lo = lo & ~(0xfL << SPARE_SHIFT) | (long) (value & 0xf) << SPARE_SHIFT;
+			hi = hi & ~(1L << SPARE_SHIFT) | (long) (value >>> 4) << SPARE_SHIFT;
+		}
+	}
+}
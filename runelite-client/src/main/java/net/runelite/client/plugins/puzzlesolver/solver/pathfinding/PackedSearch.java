@@ -0,0 +1,252 @@
+/*
+ * Copyright (c) 2022, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.plugins.puzzlesolver.solver.pathfinding;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+import net.runelite.client.plugins.puzzlesolver.solver.PuzzleState;
+import net.runelite.client.plugins.puzzlesolver.solver.heuristics.PatternDatabase;
+import static net.runelite.client.plugins.puzzlesolver.solver.PuzzleSolver.BLANK_TILE_VALUE;
+import static net.runelite.client.plugins.puzzlesolver.solver.PuzzleSolver.DIMENSION;
+
+/**
+ * A depth first search over a single packed board. Moves are made in place and undone on the way
+ * back up, and the heuristic is updated from the one group the moved tile is in, so the search
+ * itself does not allocate.
+ */
+final class PackedSearch
+{
+	static final int CELLS = DIMENSION * DIMENSION;
+
+	/**
+	 * The value of the blank on a packed board
+	 */
+	private static final int BLANK = CELLS - 1;
+
+	/**
+	 * How many nodes are expanded between checks of the stop flag
+	 */
+	private static final int STOP_CHECK_MASK = 0xfff;
+
+	private final PatternDatabase database;
+	private final AtomicBoolean stop;
+
+	private final PackedBoard board = new PackedBoard();
+	private final int[] positions = new int[CELLS - 1];
+	private final int[] indexes;
+	private int blank;
+	private int h;
+
+	/**
+	 * The cell the blank moves to on each step of the current path
+	 */
+	private int[] path = new int[128];
+	private int solutionLength = -1;
+	private int nextBound;
+	private long nodes;
+
+	PackedSearch(PatternDatabase database, PuzzleState state, AtomicBoolean stop)
+	{
+		this.database = database;
+		this.stop = stop;
+
+		for (int y = 0; y < DIMENSION; ++y)
+		{
+			for (int x = 0; x < DIMENSION; ++x)
+			{
+				int cell = y * DIMENSION + x;
+				int piece = state.getPiece(x, y);
+				if (piece == BLANK_TILE_VALUE)
+				{
+					board.set(cell, BLANK);
+					blank = cell;
+				}
+				else
+				{
+					board.set(cell, piece);
+					positions[piece] = cell;
+				}
+			}
+		}
+
+		indexes = new int[database.getGroupCount()];
+		for (int group = 0; group < indexes.length; ++group)
+		{
+			indexes[group] = database.getIndex(group, positions);
+			h += database.getValue(group, indexes[group]);
+		}
+	}
+
+	/**
+	 * Get the cell next to the given one in a direction, or -1 if it is off the board
+	 */
+	static int neighbour(int cell, int dir)
+	{
+		switch (dir)
+		{
+			case 0:
+				return cell % DIMENSION > 0 ? cell - 1 : -1;
+			case 1:
+				return cell % DIMENSION < DIMENSION - 1 ? cell + 1 : -1;
+			case 2:
+				return cell >= DIMENSION ? cell - DIMENSION : -1;
+			default:
+				return cell < CELLS - DIMENSION ? cell + DIMENSION : -1;
+		}
+	}
+
+	int getBlank()
+	{
+		return blank;
+	}
+
+	int getHeuristic()
+	{
+		return h;
+	}
+
+	long getNodes()
+	{
+		return nodes;
+	}
+
+	/**
+	 * Get the smallest estimate which exceeded the bound in the last {@link #searchSubtree}
+	 */
+	int getNextBound()
+	{
+		return nextBound;
+	}
+
+	/**
+	 * Slide the tile on the given cell into the blank
+	 */
+	void move(int cell)
+	{
+		int tile = board.get(cell);
+		board.set(blank, tile);
+		board.set(cell, BLANK);
+
+		int group = database.getGroup(tile);
+		int index = indexes[group] + (blank - cell) * database.getWeight(tile);
+		h += database.getValue(group, index) - database.getValue(group, indexes[group]);
+		indexes[group] = index;
+		positions[tile] = blank;
+		blank = cell;
+	}
+
+	/**
+	 * Make the moves leading to a subtree of the root and search it, setting the stop flag
+	 * if it has a solution
+	 */
+	void searchSubtree(int[] prefix, int bound, int rootBlank)
+	{
+		for (int move : prefix)
+		{
+			move(move);
+		}
+
+		int prevBlank = prefix.length > 1 ? prefix[prefix.length - 2] : prefix.length == 1 ? rootBlank : -1;
+		nextBound = search(prefix.length, bound, prevBlank);
+		if (solutionLength != -1)
+		{
+			stop.set(true);
+		}
+	}
+
+	/**
+	 * Search every path below the current board whose estimated length is within the bound.
+	 *
+	 * @param g         the number of moves made to reach the current board
+	 * @param bound     the maximum estimated solution length
+	 * @param prevBlank where the blank was before the last move, so it is not moved straight back
+	 * @return the smallest estimate which exceeded the bound, or the solution length if one was found
+	 */
+	int search(int g, int bound, int prevBlank)
+	{
+		int f = g + h;
+		if (f > bound)
+		{
+			return f;
+		}
+
+		if (h == 0)
+		{
+			// the heuristic is only 0 with every tile home
+			solutionLength = g;
+			return g;
+		}
+
+		if ((++nodes & STOP_CHECK_MASK) == 0 && stop.get())
+		{
+			return Integer.MAX_VALUE;
+		}
+
+		if (g == path.length)
+		{
+			path = Arrays.copyOf(path, path.length * 2);
+		}
+
+		int min = Integer.MAX_VALUE;
+		int from = blank;
+		for (int dir = 0; dir < 4; ++dir)
+		{
+			int to = neighbour(from, dir);
+			if (to == -1 || to == prevBlank)
+			{
+				continue;
+			}
+
+			move(to);
+			path[g] = to;
+			int t = search(g + 1, bound, from);
+			if (solutionLength != -1)
+			{
+				return t;
+			}
+			move(from);
+
+			min = Math.min(min, t);
+		}
+		return min;
+	}
+
+	/**
+	 * Get the blank moves of the solution found by {@link #search}, or null if there is none
+	 *
+	 * @param prefix the moves made before the search was started
+	 */
+	int[] getSolution(int[] prefix)
+	{
+		if (solutionLength == -1)
+		{
+			return null;
+		}
+
+		int[] solution = Arrays.copyOf(prefix, solutionLength);
+		System.arraycopy(path, prefix.length, solution, prefix.length, solutionLength - prefix.length);
+		return solution;
+	}
+}
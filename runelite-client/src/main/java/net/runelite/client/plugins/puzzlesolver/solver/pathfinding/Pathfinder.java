@@ -43,5 +43,11 @@ public abstract class Pathfinder
 		return heuristic;
 	}
 
+	/**
+	 * Find the moves which solve a puzzle
+	 *
+	 * @param start the puzzle to solve
+	 * @return the states from start to the solved puzzle, or null if the thread was interrupted
+	 */
 	public abstract List<PuzzleState> computePath(PuzzleState start);
 }
@@ -0,0 +1,205 @@
+/*
+ * Copyright (c) 2022, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.plugins.screenshot;
+
+import java.util.Arrays;
+
+/**
+ * A byte compressor using the LZ4 block format: a greedy matcher with a single entry hash table,
+ * which is fast and does well on the long zero runs in frame deltas. Compression never allocates.
+ */
+final class FrameCompressor
+{
+	static final int HASH_BITS = 14;
+
+	private static final int MIN_MATCH = 4;
+	private static final int LAST_LITERALS = 5;
+	private static final int MATCH_FIND_LIMIT = 12;
+	private static final int MAX_OFFSET = 0xffff;
+	private static final int SKIP_STRENGTH = 6;
+
+	private FrameCompressor()
+	{
+	}
+
+	/**
+	 * The size of the buffer needed to compress {@code len} bytes
+	 */
+	static int maxCompressedLength(int len)
+	{
+		return len + len / 255 + 16;
+	}
+
+	/**
+	 * @param src input
+	 * @param len input length
+	 * @param dst output, at least {@link #maxCompressedLength(int)} long
+	 * @param table hash table of {@code 1 << HASH_BITS} entries
+	 * @return compressed length
+	 */
+	static int compress(byte[] src, int len, byte[] dst, int[] table)
+	{
+		Arrays.fill(table, -1);
+
+		int ip = 0;
+		int anchor = 0;
+		int op = 0;
+
+		while (ip < len - MATCH_FIND_LIMIT)
+		{
+			final int seq = readInt(src, ip);
+			final int h = (seq * -1640531535) >>> (32 - HASH_BITS);
+			int ref = table[h];
+			table[h] = ip;
+
+			if (ref < 0 || ip - ref > MAX_OFFSET || readInt(src, ref) != seq)
+			{
+				// step faster through data which isn't compressing
+				ip += 1 + ((ip - anchor) >>> SKIP_STRENGTH);
+				continue;
+			}
+
+			while (ip > anchor && ref > 0 && src[ip - 1] == src[ref - 1])
+			{
+				--ip;
+				--ref;
+			}
+
+			int matchLen = MIN_MATCH;
+			final int maxMatch = len - LAST_LITERALS - ip;
+			while (matchLen < maxMatch && src[ip + matchLen] == src[ref + matchLen])
+			{
+				++matchLen;
+			}
+
+			op = writeSequence(dst, op, src, anchor, ip - anchor, ip - ref, matchLen);
+			ip += matchLen;
+			anchor = ip;
+		}
+
+		// the block always ends with a literal run
+		final int litLen = len - anchor;
+		int token = Math.min(litLen, 15) << 4;
+		dst[op++] = (byte) token;
+		op = writeLength(dst, op, litLen - 15);
+		System.arraycopy(src, anchor, dst, op, litLen);
+		return op + litLen;
+	}
+
+	/**
+	 * @param src compressed input
+	 * @param off input offset
+	 * @param len compressed length
+	 * @param dst output, which must be large enough for the decompressed data
+	 * @return decompressed length
+	 */
+	static int decompress(byte[] src, int off, int len, byte[] dst)
+	{
+		final int end = off + len;
+		int ip = off;
+		int op = 0;
+
+		for (;;)
+		{
+			final int token = src[ip++] & 0xff;
+
+			int litLen = token >>> 4;
+			if (litLen == 15)
+			{
+				int b;
+				do
+				{
+					b = src[ip++] & 0xff;
+					litLen += b;
+				}
+				while (b == 255);
+			}
+
+			System.arraycopy(src, ip, dst, op, litLen);
+			ip += litLen;
+			op += litLen;
+
+			if (ip >= end)
+			{
+				return op;
+			}
+
+			final int offset = (src[ip] & 0xff) | (src[ip + 1] & 0xff) << 8;
+			ip += 2;
+
+			int matchLen = token & 0xf;
+			if (matchLen == 15)
+			{
+				int b;
+				do
+				{
+					b = src[ip++] & 0xff;
+					matchLen += b;
+				}
+				while (b == 255);
+			}
+			matchLen += MIN_MATCH;
+
+			// matches may overlap their own output, so copy forwards byte by byte
+			for (int ref = op - offset, i = 0; i < matchLen; ++i)
+			{
+				dst[op++] = dst[ref + i];
+			}
+		}
+	}
+
+	private static int writeSequence(byte[] dst, int op, byte[] src, int litOff, int litLen, int offset, int matchLen)
+	{
+		final int ml = matchLen - MIN_MATCH;
+		dst[op++] = (byte) (Math.min(litLen, 15) << 4 | Math.min(ml, 15));
+		op = writeLength(dst, op, litLen - 15);
+		System.arraycopy(src, litOff, dst, op, litLen);
+		op += litLen;
+		dst[op++] = (byte) offset;
+		dst[op++] = (byte) (offset >>> 8);
+		return writeLength(dst, op, ml - 15);
+	}
+
+	private static int writeLength(byte[] dst, int op, int len)
+	{
+		if (len < 0)
+		{
+			return op;
+		}
+
+		while (len >= 255)
+		{
+			dst[op++] = (byte) 255;
+			len -= 255;
+		}
+		dst[op++] = (byte) len;
+		return op;
+	}
+
+	private static int readInt(byte[] b, int i)
+	{
+		return (b[i] & 0xff) | (b[i + 1] & 0xff) << 8 | (b[i + 2] & 0xff) << 16 | b[i + 3] << 24;
+	}
+}
@@ -0,0 +1,282 @@
+/*
+ * Copyright (c) 2022, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.plugins.screenshot;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A fixed size ring of compressed frames held off heap. Frames are stored as the xor delta against the
+ * previous frame, which is mostly zeros for a mostly static scene, and compressed with
+ * {@link FrameCompressor}. A keyframe is stored every {@link #KEYFRAME_INTERVAL} frames so that playback
+ * can start after old frames have been overwritten.
+ * <p>
+ * Adding frames does not allocate, except to resize scratch buffers when the frame size changes.
+ */
+class FrameRing
+{
+	static final int KEYFRAME_INTERVAL = 25;
+
+	private static final int BYTES_PER_PIXEL = 3;
+
+	private final ByteBuffer data;
+	private final int maxFrames;
+
+	// frame records, a circular list from first of length count
+	private final int[] offsets;
+	private final int[] lengths;
+	private final long[] times;
+	private final boolean[] keyframes;
+	private int first;
+	private int count;
+	// next write position in data
+	private int head;
+
+	private int width;
+	private int height;
+	private int sinceKeyframe;
+
+	private int[] previous = new int[0];
+	private byte[] raw = new byte[0];
+	private byte[] compressed = new byte[0];
+	private final int[] table = new int[1 << FrameCompressor.HASH_BITS];
+
+	/**
+	 * @param capacity bytes of compressed frame data to keep
+	 * @param maxFrames maximum number of frames to keep
+	 */
+	FrameRing(int capacity, int maxFrames)
+	{
+		this.data = ByteBuffer.allocateDirect(capacity);
+		this.maxFrames = maxFrames;
+		this.offsets = new int[maxFrames];
+		this.lengths = new int[maxFrames];
+		this.times = new long[maxFrames];
+		this.keyframes = new boolean[maxFrames];
+	}
+
+	/**
+	 * Add a frame
+	 *
+	 * @param pixels packed rgb pixels, row major
+	 * @param width frame width
+	 * @param height frame height
+	 * @param time capture time in milliseconds
+	 * @return false if the frame did not fit in the ring
+	 */
+	synchronized boolean add(int[] pixels, int width, int height, long time)
+	{
+		if (width != this.width || height != this.height)
+		{
+			resize(width, height);
+		}
+
+		final int n = width * height;
+		final boolean keyframe = sinceKeyframe == 0;
+		final int[] previous = this.previous;
+		final byte[] raw = this.raw;
+		for (int i = 0, j = 0; i < n; ++i)
+		{
+			final int p = pixels[i];
+			final int d = keyframe ? p : p ^ previous[i];
+			raw[j++] = (byte) (d >> 16);
+			raw[j++] = (byte) (d >> 8);
+			raw[j++] = (byte) d;
+			previous[i] = p;
+		}
+
+		final int len = FrameCompressor.compress(raw, n * BYTES_PER_PIXEL, compressed, table);
+		if (len > data.capacity())
+		{
+			// the next frame can't be a delta against one which was never stored
+			sinceKeyframe = 0;
+			return false;
+		}
+
+		if (head + len > data.capacity())
+		{
+			// the rest of the buffer is the oldest frames, drop them and wrap
+			while (count > 0 && offsets[first] >= head)
+			{
+				drop();
+			}
+			head = 0;
+		}
+
+		while (count > 0 && (count == maxFrames || (offsets[first] >= head && offsets[first] < head + len)))
+		{
+			drop();
+		}
+
+		data.position(head);
+		data.put(compressed, 0, len);
+
+		final int idx = (first + count) % maxFrames;
+		offsets[idx] = head;
+		lengths[idx] = len;
+		times[idx] = time;
+		keyframes[idx] = keyframe;
+		++count;
+		head += len;
+
+		if (++sinceKeyframe == KEYFRAME_INTERVAL)
+		{
+			sinceKeyframe = 0;
+		}
+		return true;
+	}
+
+	synchronized void clear()
+	{
+		first = count = head = 0;
+		sinceKeyframe = 0;
+	}
+
+	synchronized int size()
+	{
+		return count;
+	}
+
+	/**
+	 * Copy out the frames captured at or after {@code since}, starting from the first keyframe
+	 * which allows them to be decoded.
+	 */
+	synchronized Snapshot snapshot(long since)
+	{
+		int start = -1;
+		for (int i = 0; i < count; ++i)
+		{
+			final int idx = (first + i) % maxFrames;
+			if (keyframes[idx])
+			{
+				start = i;
+			}
+			if (times[idx] >= since && start != -1)
+			{
+				break;
+			}
+		}
+
+		if (start == -1)
+		{
+			return new Snapshot(width, height, new byte[0], new int[0], new long[0], new boolean[0], since);
+		}
+
+		int total = 0;
+		for (int i = start; i < count; ++i)
+		{
+			total += lengths[(first + i) % maxFrames];
+		}
+
+		final int frames = count - start;
+		final byte[] buf = new byte[total];
+		final int[] lens = new int[frames];
+		final long[] ts = new long[frames];
+		final boolean[] keys = new boolean[frames];
+		for (int i = 0, off = 0; i < frames; ++i)
+		{
+			final int idx = (first + start + i) % maxFrames;
+			data.position(offsets[idx]);
+			data.get(buf, off, lengths[idx]);
+			off += lengths[idx];
+			lens[i] = lengths[idx];
+			ts[i] = times[idx];
+			keys[i] = keyframes[idx];
+		}
+		return new Snapshot(width, height, buf, lens, ts, keys, since);
+	}
+
+	private void drop()
+	{
+		first = (first + 1) % maxFrames;
+		--count;
+	}
+
+	private void resize(int width, int height)
+	{
+		clear();
+		this.width = width;
+		this.height = height;
+		final int n = width * height;
+		previous = new int[n];
+		raw = new byte[n * BYTES_PER_PIXEL];
+		compressed = new byte[FrameCompressor.maxCompressedLength(raw.length)];
+	}
+
+	interface FrameConsumer
+	{
+		void accept(int[] pixels, int width, int height, long time);
+	}
+
+	/**
+	 * A copy of part of the ring, which can be decoded without holding up capture
+	 */
+	static class Snapshot
+	{
+		private final int width;
+		private final int height;
+		private final byte[] data;
+		private final int[] lengths;
+		private final long[] times;
+		private final boolean[] keyframes;
+		private final long since;
+
+		private Snapshot(int width, int height, byte[] data, int[] lengths, long[] times, boolean[] keyframes, long since)
+		{
+			this.width = width;
+			this.height = height;
+			this.data = data;
+			this.lengths = lengths;
+			this.times = times;
+			this.keyframes = keyframes;
+			this.since = since;
+		}
+
+		/**
+		 * Decode each frame captured at or after the snapshot time, in order. The pixel array is reused
+		 * between calls.
+		 */
+		void forEach(FrameConsumer consumer)
+		{
+			final int n = width * height;
+			final int[] pixels = new int[n];
+			final byte[] raw = new byte[n * BYTES_PER_PIXEL];
+			for (int i = 0, off = 0; i < lengths.length; off += lengths[i++])
+			{
+				FrameCompressor.decompress(data, off, lengths[i], raw);
+				final boolean keyframe = keyframes[i];
+				for (int p = 0, j = 0; p < n; ++p, j += BYTES_PER_PIXEL)
+				{
+					final int d = (raw[j] & 0xff) << 16 | (raw[j + 1] & 0xff) << 8 | raw[j + 2] & 0xff;
+					pixels[p] = keyframe ? d : pixels[p] ^ d;
+				}
+
+				if (times[i] >= since)
+				{
+					consumer.accept(pixels, width, height, times[i]);
+				}
+			}
+		}
+	}
+}
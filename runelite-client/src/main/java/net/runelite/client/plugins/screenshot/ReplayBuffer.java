@@ -0,0 +1,270 @@
+/*
+ * Copyright (c) 2022, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.plugins.screenshot;
+
+import java.awt.Image;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.zip.Deflater;
+import javax.inject.Inject;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.client.ui.DrawManager;
+import net.runelite.client.util.PngEncoder;
+
+/**
+ * Keeps the last few seconds of downscaled frames in a {@link FrameRing}, so that what led up to a
+ * screenshot can be saved along with it. Frames are sampled at a fixed rate and compressed on a low
+ * priority thread; the client thread only pays for the frame copy it already makes for screenshots.
+ * <p>
+ * Frames are shared with the other next frame listeners, so the replay buffer only releases its own
+ * reference to each frame, exactly once: when it is skipped, when it is dropped on stop, or once the
+ * compressor has sampled it.
+ */
+@Slf4j
+class ReplayBuffer
+{
+	static final int FRAMES_PER_SECOND = 5;
+	static final int MAX_WIDTH = 480;
+	// bytes of compressed frames kept off heap
+	static final int MEMORY_BUDGET = 32 << 20;
+	// share of one core the compressor may use before sampling slows down
+	private static final int CPU_BUDGET_PERCENT = 25;
+
+	private static final long FRAME_INTERVAL = TimeUnit.SECONDS.toNanos(1) / FRAMES_PER_SECOND;
+	private static final PngEncoder PNG_ENCODER = new PngEncoder(Deflater.BEST_SPEED, PngEncoder.Filter.UP);
+
+	private final DrawManager drawManager;
+
+	private final Runnable everyFrameListener = this::onFrame;
+	private final Consumer<Image> nextFrameListener = this::onNextFrame;
+	private final BlockingQueue<Image> frames = new ArrayBlockingQueue<>(1);
+
+	private volatile FrameRing ring;
+	private Thread thread;
+	private int duration;
+
+	// client thread
+	private boolean requested;
+	// written by the compressor thread
+	private volatile long nextCapture;
+
+	private int[] scaled = new int[0];
+
+	@Inject
+	ReplayBuffer(DrawManager drawManager)
+	{
+		this.drawManager = drawManager;
+	}
+
+	/**
+	 * Start recording
+	 *
+	 * @param seconds how much history to keep
+	 */
+	synchronized void start(int seconds)
+	{
+		stop();
+
+		duration = seconds;
+		requested = false;
+		nextCapture = System.nanoTime();
+		ring = new FrameRing(MEMORY_BUDGET, seconds * FRAMES_PER_SECOND + FrameRing.KEYFRAME_INTERVAL);
+		thread = new Thread(this::run, "Replay buffer");
+		thread.setDaemon(true);
+		thread.setPriority(Thread.MIN_PRIORITY);
+		thread.start();
+		drawManager.registerEveryFrameListener(everyFrameListener);
+	}
+
+	synchronized void stop()
+	{
+		if (thread == null)
+		{
+			return;
+		}
+
+		drawManager.unregisterEveryFrameListener(everyFrameListener);
+		thread.interrupt();
+		thread = null;
+		ring = null;
+		releaseQueuedFrame();
+	}
+
+	private void releaseQueuedFrame()
+	{
+		Image image = frames.poll();
+		if (image != null)
+		{
+			drawManager.releaseFrameBuffer(image);
+		}
+	}
+
+	boolean isRunning()
+	{
+		return ring != null;
+	}
+
+	/**
+	 * Write the recorded frames to a folder as a numbered png sequence. This decodes and encodes every
+	 * frame, so should not be called on the client thread.
+	 *
+	 * @param folder folder to create
+	 */
+	void save(File folder)
+	{
+		final FrameRing ring = this.ring;
+		if (ring == null)
+		{
+			return;
+		}
+
+		final long start = System.nanoTime();
+		final FrameRing.Snapshot snapshot = ring.snapshot(System.currentTimeMillis() - TimeUnit.SECONDS.toMillis(duration));
+
+		folder.mkdirs();
+		final int[] index = new int[1];
+		snapshot.forEach((pixels, width, height, time) ->
+		{
+			BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+			image.setRGB(0, 0, width, height, pixels, 0, width);
+
+			File file = new File(folder, String.format("%03d.png", index[0]++));
+			try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file.toPath())))
+			{
+				PNG_ENCODER.write(image, out);
+			}
+			catch (IOException ex)
+			{
+				log.warn("error writing replay frame", ex);
+			}
+		});
+
+		log.debug("Wrote {} replay frames to {} in {}ms", index[0], folder, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+	}
+
+	private void onFrame()
+	{
+		if (requested || System.nanoTime() - nextCapture < 0)
+		{
+			return;
+		}
+
+		requested = true;
+		drawManager.requestNextFrameListener(nextFrameListener);
+	}
+
+	private synchronized void onNextFrame(Image image)
+	{
+		requested = false;
+		// checked under the same lock as stop, so that a frame can't be queued after stop has released the queue
+		if (ring == null || !frames.offer(image))
+		{
+			// stopped, or the compressor is behind, so skip this frame
+			drawManager.releaseFrameBuffer(image);
+		}
+	}
+
+	private void run()
+	{
+		try
+		{
+			while (!Thread.currentThread().isInterrupted())
+			{
+				final Image image = frames.take();
+				final long start = System.nanoTime();
+				final FrameRing ring = this.ring;
+				if (ring != null)
+				{
+					capture(ring, (BufferedImage) image);
+				}
+				else
+				{
+					drawManager.releaseFrameBuffer(image);
+				}
+
+				final long elapsed = System.nanoTime() - start;
+				nextCapture = start + Math.max(FRAME_INTERVAL, elapsed * 100 / CPU_BUDGET_PERCENT);
+			}
+		}
+		catch (InterruptedException ex)
+		{
+			// stopped
+		}
+	}
+
+	private void capture(FrameRing ring, BufferedImage image)
+	{
+		final int srcWidth = image.getWidth();
+		final int srcHeight = image.getHeight();
+		final int step = (srcWidth + MAX_WIDTH - 1) / MAX_WIDTH;
+		final int width = srcWidth / step;
+		final int height = srcHeight / step;
+
+		if (scaled.length != width * height)
+		{
+			scaled = new int[width * height];
+		}
+
+		// nearest neighbour sampling
+		if (image.getType() == BufferedImage.TYPE_INT_RGB)
+		{
+			final int[] src = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+			for (int y = 0, i = 0; y < height; ++y)
+			{
+				final int row = y * step * srcWidth;
+				for (int x = 0; x < width; ++x)
+				{
+					scaled[i++] = src[row + x * step];
+				}
+			}
+		}
+		else
+		{
+			for (int y = 0, i = 0; y < height; ++y)
+			{
+				for (int x = 0; x < width; ++x)
+				{
+					scaled[i++] = image.getRGB(x * step, y * step) & 0xffffff;
+				}
+			}
+		}
+
+		drawManager.releaseFrameBuffer(image);
+
+		if (!ring.add(scaled, width, height, System.currentTimeMillis()))
+		{
+			log.debug("Replay frame too large for the buffer");
+		}
+	}
+}
@@ -29,6 +29,8 @@ import net.runelite.client.config.ConfigGroup;
 import net.runelite.client.config.ConfigItem;
 import net.runelite.client.config.ConfigSection;
 import net.runelite.client.config.Keybind;
+import net.runelite.client.config.Range;
+import net.runelite.client.config.Units;
 import net.runelite.client.util.ImageUploadStyle;
 
 @ConfigGroup("screenshot")
@@ -41,6 +43,13 @@ public interface ScreenshotConfig extends Config
 	)
 	String whatSection = "what";
 
+	@ConfigSection(
+		name = "Instant Replay",
+		description = "Save the moments leading up to automatic screenshots",
+		position = 100
+	)
+	String replaySection = "replay";
+
 	@ConfigItem(
 		keyName = "includeFrame",
 		name = "Include Client Frame",
@@ -299,4 +308,33 @@ public interface ScreenshotConfig extends Config
 	{
 		return true;
 	}
+
+	@ConfigItem(
+		keyName = "replay",
+		name = "Save Replays",
+		description = "Keep a short, downscaled recording in memory and save it as an image sequence alongside each screenshot",
+		position = 0,
+		section = replaySection
+	)
+	default boolean replay()
+	{
+		return false;
+	}
+
+	@Range(
+		min = 1,
+		max = 30
+	)
+	@Units(Units.SECONDS)
+	@ConfigItem(
+		keyName = "replayDuration",
+		name = "Replay Length",
+		description = "How much time before each screenshot is saved in replays",
+		position = 1,
+		section = replaySection
+	)
+	default int replayDuration()
+	{
+		return 10;
+	}
 }
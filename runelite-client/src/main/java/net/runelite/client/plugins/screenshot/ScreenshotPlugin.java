@@ -32,8 +32,11 @@ import com.google.inject.Provides;
 import java.awt.Graphics;
 import java.awt.Image;
 import java.awt.image.BufferedImage;
+import java.io.File;
 import java.lang.reflect.InvocationTargetException;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ScheduledExecutorService;
@@ -75,6 +78,7 @@ import net.runelite.api.widgets.WidgetInfo;
 import static net.runelite.client.RuneLite.SCREENSHOT_DIR;
 import net.runelite.client.config.ConfigManager;
 import net.runelite.client.eventbus.Subscribe;
+import net.runelite.client.events.ConfigChanged;
 import net.runelite.client.events.PlayerLootReceived;
 import net.runelite.client.game.SpriteManager;
 import net.runelite.client.input.KeyManager;
@@ -136,6 +140,9 @@ public class ScreenshotPlugin extends Plugin
 	private static final String SD_PVP_KILLS = "PvP Kills";
 	private static final String SD_DEATHS = "Deaths";
 	private static final String SD_COMBAT_ACHIEVEMENTS = "Combat Achievements";
+	private static final String SD_REPLAYS = "Replays";
+
+	private static final DateTimeFormatter REPLAY_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd_HH-mm-ss");
 
 	private String clueType;
 	private Integer clueNumber;
@@ -189,6 +196,9 @@ public class ScreenshotPlugin extends Plugin
 	@Inject
 	private ImageCapture imageCapture;
 
+	@Inject
+	private ReplayBuffer replayBuffer;
+
 	@Getter(AccessLevel.PACKAGE)
 	private BufferedImage reportButton;
 
@@ -237,6 +247,11 @@ public class ScreenshotPlugin extends Plugin
 		clientToolbar.addNavigation(titleBarButton);
 
 		spriteManager.getSpriteAsync(SpriteID.CHATBOX_REPORT_BUTTON, 0, s -> reportButton = s);
+
+		if (config.replay())
+		{
+			replayBuffer.start(config.replayDuration());
+		}
 	}
 
 	@Override
@@ -247,6 +262,25 @@ public class ScreenshotPlugin extends Plugin
 		keyManager.unregisterKeyListener(hotkeyListener);
 		kickPlayerName = null;
 		notificationStarted = false;
+		replayBuffer.stop();
+	}
+
+	@Subscribe
+	public void onConfigChanged(ConfigChanged event)
+	{
+		if (!event.getGroup().equals("screenshot") || !event.getKey().startsWith("replay"))
+		{
+			return;
+		}
+
+		if (config.replay())
+		{
+			replayBuffer.start(config.replayDuration());
+		}
+		else
+		{
+			replayBuffer.stop();
+		}
 	}
 
 	@Subscribe
@@ -805,6 +839,13 @@ public class ScreenshotPlugin extends Plugin
 			return;
 		}
 
+		if (replayBuffer.isRunning())
+		{
+			String replayName = (fileName.isEmpty() ? "" : fileName + " ") + LocalDateTime.now().format(REPLAY_TIME_FORMAT);
+			File replayFolder = new File(imageCapture.getPlayerFolder(SD_REPLAYS), replayName);
+			executor.submit(() -> replayBuffer.save(replayFolder));
+		}
+
 		Consumer<Image> imageCallback = (img) ->
 		{
 			// This callback is on the game thread, move to executor thread
@@ -852,6 +893,9 @@ public class ScreenshotPlugin extends Plugin
 
 		// Draw the game onto the screenshot
 		graphics.drawImage(image, gameOffsetX, gameOffsetY, null);
+		graphics.dispose();
+		drawManager.releaseFrameBuffer(image);
+
 		imageCapture.takeScreenshot(screenshot, fileName, subDir, config.notifyWhenTaken(), config.uploadScreenshot());
 	}
 
@@ -26,16 +26,18 @@
  */
 package net.runelite.client.plugins.worldhopper;
 
-import com.google.common.base.Stopwatch;
 import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.inject.Provides;
 import java.awt.image.BufferedImage;
 import java.time.Instant;
+import java.util.Collections;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
@@ -79,6 +81,9 @@ import net.runelite.client.input.KeyManager;
 import net.runelite.client.plugins.Plugin;
 import net.runelite.client.plugins.PluginDescriptor;
 import net.runelite.client.plugins.worldhopper.ping.Ping;
+import net.runelite.client.plugins.worldhopper.ping.TcpPinger;
+import net.runelite.client.plugins.worldhopper.ping.WorldLatency;
+import net.runelite.client.plugins.worldhopper.ping.WorldPinger;
 import net.runelite.client.ui.ClientToolbar;
 import net.runelite.client.ui.NavigationButton;
 import net.runelite.client.ui.overlay.OverlayManager;
@@ -104,6 +109,9 @@ public class WorldHopperPlugin extends Plugin
 
 	private static final int DISPLAY_SWITCHER_MAX_ATTEMPTS = 3;
 
+	private static final int PING_THREADS = 4;
+	private static final int PING_MAX_IN_FLIGHT = 16;
+
 	private static final String HOP_TO = "Hop-to";
 	private static final String KICK_OPTION = "Kick";
 	private static final ImmutableList<String> BEFORE_OPTIONS = ImmutableList.of("Add friend", "Remove friend", KICK_OPTION);
@@ -140,6 +148,11 @@ public class WorldHopperPlugin extends Plugin
 	private WorldService worldService;
 
 	private ScheduledExecutorService hopperExecutorService;
+	private ExecutorService pingExecutorService;
+	private TcpPinger tcpPinger;
+	private WorldPinger worldPinger;
+	// the worlds pinged for the overlay alone, kept while the current world is the same so the latencies aren't rebuilt
+	private List<World> currentWorlds = Collections.emptyList();
 
 	private NavigationButton navButton;
 	private WorldSwitcherPanel panel;
@@ -152,14 +165,11 @@ public class WorldHopperPlugin extends Plugin
 
 	private int favoriteWorld1, favoriteWorld2;
 
-	private ScheduledFuture<?> pingFuture, currPingFuture;
-	private int currentWorld;
+	private ScheduledFuture<?> pingFuture;
 	private Instant lastFetch;
 
 	@Getter(AccessLevel.PACKAGE)
-	private int currentPing;
-
-	private final Map<Integer, Integer> storedPings = new HashMap<>();
+	private volatile int currentPing;
 
 	private final HotkeyListener previousKeyListener = new HotkeyListener(() -> config.previousKey())
 	{
@@ -212,14 +222,20 @@ public class WorldHopperPlugin extends Plugin
 		panel.setSubscriptionFilterMode(config.subscriptionFilter());
 		panel.setRegionFilterMode(config.regionFilter());
 
-		// The plugin has its own executor for pings, as it blocks for a long time
+		// The plugin has its own executors for pings. Resolving hosts and ICMP pings block, so they are run on a
+		// small pool, and TCP pings are made without blocking on the pinger's own thread.
 		hopperExecutorService = new ExecutorServiceExceptionLogger(Executors.newSingleThreadScheduledExecutor());
-		// Run the first-run ping
-		hopperExecutorService.execute(this::pingInitialWorlds);
-
-		// Give some initial delay - this won't run until after pingInitialWorlds finishes from tick() anyway
-		pingFuture = hopperExecutorService.scheduleWithFixedDelay(this::pingNextWorld, 15, 3, TimeUnit.SECONDS);
-		currPingFuture = hopperExecutorService.scheduleWithFixedDelay(this::pingCurrentWorld, 15, 1, TimeUnit.SECONDS);
+		pingExecutorService = Executors.newFixedThreadPool(PING_THREADS, new ThreadFactoryBuilder()
+			.setNameFormat("world-ping-%d")
+			.setDaemon(true)
+			.build());
+		tcpPinger = new TcpPinger();
+		worldPinger = new WorldPinger(world -> Ping.ping(world, pingExecutorService, tcpPinger), PING_MAX_IN_FLIGHT);
+		worldPinger.setFavorite(this::isFavorite);
+		final WorldPinger pinger = worldPinger;
+		worldPinger.setListener((world, latency) -> pingUpdated(pinger, world, latency));
+
+		pingFuture = hopperExecutorService.scheduleWithFixedDelay(this::pingWorlds, 0, 250, TimeUnit.MILLISECONDS);
 
 		// populate initial world list
 		updateList();
@@ -231,9 +247,6 @@ public class WorldHopperPlugin extends Plugin
 		pingFuture.cancel(true);
 		pingFuture = null;
 
-		currPingFuture.cancel(true);
-		currPingFuture = null;
-
 		overlayManager.remove(worldHopperOverlay);
 
 		keyManager.unregisterKeyListener(previousKeyListener);
@@ -243,6 +256,15 @@ public class WorldHopperPlugin extends Plugin
 
 		hopperExecutorService.shutdown();
 		hopperExecutorService = null;
+
+		// pings still in flight complete on the ping threads, so stop them from reaching the panel
+		worldPinger.shutDown();
+
+		tcpPinger.close();
+		tcpPinger = null;
+
+		pingExecutorService.shutdown();
+		pingExecutorService = null;
 	}
 
 	@Subscribe
@@ -794,89 +816,57 @@ public class WorldHopperPlugin extends Plugin
 	}
 
 	/**
-	 * Ping all worlds. This takes a long time and is only run on first run.
+	 * Start pinging any worlds which are due. All worlds are pinged when they are shown in the sidebar,
+	 * otherwise only the current world is, for the ping overlay.
 	 */
-	private void pingInitialWorlds()
+	private void pingWorlds()
 	{
 		WorldResult worldResult = worldService.getWorlds();
-		if (worldResult == null || !config.showSidebar() || !config.ping())
+		if (worldResult == null)
 		{
 			return;
 		}
 
-		Stopwatch stopwatch = Stopwatch.createStarted();
-
-		for (World world : worldResult.getWorlds())
-		{
-			int ping = ping(world);
-			SwingUtilities.invokeLater(() -> panel.updatePing(world.getId(), ping));
-		}
-
-		stopwatch.stop();
-
-		log.debug("Done pinging worlds in {}", stopwatch.elapsed());
-	}
-
-	/**
-	 * Ping the next world
-	 */
-	private void pingNextWorld()
-	{
-		WorldResult worldResult = worldService.getWorlds();
-		if (worldResult == null || !config.showSidebar() || !config.ping())
-		{
-			return;
-		}
+		// There is no reason to ping the current world if not logged in, as the overlay doesn't draw
+		final boolean displayPing = config.displayPing() && client.getGameState() == GameState.LOGGED_IN;
+		final World currentWorld = displayPing ? worldResult.findWorld(client.getWorld()) : null;
 
-		List<World> worlds = worldResult.getWorlds();
-		if (worlds.isEmpty())
+		if (config.showSidebar() && config.ping())
 		{
-			return;
+			worldPinger.setWorlds(worldResult.getWorlds());
 		}
-
-		if (currentWorld >= worlds.size())
+		else if (currentWorld != null)
 		{
-			// Wrap back around
-			currentWorld = 0;
+			if (currentWorlds.isEmpty() || currentWorlds.get(0) != currentWorld)
+			{
+				currentWorlds = Collections.singletonList(currentWorld);
+			}
+			worldPinger.setWorlds(currentWorlds);
 		}
-
-		World world = worlds.get(currentWorld++);
-
-		// If we are displaying the ping overlay, there is a separate scheduled task for the current world
-		boolean displayPing = config.displayPing() && client.getGameState() == GameState.LOGGED_IN;
-		if (displayPing && client.getWorld() == world.getId())
+		else
 		{
-			return;
+			worldPinger.setWorlds(Collections.emptyList());
 		}
 
-		int ping = ping(world);
-		log.trace("Ping for world {} is: {}", world.getId(), ping);
-		SwingUtilities.invokeLater(() -> panel.updatePing(world.getId(), ping));
+		worldPinger.setCurrentWorld(currentWorld != null ? currentWorld.getId() : 0);
+		worldPinger.poll();
 	}
 
-	/**
-	 * Ping the current world for the ping overlay
-	 */
-	private void pingCurrentWorld()
+	private void pingUpdated(WorldPinger pinger, World world, WorldLatency latency)
 	{
-		WorldResult worldResult = worldService.getWorlds();
-		// There is no reason to ping the current world if not logged in, as the overlay doesn't draw
-		if (worldResult == null || !config.displayPing() || client.getGameState() != GameState.LOGGED_IN)
+		final int ping = latency.getSmoothedPing();
+		if (world.getId() == client.getWorld())
 		{
-			return;
+			currentPing = ping;
 		}
 
-		final World currentWorld = worldResult.findWorld(client.getWorld());
-		if (currentWorld == null)
+		SwingUtilities.invokeLater(() ->
 		{
-			log.debug("unable to find current world: {}", client.getWorld());
-			return;
-		}
-
-		currentPing = ping(currentWorld);
-		log.trace("Ping for current world is: {}", currentPing);
-
-		SwingUtilities.invokeLater(() -> panel.updatePing(currentWorld.getId(), currentPing));
+			if (!pinger.isShutDown())
+			{
+				panel.updatePing(world.getId(), ping);
+			}
+		});
 	}
 
 	Integer getStoredPing(World world)
@@ -886,13 +876,7 @@ public class WorldHopperPlugin extends Plugin
 			return null;
 		}
 
-		return storedPings.get(world.getId());
-	}
-
-	private int ping(World world)
-	{
-		int ping = Ping.ping(world);
-		storedPings.put(world.getId(), ping);
-		return ping;
+		WorldLatency latency = worldPinger.getLatency(world.getId());
+		return latency != null && (latency.getSamples() > 0 || latency.getFailures() > 0) ? latency.getSmoothedPing() : null;
 	}
 }
@@ -127,6 +127,12 @@ class WorldSwitcherPanel extends PluginPanel
 		{
 			if (worldTableRow.getWorld().getId() == world)
 			{
+				// pings are smoothed, so most updates leave the row unchanged
+				if (worldTableRow.getPing() == ping)
+				{
+					break;
+				}
+
 				worldTableRow.setPing(ping);
 
 				// If the panel is sorted by ping, re-sort it
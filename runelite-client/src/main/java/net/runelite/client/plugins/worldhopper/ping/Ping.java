@@ -34,6 +34,10 @@ import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.net.UnknownHostException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.client.util.OSType;
 import net.runelite.http.api.worlds.World;
@@ -42,28 +46,19 @@ import net.runelite.http.api.worlds.World;
 public class Ping
 {
 	private static final byte[] RUNELITE_PING = "RuneLitePing".getBytes(Charsets.UTF_8);
-	private static final int TIMEOUT = 2000; // ms
+	static final int TIMEOUT = 2000; // ms
 	private static final int PORT = 43594;
 	private static final int MAX_IPV4_HEADER_SIZE = 60;
 
-	private static short seq;
+	// worlds are pinged from several threads at once
+	private static final AtomicInteger SEQ = new AtomicInteger();
+	private static volatile boolean icmpUnavailable;
 
 	public static int ping(World world)
 	{
-		InetAddress inetAddress;
-		try
+		InetAddress inetAddress = resolve(world);
+		if (inetAddress == null)
 		{
-			inetAddress = InetAddress.getByName(world.getAddress());
-		}
-		catch (UnknownHostException ex)
-		{
-			log.warn("error resolving host for world ping", ex);
-			return -1;
-		}
-
-		if (!(inetAddress instanceof Inet4Address))
-		{
-			log.debug("Only ipv4 ping is supported");
 			return -1;
 		}
 
@@ -95,6 +90,67 @@ public class Ping
 		}
 	}
 
+	/**
+	 * Ping a world without blocking the caller. Host resolution and ICMP pings, which block, are run on
+	 * the given executor. When ICMP is not available the connect time to the world is measured with the
+	 * TCP pinger instead, which does not hold a thread while the connect is in progress.
+	 *
+	 * @param world world to ping
+	 * @param executor executor to resolve and ICMP ping on
+	 * @param tcpPinger pinger to use when ICMP is not available
+	 * @return a future completed with the ping in milliseconds, or -1 on failure
+	 */
+	public static CompletableFuture<Integer> ping(World world, Executor executor, TcpPinger tcpPinger)
+	{
+		return CompletableFuture.supplyAsync(() -> resolve(world), executor)
+			.thenCompose(inetAddress ->
+			{
+				if (inetAddress == null)
+				{
+					return CompletableFuture.completedFuture(-1);
+				}
+
+				OSType osType = OSType.getOSType();
+				if (!icmpUnavailable && osType != OSType.Other)
+				{
+					try
+					{
+						return CompletableFuture.completedFuture(osType == OSType.Windows
+							? windowsPing(inetAddress)
+							: icmpPing(inetAddress, osType == OSType.MacOS));
+					}
+					catch (Exception ex)
+					{
+						log.debug("error during icmp ping", ex);
+					}
+				}
+
+				return tcpPinger.ping(new InetSocketAddress(inetAddress, PORT));
+			});
+	}
+
+	private static InetAddress resolve(World world)
+	{
+		InetAddress inetAddress;
+		try
+		{
+			inetAddress = InetAddress.getByName(world.getAddress());
+		}
+		catch (UnknownHostException ex)
+		{
+			log.warn("error resolving host for world ping", ex);
+			return null;
+		}
+
+		if (!(inetAddress instanceof Inet4Address))
+		{
+			log.debug("Only ipv4 ping is supported");
+			return null;
+		}
+
+		return inetAddress;
+	}
+
 	private static int windowsPing(InetAddress inetAddress)
 	{
 		IPHlpAPI ipHlpAPI = IPHlpAPI.INSTANCE;
@@ -129,6 +185,8 @@ public class Ping
 		int sock = libc.socket(libc.AF_INET, libc.SOCK_DGRAM, libc.IPPROTO_ICMP);
 		if (sock < 0)
 		{
+			// unprivileged ICMP sockets are not permitted, so don't try again
+			icmpUnavailable = true;
 			throw new IOException("failed to open ICMP socket");
 		}
 
@@ -148,7 +206,7 @@ public class Ping
 				throw new IOException("failed to set SO_SNDTIMEO");
 			}
 
-			short seqno = seq++;
+			short seqno = (short) SEQ.getAndIncrement();
 
 			// struct icmphdr
 			byte[] request = {
@@ -186,40 +244,55 @@ public class Ping
 				return -1;
 			}
 
-			int rlen = libc.recvfrom(sock, response, size, 0, null, null);
-			long end = System.nanoTime();
-			if (rlen <= 0)
+			// MacOS uses the pid as the id of every ICMP socket, so replies to pings sent from the other
+			// threads can be read here too. Skip replies which are not from this world or for this ping.
+			final long deadline = start + TimeUnit.MILLISECONDS.toNanos(TIMEOUT);
+			while (true)
 			{
-				return -1;
-			}
+				int rlen = libc.recvfrom(sock, response, size, 0, null, null);
+				long end = System.nanoTime();
+				if (rlen <= 0)
+				{
+					return -1;
+				}
 
-			int icmpHeaderOffset = 0;
-			if (includeIpHeader)
-			{
-				int ihl = response.getByte(0) & 0xf;
-				icmpHeaderOffset = ihl << 2; // to bytes
-			}
+				int icmpHeaderOffset = 0;
+				if (includeIpHeader)
+				{
+					int ihl = response.getByte(0) & 0xf;
+					icmpHeaderOffset = ihl << 2; // to bytes
+				}
 
-			if (icmpHeaderOffset + 7 >= rlen)
-			{
-				log.warn("packet too short (received {} bytes but icmp header offset is {})", rlen, icmpHeaderOffset);
-				return -1;
-			}
+				if (icmpHeaderOffset + 7 >= rlen)
+				{
+					log.warn("packet too short (received {} bytes but icmp header offset is {})", rlen, icmpHeaderOffset);
+					return -1;
+				}
 
-			if (response.getByte(icmpHeaderOffset) != 0) // ICMP type - echo reply
-			{
-				log.warn("non-echo reply");
-				return -1;
-			}
+				if (response.getByte(icmpHeaderOffset) != 0) // ICMP type - echo reply
+				{
+					log.debug("non-echo reply");
+				}
+				else if (includeIpHeader && !isFrom(response, address))
+				{
+					log.debug("reply from another host");
+				}
+				else
+				{
+					short seq = (short) (((response.getByte(icmpHeaderOffset + 6) & 0xff) << 8) | response.getByte(icmpHeaderOffset + 7) & 0xff);
+					if (seqno == seq)
+					{
+						return (int) ((end - start) / 1_000_000);
+					}
 
-			short seq = (short) (((response.getByte(icmpHeaderOffset + 6) & 0xff) << 8) | response.getByte(icmpHeaderOffset + 7) & 0xff);
-			if (seqno != seq)
-			{
-				log.warn("sequence number mismatch ({} != {})", seqno, seq);
-				return -1;
-			}
+					log.debug("sequence number mismatch ({} != {})", seqno, seq);
+				}
 
-			return (int) ((end - start) / 1_000_000);
+				if (end - deadline >= 0)
+				{
+					return -1;
+				}
+			}
 		}
 		finally
 		{
@@ -227,6 +300,19 @@ public class Ping
 		}
 	}
 
+	// compare the source address of struct ip
+	private static boolean isFrom(Memory response, byte[] address)
+	{
+		for (int i = 0; i < address.length; ++i)
+		{
+			if (response.getByte(12 + i) != address[i])
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
 	// IP checksum
 	private static short checksum(byte[] data)
 	{
@@ -0,0 +1,243 @@
+/*
+ * Copyright (c) 2022, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.plugins.worldhopper.ping;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Measures the time taken to complete a TCP handshake. Connects are made with
+ * non-blocking channels on a single selector thread, so any number of pings can
+ * be in flight at once.
+ */
+@Slf4j
+public class TcpPinger implements AutoCloseable
+{
+	private final Selector selector;
+	private final Thread thread;
+	private final long timeout;
+	private final Queue<Probe> pending = new ConcurrentLinkedQueue<>();
+	private volatile boolean closed;
+
+	private static class Probe
+	{
+		private final InetSocketAddress address;
+		private final CompletableFuture<Integer> future = new CompletableFuture<>();
+		private SocketChannel channel;
+		private long start;
+
+		private Probe(InetSocketAddress address)
+		{
+			this.address = address;
+		}
+	}
+
+	public TcpPinger() throws IOException
+	{
+		this(Ping.TIMEOUT);
+	}
+
+	/**
+	 * @param timeout connect timeout, in milliseconds
+	 */
+	public TcpPinger(int timeout) throws IOException
+	{
+		this.selector = Selector.open();
+		this.timeout = TimeUnit.MILLISECONDS.toNanos(timeout);
+		this.thread = new Thread(this::run, "TCP pinger");
+		this.thread.setDaemon(true);
+		this.thread.start();
+	}
+
+	/**
+	 * Ping an address
+	 *
+	 * @param address address to connect to
+	 * @return a future completed with the connect time in milliseconds, or -1 on failure or timeout
+	 */
+	public CompletableFuture<Integer> ping(InetSocketAddress address)
+	{
+		Probe probe = new Probe(address);
+		if (closed)
+		{
+			probe.future.complete(-1);
+			return probe.future;
+		}
+
+		pending.add(probe);
+		selector.wakeup();
+		return probe.future;
+	}
+
+	@Override
+	public void close()
+	{
+		closed = true;
+		selector.wakeup();
+	}
+
+	private void run()
+	{
+		try
+		{
+			while (!closed)
+			{
+				select();
+			}
+		}
+		catch (IOException ex)
+		{
+			log.warn("error in tcp pinger", ex);
+		}
+		finally
+		{
+			for (SelectionKey key : selector.keys())
+			{
+				finish((Probe) key.attachment(), -1);
+			}
+
+			Probe probe;
+			while ((probe = pending.poll()) != null)
+			{
+				probe.future.complete(-1);
+			}
+
+			try
+			{
+				selector.close();
+			}
+			catch (IOException ex)
+			{
+				log.debug("error closing selector", ex);
+			}
+		}
+	}
+
+	private void select() throws IOException
+	{
+		// wait no longer than the earliest deadline
+		long now = System.nanoTime();
+		long wait = timeout;
+		for (SelectionKey key : selector.keys())
+		{
+			Probe probe = (Probe) key.attachment();
+			wait = Math.min(wait, probe.start + timeout - now);
+		}
+
+		if (wait > 0)
+		{
+			selector.select(Math.max(1, TimeUnit.NANOSECONDS.toMillis(wait)));
+		}
+		else
+		{
+			selector.selectNow();
+		}
+
+		now = System.nanoTime();
+
+		for (Iterator<SelectionKey> it = selector.selectedKeys().iterator(); it.hasNext(); )
+		{
+			SelectionKey key = it.next();
+			it.remove();
+
+			Probe probe = (Probe) key.attachment();
+			try
+			{
+				probe.channel.finishConnect();
+				finish(probe, (int) TimeUnit.NANOSECONDS.toMillis(now - probe.start));
+			}
+			catch (IOException ex)
+			{
+				log.trace("error connecting to {}", probe.address, ex);
+				finish(probe, -1);
+			}
+		}
+
+		for (SelectionKey key : selector.keys())
+		{
+			Probe probe = (Probe) key.attachment();
+			if (key.isValid() && now - probe.start >= timeout)
+			{
+				finish(probe, -1);
+			}
+		}
+
+		Probe probe;
+		while ((probe = pending.poll()) != null)
+		{
+			connect(probe);
+		}
+	}
+
+	private void connect(Probe probe)
+	{
+		try
+		{
+			SocketChannel channel = SocketChannel.open();
+			probe.channel = channel;
+			channel.configureBlocking(false);
+			probe.start = System.nanoTime();
+			if (channel.connect(probe.address))
+			{
+				finish(probe, (int) TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - probe.start));
+				return;
+			}
+
+			channel.register(selector, SelectionKey.OP_CONNECT, probe);
+		}
+		catch (IOException ex)
+		{
+			log.trace("error connecting to {}", probe.address, ex);
+			finish(probe, -1);
+		}
+	}
+
+	private static void finish(Probe probe, int ping)
+	{
+		if (probe.channel != null)
+		{
+			try
+			{
+				// closing the channel also cancels its key
+				probe.channel.close();
+			}
+			catch (IOException ex)
+			{
+				log.debug("error closing channel", ex);
+			}
+		}
+
+		probe.future.complete(ping);
+	}
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2022, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.plugins.worldhopper.ping;
+
+import lombok.Getter;
+
+/**
+ * Smoothed round trip time and jitter of a world, estimated in the same manner as TCP's
+ * retransmission timer (RFC 6298)
+ */
+public class WorldLatency
+{
+	private static final double RTT_GAIN = 1 / 8d;
+	private static final double JITTER_GAIN = 1 / 4d;
+	private static final int MIN_JITTER = 2; // ms
+
+	@Getter
+	private final int world;
+
+	/**
+	 * The last ping, or -1 if the last ping failed
+	 */
+	@Getter
+	private int ping = -1;
+
+	@Getter
+	private double rtt;
+
+	@Getter
+	private double jitter;
+
+	@Getter
+	private int samples;
+
+	@Getter
+	private int failures;
+
+	boolean probed;
+	boolean inFlight;
+	int tier;
+	long lastProbe;
+	long interval;
+
+	WorldLatency(int world)
+	{
+		this.world = world;
+	}
+
+	/**
+	 * Get the smoothed ping of the world
+	 *
+	 * @return the smoothed ping in milliseconds, or -1 if the last ping failed
+	 */
+	public int getSmoothedPing()
+	{
+		return ping < 0 ? -1 : (int) Math.round(rtt);
+	}
+
+	/**
+	 * Add a ping sample, and pick the time until the next. The interval is doubled, up to the maximum,
+	 * while the world is answering consistently or not answering at all, and is reset to the minimum when
+	 * the ping moves outside of the current jitter.
+	 *
+	 * @param sample ping in milliseconds, or -1 on failure
+	 * @param now the current time
+	 * @param minInterval minimum interval until the next ping
+	 * @param maxInterval maximum interval until the next ping
+	 */
+	void update(int sample, long now, long minInterval, long maxInterval)
+	{
+		boolean stable;
+		if (sample < 0)
+		{
+			++failures;
+			stable = true;
+		}
+		else if (samples == 0)
+		{
+			rtt = sample;
+			jitter = sample / 2d;
+			stable = false;
+		}
+		else
+		{
+			double err = sample - rtt;
+			stable = Math.abs(err) <= Math.max(2 * jitter, MIN_JITTER);
+			jitter += (Math.abs(err) - jitter) * JITTER_GAIN;
+			rtt += err * RTT_GAIN;
+		}
+
+		if (sample >= 0)
+		{
+			++samples;
+			failures = 0;
+		}
+
+		ping = sample;
+		interval = stable ? Math.min(Math.max(interval * 2, minInterval), maxInterval) : minInterval;
+		lastProbe = now;
+		probed = true;
+	}
+}
@@ -0,0 +1,266 @@
+/*
+ * Copyright (c) 2022, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.plugins.worldhopper.ping;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.http.api.worlds.World;
+
+/**
+ * Keeps the latency of a list of worlds up to date. Pings are pipelined, with up to a fixed number in flight
+ * at once, and each world is pinged again after an interval which depends on its priority and how stable its
+ * latency has been. The current world is pinged most often, followed by favorite worlds.
+ */
+@Slf4j
+public class WorldPinger
+{
+	private static final int TIER_CURRENT = 0;
+	private static final int TIER_FAVORITE = 1;
+	private static final int TIER_OTHER = 2;
+
+	private static final long[] MIN_INTERVAL = {
+		TimeUnit.SECONDS.toNanos(1),
+		TimeUnit.SECONDS.toNanos(5),
+		TimeUnit.SECONDS.toNanos(15),
+	};
+	private static final long[] MAX_INTERVAL = {
+		TimeUnit.SECONDS.toNanos(1),
+		TimeUnit.SECONDS.toNanos(30),
+		TimeUnit.MINUTES.toNanos(2),
+	};
+
+	public interface Prober
+	{
+		/**
+		 * Ping a world
+		 *
+		 * @param world world to ping
+		 * @return a future completed with the ping in milliseconds, or -1 on failure
+		 */
+		CompletableFuture<Integer> ping(World world);
+	}
+
+	private final Prober prober;
+	private final int maxInFlight;
+	private final LongSupplier clock;
+	private final Map<Integer, WorldLatency> latencies = new HashMap<>();
+	private List<World> worlds = Collections.emptyList();
+	private int inFlight;
+	private boolean dispatching;
+	private boolean shutDown;
+
+	/**
+	 * The current world, which is pinged every second, or 0 for none
+	 */
+	@Setter
+	private int currentWorld;
+
+	@Setter
+	private Predicate<World> favorite = w -> false;
+
+	/**
+	 * Called with the world and its latency after each ping. This is called from the thread completing the ping.
+	 */
+	@Setter
+	private BiConsumer<World, WorldLatency> listener = (w, l) ->
+	{
+	};
+
+	public WorldPinger(Prober prober, int maxInFlight)
+	{
+		this(prober, maxInFlight, System::nanoTime);
+	}
+
+	WorldPinger(Prober prober, int maxInFlight, LongSupplier clock)
+	{
+		this.prober = prober;
+		this.maxInFlight = maxInFlight;
+		this.clock = clock;
+	}
+
+	/**
+	 * Set the worlds to ping. Latencies of worlds which are still in the list are kept.
+	 */
+	public synchronized void setWorlds(List<World> worlds)
+	{
+		if (worlds == this.worlds)
+		{
+			return;
+		}
+
+		Map<Integer, WorldLatency> old = new HashMap<>(latencies);
+		latencies.clear();
+		for (World world : worlds)
+		{
+			WorldLatency latency = old.get(world.getId());
+			latencies.put(world.getId(), latency != null ? latency : new WorldLatency(world.getId()));
+		}
+		this.worlds = worlds;
+	}
+
+	public synchronized WorldLatency getLatency(int world)
+	{
+		return latencies.get(world);
+	}
+
+	/**
+	 * Stop pinging. Pings which are still in flight are discarded when they complete,
+	 * and the listener is not called again.
+	 */
+	public synchronized void shutDown()
+	{
+		shutDown = true;
+	}
+
+	public synchronized boolean isShutDown()
+	{
+		return shutDown;
+	}
+
+	synchronized int getInFlight()
+	{
+		return inFlight;
+	}
+
+	/**
+	 * Update world priorities and start pinging any worlds which are due. This should be called
+	 * periodically, and is cheap to call when there is nothing to do.
+	 */
+	public synchronized void poll()
+	{
+		for (World world : worlds)
+		{
+			WorldLatency latency = latencies.get(world.getId());
+			latency.tier = currentWorld != 0 && world.getId() == currentWorld ? TIER_CURRENT
+				: favorite.test(world) ? TIER_FAVORITE
+				: TIER_OTHER;
+		}
+
+		dispatch();
+	}
+
+	private void dispatch()
+	{
+		// pings which complete immediately re-enter through complete(), so let the outermost call do the work
+		if (dispatching || shutDown)
+		{
+			return;
+		}
+
+		dispatching = true;
+		try
+		{
+			while (inFlight < maxInFlight)
+			{
+				World world = next(clock.getAsLong());
+				if (world == null)
+				{
+					break;
+				}
+
+				WorldLatency latency = latencies.get(world.getId());
+				latency.inFlight = true;
+				++inFlight;
+
+				CompletableFuture<Integer> future;
+				try
+				{
+					future = prober.ping(world);
+				}
+				catch (RuntimeException ex)
+				{
+					log.warn("error pinging world {}", world.getId(), ex);
+					future = CompletableFuture.completedFuture(-1);
+				}
+
+				future.whenComplete((ping, ex) -> complete(world, latency, ex == null && ping != null ? ping : -1));
+			}
+		}
+		finally
+		{
+			dispatching = false;
+		}
+	}
+
+	/**
+	 * Find the world which is most due to be pinged, first by priority, and then by the time since it was last pinged
+	 */
+	private World next(long now)
+	{
+		World next = null;
+		WorldLatency nextLatency = null;
+		for (World world : worlds)
+		{
+			WorldLatency latency = latencies.get(world.getId());
+			if (latency.inFlight || (latency.probed && now - latency.lastProbe < Math.min(latency.interval, MAX_INTERVAL[latency.tier])))
+			{
+				continue;
+			}
+
+			if (nextLatency == null
+				|| latency.tier < nextLatency.tier
+				|| (latency.tier == nextLatency.tier && before(latency, nextLatency)))
+			{
+				next = world;
+				nextLatency = latency;
+			}
+		}
+		return next;
+	}
+
+	private static boolean before(WorldLatency a, WorldLatency b)
+	{
+		if (a.probed != b.probed)
+		{
+			return !a.probed;
+		}
+		return a.lastProbe - b.lastProbe < 0;
+	}
+
+	private synchronized void complete(World world, WorldLatency latency, int ping)
+	{
+		--inFlight;
+		latency.inFlight = false;
+		if (shutDown)
+		{
+			return;
+		}
+
+		latency.update(ping, clock.getAsLong(), MIN_INTERVAL[latency.tier], MAX_INTERVAL[latency.tier]);
+		log.trace("Ping for world {} is: {} (rtt {}, jitter {})", world.getId(), ping, latency.getRtt(), latency.getJitter());
+
+		listener.accept(world, latency);
+		dispatch();
+	}
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2022, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.profiler;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed size, thread safe histogram of nanosecond durations. Buckets are log-linear: each power of two
+ * is split into {@link #SUB_BUCKETS} linear sub buckets, so recorded values are accurate to within
+ * 1/{@code SUB_BUCKETS} of their magnitude. Recording never allocates.
+ */
+public class LatencyHistogram
+{
+	private static final int SUB_BUCKET_BITS = 3;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	// values below SUB_BUCKETS are recorded exactly in the first bucket group
+	private static final int BUCKETS = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+	private final AtomicLong count = new AtomicLong();
+	private final AtomicLong total = new AtomicLong();
+	private final AtomicLong max = new AtomicLong();
+
+	public void record(long nanos)
+	{
+		if (nanos < 0)
+		{
+			nanos = 0;
+		}
+
+		counts.incrementAndGet(bucket(nanos));
+		count.incrementAndGet();
+		total.addAndGet(nanos);
+
+		long m;
+		while (nanos > (m = max.get()) && !max.compareAndSet(m, nanos))
+		{
+			// retry
+		}
+	}
+
+	public long getCount()
+	{
+		return count.get();
+	}
+
+	public long getTotal()
+	{
+		return total.get();
+	}
+
+	public long getMax()
+	{
+		return max.get();
+	}
+
+	public long getMean()
+	{
+		long c = count.get();
+		return c == 0 ? 0 : total.get() / c;
+	}
+
+	/**
+	 * Get the upper bound of the bucket containing the given percentile
+	 *
+	 * @param percentile percentile, between 0 and 100
+	 * @return the duration in nanoseconds
+	 */
+	public long getPercentile(double percentile)
+	{
+		long c = count.get();
+		if (c == 0)
+		{
+			return 0;
+		}
+
+		long target = Math.max(1, (long) Math.ceil(c * percentile / 100d));
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; ++i)
+		{
+			seen += counts.get(i);
+			if (seen >= target)
+			{
+				return Math.min(upperBound(i), max.get());
+			}
+		}
+		return max.get();
+	}
+
+	public void reset()
+	{
+		for (int i = 0; i < BUCKETS; ++i)
+		{
+			counts.set(i, 0);
+		}
+		count.set(0);
+		total.set(0);
+		max.set(0);
+	}
+
+	static int bucket(long value)
+	{
+		if (value < SUB_BUCKETS)
+		{
+			return (int) value;
+		}
+
+		// the position of the highest bit picks the bucket group, the next SUB_BUCKET_BITS bits the sub bucket
+		int magnitude = 63 - Long.numberOfLeadingZeros(value);
+		int shift = magnitude - SUB_BUCKET_BITS;
+		int sub = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+		return (shift + 1) * SUB_BUCKETS + sub;
+	}
+
+	static long upperBound(int bucket)
+	{
+		if (bucket < SUB_BUCKETS)
+		{
+			return bucket;
+		}
+
+		int shift = bucket / SUB_BUCKETS - 1;
+		long sub = bucket % SUB_BUCKETS;
+		return ((SUB_BUCKETS + sub + 1) << shift) - 1;
+	}
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright (c) 2022, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.profiler;
+
+import com.google.common.collect.MapMaker;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.inject.Singleton;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.client.eventbus.EventBus;
+import net.runelite.client.task.ScheduledMethod;
+import net.runelite.client.ui.overlay.Overlay;
+
+/**
+ * Opt-in timing of plugin code called from the client: event subscribers, overlay renders,
+ * client thread invokes and scheduled methods. Call sites check {@link #isEnabled()} before
+ * reading the clock, so profiling costs a single volatile read per call when disabled.
+ */
+@Singleton
+@Slf4j
+public class Profiler
+{
+	@RequiredArgsConstructor
+	@Getter
+	public enum Category
+	{
+		EVENT_SUBSCRIBER("Subscriber"),
+		OVERLAY("Overlay"),
+		CLIENT_THREAD("Invoke"),
+		SCHEDULED("Scheduled");
+
+		private final String name;
+	}
+
+	@Value
+	public static class Entry
+	{
+		Category category;
+		String name;
+		long count;
+		long totalNanos;
+		long meanNanos;
+		long p50Nanos;
+		long p99Nanos;
+		long maxNanos;
+	}
+
+	@RequiredArgsConstructor
+	private static class Timer
+	{
+		private final Category category;
+		private final String name;
+		private final LatencyHistogram histogram = new LatencyHistogram();
+	}
+
+	// keyed by category and name, so timers do not reference plugin instances or classes and
+	// outlive the objects that recorded into them
+	private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+	// lookup from the profiled object, eg. the subscriber or overlay, to its timer. Weakly keyed
+	// so that profiling does not keep stopped plugins reachable.
+	private final Map<Object, Timer> timersByKey = new MapMaker().weakKeys().makeMap();
+
+	@Getter
+	private volatile boolean enabled;
+
+	public void setEnabled(boolean enabled)
+	{
+		log.debug("Profiling {}", enabled ? "enabled" : "disabled");
+		this.enabled = enabled;
+	}
+
+	/**
+	 * Record a call
+	 *
+	 * @param category the kind of call
+	 * @param key the object which was called, used to identify the timer
+	 * @param nanos the duration of the call
+	 */
+	public void record(Category category, Object key, long nanos)
+	{
+		Timer timer = timersByKey.get(key);
+		if (timer == null)
+		{
+			final String name = describe(key);
+			timer = timers.computeIfAbsent(category.name() + ':' + name, k -> new Timer(category, name));
+			timersByKey.put(key, timer);
+		}
+		timer.histogram.record(nanos);
+	}
+
+	public void reset()
+	{
+		timersByKey.clear();
+		timers.clear();
+	}
+
+	/**
+	 * Get a snapshot of all timers, ordered by total time spent
+	 */
+	public List<Entry> snapshot()
+	{
+		List<Entry> entries = new ArrayList<>(timers.size());
+		for (Timer timer : timers.values())
+		{
+			LatencyHistogram h = timer.histogram;
+			entries.add(new Entry(timer.category, timer.name, h.getCount(), h.getTotal(), h.getMean(),
+				h.getPercentile(50), h.getPercentile(99), h.getMax()));
+		}
+		entries.sort(Comparator.comparingLong(Entry::getTotalNanos).reversed());
+		return entries;
+	}
+
+	public void dump(Writer writer) throws IOException
+	{
+		Gson gson = new GsonBuilder().setPrettyPrinting().disableHtmlEscaping().create();
+		gson.toJson(snapshot(), writer);
+		writer.flush();
+	}
+
+	private static String describe(Object key)
+	{
+		if (key instanceof EventBus.Subscriber)
+		{
+			EventBus.Subscriber subscriber = (EventBus.Subscriber) key;
+			if (subscriber.getMethod() != null)
+			{
+				return subscriber.getObject().getClass().getName() + "." + subscriber.getMethod().getName();
+			}
+			return subscriber.getObject().getClass().getName();
+		}
+		if (key instanceof ScheduledMethod)
+		{
+			ScheduledMethod method = (ScheduledMethod) key;
+			if (method.getMethod() != null)
+			{
+				return method.getObject().getClass().getName() + "." + method.getMethod().getName();
+			}
+			return method.getObject().getClass().getName();
+		}
+		if (key instanceof Overlay)
+		{
+			return key.getClass().getName();
+		}
+		if (key instanceof Class)
+		{
+			return ((Class<?>) key).getName();
+		}
+		return key.getClass().getName();
+	}
+}
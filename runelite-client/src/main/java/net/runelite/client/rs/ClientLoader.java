@@ -28,6 +28,7 @@ package net.runelite.client.rs;
 
 import com.google.archivepatcher.applier.FileByFileV1DeltaApplier;
 import com.google.common.base.Strings;
+import com.google.common.base.Throwables;
 import com.google.common.hash.Hashing;
 import com.google.common.hash.HashingOutputStream;
 import com.google.common.io.ByteStreams;
@@ -38,6 +39,7 @@ import java.io.DataInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.nio.channels.Channels;
 import java.nio.channels.FileChannel;
@@ -46,10 +48,17 @@ import java.nio.file.StandardOpenOption;
 import java.security.cert.Certificate;
 import java.security.cert.CertificateException;
 import java.security.cert.CertificateFactory;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Enumeration;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.function.Supplier;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
@@ -62,6 +71,7 @@ import net.runelite.client.RuneLite;
 import net.runelite.client.RuneLiteProperties;
 import net.runelite.client.RuntimeConfig;
 import net.runelite.client.RuntimeConfigLoader;
+import net.runelite.client.StartupTrace;
 import static net.runelite.client.rs.ClientUpdateCheckMode.AUTO;
 import static net.runelite.client.rs.ClientUpdateCheckMode.NONE;
 import static net.runelite.client.rs.ClientUpdateCheckMode.VANILLA;
@@ -83,6 +93,7 @@ public class ClientLoader implements Supplier<Applet>
 	private static File LOCK_FILE = new File(RuneLite.CACHE_DIR, "cache.lock");
 	private static File VANILLA_CACHE = new File(RuneLite.CACHE_DIR, "vanilla.cache");
 	private static File PATCHED_CACHE = new File(RuneLite.CACHE_DIR, "patched.cache");
+	private static final int LOADER_THREADS = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
 
 	private final OkHttpClient okHttpClient;
 	private final ClientConfigLoader clientConfigLoader;
@@ -93,6 +104,9 @@ public class ClientLoader implements Supplier<Applet>
 
 	private Object client;
 
+	// used for verifying, hashing, and reading the jar while loading
+	private ExecutorService executor;
+
 	public ClientLoader(OkHttpClient okHttpClient, ClientUpdateCheckMode updateCheckMode, RuntimeConfigLoader runtimeConfigLoader, String javConfigUrl)
 	{
 		this.okHttpClient = okHttpClient;
@@ -108,7 +122,10 @@ public class ClientLoader implements Supplier<Applet>
 	{
 		if (client == null)
 		{
-			client = doLoad();
+			try (StartupTrace.Span span = StartupTrace.span("client", "Load client"))
+			{
+				client = doLoad();
+			}
 		}
 
 		if (client instanceof Throwable)
@@ -125,6 +142,13 @@ public class ClientLoader implements Supplier<Applet>
 			return null;
 		}
 
+		executor = Executors.newFixedThreadPool(LOADER_THREADS, r ->
+		{
+			Thread thread = new Thread(r, "Client loader");
+			thread.setDaemon(true);
+			return thread;
+		});
+
 		try
 		{
 			SplashScreen.stage(0, null, "Fetching applet viewer config");
@@ -139,7 +163,7 @@ public class ClientLoader implements Supplier<Applet>
 				FileLock flock = lockfile.lock())
 			{
 				SplashScreen.stage(.05, null, "Downloading Old School RuneScape");
-				try
+				try (StartupTrace.Span span = StartupTrace.span("client", "Update vanilla"))
 				{
 					updateVanilla(config);
 				}
@@ -161,19 +185,29 @@ public class ClientLoader implements Supplier<Applet>
 				if (updateCheckMode == AUTO)
 				{
 					SplashScreen.stage(.35, null, "Patching");
-					applyPatch();
+					try (StartupTrace.Span span = StartupTrace.span("client", "Patch"))
+					{
+						applyPatch();
+					}
 				}
 
 				SplashScreen.stage(.40, null, "Loading client");
 				File jarFile = updateCheckMode == AUTO ? PATCHED_CACHE : VANILLA_CACHE;
-				// create the classloader for the jar while we hold the lock, and eagerly load and link all classes
-				// in the jar. Otherwise the jar can change on disk and can break future classloads.
-				classLoader = createJarClassLoader(jarFile);
+				// create the classloader for the jar while we hold the lock, and read all classes in the jar
+				// into memory. Otherwise the jar can change on disk and can break future classloads.
+				try (StartupTrace.Span span = StartupTrace.span("client", "Read classes"))
+				{
+					classLoader = createJarClassLoader(jarFile);
+				}
 			}
 
 			SplashScreen.stage(.465, "Starting", "Starting Old School RuneScape");
 
-			Applet rs = loadClient(config, classLoader);
+			Applet rs;
+			try (StartupTrace.Span span = StartupTrace.span("client", "Create applet"))
+			{
+				rs = loadClient(config, classLoader);
+			}
 
 			SplashScreen.stage(.5, null, "Starting core classes");
 
@@ -194,6 +228,11 @@ public class ClientLoader implements Supplier<Applet>
 			}
 			return e;
 		}
+		finally
+		{
+			executor.shutdownNow();
+			executor = null;
+		}
 	}
 
 	private RSConfig downloadConfig() throws IOException
@@ -392,9 +431,7 @@ public class ClientLoader implements Supplier<Applet>
 					{
 						try
 						{
-							// as with the request stream, its important to not early close vanilla too
-							JarInputStream vanillaCacheTest = new JarInputStream(Channels.newInputStream(vanilla));
-							verifyWholeJar(vanillaCacheTest, jagexCertificateChains);
+							verifyJar(VANILLA_CACHE, jagexCertificateChains);
 						}
 						catch (Exception e)
 						{
@@ -464,7 +501,10 @@ public class ClientLoader implements Supplier<Applet>
 			dis.readFully(appliedPatchHash);
 		}
 
-		byte[] vanillaCacheHash = Files.asByteSource(VANILLA_CACHE).hash(Hashing.sha512()).asBytes();
+		// hash both caches at once; the patched hash is only needed if the vanilla one matches,
+		// but it usually does
+		Future<byte[]> patchedCacheHash = PATCHED_CACHE.exists() ? executor.submit(() -> hash(PATCHED_CACHE)) : null;
+		byte[] vanillaCacheHash = hash(VANILLA_CACHE);
 		if (!Arrays.equals(vanillaHash, vanillaCacheHash))
 		{
 			log.info("Client is outdated!");
@@ -472,9 +512,9 @@ public class ClientLoader implements Supplier<Applet>
 			return;
 		}
 
-		if (PATCHED_CACHE.exists())
+		if (patchedCacheHash != null)
 		{
-			byte[] diskBytes = Files.asByteSource(PATCHED_CACHE).hash(Hashing.sha512()).asBytes();
+			byte[] diskBytes = getHash(patchedCacheHash);
 			if (!Arrays.equals(diskBytes, appliedPatchHash))
 			{
 				log.warn("Cached patch hash mismatches, regenerating patch");
@@ -506,66 +546,68 @@ public class ClientLoader implements Supplier<Applet>
 		}
 	}
 
-	private ClassLoader createJarClassLoader(File jar) throws IOException, ClassNotFoundException
+	private static byte[] hash(File file) throws IOException
 	{
-		try (JarFile jarFile = new JarFile(jar))
-		{
-			ClassLoader classLoader = new ClassLoader(ClientLoader.class.getClassLoader())
-			{
-				@Override
-				protected Class<?> findClass(String name) throws ClassNotFoundException
-				{
-					String entryName = name.replace('.', '/').concat(".class");
-					JarEntry jarEntry;
+		return Files.asByteSource(file).hash(Hashing.sha512()).asBytes();
+	}
 
-					try
-					{
-						jarEntry = jarFile.getJarEntry(entryName);
-					}
-					catch (IllegalStateException ex)
-					{
-						throw new ClassNotFoundException(name, ex);
-					}
+	private static byte[] getHash(Future<byte[]> future) throws IOException
+	{
+		try
+		{
+			return future.get();
+		}
+		catch (InterruptedException ex)
+		{
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException();
+		}
+		catch (ExecutionException ex)
+		{
+			Throwables.throwIfInstanceOf(ex.getCause(), IOException.class);
+			throw new IOException(ex.getCause());
+		}
+	}
 
-					if (jarEntry == null)
-					{
-						throw new ClassNotFoundException(name);
-					}
+	private ClassLoader createJarClassLoader(File jar) throws IOException
+	{
+		// read all of the classes in this jar up front, and define them as they are needed.
+		// the jar can't be read from after it is unlocked.
+		final Map<String, byte[]> classes = new ConcurrentHashMap<>();
+		forEachEntry(jar, false, (jarFile, jarEntry) ->
+		{
+			String name = jarEntry.getName();
+			if (!name.endsWith(".class"))
+			{
+				return;
+			}
 
-					try
-					{
-						InputStream inputStream = jarFile.getInputStream(jarEntry);
-						if (inputStream == null)
-						{
-							throw new ClassNotFoundException(name);
-						}
+			try (InputStream in = jarFile.getInputStream(jarEntry))
+			{
+				name = name.substring(0, name.length() - 6).replace('/', '.');
+				classes.put(name, ByteStreams.toByteArray(in));
+			}
+		});
 
-						byte[] bytes = ByteStreams.toByteArray(inputStream);
-						return defineClass(name, bytes, 0, bytes.length);
-					}
-					catch (IOException e)
-					{
-						throw new ClassNotFoundException(null, e);
-					}
-				}
-			};
+		log.debug("Read {} classes from {}", classes.size(), jar);
 
-			// load all of the classes in this jar; after the jar is closed the classloader
-			// will no longer be able to look up classes
-			Enumeration<JarEntry> entries = jarFile.entries();
-			while (entries.hasMoreElements())
+		return new ClassLoader(ClientLoader.class.getClassLoader())
+		{
+			@Override
+			protected Class<?> findClass(String name) throws ClassNotFoundException
 			{
-				JarEntry jarEntry = entries.nextElement();
-				String name = jarEntry.getName();
-				if (name.endsWith(".class"))
+				byte[] bytes = classes.get(name);
+				if (bytes == null)
 				{
-					name = name.substring(0, name.length() - 6);
-					classLoader.loadClass(name.replace('/', '.'));
+					throw new ClassNotFoundException(name);
 				}
-			}
 
-			return classLoader;
-		}
+				Class<?> clazz = defineClass(name, bytes, 0, bytes.length);
+				// each class is only defined once, so the bytes can be dropped
+				classes.remove(name);
+				return clazz;
+			}
+		};
 	}
 
 	private Applet loadClient(RSConfig config, ClassLoader classLoader) throws ClassNotFoundException, IllegalAccessException, InstantiationException
@@ -619,6 +661,109 @@ public class ClientLoader implements Supplier<Applet>
 		throw new VerificationException("Unable to verify jar entry: " + je.getName());
 	}
 
+	/**
+	 * Verify every entry of a jar on disk. Each loader thread checks a share of the entries
+	 * through its own {@link JarFile}, as jar verification state is not safe to share between threads.
+	 */
+	private void verifyJar(File jar, Certificate[][] chains) throws IOException, VerificationException
+	{
+		try
+		{
+			forEachEntry(jar, true, (jarFile, jarEntry) ->
+			{
+				if (jarEntry.isDirectory() || jarEntry.getName().equals(JarFile.MANIFEST_NAME))
+				{
+					// JarInputStream, which the cache is written through, does not return these
+					return;
+				}
+
+				try (InputStream in = jarFile.getInputStream(jarEntry))
+				{
+					// certificates are only available once the entry has been read
+					ByteStreams.exhaust(in);
+				}
+
+				try
+				{
+					verifyJarEntry(jarEntry, chains);
+				}
+				catch (VerificationException ex)
+				{
+					throw new IOException(ex);
+				}
+			});
+		}
+		catch (IOException ex)
+		{
+			Throwables.throwIfInstanceOf(ex.getCause(), VerificationException.class);
+			throw ex;
+		}
+	}
+
+	private interface EntryConsumer
+	{
+		void accept(JarFile jarFile, JarEntry jarEntry) throws IOException;
+	}
+
+	/**
+	 * Run a consumer over every entry of a jar, spread across the loader threads
+	 */
+	private void forEachEntry(File jar, boolean verify, EntryConsumer consumer) throws IOException
+	{
+		final List<String> names = new ArrayList<>();
+		try (JarFile jarFile = new JarFile(jar, false))
+		{
+			for (Enumeration<JarEntry> entries = jarFile.entries(); entries.hasMoreElements(); )
+			{
+				names.add(entries.nextElement().getName());
+			}
+		}
+
+		final List<Future<?>> futures = new ArrayList<>(LOADER_THREADS);
+		for (int i = 0; i < LOADER_THREADS; ++i)
+		{
+			final int thread = i;
+			futures.add(executor.submit(() ->
+			{
+				try (JarFile jarFile = new JarFile(jar, verify))
+				{
+					for (int j = thread; j < names.size(); j += LOADER_THREADS)
+					{
+						JarEntry jarEntry = jarFile.getJarEntry(names.get(j));
+						if (jarEntry == null)
+						{
+							throw new IOException("jar entry " + names.get(j) + " disappeared");
+						}
+
+						consumer.accept(jarFile, jarEntry);
+					}
+				}
+				return null;
+			}));
+		}
+
+		try
+		{
+			for (Future<?> future : futures)
+			{
+				future.get();
+			}
+		}
+		catch (InterruptedException ex)
+		{
+			futures.forEach(f -> f.cancel(true));
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException();
+		}
+		catch (ExecutionException ex)
+		{
+			futures.forEach(f -> f.cancel(true));
+			Throwables.throwIfInstanceOf(ex.getCause(), IOException.class);
+			Throwables.throwIfUnchecked(ex.getCause());
+			throw new IOException(ex.getCause());
+		}
+	}
+
 	private void verifyWholeJar(JarInputStream jis, Certificate[][] chains) throws IOException, VerificationException
 	{
 		for (JarEntry je; (je = jis.getNextJarEntry()) != null; )
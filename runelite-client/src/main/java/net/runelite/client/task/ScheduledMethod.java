@@ -25,23 +25,83 @@
 package net.runelite.client.task;
 
 import java.lang.reflect.Method;
-import java.time.Instant;
+import java.util.concurrent.atomic.AtomicBoolean;
+import lombok.AccessLevel;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
-import lombok.RequiredArgsConstructor;
-import lombok.Setter;
 import lombok.ToString;
 
-@RequiredArgsConstructor
-@ToString
+@ToString(onlyExplicitlyIncluded = true)
 @Getter
 public class ScheduledMethod
 {
+	@ToString.Include
 	private final Schedule schedule;
+	@ToString.Include
 	private final Method method;
+	@ToString.Include
 	private final Object object;
 	@EqualsAndHashCode.Exclude
 	private final Runnable lambda;
-	@Setter
-	private Instant last = Instant.now();
+	private final long periodNanos;
+
+	/**
+	 * The {@link System#nanoTime()} at which this method is next due to run
+	 */
+	@Getter(AccessLevel.PACKAGE)
+	private long nextRun;
+
+	// set while an asynchronous run is queued or running, so overlapping runs are skipped
+	@Getter(AccessLevel.NONE)
+	private final AtomicBoolean running = new AtomicBoolean();
+
+	/**
+	 * How late the last run was started, in nanoseconds
+	 */
+	private volatile long lastLateness;
+	private volatile long maxLateness;
+	/**
+	 * Number of runs skipped because the previous asynchronous run had not finished
+	 */
+	private volatile int skipped;
+
+	public ScheduledMethod(Schedule schedule, Method method, Object object, Runnable lambda)
+	{
+		this.schedule = schedule;
+		this.method = method;
+		this.object = object;
+		this.lambda = lambda;
+		this.periodNanos = schedule.unit().getDuration().multipliedBy(schedule.period()).toNanos();
+		this.nextRun = System.nanoTime() + periodNanos;
+	}
+
+	/**
+	 * Advance to the next period after running at the given time
+	 */
+	void reschedule(long now)
+	{
+		long lateness = now - nextRun;
+		lastLateness = lateness;
+		if (lateness > maxLateness)
+		{
+			maxLateness = lateness;
+		}
+		nextRun = now + periodNanos;
+	}
+
+	boolean tryStartAsync()
+	{
+		if (running.compareAndSet(false, true))
+		{
+			return true;
+		}
+
+		++skipped;
+		return false;
+	}
+
+	void finishAsync()
+	{
+		running.set(false);
+	}
 }
@@ -26,73 +26,107 @@ package net.runelite.client.task;
 
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
-import java.time.Duration;
-import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.PriorityQueue;
 import java.util.concurrent.ScheduledExecutorService;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 import lombok.extern.slf4j.Slf4j;
+import net.runelite.client.profiler.Profiler;
 
 @Singleton
 @Slf4j
 public class Scheduler
 {
-	private final List<ScheduledMethod> scheduledMethods = new CopyOnWriteArrayList<>();
+	// ordered by next run time, so a tick only looks at methods which are due
+	private final PriorityQueue<ScheduledMethod> scheduledMethods = new PriorityQueue<>(
+		Comparator.comparingLong(ScheduledMethod::getNextRun));
+	// due methods collected under the lock and run after releasing it; only used from tick()
+	private final List<ScheduledMethod> due = new ArrayList<>();
 
 	@Inject
 	ScheduledExecutorService executor;
 
-	public void addScheduledMethod(ScheduledMethod method)
+	@Inject
+	Profiler profiler;
+
+	public synchronized void addScheduledMethod(ScheduledMethod method)
 	{
 		scheduledMethods.add(method);
 	}
 
-	public void removeScheduledMethod(ScheduledMethod method)
+	public synchronized void removeScheduledMethod(ScheduledMethod method)
 	{
 		scheduledMethods.remove(method);
 	}
 
-	public List<ScheduledMethod> getScheduledMethods()
+	public synchronized List<ScheduledMethod> getScheduledMethods()
 	{
-		return Collections.unmodifiableList(scheduledMethods);
+		return Collections.unmodifiableList(new ArrayList<>(scheduledMethods));
 	}
 
 	public void tick()
 	{
-		Instant now = Instant.now();
+		final long now = System.nanoTime();
 
-		for (ScheduledMethod scheduledMethod : scheduledMethods)
+		synchronized (this)
 		{
-			Instant last = scheduledMethod.getLast();
-
-			Duration difference = Duration.between(last, now);
-
-			Schedule schedule = scheduledMethod.getSchedule();
-			Duration timeSinceRun = Duration.of(schedule.period(), schedule.unit());
+			ScheduledMethod next;
+			while ((next = scheduledMethods.peek()) != null && next.getNextRun() - now <= 0)
+			{
+				due.add(scheduledMethods.poll());
+			}
 
-			if (difference.compareTo(timeSinceRun) > 0)
+			// requeue after draining, as a method with a zero period is due again immediately
+			for (int i = 0; i < due.size(); ++i)
 			{
-				log.trace("Scheduled task triggered: {}", scheduledMethod);
+				final ScheduledMethod scheduledMethod = due.get(i);
+				scheduledMethod.reschedule(now);
+				scheduledMethods.add(scheduledMethod);
+			}
+		}
 
-				scheduledMethod.setLast(now);
+		for (int i = 0; i < due.size(); ++i)
+		{
+			final ScheduledMethod scheduledMethod = due.get(i);
+			log.trace("Scheduled task triggered: {}", scheduledMethod);
 
-				if (schedule.asynchronous())
+			if (scheduledMethod.getSchedule().asynchronous())
+			{
+				// skip this run if the last one is still pending, so a slow task can't pile up on the executor
+				if (!scheduledMethod.tryStartAsync())
 				{
-					executor.submit(() -> run(scheduledMethod));
+					log.debug("Skipping scheduled task {}, previous run has not finished", scheduledMethod);
+					continue;
 				}
-				else
+
+				executor.submit(() ->
 				{
-					run(scheduledMethod);
-				}
+					try
+					{
+						run(scheduledMethod);
+					}
+					finally
+					{
+						scheduledMethod.finishAsync();
+					}
+				});
+			}
+			else
+			{
+				run(scheduledMethod);
 			}
 		}
+		due.clear();
 	}
 
 	private void run(ScheduledMethod scheduledMethod)
 	{
+		final boolean profile = profiler.isEnabled();
+		final long start = profile ? System.nanoTime() : 0L;
 		try
 		{
 			Runnable lambda = scheduledMethod.getLambda();
@@ -114,5 +148,10 @@ public class Scheduler
 		{
 			log.warn("error during scheduled task", ex);
 		}
+
+		if (profile)
+		{
+			profiler.record(Profiler.Category.SCHEDULED, scheduledMethod, System.nanoTime() - start);
+		}
 	}
 }
@@ -25,8 +25,13 @@
 package net.runelite.client.ui;
 
 import java.awt.Image;
+import java.awt.image.BufferedImage;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.List;
+import java.util.Map;
 import java.util.Queue;
+import java.util.WeakHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.function.Consumer;
@@ -41,6 +46,13 @@ public class DrawManager
 	private final List<Runnable> everyFrame = new CopyOnWriteArrayList<>();
 	private final Queue<Consumer<Image>> nextFrame = new ConcurrentLinkedQueue<>();
 
+	private static final int FRAME_POOL_SIZE = 2;
+	// guarded by itself
+	private final Deque<BufferedImage> framePool = new ArrayDeque<>(FRAME_POOL_SIZE);
+	// references held to frames given to next frame listeners, guarded by framePool. Images compare by identity,
+	// and are weakly held so that frames a listener never releases don't stay in the map.
+	private final Map<Image, Integer> frameReferences = new WeakHashMap<>();
+
 	public void registerEveryFrameListener(Runnable everyFrameListener)
 	{
 		if (!everyFrame.contains(everyFrameListener))
@@ -87,6 +99,9 @@ public class DrawManager
 				{
 					log.warn("error getting screenshot", ex);
 				}
+
+				// held until every listener has been called, so a listener releasing the frame early can't pool it
+				retainFrame(image);
 			}
 
 			if (image == null)
@@ -95,6 +110,7 @@ public class DrawManager
 				break;
 			}
 
+			retainFrame(image);
 			try
 			{
 				nextFrameListener.accept(image);
@@ -105,5 +121,87 @@ public class DrawManager
 			}
 			nextFrameListener = nextFrame.poll();
 		}
+
+		releaseFrameBuffer(image);
+	}
+
+	/**
+	 * Get a {@link BufferedImage#TYPE_INT_RGB} image to copy a frame into. Images are taken from a small pool
+	 * of previously released frames when one of the right size is available, and allocated otherwise.
+	 *
+	 * @param width frame width
+	 * @param height frame height
+	 * @return an image of the given size, with undefined contents
+	 */
+	public BufferedImage acquireFrameBuffer(int width, int height)
+	{
+		synchronized (framePool)
+		{
+			BufferedImage image;
+			while ((image = framePool.poll()) != null)
+			{
+				if (image.getWidth() == width && image.getHeight() == height)
+				{
+					return image;
+				}
+			}
+		}
+		return new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+	}
+
+	private void retainFrame(Image image)
+	{
+		if (!isPoolable(image))
+		{
+			return;
+		}
+
+		synchronized (framePool)
+		{
+			frameReferences.merge(image, 1, Integer::sum);
+		}
+	}
+
+	/**
+	 * Release a frame passed to a next frame listener once the listener is done with it. The same frame is
+	 * given to every listener for that frame, so it only returns to the pool once all of them have released it.
+	 * A listener must release a frame at most once, and not use it afterward. Releasing is optional; a frame
+	 * which is never released by one of its listeners is not pooled, and is garbage collected once the listeners
+	 * no longer reference it.
+	 *
+	 * @param image the frame
+	 */
+	public void releaseFrameBuffer(Image image)
+	{
+		if (!isPoolable(image))
+		{
+			return;
+		}
+
+		synchronized (framePool)
+		{
+			final Integer references = frameReferences.get(image);
+			if (references == null)
+			{
+				return;
+			}
+
+			if (references > 1)
+			{
+				frameReferences.put(image, references - 1);
+				return;
+			}
+
+			frameReferences.remove(image);
+			if (framePool.size() < FRAME_POOL_SIZE)
+			{
+				framePool.push((BufferedImage) image);
+			}
+		}
+	}
+
+	private static boolean isPoolable(Image image)
+	{
+		return image instanceof BufferedImage && ((BufferedImage) image).getType() == BufferedImage.TYPE_INT_RGB;
 	}
 }
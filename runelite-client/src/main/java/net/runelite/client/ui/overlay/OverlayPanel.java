@@ -24,9 +24,16 @@
  */
 package net.runelite.client.ui.overlay;
 
+import java.awt.AlphaComposite;
 import java.awt.Color;
+import java.awt.Composite;
 import java.awt.Dimension;
 import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 import net.runelite.client.plugins.Plugin;
@@ -55,6 +62,27 @@ public abstract class OverlayPanel extends Overlay
 	 */
 	private Color preferredColor = null;
 
+	/**
+	 * Enables/disables drawing the panel from a cached image while its content, size and font are unchanged
+	 * (disabled by default). This only has an effect when every child of the panel implements
+	 * {@link net.runelite.client.ui.overlay.components.LayoutableRenderableEntity#getContentKey()}.
+	 */
+	private boolean cacheRendering = false;
+
+	@Getter(AccessLevel.NONE)
+	@Setter(AccessLevel.NONE)
+	private BufferedImage cachedImage;
+	@Getter(AccessLevel.NONE)
+	@Setter(AccessLevel.NONE)
+	private Dimension cachedDimension;
+	// content key of cachedImage, or of the last uncached render if its layout was stable
+	@Getter(AccessLevel.NONE)
+	@Setter(AccessLevel.NONE)
+	private Object cachedKey;
+	@Getter(AccessLevel.NONE)
+	@Setter(AccessLevel.NONE)
+	private boolean cacheValid;
+
 	protected OverlayPanel()
 	{
 		super();
@@ -96,7 +124,7 @@ public abstract class OverlayPanel extends Overlay
 			panelComponent.setBackgroundColor(getPreferredColor());
 		}
 
-		final Dimension dimension = panelComponent.render(graphics);
+		final Dimension dimension = cacheRendering ? renderCached(graphics) : panelComponent.render(graphics);
 
 		if (clearChildren)
 		{
@@ -107,4 +135,60 @@ public abstract class OverlayPanel extends Overlay
 		panelComponent.setBackgroundColor(oldBackgroundColor);
 		return dimension;
 	}
+
+	private Dimension renderCached(final Graphics2D graphics)
+	{
+		final Object panelKey = panelComponent.getContentKey();
+		final Object key = panelKey != null ? Arrays.asList(panelKey, graphics.getFont()) : null;
+
+		if (key == null || !key.equals(cachedKey))
+		{
+			// Content changed, draw directly this frame, and cache it on the next frame if it stays the same
+			final Dimension dimension = panelComponent.render(graphics);
+			cachedKey = dimension != null && !panelComponent.isResized() ? key : null;
+			cacheValid = false;
+			return dimension;
+		}
+
+		final Point location = panelComponent.getBounds().getLocation();
+		if (!cacheValid)
+		{
+			final Dimension size = panelComponent.getBounds().getSize();
+			if (cachedImage == null || cachedImage.getWidth() != size.width || cachedImage.getHeight() != size.height)
+			{
+				cachedImage = graphics.getDeviceConfiguration().createCompatibleImage(
+					Math.max(1, size.width), Math.max(1, size.height), Transparency.TRANSLUCENT);
+			}
+
+			final Graphics2D imageGraphics = cachedImage.createGraphics();
+			try
+			{
+				final Composite composite = imageGraphics.getComposite();
+				imageGraphics.setComposite(AlphaComposite.Clear);
+				imageGraphics.fillRect(0, 0, cachedImage.getWidth(), cachedImage.getHeight());
+				imageGraphics.setComposite(composite);
+
+				imageGraphics.setRenderingHints(graphics.getRenderingHints());
+				imageGraphics.setFont(graphics.getFont());
+				imageGraphics.translate(-location.x, -location.y);
+				cachedDimension = panelComponent.render(imageGraphics);
+			}
+			finally
+			{
+				imageGraphics.dispose();
+			}
+
+			if (cachedDimension == null || panelComponent.isResized())
+			{
+				// the layout changed after all, so fall back to drawing directly
+				cachedKey = null;
+				return panelComponent.render(graphics);
+			}
+
+			cacheValid = true;
+		}
+
+		graphics.drawImage(cachedImage, location.x, location.y, null);
+		return new Dimension(cachedDimension);
+	}
 }
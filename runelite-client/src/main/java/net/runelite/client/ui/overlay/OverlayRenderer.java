@@ -62,6 +62,7 @@ import net.runelite.client.events.OverlayMenuClicked;
 import net.runelite.client.input.KeyManager;
 import net.runelite.client.input.MouseAdapter;
 import net.runelite.client.input.MouseManager;
+import net.runelite.client.profiler.Profiler;
 import net.runelite.client.ui.ClientUI;
 import net.runelite.client.ui.JagexColors;
 import net.runelite.client.util.ColorUtil;
@@ -91,6 +92,7 @@ public class OverlayRenderer extends MouseAdapter
 	private final RuneLiteConfig runeLiteConfig;
 	private final ClientUI clientUI;
 	private final EventBus eventBus;
+	private final Profiler profiler;
 
 	// Overlay movement variables
 	private final Point overlayOffset = new Point();
@@ -122,13 +124,15 @@ public class OverlayRenderer extends MouseAdapter
 		final MouseManager mouseManager,
 		final KeyManager keyManager,
 		final ClientUI clientUI,
-		final EventBus eventBus)
+		final EventBus eventBus,
+		final Profiler profiler)
 	{
 		this.client = client;
 		this.overlayManager = overlayManager;
 		this.runeLiteConfig = runeLiteConfig;
 		this.clientUI = clientUI;
 		this.eventBus = eventBus;
+		this.profiler = profiler;
 
 		this.hotkeyListener = new HotkeyListener(runeLiteConfig::dragHotkey)
 		{
@@ -713,6 +717,8 @@ public class OverlayRenderer extends MouseAdapter
 		graphics.translate(point.x, point.y);
 		overlay.getBounds().setLocation(point);
 
+		final boolean profile = profiler.isEnabled();
+		final long start = profile ? System.nanoTime() : 0L;
 		final Dimension overlayDimension;
 		try
 		{
@@ -723,6 +729,13 @@ public class OverlayRenderer extends MouseAdapter
 			log.warn(DEDUPLICATE, "Error during overlay rendering", ex);
 			return;
 		}
+		finally
+		{
+			if (profile)
+			{
+				profiler.record(Profiler.Category.OVERLAY, overlay, System.nanoTime() - start);
+			}
+		}
 
 		final Dimension dimension = MoreObjects.firstNonNull(overlayDimension, new Dimension());
 		overlay.getBounds().setSize(dimension);
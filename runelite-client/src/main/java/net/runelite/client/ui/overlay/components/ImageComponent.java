@@ -64,4 +64,11 @@ public class ImageComponent implements LayoutableRenderableEntity
 	{
 		// Just use image dimensions for now
 	}
-}
\ No newline at end of file
+
+	@Override
+	public Object getContentKey()
+	{
+		// images are assumed not to be modified after being given to the component, and compare by identity
+		return image;
+	}
+}
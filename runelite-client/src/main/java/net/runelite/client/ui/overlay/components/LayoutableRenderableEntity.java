@@ -34,4 +34,16 @@ public interface LayoutableRenderableEntity extends RenderableEntity
 	Rectangle getBounds();
 	void setPreferredLocation(Point position);
 	void setPreferredSize(Dimension dimension);
+
+	/**
+	 * Get a snapshot of everything which affects how this entity is drawn, other than its location.
+	 * A cached rendering of the entity is stale once the snapshot is no longer equal to the one
+	 * it was drawn from, so the snapshot must not share mutable state with the entity.
+	 *
+	 * @return the content key, or null if the entity can't be cached
+	 */
+	default Object getContentKey()
+	{
+		return null;
+	}
 }
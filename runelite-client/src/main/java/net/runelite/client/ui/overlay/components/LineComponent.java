@@ -33,6 +33,7 @@ import java.awt.FontMetrics;
 import java.awt.Graphics2D;
 import java.awt.Point;
 import java.awt.Rectangle;
+import java.util.Arrays;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.Setter;
@@ -194,5 +195,10 @@ public class LineComponent implements LayoutableRenderableEntity
 
 		return wrapped.toString().split("\n");
 	}
-}
 
+	@Override
+	public Object getContentKey()
+	{
+		return Arrays.asList(left, right, leftColor, rightColor, leftFont, rightFont, new Dimension(preferredSize));
+	}
+}
@@ -71,6 +71,13 @@ public class PanelComponent implements LayoutableRenderableEntity
 
 	private final Dimension childDimensions = new Dimension();
 
+	/**
+	 * Whether the children laid out to a different size than the background drawn by the last render.
+	 * The background is sized from the previous render, so the next render will be drawn differently.
+	 */
+	@Getter
+	private boolean resized;
+
 	@Override
 	public Dimension render(Graphics2D graphics)
 	{
@@ -195,6 +202,7 @@ public class PanelComponent implements LayoutableRenderableEntity
 		}
 
 		// Cache children bounds
+		resized = childDimensions.width != totalWidth || childDimensions.height != totalHeight;
 		childDimensions.setSize(totalWidth, totalHeight);
 
 		// Cache bounds
@@ -202,4 +210,29 @@ public class PanelComponent implements LayoutableRenderableEntity
 		bounds.setSize(dimension);
 		return dimension;
 	}
+
+	@Override
+	public Object getContentKey()
+	{
+		final List<Object> key = new ArrayList<>(children.size() + 6);
+		key.add(backgroundColor);
+		key.add(new Dimension(preferredSize));
+		key.add(orientation);
+		key.add(wrap);
+		key.add(new Rectangle(border));
+		key.add(new Point(gap));
+
+		for (final LayoutableRenderableEntity child : children)
+		{
+			final Object childKey = child.getContentKey();
+			if (childKey == null)
+			{
+				return null;
+			}
+
+			key.add(childKey);
+		}
+
+		return key;
+	}
 }
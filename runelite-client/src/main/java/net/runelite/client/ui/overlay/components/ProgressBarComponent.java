@@ -32,6 +32,7 @@ import java.awt.Graphics2D;
 import java.awt.Point;
 import java.awt.Rectangle;
 import java.text.DecimalFormat;
+import java.util.Arrays;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -157,4 +158,11 @@ public class ProgressBarComponent implements LayoutableRenderableEntity
 	{
 		return DECIMAL_FORMAT.format(ratio * 100d) + "%";
 	}
+
+	@Override
+	public Object getContentKey()
+	{
+		return Arrays.asList(minimum, maximum, value, labelDisplayMode, centerLabel, leftLabel, rightLabel,
+			foregroundColor, backgroundColor, fontColor, new Dimension(preferredSize));
+	}
 }
@@ -28,6 +28,7 @@ import java.awt.Dimension;
 import java.awt.Graphics2D;
 import java.awt.Point;
 import java.awt.Rectangle;
+import java.util.Arrays;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.Setter;
@@ -99,4 +100,17 @@ public class SplitComponent implements LayoutableRenderableEntity
 		bounds.setSize(dimension);
 		return dimension;
 	}
-}
\ No newline at end of file
+
+	@Override
+	public Object getContentKey()
+	{
+		final Object firstKey = first.getContentKey();
+		final Object secondKey = second.getContentKey();
+		if (firstKey == null || secondKey == null)
+		{
+			return null;
+		}
+
+		return Arrays.asList(firstKey, secondKey, new Dimension(preferredSize), orientation, new Point(gap));
+	}
+}
@@ -65,7 +65,7 @@ public class TextComponent implements RenderableEntity
 
 		final FontMetrics fontMetrics = graphics.getFontMetrics();
 
-		if (COL_TAG_PATTERN_W_LOOKAHEAD.matcher(text).find())
+		if (text.contains("<col=") && COL_TAG_PATTERN_W_LOOKAHEAD.matcher(text).find())
 		{
 			final String[] parts = COL_TAG_PATTERN_W_LOOKAHEAD.split(text);
 			int x = position.x;
@@ -30,6 +30,7 @@ import java.awt.FontMetrics;
 import java.awt.Graphics2D;
 import java.awt.Point;
 import java.awt.Rectangle;
+import java.util.Arrays;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.Setter;
@@ -71,4 +72,10 @@ public class TitleComponent implements LayoutableRenderableEntity
 		bounds.setSize(dimension);
 		return dimension;
 	}
+
+	@Override
+	public Object getContentKey()
+	{
+		return Arrays.asList(text, color, new Dimension(preferredSize));
+	}
 }
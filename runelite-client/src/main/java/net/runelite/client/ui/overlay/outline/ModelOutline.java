@@ -0,0 +1,916 @@
+/*
+ * Copyright (c) 2022, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.ui.overlay.outline;
+
+import java.util.Arrays;
+
+/**
+ * The outline of a single model. The model triangles are rasterized into a tile covering the
+ * model and its outline, and the distance of every pixel in the tile to the model is then found
+ * with a two-pass separable euclidean distance transform. All buffers are reused between outlines.
+ * <p>
+ * {@link #compute()} only touches the outline's own buffers, so several outlines can be
+ * computed concurrently. They are then composited onto the image one at a time in order.
+ * <p>
+ * Thin opaque outlines can instead be drawn straight to the image with {@link #drawDirect(int[], int)},
+ * which only visits the edges of the model.
+ */
+class ModelOutline
+{
+	static final int MAX_FEATHER = 4;
+	private static final int DIRECT_WRITE_OUTLINE_WIDTH_THRESHOLD = 10;
+
+	// Pixel offsets drawn around an edge pixel of the model for each outline width and
+	// direction (right/up/left/down), as dx, dy pairs.
+	private static final int[][][] DISTANCE_DELTAS = new int[DIRECT_WRITE_OUTLINE_WIDTH_THRESHOLD + 1][][];
+
+	static
+	{
+		for (int outlineWidth = 1; outlineWidth <= DIRECT_WRITE_OUTLINE_WIDTH_THRESHOLD; outlineWidth++)
+		{
+			int[] deltas = new int[2 * (2 * outlineWidth + 1) * outlineWidth];
+			int count = 0;
+			for (int dy = -outlineWidth; dy <= outlineWidth; dy++)
+			{
+				for (int dx = 1; dx <= outlineWidth; dx++)
+				{
+					if (Math.abs(dy) > dx || Math.hypot(dx, dy) > outlineWidth)
+					{
+						continue;
+					}
+
+					deltas[count++] = dx;
+					deltas[count++] = dy;
+				}
+			}
+
+			deltas = Arrays.copyOf(deltas, count);
+			DISTANCE_DELTAS[outlineWidth] = new int[4][];
+			for (int direction = 0; direction < 4; direction++)
+			{
+				DISTANCE_DELTAS[outlineWidth][direction] = deltas.clone();
+
+				// Turn 90 deg ccw
+				for (int i = 0; i < count; i += 2)
+				{
+					int dx = deltas[i];
+					deltas[i] = deltas[i + 1];
+					deltas[i + 1] = -dx;
+				}
+			}
+		}
+	}
+
+	// Window boundaries for the ingame world
+	private int clipX1;
+	private int clipY1;
+	private int clipX2;
+	private int clipY2;
+
+	private int outlineWidth;
+	private int feather;
+	private int color;
+
+	// Boundaries of the projected model
+	private int modelX1;
+	private int modelY1;
+	private int modelX2;
+	private int modelY2;
+
+	// Boundaries of the model and its outline, clipped to the window
+	private int tileX;
+	private int tileY;
+	private int tileWidth;
+	private int tileHeight;
+
+	// Projected triangles, 6 coordinates each
+	private int[] triangles = new int[6 * 64];
+	private int triangleCount;
+
+	// Vertical distance of each pixel of the tile to the model, capped to outlineWidth + 1
+	private byte[] columnDistances = new byte[0];
+
+	// Lower envelope of parabolas of the current row
+	private int[] envelopeSites = new int[0];
+	private int[] envelopeHeights = new int[0];
+	private double[] envelopeBounds = new double[0];
+
+	// Segments of the rows where a single column is nearest. rowSegments[y] to rowSegments[y + 1]
+	// are the segments of row y, and the pixels from skipFrom to skipTo of a segment are part of the model.
+	private int[] rowSegments = new int[0];
+	private int segmentCount;
+	private int[] segmentStarts = new int[0];
+	private int[] segmentEnds = new int[0];
+	private int[] segmentSites = new int[0];
+	private int[] segmentHeights = new int[0];
+	private int[] segmentSkipFrom = new int[0];
+	private int[] segmentSkipTo = new int[0];
+
+	// Premultiplied color and inverse alpha for each squared distance
+	private int[] colorBySquaredDistance = new int[0];
+	private int[] inverseAlphaBySquaredDistance = new int[0];
+
+	// Bitset of the pixels of the tile which are part of the model, used when drawing directly.
+	// Rows are a multiple of 32 pixels wide so bitset segments align.
+	private boolean direct;
+	private int[] visited = new int[0];
+	private int visitedWidth;
+
+	void reset(int clipX1, int clipY1, int clipX2, int clipY2, int outlineWidth, int feather, int color)
+	{
+		this.clipX1 = clipX1;
+		this.clipY1 = clipY1;
+		this.clipX2 = clipX2;
+		this.clipY2 = clipY2;
+		this.outlineWidth = outlineWidth;
+		this.feather = feather;
+		this.color = color;
+		modelX1 = Integer.MAX_VALUE;
+		modelY1 = Integer.MAX_VALUE;
+		modelX2 = Integer.MIN_VALUE;
+		modelY2 = Integer.MIN_VALUE;
+		triangleCount = 0;
+	}
+
+	/**
+	 * Extends the model boundaries to include a projected vertex
+	 */
+	void addVertex(int x, int y)
+	{
+		modelX1 = Math.min(modelX1, x);
+		modelX2 = Math.max(modelX2, x + 1);
+		modelY1 = Math.min(modelY1, y);
+		modelY2 = Math.max(modelY2, y + 1);
+	}
+
+	void addTriangle(int x1, int y1, int x2, int y2, int x3, int y3)
+	{
+		int pos = triangleCount * 6;
+		if (pos + 6 > triangles.length)
+		{
+			triangles = Arrays.copyOf(triangles, triangles.length * 2);
+		}
+		triangles[pos] = x1;
+		triangles[pos + 1] = y1;
+		triangles[pos + 2] = x2;
+		triangles[pos + 3] = y2;
+		triangles[pos + 4] = x3;
+		triangles[pos + 5] = y3;
+		++triangleCount;
+	}
+
+	/**
+	 * Rasterizes the model and computes the distance of the pixels in the tile to it
+	 */
+	void compute()
+	{
+		segmentCount = 0;
+		tileX = Math.max(modelX1 - outlineWidth, clipX1);
+		tileY = Math.max(modelY1 - outlineWidth, clipY1);
+		tileWidth = Math.min(modelX2 + outlineWidth, clipX2) - tileX;
+		tileHeight = Math.min(modelY2 + outlineWidth, clipY2) - tileY;
+		if (tileWidth <= 0 || tileHeight <= 0)
+		{
+			tileWidth = tileHeight = 0;
+			return;
+		}
+
+		int size = tileWidth * tileHeight;
+		if (columnDistances.length < size)
+		{
+			columnDistances = new byte[nextPowerOfTwo(size)];
+		}
+		Arrays.fill(columnDistances, 0, size, (byte) (outlineWidth + 1));
+
+		for (int i = 0; i < triangleCount; i++)
+		{
+			int pos = i * 6;
+			rasterizeTriangle(triangles[pos], triangles[pos + 1], triangles[pos + 2], triangles[pos + 3],
+				triangles[pos + 4], triangles[pos + 5]);
+		}
+
+		computeColumnDistances();
+		computeRowDistances();
+		computeColors();
+	}
+
+	/**
+	 * Draws the outline to an image
+	 *
+	 * @param imageData The image data to draw to.
+	 * @param imageWidth The width of the image to draw to.
+	 */
+	void composite(int[] imageData, int imageWidth)
+	{
+		final int maxDistance = outlineWidth * outlineWidth;
+
+		for (int y = 0; y < tileHeight; y++)
+		{
+			final int pixelRow = (tileY + y) * imageWidth + tileX;
+			final int rowEnd = rowSegments[y + 1];
+			for (int j = rowSegments[y]; j < rowEnd; j++)
+			{
+				final int site = segmentSites[j];
+				final int height = segmentHeights[j];
+				// only the pixels within outlineWidth of the site are part of the outline
+				final int reach = (int) Math.sqrt(maxDistance - height);
+				final int start = Math.max(segmentStarts[j], site - reach);
+				final int end = Math.min(segmentEnds[j], site + reach + 1);
+				compositeSpan(imageData, pixelRow, start, Math.min(end, segmentSkipFrom[j]), site, height);
+				compositeSpan(imageData, pixelRow, Math.max(start, segmentSkipTo[j]), end, site, height);
+			}
+		}
+	}
+
+	private void compositeSpan(int[] imageData, int pixelRow, int start, int end, int site, int height)
+	{
+		final int[] colors = colorBySquaredDistance;
+		final int[] inverseAlphas = inverseAlphaBySquaredDistance;
+
+		for (int x = start; x < end; x++)
+		{
+			int dx = x - site;
+			int d = dx * dx + height;
+			int pixelPos = pixelRow + x;
+			int colorARGB = colors[d];
+			int inverseAlpha = inverseAlphas[d];
+			if (inverseAlpha == 0)
+			{
+				imageData[pixelPos] = colorARGB;
+				continue;
+			}
+
+			int dst = imageData[pixelPos];
+			imageData[pixelPos]
+				= (colorARGB & 0xFF00FF00) + (((dst & 0xFF00FF00) * inverseAlpha) >>> 8) & 0xFF00FF00
+				| (colorARGB & 0x00FF00FF) + (((dst & 0x00FF00FF) * inverseAlpha) >>> 8) & 0x00FF00FF;
+		}
+	}
+
+	/**
+	 * Whether an outline looks the same drawn with {@link #drawDirect(int[], int)}. Some pixels can get drawn
+	 * more than once, so this is only the case for opaque outlines. Direct drawing becomes slower than the
+	 * distance transform for wider outlines, usually around 10 px according to some basic testing.
+	 */
+	static boolean canDrawDirect(int outlineWidth, int feather, int color)
+	{
+		return (color >>> 24) == 255 && outlineWidth <= DIRECT_WRITE_OUTLINE_WIDTH_THRESHOLD &&
+			(feather == 0 || outlineWidth == 1); // Feather has no effect on outlineWidth == 1
+	}
+
+	/**
+	 * Rasterizes the model and draws the outline straight to an image, by drawing the pixels within
+	 * outlineWidth of each edge of the model. Only valid if {@link #canDrawDirect(int, int, int)}.
+	 *
+	 * @param imageData The image data to draw to.
+	 * @param imageWidth The width of the image to draw to.
+	 */
+	void drawDirect(int[] imageData, int imageWidth)
+	{
+		segmentCount = 0;
+		tileX = Math.max(modelX1 - outlineWidth, clipX1);
+		tileY = Math.max(modelY1 - outlineWidth, clipY1);
+		tileWidth = Math.min(modelX2 + outlineWidth, clipX2) - tileX;
+		tileHeight = Math.min(modelY2 + outlineWidth, clipY2) - tileY;
+		if (tileWidth <= 0 || tileHeight <= 0)
+		{
+			tileWidth = tileHeight = 0;
+			return;
+		}
+
+		visitedWidth = (tileWidth + 31) & ~31;
+		int size = (visitedWidth * tileHeight) >>> 5;
+		// a line ending at the last pixel marks no bits of the segment after it
+		if (visited.length <= size)
+		{
+			visited = new int[nextPowerOfTwo(size + 1)];
+		}
+		Arrays.fill(visited, 0, size, 0);
+
+		direct = true;
+		try
+		{
+			for (int i = 0; i < triangleCount; i++)
+			{
+				int pos = i * 6;
+				rasterizeTriangle(triangles[pos], triangles[pos + 1], triangles[pos + 2], triangles[pos + 3],
+					triangles[pos + 4], triangles[pos + 5]);
+			}
+		}
+		finally
+		{
+			direct = false;
+		}
+
+		drawEdges(imageData, imageWidth);
+
+		// nothing is left to composite
+		tileWidth = tileHeight = 0;
+	}
+
+	/**
+	 * Draws the outline of a pixel according to the distance deltas of an outline.
+	 *
+	 * @param imageData The image data to draw to.
+	 * @param imageWidth The width of the image to draw to.
+	 * @param x The x position of the pixel.
+	 * @param y The y position of the pixel.
+	 * @param distanceDeltas The distance deltas of the outline width.
+	 */
+	private void rasterDistanceDeltas(int[] imageData, int imageWidth, int x, int y, int[] distanceDeltas)
+	{
+		for (int i = 0; i < distanceDeltas.length; i += 2)
+		{
+			int cx = x + distanceDeltas[i];
+			int cy = y + distanceDeltas[i + 1];
+			int visitedPixelPos = (cy - tileY) * visitedWidth + (cx - tileX);
+			if (cx >= clipX1 && cx < clipX2 && cy >= clipY1 && cy < clipY2 &&
+				(visited[visitedPixelPos >> 5] & (1 << (visitedPixelPos & 31))) == 0)
+			{
+				imageData[cy * imageWidth + cx] = color;
+			}
+		}
+	}
+
+	/**
+	 * Draws the pixels around the pixels of the model which are adjacent to a pixel which isn't part of the model
+	 */
+	private void drawEdges(int[] imageData, int imageWidth)
+	{
+		final int[][] distanceDeltas = DISTANCE_DELTAS[outlineWidth];
+
+		// Up and down
+		for (int x = 0; x < visitedWidth; x += 32)
+		{
+			int v1 = visited[x >> 5];
+			for (int y = 1; y < tileHeight; y++)
+			{
+				int v2 = visited[(y * visitedWidth + x) >> 5];
+				if (v1 != v2)
+				{
+					// Special case handling outlineWidth == 1 gives a
+					// small but noticeable performance improvement.
+					if (outlineWidth == 1)
+					{
+						for (int bit = 0; bit < 32; bit++)
+						{
+							int bv1 = (v1 >>> bit) & 1;
+							int bv2 = (v2 >>> bit) & 1;
+							if (bv1 != bv2)
+							{
+								imageData[(tileY + y - bv2) * imageWidth + (tileX + x + bit)] = color;
+							}
+						}
+					}
+					else
+					{
+						for (int bit = 0; bit < 32; bit++)
+						{
+							int bv1 = (v1 >>> bit) & 1;
+							int bv2 = (v2 >>> bit) & 1;
+							if (bv1 == 1 && bv2 == 0)
+							{
+								rasterDistanceDeltas(imageData, imageWidth, tileX + x + bit, tileY + y - 1, distanceDeltas[3]);
+							}
+							else if (bv1 == 0 && bv2 == 1)
+							{
+								rasterDistanceDeltas(imageData, imageWidth, tileX + x + bit, tileY + y, distanceDeltas[1]);
+							}
+						}
+					}
+				}
+
+				v1 = v2;
+			}
+		}
+
+		// Left and right
+		for (int y = 0; y < tileHeight; y++)
+		{
+			int rowPosition = y * visitedWidth;
+			int lastV = 0;
+			for (int x = 0; x < visitedWidth; x += 32)
+			{
+				int v = visited[(rowPosition + x) >> 5];
+
+				// Test adjacent pixels in the same 32-bit segment
+				if (v != 0 && v != 0xFFFFFFFF)
+				{
+					int end = Math.min(32, clipX2 - tileX - x);
+					int lastBv = v & 1;
+					if (outlineWidth == 1)
+					{
+						for (int bit = 1; bit < end; bit++)
+						{
+							int bv = (v >>> bit) & 1;
+							if (bv != lastBv)
+							{
+								imageData[(tileY + y) * imageWidth + (tileX + x + bit - bv)] = color;
+							}
+							lastBv = bv;
+						}
+					}
+					else
+					{
+						for (int bit = 1; bit < end; bit++)
+						{
+							int bv = (v >>> bit) & 1;
+							if (bv == 1 && lastBv == 0)
+							{
+								rasterDistanceDeltas(imageData, imageWidth, tileX + x + bit, tileY + y, distanceDeltas[2]);
+							}
+							else if (bv == 0 && lastBv == 1)
+							{
+								rasterDistanceDeltas(imageData, imageWidth, tileX + x + bit - 1, tileY + y, distanceDeltas[0]);
+							}
+							lastBv = bv;
+						}
+					}
+				}
+
+				// Test adjacent pixels in different 32-bit segments
+				if ((lastV >>> 31) != (v & 1) && x > 0)
+				{
+					if (outlineWidth == 1)
+					{
+						imageData[(tileY + y) * imageWidth + (tileX + x - (v & 1))] = color;
+					}
+					else if ((v & 1) == 1)
+					{
+						rasterDistanceDeltas(imageData, imageWidth, tileX + x, tileY + y, distanceDeltas[2]);
+					}
+					else
+					{
+						rasterDistanceDeltas(imageData, imageWidth, tileX + x - 1, tileY + y, distanceDeltas[0]);
+					}
+				}
+
+				lastV = v;
+			}
+		}
+	}
+
+	/**
+	 * Get the squared distance of a pixel in the tile to the model, or a value greater than
+	 * outlineWidth squared if the pixel is not part of the outline
+	 */
+	int getSquaredDistance(int x, int y)
+	{
+		x -= tileX;
+		y -= tileY;
+		if (x < 0 || y < 0 || x >= tileWidth || y >= tileHeight)
+		{
+			return Integer.MAX_VALUE;
+		}
+
+		for (int j = rowSegments[y]; j < rowSegments[y + 1]; j++)
+		{
+			if (x >= segmentStarts[j] && x < segmentEnds[j])
+			{
+				if (x >= segmentSkipFrom[j] && x < segmentSkipTo[j])
+				{
+					return 0;
+				}
+				int dx = x - segmentSites[j];
+				return dx * dx + segmentHeights[j];
+			}
+		}
+		return Integer.MAX_VALUE;
+	}
+
+	/**
+	 * First pass: the vertical distance of each pixel to the model within its column.
+	 * Both sweeps run along rows, so the inner loops are contiguous.
+	 */
+	private void computeColumnDistances()
+	{
+		final byte[] distances = columnDistances;
+		final int width = tileWidth;
+
+		for (int y = 1; y < tileHeight; y++)
+		{
+			int row = y * width;
+			for (int x = row; x < row + width; x++)
+			{
+				distances[x] = (byte) Math.min(distances[x], distances[x - width] + 1);
+			}
+		}
+
+		for (int y = tileHeight - 2; y >= 0; y--)
+		{
+			int row = y * width;
+			for (int x = row; x < row + width; x++)
+			{
+				distances[x] = (byte) Math.min(distances[x], distances[x + width] + 1);
+			}
+		}
+	}
+
+	/**
+	 * Second pass: the lower envelope of the parabolas (x - q)^2 + g(q)^2 of the columns q of each row,
+	 * where g is the vertical distance from the first pass. Only columns within outlineWidth of
+	 * the model are included. The envelope is kept as the segments of the row where each parabola
+	 * is the lowest, which gives the squared distance of every pixel of the row to the model.
+	 */
+	private void computeRowDistances()
+	{
+		final byte[] distances = columnDistances;
+		final int width = tileWidth;
+		final int inf = outlineWidth + 1;
+
+		if (envelopeSites.length < width)
+		{
+			int length = nextPowerOfTwo(width);
+			envelopeSites = new int[length];
+			envelopeHeights = new int[length];
+			envelopeBounds = new double[length];
+		}
+		if (rowSegments.length < tileHeight + 1)
+		{
+			rowSegments = new int[nextPowerOfTwo(tileHeight + 1)];
+		}
+		final int[] sites = envelopeSites;
+		final int[] heights = envelopeHeights;
+		final double[] bounds = envelopeBounds;
+
+		for (int y = 0; y < tileHeight; y++)
+		{
+			final int row = y * width;
+			rowSegments[y] = segmentCount;
+
+			int k = -1;
+			int q = 0;
+			while (q < width)
+			{
+				int g = distances[row + q];
+				if (g >= inf)
+				{
+					++q;
+				}
+				else if (g == 0)
+				{
+					// inside the model, only the edges of the run are nearest to any other pixel
+					int last = q;
+					while (last + 1 < width && distances[row + last + 1] == 0)
+					{
+						++last;
+					}
+					k = pushSite(k, q, 0);
+					if (last != q)
+					{
+						k = pushSite(k, last, 0);
+					}
+					q = last + 1;
+				}
+				else
+				{
+					k = pushSite(k, q, g * g);
+					++q;
+				}
+			}
+
+			ensureSegmentCapacity(segmentCount + k + 1);
+			int start = 0;
+			for (int j = 0; j <= k && start < width; j++)
+			{
+				// the parabola is the lowest up to and including the next bound
+				int end = j == k ? width : (int) Math.min(Math.floor(bounds[j + 1]) + 1, width);
+				if (end <= start)
+				{
+					continue;
+				}
+
+				int site = sites[j];
+				int skipFrom = Integer.MAX_VALUE;
+				int skipTo = Integer.MAX_VALUE;
+				if (heights[j] == 0)
+				{
+					// the site is an edge of a run of the model, which continues on the side which isn't an edge
+					boolean leftEdge = site == 0 || distances[row + site - 1] != 0;
+					boolean rightEdge = site == width - 1 || distances[row + site + 1] != 0;
+					skipFrom = leftEdge ? site : start;
+					skipTo = rightEdge ? site + 1 : end;
+				}
+
+				int i = segmentCount++;
+				segmentStarts[i] = start;
+				segmentEnds[i] = end;
+				segmentSites[i] = site;
+				segmentHeights[i] = heights[j];
+				segmentSkipFrom[i] = skipFrom;
+				segmentSkipTo[i] = skipTo;
+				start = end;
+			}
+		}
+		rowSegments[tileHeight] = segmentCount;
+	}
+
+	/**
+	 * Adds the parabola rooted at column {@code q} with height {@code h} to the lower envelope of the
+	 * current row, removing any parabolas it hides.
+	 *
+	 * @return the index of the new parabola
+	 */
+	private int pushSite(int k, int q, int h)
+	{
+		final int[] sites = envelopeSites;
+		final int[] heights = envelopeHeights;
+		final double[] bounds = envelopeBounds;
+
+		double s = Double.NEGATIVE_INFINITY;
+		while (k >= 0)
+		{
+			int v = sites[k];
+			s = ((h + q * q) - (heights[k] + v * v)) / (2.0 * (q - v));
+			if (s > bounds[k])
+			{
+				break;
+			}
+			--k;
+		}
+
+		++k;
+		sites[k] = q;
+		heights[k] = h;
+		bounds[k] = k == 0 ? Double.NEGATIVE_INFINITY : s;
+		return k;
+	}
+
+	private void ensureSegmentCapacity(int capacity)
+	{
+		if (segmentStarts.length < capacity)
+		{
+			int length = nextPowerOfTwo(capacity);
+			segmentStarts = Arrays.copyOf(segmentStarts, length);
+			segmentEnds = Arrays.copyOf(segmentEnds, length);
+			segmentSites = Arrays.copyOf(segmentSites, length);
+			segmentHeights = Arrays.copyOf(segmentHeights, length);
+			segmentSkipFrom = Arrays.copyOf(segmentSkipFrom, length);
+			segmentSkipTo = Arrays.copyOf(segmentSkipTo, length);
+		}
+	}
+
+	/**
+	 * Precomputes the outline color for each squared distance within the outline
+	 */
+	private void computeColors()
+	{
+		int maxDistance = outlineWidth * outlineWidth;
+		if (colorBySquaredDistance.length <= maxDistance)
+		{
+			colorBySquaredDistance = new int[maxDistance + 1];
+			inverseAlphaBySquaredDistance = new int[maxDistance + 1];
+		}
+
+		final int colorAlpha = color >>> 24;
+		final int red = (color >> 16) & 0xFF;
+		final int green = (color >> 8) & 0xFF;
+		final int blue = color & 0xFF;
+		final double fadedDistance = (double) feather / MAX_FEATHER * (outlineWidth - 0.5);
+
+		for (int d = 1; d <= maxDistance; d++)
+		{
+			double outerDist = outlineWidth - Math.sqrt(d) + 0.5;
+			double alphaMultiply = outerDist < fadedDistance ? outerDist / fadedDistance : 1.0;
+			int alpha = (int) Math.round(colorAlpha * alphaMultiply);
+			if (alpha == 255)
+			{
+				colorBySquaredDistance[d] = color;
+				inverseAlphaBySquaredDistance[d] = 0;
+				continue;
+			}
+
+			inverseAlphaBySquaredDistance[d] = 256 - alpha;
+			colorBySquaredDistance[d] = (alpha << 24)
+				| ((red * alpha) / 255) << 16
+				| ((green * alpha) / 255) << 8
+				| ((blue * alpha) / 255);
+		}
+	}
+
+	/**
+	 * Marks a horizontal line of the model, in the distances or when drawing directly in the bitset.
+	 *
+	 * @param pixelY The y position of the line
+	 * @param x1 The starting x position
+	 * @param x2 The ending x position
+	 */
+	private void rasterizeHorizontalLine(int pixelY, int x1, int x2)
+	{
+		if (x2 > tileX + tileWidth)
+		{
+			x2 = tileX + tileWidth;
+		}
+		if (x1 < tileX)
+		{
+			x1 = tileX;
+		}
+		if (x1 >= x2)
+		{
+			return;
+		}
+
+		if (direct)
+		{
+			int pixelPos1 = (pixelY - tileY) * visitedWidth + (x1 - tileX);
+			int pixelPos2 = pixelPos1 + x2 - x1;
+			int pixelPosIndex1 = pixelPos1 >> 5;
+			int pixelPosIndex2 = pixelPos2 >> 5;
+			if (pixelPosIndex1 == pixelPosIndex2)
+			{
+				visited[pixelPosIndex1] |= ((1 << (pixelPos2 & 31)) - 1) ^ ((1 << (pixelPos1 & 31)) - 1);
+			}
+			else
+			{
+				visited[pixelPosIndex1] |= -(1 << (pixelPos1 & 31));
+				visited[pixelPosIndex2] |= (1 << (pixelPos2 & 31)) - 1;
+				for (int i = pixelPosIndex1 + 1; i < pixelPosIndex2; i++)
+				{
+					visited[i] = 0xFFFFFFFF;
+				}
+			}
+			return;
+		}
+
+		int row = (pixelY - tileY) * tileWidth - tileX;
+		Arrays.fill(columnDistances, row + x1, row + x2, (byte) 0);
+	}
+
+	/**
+	 * Rasterizes a triangle of the model.
+	 *
+	 * @param x1 The x position of the first vertex in the triangle
+	 * @param y1 The y position of the first vertex in the triangle
+	 * @param x2 The x position of the second vertex in the triangle
+	 * @param y2 The y position of the second vertex in the triangle
+	 * @param x3 The x position of the third vertex in the triangle
+	 * @param y3 The y position of the third vertex in the triangle
+	 */
+	private void rasterizeTriangle(int x1, int y1, int x2, int y2, int x3, int y3)
+	{
+		final int rasterY1 = tileY;
+		final int rasterY2 = tileY + tileHeight;
+
+		// Swap vertices so y1 <= y2 <= y3 using bubble sort
+		if (y1 > y2)
+		{
+			int yp = y1;
+			int xp = x1;
+			y1 = y2;
+			y2 = yp;
+			x1 = x2;
+			x2 = xp;
+		}
+		if (y2 > y3)
+		{
+			int yp = y2;
+			int xp = x2;
+			y2 = y3;
+			y3 = yp;
+			x2 = x3;
+			x3 = xp;
+		}
+		if (y1 > y2)
+		{
+			int yp = y1;
+			int xp = x1;
+			y1 = y2;
+			y2 = yp;
+			x1 = x2;
+			x2 = xp;
+		}
+
+		if (y1 > rasterY2)
+		{
+			// All points are outside clip boundaries
+			return;
+		}
+
+		int slope1 = 0;
+		if (y1 != y2)
+		{
+			slope1 = (x2 - x1 << 14) / (y2 - y1);
+		}
+
+		int slope2 = 0;
+		if (y3 != y2)
+		{
+			slope2 = (x3 - x2 << 14) / (y3 - y2);
+		}
+
+		int slope3 = 0;
+		if (y1 != y3)
+		{
+			slope3 = (x1 - x3 << 14) / (y1 - y3);
+		}
+
+		if (y2 > rasterY2)
+		{
+			y2 = rasterY2;
+		}
+		if (y3 > rasterY2)
+		{
+			y3 = rasterY2;
+		}
+		if (y1 == y3 || y3 < rasterY1)
+		{
+			return;
+		}
+
+		x1 <<= 14;
+		x2 <<= 14;
+		x3 = x1;
+
+		if (y1 < rasterY1)
+		{
+			x3 -= (y1 - rasterY1) * slope3;
+			x1 -= (y1 - rasterY1) * slope1;
+			y1 = rasterY1;
+		}
+		if (y2 < rasterY1)
+		{
+			x2 -= (y2 - rasterY1) * slope2;
+			y2 = rasterY1;
+		}
+
+		int pixelY = y1;
+		int height1 = y2 - y1;
+		int height2 = y3 - y2;
+		if (y1 != y2 && slope3 < slope1 || y1 == y2 && slope3 > slope2)
+		{
+			while (height1-- > 0)
+			{
+				rasterizeHorizontalLine(pixelY, x3 >> 14, x1 >> 14);
+				x3 += slope3;
+				x1 += slope1;
+				pixelY++;
+			}
+
+			while (height2-- > 0)
+			{
+				rasterizeHorizontalLine(pixelY, x3 >> 14, x2 >> 14);
+				x3 += slope3;
+				x2 += slope2;
+				pixelY++;
+			}
+		}
+		else
+		{
+			while (height1-- > 0)
+			{
+				rasterizeHorizontalLine(pixelY, x1 >> 14, x3 >> 14);
+				x1 += slope1;
+				x3 += slope3;
+				pixelY++;
+			}
+
+			while (height2-- > 0)
+			{
+				rasterizeHorizontalLine(pixelY, x2 >> 14, x3 >> 14);
+				x3 += slope3;
+				x2 += slope2;
+				pixelY++;
+			}
+		}
+	}
+
+	/**
+	 * Calculate the next power of two of a value.
+	 *
+	 * @param value The value to find the next power of two of.
+	 * @return Returns the next power of two.
+	 */
+	private static int nextPowerOfTwo(int value)
+	{
+		value--;
+		value |= value >> 1;
+		value |= value >> 2;
+		value |= value >> 4;
+		value |= value >> 8;
+		value |= value >> 16;
+		value++;
+		return value;
+	}
+}
@@ -32,28 +32,37 @@ import java.awt.TrayIcon;
 import java.awt.datatransfer.Clipboard;
 import java.awt.datatransfer.StringSelection;
 import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.Base64;
 import java.util.Date;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import javax.annotation.Nullable;
-import javax.imageio.ImageIO;
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Singleton;
 import lombok.Data;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.api.Client;
 import net.runelite.api.GameState;
 import net.runelite.client.Notifier;
 import static net.runelite.client.RuneLite.SCREENSHOT_DIR;
 import net.runelite.client.config.RuneScapeProfileType;
+import net.runelite.client.profiler.LatencyHistogram;
 import okhttp3.Call;
 import okhttp3.Callback;
 import okhttp3.HttpUrl;
@@ -70,6 +79,7 @@ public class ImageCapture
 	private static final DateFormat TIME_FORMAT = new SimpleDateFormat("yyyy-MM-dd_HH-mm-ss");
 	private static final HttpUrl IMGUR_IMAGE_UPLOAD_URL = HttpUrl.get("https://api.imgur.com/3/image");
 	private static final MediaType JSON = MediaType.get("application/json");
+	private static final PngEncoder PNG_ENCODER = new PngEncoder(3, PngEncoder.Filter.UP);
 
 	private final Client client;
 	private final Notifier notifier;
@@ -77,6 +87,21 @@ public class ImageCapture
 	private final Gson gson;
 	private final String imgurClientId;
 
+	// captures are written in order, each to its own file
+	private final ExecutorService encoder = Executors.newSingleThreadExecutor(r ->
+	{
+		Thread thread = new Thread(r, "Screenshot encoder");
+		thread.setDaemon(true);
+		thread.setPriority(Thread.MIN_PRIORITY);
+		return thread;
+	});
+
+	/**
+	 * Time from a capture being requested to its file being written
+	 */
+	@Getter
+	private final LatencyHistogram captureLatency = new LatencyHistogram();
+
 	@Inject
 	private ImageCapture(
 		final Client client,
@@ -95,7 +120,9 @@ public class ImageCapture
 
 	/**
 	 * Saves a screenshot of the client window to the screenshot folder as a PNG,
-	 * and optionally uploads it to an image-hosting service.
+	 * and optionally uploads it to an image-hosting service. The image is encoded
+	 * and written asynchronously on a low priority thread, and must not be modified
+	 * by the caller afterwards.
 	 *
 	 * @param screenshot BufferedImage to capture.
 	 * @param fileName Filename to use, without file extension.
@@ -112,7 +139,20 @@ public class ImageCapture
 			return;
 		}
 
-		File playerFolder;
+		File playerFolder = getPlayerFolder(subDir);
+		fileName += (fileName.isEmpty() ? "" : " ") + format(new Date());
+
+		Capture capture = new Capture(playerFolder, fileName, notify, imageUploadStyle, screenshot, System.nanoTime());
+		encoder.execute(() -> processCapture(capture));
+	}
+
+	/**
+	 * Get the folder screenshots of the logged in player are saved to
+	 *
+	 * @param subDir Directory within the player screenshots dir, or null.
+	 */
+	public File getPlayerFolder(@Nullable String subDir)
+	{
 		if (client.getLocalPlayer() != null && client.getLocalPlayer().getName() != null)
 		{
 			String playerDir = client.getLocalPlayer().getName();
@@ -127,47 +167,44 @@ public class ImageCapture
 				playerDir += File.separator + subDir;
 			}
 
-			playerFolder = new File(SCREENSHOT_DIR, playerDir);
+			return new File(SCREENSHOT_DIR, playerDir);
 		}
 		else
 		{
-			playerFolder = SCREENSHOT_DIR;
+			return SCREENSHOT_DIR;
 		}
+	}
 
-		playerFolder.mkdirs();
-
-		fileName += (fileName.isEmpty() ? "" : " ") + format(new Date());
-
+	private void processCapture(Capture capture)
+	{
+		final long start = System.nanoTime();
+		final BufferedImage screenshot = capture.screenshot;
 		try
 		{
-			File screenshotFile = new File(playerFolder, fileName + ".png");
-
-			// To make sure that screenshots don't get overwritten, check if file exists,
-			// and if it does create file with same name and suffix.
-			int i = 1;
-			while (screenshotFile.exists())
-			{
-				screenshotFile = new File(playerFolder, fileName + String.format("(%d)", i++) + ".png");
-			}
+			capture.folder.mkdirs();
+			File screenshotFile = writeScreenshot(capture.folder, capture.fileName, screenshot);
 
-			ImageIO.write(screenshot, "PNG", screenshotFile);
+			final long end = System.nanoTime();
+			captureLatency.record(end - capture.requestTime);
+			log.debug("Wrote screenshot {} (queued {}ms, encoded {}ms)", screenshotFile,
+				TimeUnit.NANOSECONDS.toMillis(start - capture.requestTime), TimeUnit.NANOSECONDS.toMillis(end - start));
 
-			if (imageUploadStyle == ImageUploadStyle.IMGUR)
+			if (capture.imageUploadStyle == ImageUploadStyle.IMGUR)
 			{
-				uploadScreenshot(screenshotFile, notify);
+				uploadScreenshot(screenshotFile, capture.notify);
 			}
-			else if (imageUploadStyle == ImageUploadStyle.CLIPBOARD)
+			else if (capture.imageUploadStyle == ImageUploadStyle.CLIPBOARD)
 			{
 				Clipboard clipboard = Toolkit.getDefaultToolkit().getSystemClipboard();
 				TransferableBufferedImage transferableBufferedImage = new TransferableBufferedImage(screenshot);
 				clipboard.setContents(transferableBufferedImage, null);
 
-				if (notify)
+				if (capture.notify)
 				{
 					notifier.notify("A screenshot was saved and inserted into your clipboard!", TrayIcon.MessageType.INFO);
 				}
 			}
-			else if (notify)
+			else if (capture.notify)
 			{
 				notifier.notify("A screenshot was saved to " + screenshotFile, TrayIcon.MessageType.INFO);
 			}
@@ -178,6 +215,25 @@ public class ImageCapture
 		}
 	}
 
+	private static File writeScreenshot(File folder, String fileName, BufferedImage screenshot) throws IOException
+	{
+		// To make sure that screenshots don't get overwritten, atomically create the file,
+		// and if it already exists create a file with the same name and a suffix.
+		File screenshotFile = new File(folder, fileName + ".png");
+		for (int i = 1; ; ++i)
+		{
+			try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(screenshotFile.toPath(), StandardOpenOption.CREATE_NEW)))
+			{
+				PNG_ENCODER.write(screenshot, out);
+				return screenshotFile;
+			}
+			catch (FileAlreadyExistsException ex)
+			{
+				screenshotFile = new File(folder, fileName + String.format("(%d)", i) + ".png");
+			}
+		}
+	}
+
 	/**
 	 * Saves a screenshot of the client window to the screenshot folder as a PNG,
 	 * and optionally uploads it to an image-hosting service.
@@ -251,6 +307,17 @@ public class ImageCapture
 		}
 	}
 
+	@RequiredArgsConstructor
+	private static class Capture
+	{
+		private final File folder;
+		private final String fileName;
+		private final boolean notify;
+		private final ImageUploadStyle imageUploadStyle;
+		private final BufferedImage screenshot;
+		private final long requestTime;
+	}
+
 	@Data
 	private static class ImageUploadResponse
 	{
@@ -0,0 +1,198 @@
+/*
+ * Copyright (c) 2022, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.callback;
+
+import com.google.common.collect.ImmutableList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import net.runelite.api.Client;
+import net.runelite.api.GameState;
+import net.runelite.client.profiler.Profiler;
+import static org.junit.Assert.assertEquals;
+import org.junit.Before;
+import org.junit.Test;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ClientThreadTest
+{
+	private Client client;
+	private ClientThread clientThread;
+	private long now;
+	private int tick;
+	private final List<String> ran = new ArrayList<>();
+
+	@Before
+	public void before()
+	{
+		client = mock(Client.class);
+		when(client.isClientThread()).thenReturn(true);
+		when(client.getGameState()).thenReturn(GameState.LOGGED_IN);
+		when(client.getTickCount()).thenAnswer(i -> tick);
+		clientThread = new ClientThread(client, mock(Profiler.class), () -> now);
+	}
+
+	@Test
+	public void testPriorities()
+	{
+		clientThread.invokeLater(ClientThread.Priority.IDLE, task("idle", 0));
+		clientThread.invokeLater(ClientThread.Priority.TICK, task("tick", 0));
+		clientThread.invokeLater(task("frame", 0));
+
+		clientThread.invoke();
+		// the first cycle counts as a new tick
+		assertEquals(ImmutableList.of("frame", "tick", "idle"), ran);
+
+		ran.clear();
+		clientThread.invokeLater(ClientThread.Priority.TICK, task("tick", 0));
+		clientThread.invokeLater(task("frame", 0));
+		clientThread.invoke();
+		assertEquals(ImmutableList.of("frame"), ran);
+
+		++tick;
+		clientThread.invoke();
+		assertEquals(ImmutableList.of("frame", "tick"), ran);
+	}
+
+	@Test
+	public void testBudget()
+	{
+		for (int i = 0; i < 6; ++i)
+		{
+			clientThread.invokeLater(task("frame" + i, 1));
+		}
+		clientThread.invokeLater(ClientThread.Priority.IDLE, task("idle", 0));
+
+		// the budget is spent after 4 tasks of 1ms
+		clientThread.invoke();
+		assertEquals(ImmutableList.of("frame0", "frame1", "frame2", "frame3"), ran);
+		assertEquals(2, clientThread.getStats().getFrameTasks());
+		assertEquals(1, clientThread.getStats().getIdleTasks());
+		assertEquals(0, clientThread.getStats().getOverruns());
+
+		ran.clear();
+		clientThread.invoke();
+		assertEquals(ImmutableList.of("frame4", "frame5", "idle"), ran);
+
+		// a frame task always runs, even if it takes longer than the budget
+		ran.clear();
+		clientThread.invokeLater(task("slow", 10));
+		clientThread.invokeLater(task("next", 0));
+		clientThread.invoke();
+		assertEquals(ImmutableList.of("slow"), ran);
+		assertEquals(1, clientThread.getStats().getOverruns());
+		assertEquals(TimeUnit.MILLISECONDS.toNanos(6), clientThread.getStats().getOverrunNanos());
+	}
+
+	@Test
+	public void testIdleNotStarved()
+	{
+		clientThread.invokeLater(ClientThread.Priority.IDLE, task("idle0", 0));
+		clientThread.invokeLater(ClientThread.Priority.IDLE, task("idle1", 0));
+
+		// frame tasks use up the whole budget every cycle
+		for (int cycle = 1; cycle <= 16; ++cycle)
+		{
+			clientThread.invokeLater(task("frame", 4));
+			clientThread.invoke();
+			assertEquals(cycle < 8 ? 0 : cycle < 16 ? 1 : 2, ran.stream().filter(s -> s.startsWith("idle")).count());
+		}
+		// each runs after the 8th frame task it waited behind
+		assertEquals(8, ran.indexOf("idle0"));
+		assertEquals(17, ran.indexOf("idle1"));
+		assertEquals(0, clientThread.getStats().getIdleTasks());
+	}
+
+	@Test
+	public void testQueuedWhileRunning()
+	{
+		clientThread.invokeLater(() ->
+		{
+			ran.add("first");
+			clientThread.invokeLater(task("second", 0));
+		});
+
+		clientThread.invoke();
+		assertEquals(ImmutableList.of("first"), ran);
+		clientThread.invoke();
+		assertEquals(ImmutableList.of("first", "second"), ran);
+	}
+
+	@Test
+	public void testDeferred()
+	{
+		int[] attempts = new int[1];
+		boolean[] ready = new boolean[1];
+		clientThread.invokeLater(() ->
+		{
+			++attempts[0];
+			return ready[0];
+		});
+
+		// retried with an exponential back off of 1, 2, 4 and 8 cycles
+		for (int cycle = 1; cycle <= 30; ++cycle)
+		{
+			clientThread.invoke();
+		}
+		assertEquals(6, attempts[0]);
+		assertEquals(1, clientThread.getStats().getDeferredTasks());
+
+		// a game state change runs deferred tasks again immediately
+		ready[0] = true;
+		when(client.getGameState()).thenReturn(GameState.LOADING);
+		clientThread.invoke();
+		assertEquals(7, attempts[0]);
+		assertEquals(0, clientThread.getStats().getDeferredTasks());
+	}
+
+	@Test
+	public void testDeferredOnTick()
+	{
+		int[] attempts = new int[1];
+		clientThread.invoke();
+		// invoked on the client thread, so it runs immediately
+		clientThread.invoke(() -> ++attempts[0] >= 3);
+		assertEquals(1, attempts[0]);
+
+		clientThread.invoke();
+		assertEquals(2, attempts[0]);
+
+		// backing off until the 4th cycle, but a game tick runs deferred tasks again immediately
+		++tick;
+		clientThread.invoke();
+		assertEquals(3, attempts[0]);
+		assertEquals(0, clientThread.getStats().getDeferredTasks());
+	}
+
+	private Runnable task(String name, long millis)
+	{
+		return () ->
+		{
+			ran.add(name);
+			now += TimeUnit.MILLISECONDS.toNanos(millis);
+		};
+	}
+}
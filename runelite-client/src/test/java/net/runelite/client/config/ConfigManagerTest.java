@@ -29,6 +29,8 @@ import com.google.inject.testing.fieldbinder.Bind;
 import com.google.inject.testing.fieldbinder.BoundFieldModule;
 import java.io.File;
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.concurrent.ScheduledExecutorService;
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -108,6 +110,25 @@ public class ConfigManagerTest
 		Assert.assertEquals("new value", conf.key());
 	}
 
+	@Test
+	public void testCachedValueInvalidation()
+	{
+		TestConfig conf = manager.getConfig(TestConfig.class);
+		Assert.assertEquals("default", conf.key());
+		Assert.assertNull(conf.nullDefaultKey());
+
+		manager.setConfiguration("test", "nullDefaultKey", "other");
+		Assert.assertEquals("default", conf.key());
+		Assert.assertEquals("other", conf.nullDefaultKey());
+
+		manager.setConfiguration("test", "key", "moo");
+		Assert.assertEquals("moo", conf.key());
+
+		manager.unsetConfiguration("test", "key");
+		Assert.assertEquals("default", conf.key());
+		Assert.assertEquals("other", conf.nullDefaultKey());
+	}
+
 	@Test
 	public void testGetConfigDescriptor() throws IOException
 	{
@@ -128,6 +149,30 @@ public class ConfigManagerTest
 		Assert.assertNull(conf.nullDefaultKey());
 	}
 
+	@Test
+	public void testGetConfigurationKeys()
+	{
+		manager.setConfiguration("banktags", "item_1", "a");
+		manager.setConfiguration("banktags", "item_2", "b");
+		manager.setConfiguration("banktags", "icon_1", "c");
+		manager.setConfiguration("banktagsx", "item_3", "d");
+
+		Assert.assertEquals(Arrays.asList("banktags.item_1", "banktags.item_2"), manager.getConfigurationKeys("banktags.item_"));
+		Assert.assertEquals(Collections.emptyList(), manager.getConfigurationKeys("banktags.tag_"));
+	}
+
+	@Test
+	public void testGetRSProfileConfigurationKeys()
+	{
+		manager.setConfiguration("loottracker", "rsprofile.abc", "drops_NPC_Goblin", "[]");
+		manager.setConfiguration("loottracker", "rsprofile.abc", "drops_NPC_Cow", "[]");
+		manager.setConfiguration("loottracker", "rsprofile.abd", "drops_NPC_Man", "[]");
+		manager.setConfiguration("loottracker", "rsprofile.abc", "other", "x");
+
+		Assert.assertEquals(Arrays.asList("drops_NPC_Cow", "drops_NPC_Goblin"),
+			manager.getRSProfileConfigurationKeys("loottracker", "rsprofile.abc", "drops_"));
+	}
+
 	@Test
 	public void testKeySplitter()
 	{
@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2022, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.eventbus;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.Test;
+
+public class EventBusTest
+{
+	private final List<String> calls = new ArrayList<>();
+	private EventBus eventBus;
+
+	public static class TestEvent
+	{
+	}
+
+	public static class OtherEvent
+	{
+	}
+
+	public class LowPriority
+	{
+		@Subscribe(priority = -1)
+		public void onTestEvent(TestEvent event)
+		{
+			calls.add("low");
+		}
+	}
+
+	public class HighPriority
+	{
+		@Subscribe(priority = 1)
+		public void onTestEvent(TestEvent event)
+		{
+			calls.add("high");
+		}
+
+		@Subscribe
+		public void onOtherEvent(OtherEvent event)
+		{
+			calls.add("other");
+		}
+	}
+
+	@Before
+	public void before()
+	{
+		eventBus = new EventBus();
+	}
+
+	@Test
+	public void testPriorityOrder()
+	{
+		eventBus.register(new LowPriority());
+		eventBus.register(new HighPriority());
+		eventBus.register(TestEvent.class, e -> calls.add("lambda"), 0);
+
+		eventBus.post(new TestEvent());
+		assertEquals(Arrays.asList("high", "lambda", "low"), calls);
+	}
+
+	@Test
+	public void testUnregister()
+	{
+		HighPriority high = new HighPriority();
+		eventBus.register(new LowPriority());
+		eventBus.register(high);
+
+		eventBus.unregister(high);
+		eventBus.post(new TestEvent());
+		eventBus.post(new OtherEvent());
+		assertEquals(Arrays.asList("low"), calls);
+	}
+
+	@Test
+	public void testUnregisterSubscriber()
+	{
+		EventBus.Subscriber first = eventBus.register(TestEvent.class, e -> calls.add("first"), 0);
+		eventBus.register(TestEvent.class, e -> calls.add("second"), 0);
+
+		eventBus.unregister(first);
+		eventBus.post(new TestEvent());
+		assertEquals(Arrays.asList("second"), calls);
+
+		eventBus.unregister(first);
+		calls.clear();
+		eventBus.post(new TestEvent());
+		assertEquals(Arrays.asList("second"), calls);
+	}
+
+	@Test
+	public void testNoSubscribers()
+	{
+		eventBus.post(new TestEvent());
+		assertTrue(calls.isEmpty());
+	}
+}
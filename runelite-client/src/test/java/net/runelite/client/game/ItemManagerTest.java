@@ -29,17 +29,30 @@ import com.google.inject.Inject;
 import com.google.inject.testing.fieldbinder.Bind;
 import com.google.inject.testing.fieldbinder.BoundFieldModule;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.BooleanSupplier;
 import javax.inject.Named;
 import net.runelite.api.Client;
+import net.runelite.api.GameState;
 import net.runelite.api.ItemID;
+import net.runelite.api.SpritePixels;
 import net.runelite.client.callback.ClientThread;
 import net.runelite.client.config.RuneLiteConfig;
+import net.runelite.client.util.AsyncBufferedImage;
 import net.runelite.http.api.item.ItemPrice;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
 import org.mockito.Mock;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 import org.mockito.junit.MockitoJUnitRunner;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -95,4 +108,37 @@ public class ItemManagerTest
 		itemPrice.setWikiPrice(300_000); // outside of 5x range
 		assertEquals(itemPrice.getPrice(), itemManager.getWikiPrice(itemPrice));
 	}
-}
\ No newline at end of file
+
+	@Test
+	public void testImageQuantity()
+	{
+		assertEquals(99_999, ItemManager.imageQuantity(99_999, true));
+		assertEquals(123_000, ItemManager.imageQuantity(123_456, true));
+		assertEquals(12_000_000, ItemManager.imageQuantity(12_345_678, true));
+		assertEquals(100_000, ItemManager.imageQuantity(12_345_678, false));
+	}
+
+	@Test
+	public void testImageBatch()
+	{
+		SpritePixels sprite = mock(SpritePixels.class);
+		when(client.getGameState()).thenReturn(GameState.LOGGED_IN);
+		when(client.createItemSprite(anyInt(), anyInt(), anyInt(), anyInt(), anyInt(), anyBoolean(), anyInt())).thenReturn(sprite);
+
+		AsyncBufferedImage coins = itemManager.getImage(ItemID.COINS_995, 123_456, true);
+		// both stacks are drawn as 123K
+		assertSame(coins, itemManager.getImage(ItemID.COINS_995, 123_999, true));
+		AsyncBufferedImage bones = itemManager.getImage(ItemID.BONES);
+
+		// the images are created together by a single task
+		ArgumentCaptor<BooleanSupplier> batch = ArgumentCaptor.forClass(BooleanSupplier.class);
+		verify(clientThread).invokeLater(eq(ClientThread.Priority.IDLE), batch.capture());
+		assertTrue(batch.getValue().getAsBoolean());
+
+		verify(client).createItemSprite(eq(ItemID.COINS_995), eq(123_000), anyInt(), anyInt(), anyInt(), anyBoolean(), anyInt());
+		verify(client).createItemSprite(eq(ItemID.BONES), eq(1), anyInt(), anyInt(), anyInt(), anyBoolean(), anyInt());
+		verify(sprite).toBufferedImage(coins);
+		verify(sprite).toBufferedImage(bones);
+		assertEquals(1, itemManager.getImageCacheStats().hitCount());
+	}
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2022, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.game;
+
+import java.util.Random;
+import java.util.stream.IntStream;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class ItemNameIndexTest
+{
+	private static final int[] IDS = {1, 2, 3, 4, 5, 6, 7};
+	private static final String[] NAMES = {
+		"Adamant platebody",
+		"Rune platebody",
+		"Rune",
+		"Runite bar",
+		"Prune",
+		"Rune platebody (t)",
+		"Broken rune",
+	};
+
+	@Test
+	public void testRelevance()
+	{
+		ItemNameIndex index = new ItemNameIndex(IDS, NAMES, null);
+
+		// exact, prefix (shortest first), word start, substring
+		assertArrayEquals(new int[]{3, 2, 6, 7, 5}, index.search("rune", 10));
+		assertArrayEquals(new int[]{3, 2}, index.search("RUNE", 2));
+		assertArrayEquals(new int[]{2, 1, 6}, index.search("platebody", 10));
+		assertArrayEquals(new int[0], index.search("dragon", 10));
+		assertArrayEquals(new int[0], index.search("", 10));
+	}
+
+	@Test
+	public void testShortQuery()
+	{
+		ItemNameIndex index = new ItemNameIndex(IDS, NAMES, null);
+
+		assertArrayEquals(new int[]{4}, index.search("ba", 10));
+		assertEquals(7, index.search("e", 10).length);
+		assertEquals(3, index.search("r", 10)[0]);
+	}
+
+	@Test
+	public void testIcons()
+	{
+		// the trimmed platebody shares an icon with the plain one
+		ItemNameIndex index = new ItemNameIndex(IDS, NAMES, new int[]{0, 1, 2, 3, 4, 1, 5});
+
+		assertArrayEquals(new int[]{2, 1}, index.search("platebody", 10));
+		assertArrayEquals(new int[]{6}, index.search("(t)", 10));
+	}
+
+	@Test
+	public void testNonAscii()
+	{
+		ItemNameIndex index = new ItemNameIndex(new int[]{1, 2}, new String[]{"Café au lait", "Cafe"}, null);
+
+		assertArrayEquals(new int[]{1}, index.search("fé a", 10));
+		assertArrayEquals(new int[]{2}, index.search("cafe", 10));
+	}
+
+	@Test
+	public void testLargeIndex()
+	{
+		final String[] words = {"rune", "adamant", "mithril", "dragon", "platebody", "platelegs", "sword",
+			"shield", "bar", "ore", "potion", "(4)", "seed", "logs", "bow", "arrow", "graceful", "hood"};
+		final int count = 25_000;
+
+		Random random = new Random(42);
+		int[] ids = new int[count];
+		String[] names = new String[count];
+		for (int i = 0; i < count; ++i)
+		{
+			ids[i] = i;
+			names[i] = words[random.nextInt(words.length)] + " " + words[random.nextInt(words.length)] + " " + i;
+		}
+
+		ItemNameIndex index = new ItemNameIndex(ids, names, null);
+
+		// the trigram and sorted name lookups must find the same names as a scan
+		final String[] queries = {"d", "dr", "dra", "drag", "dragon", "dragon p", "dragon pl", "rune platebody 1", "graceful hood", "1234", "hood 9"};
+		for (String query : queries)
+		{
+			int matches = 0;
+			for (String name : names)
+			{
+				if (name.contains(query))
+				{
+					++matches;
+				}
+			}
+
+			int[] results = index.search(query, 24);
+			assertEquals(query, Math.min(24, matches), results.length);
+			assertEquals(query, results.length, IntStream.of(results).distinct().count());
+			for (int id : results)
+			{
+				assertTrue(query, names[id].contains(query));
+			}
+		}
+	}
+}
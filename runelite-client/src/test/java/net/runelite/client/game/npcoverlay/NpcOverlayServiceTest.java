@@ -0,0 +1,219 @@
+/*
+ * Copyright (c) 2022, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.game.npcoverlay;
+
+import com.google.inject.Guice;
+import com.google.inject.Inject;
+import com.google.inject.testing.fieldbinder.Bind;
+import com.google.inject.testing.fieldbinder.BoundFieldModule;
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import net.runelite.api.Client;
+import net.runelite.api.NPC;
+import net.runelite.api.events.NpcDespawned;
+import net.runelite.api.events.NpcSpawned;
+import net.runelite.client.callback.ClientThread;
+import net.runelite.client.eventbus.EventBus;
+import net.runelite.client.ui.overlay.OverlayManager;
+import net.runelite.client.ui.overlay.outline.ModelOutlineRenderer;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import static org.mockito.ArgumentMatchers.any;
+import org.mockito.Mock;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class NpcOverlayServiceTest
+{
+	@Inject
+	private NpcOverlayService npcOverlayService;
+
+	@Mock
+	@Bind
+	private Client client;
+
+	@Mock
+	@Bind
+	private ClientThread clientThread;
+
+	@Mock
+	@Bind
+	private OverlayManager overlayManager;
+
+	@Mock
+	@Bind
+	private ModelOutlineRenderer modelOutlineRenderer;
+
+	@Bind
+	private final EventBus eventBus = new EventBus();
+
+	private final List<NPC> npcs = new ArrayList<>();
+	private final Set<NPC> red = new HashSet<>();
+	private final Set<NPC> blue = new HashSet<>();
+
+	private final Function<NPC, HighlightedNpc> redHighlighter = npc -> highlight(red, npc, Color.RED);
+	private final Function<NPC, HighlightedNpc> blueHighlighter = npc -> highlight(blue, npc, Color.BLUE);
+
+	@Before
+	public void before()
+	{
+		Guice.createInjector(BoundFieldModule.of(this)).injectMembers(this);
+
+		when(client.getNpcs()).thenReturn(npcs);
+		doAnswer(invocation ->
+		{
+			((Runnable) invocation.getArgument(0)).run();
+			return null;
+		}).when(clientThread).invoke(any(Runnable.class));
+	}
+
+	private static HighlightedNpc highlight(Set<NPC> set, NPC npc, Color color)
+	{
+		return set.contains(npc) ? HighlightedNpc.builder().npc(npc).highlightColor(color).build() : null;
+	}
+
+	private NPC npc()
+	{
+		NPC npc = mock(NPC.class);
+		npcs.add(npc);
+		return npc;
+	}
+
+	private Color color(NPC npc)
+	{
+		HighlightedNpc highlightedNpc = npcOverlayService.getHighlightedNpcs().get(npc);
+		return highlightedNpc == null ? null : highlightedNpc.getHighlightColor();
+	}
+
+	@Test
+	public void testRegister()
+	{
+		NPC a = npc(), b = npc(), c = npc();
+		red.add(a);
+		red.add(b);
+		blue.add(b);
+		blue.add(c);
+
+		npcOverlayService.registerHighlighter(redHighlighter);
+		assertEquals(Color.RED, color(a));
+		assertEquals(Color.RED, color(b));
+		assertNull(color(c));
+
+		// the first registered highlighter takes precedence
+		npcOverlayService.registerHighlighter(blueHighlighter);
+		assertEquals(Color.RED, color(a));
+		assertEquals(Color.RED, color(b));
+		assertEquals(Color.BLUE, color(c));
+	}
+
+	@Test
+	public void testUnregister()
+	{
+		NPC a = npc(), b = npc();
+		red.add(a);
+		red.add(b);
+		blue.add(b);
+
+		npcOverlayService.registerHighlighter(redHighlighter);
+		npcOverlayService.registerHighlighter(blueHighlighter);
+
+		npcOverlayService.unregisterHighlighter(redHighlighter);
+		assertNull(color(a));
+		assertEquals(Color.BLUE, color(b));
+
+		npcOverlayService.unregisterHighlighter(blueHighlighter);
+		assertTrue(npcOverlayService.getHighlightedNpcs().isEmpty());
+	}
+
+	@Test
+	public void testRegisterTwice()
+	{
+		NPC a = npc();
+		red.add(a);
+
+		npcOverlayService.registerHighlighter(redHighlighter);
+		npcOverlayService.registerHighlighter(redHighlighter);
+
+		npcOverlayService.unregisterHighlighter(redHighlighter);
+		assertNull(color(a));
+
+		// unregistering a function which isn't registered does nothing
+		npcOverlayService.unregisterHighlighter(redHighlighter);
+		assertTrue(npcOverlayService.getHighlightedNpcs().isEmpty());
+	}
+
+	@Test
+	public void testSpawnDespawn()
+	{
+		npcOverlayService.registerHighlighter(redHighlighter);
+		npcOverlayService.registerHighlighter(blueHighlighter);
+
+		NPC a = npc();
+		red.add(a);
+		blue.add(a);
+		eventBus.post(new NpcSpawned(a));
+		assertEquals(Color.RED, color(a));
+
+		npcs.remove(a);
+		eventBus.post(new NpcDespawned(a));
+		assertNull(color(a));
+
+		// a despawned npc is not highlighted again when its highlighter is unregistered
+		npcOverlayService.unregisterHighlighter(redHighlighter);
+		assertNull(color(a));
+	}
+
+	@Test
+	public void testRebuild()
+	{
+		NPC a = npc(), b = npc();
+		red.add(a);
+		npcOverlayService.registerHighlighter(redHighlighter);
+		npcOverlayService.registerHighlighter(blueHighlighter);
+
+		red.remove(a);
+		blue.add(a);
+		blue.add(b);
+		npcOverlayService.rebuild();
+		assertEquals(Color.BLUE, color(a));
+		assertEquals(Color.BLUE, color(b));
+
+		// unregistering the function which matched nothing after the rebuild leaves the other highlights
+		npcOverlayService.unregisterHighlighter(redHighlighter);
+		assertEquals(Color.BLUE, color(a));
+		assertEquals(Color.BLUE, color(b));
+	}
+}
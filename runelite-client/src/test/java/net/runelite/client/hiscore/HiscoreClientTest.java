@@ -32,12 +32,15 @@ import java.io.IOException;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import javax.inject.Inject;
 import okhttp3.OkHttpClient;
 import okhttp3.mockwebserver.MockResponse;
 import okhttp3.mockwebserver.MockWebServer;
+import okio.Buffer;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -47,7 +50,7 @@ import org.mockito.junit.MockitoJUnitRunner;
 @RunWith(MockitoJUnitRunner.class)
 public class HiscoreClientTest
 {
-	private static final String RESPONSE = "654683,705,1304518\n"
+	static final String RESPONSE = "654683,705,1304518\n"
 		+ "679419,50,107181\n"
 		+ "550667,48,85764\n"
 		+ "861497,50,101366\n"
@@ -194,4 +197,29 @@ public class HiscoreClientTest
 		assertEquals(42, result.getSkill(HiscoreSkill.THEATRE_OF_BLOOD_HARD_MODE).getLevel());
 		assertEquals(5847, result.getSkill(HiscoreSkill.ZULRAH).getLevel());
 	}
-}
\ No newline at end of file
+
+	@Test
+	public void testParse() throws Exception
+	{
+		List<HiscoreSkill> mapping = HiscoreClient.convertMappings(HiscoreClient.loadDiskMappings(gson), true)
+			.get(HiscoreEndpoint.NORMAL);
+		HiscoreResult expected = HiscoreClient.parse("zezima", HiscoreEndpoint.NORMAL, mapping, new Buffer().writeUtf8(RESPONSE));
+		assertEquals(mapping.stream().filter(Objects::nonNull).count(), expected.size());
+
+		// crlf line endings, blank lines, and whitespace around fields
+		String reformatted = "\r\n" + RESPONSE.replace("\n", "\r\n").replace(",", " , ");
+		assertEquals(expected, HiscoreClient.parse("zezima", HiscoreEndpoint.NORMAL, mapping, new Buffer().writeUtf8(reformatted)));
+
+		// invalid lines are skipped, but still consume their skill
+		String invalid = RESPONSE.replaceFirst("679419,50,107181", "679419,x,107181")
+			.replaceFirst("550667,48,85764", "550667,48,85764,1")
+			.replaceFirst("861497,50,101366", "99999999999,50,101366");
+		HiscoreResult result = HiscoreClient.parse("zezima", HiscoreEndpoint.NORMAL, mapping, new Buffer().writeUtf8(invalid));
+		assertNull(result.getSkill(HiscoreSkill.ATTACK));
+		assertNull(result.getSkill(HiscoreSkill.DEFENCE));
+		assertNull(result.getSkill(HiscoreSkill.STRENGTH));
+		assertEquals(new Skill(891591, 48, 87843), result.getSkill(HiscoreSkill.HITPOINTS));
+		assertEquals(expected.getSkill(HiscoreSkill.ZULRAH), result.getSkill(HiscoreSkill.ZULRAH));
+		assertEquals(expected.size() - 3, result.size());
+	}
+}
@@ -0,0 +1,299 @@
+/*
+ * Copyright (c) 2022, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.hiscore;
+
+import com.google.gson.Gson;
+import com.google.inject.Guice;
+import com.google.inject.testing.fieldbinder.Bind;
+import com.google.inject.testing.fieldbinder.BoundFieldModule;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.inject.Inject;
+import okhttp3.Dispatcher;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import static net.runelite.client.hiscore.HiscoreClientTest.RESPONSE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class HiscoreManagerTest
+{
+	@Rule
+	public final MockWebServer server = new MockWebServer();
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Bind
+	public Gson gson = new Gson();
+
+	@Bind
+	public OkHttpClient okHttpClient;
+
+	@Inject
+	private HiscoreClient hiscoreClient;
+
+	private final AtomicLong clock = new AtomicLong(1_000_000_000L);
+	private File cacheFile;
+	private HiscoreManager hiscoreManager;
+
+	@Before
+	public void before() throws IOException
+	{
+		Dispatcher dispatcher = new Dispatcher();
+		dispatcher.setMaxRequestsPerHost(64);
+
+		// send requests for the real hiscore endpoints to the stand-in server
+		okHttpClient = new OkHttpClient.Builder()
+			.dispatcher(dispatcher)
+			.addInterceptor(chain ->
+			{
+				Request request = chain.request();
+				HttpUrl url = request.url().newBuilder()
+					.scheme("http")
+					.host(server.getHostName())
+					.port(server.getPort())
+					.build();
+				return chain.proceed(request.newBuilder().url(url).build());
+			})
+			.build();
+
+		Guice.createInjector(BoundFieldModule.of(this)).injectMembers(this);
+
+		cacheFile = new File(folder.getRoot(), "hiscores");
+		hiscoreManager = new HiscoreManager(hiscoreClient, cacheFile, clock::get);
+	}
+
+	@Test
+	public void testCoalescing() throws Exception
+	{
+		server.enqueue(new MockResponse().setBody(RESPONSE).setBodyDelay(200, TimeUnit.MILLISECONDS));
+
+		assertNull(hiscoreManager.lookupAsync("zezima", HiscoreEndpoint.NORMAL));
+		assertNull(hiscoreManager.lookupAsync("zezima", HiscoreEndpoint.NORMAL));
+		HiscoreResult result = hiscoreManager.lookup("zezima", HiscoreEndpoint.NORMAL);
+
+		assertEquals(50, result.getSkill(HiscoreSkill.ATTACK).getLevel());
+		assertSame(result, hiscoreManager.lookupAsync("zezima", HiscoreEndpoint.NORMAL));
+		assertSame(result, hiscoreManager.lookup("zezima", HiscoreEndpoint.NORMAL));
+		assertEquals(1, server.getRequestCount());
+	}
+
+	@Test
+	public void testConcurrencyBound() throws Exception
+	{
+		final int players = 12;
+		AtomicInteger active = new AtomicInteger();
+		AtomicInteger maxActive = new AtomicInteger();
+		server.setDispatcher(new okhttp3.mockwebserver.Dispatcher()
+		{
+			@Override
+			public MockResponse dispatch(RecordedRequest request) throws InterruptedException
+			{
+				maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+				Thread.sleep(50);
+				active.decrementAndGet();
+				return new MockResponse().setBody(RESPONSE);
+			}
+		});
+
+		for (int i = 0; i < players; ++i)
+		{
+			hiscoreManager.lookupAsync("player" + i, HiscoreEndpoint.NORMAL);
+		}
+		for (int i = 0; i < players; ++i)
+		{
+			assertNotNull(hiscoreManager.lookup("player" + i, HiscoreEndpoint.NORMAL));
+		}
+
+		assertEquals(players, server.getRequestCount());
+		assertTrue("max active " + maxActive.get(), maxActive.get() <= HiscoreManager.MAX_CONCURRENT_LOOKUPS);
+	}
+
+	@Test
+	public void testQueuedLookupOnSingleThreadExecutor() throws Exception
+	{
+		for (int i = 0; i <= HiscoreManager.MAX_CONCURRENT_LOOKUPS; ++i)
+		{
+			server.enqueue(new MockResponse().setBody(RESPONSE).setBodyDelay(50, TimeUnit.MILLISECONDS));
+		}
+
+		for (int i = 0; i < HiscoreManager.MAX_CONCURRENT_LOOKUPS; ++i)
+		{
+			hiscoreManager.lookupAsync("player" + i, HiscoreEndpoint.NORMAL);
+		}
+
+		// a synchronous lookup which has to queue must not need the thread it is blocking to start
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try
+		{
+			Future<HiscoreResult> result = executor.submit(() -> hiscoreManager.lookup("zezima", HiscoreEndpoint.NORMAL));
+			assertNotNull(result.get(30, TimeUnit.SECONDS));
+		}
+		finally
+		{
+			executor.shutdownNow();
+		}
+		assertEquals(HiscoreManager.MAX_CONCURRENT_LOOKUPS + 1, server.getRequestCount());
+	}
+
+	@Test
+	public void testRevalidation() throws Exception
+	{
+		server.enqueue(new MockResponse().setBody(RESPONSE).setHeader("ETag", "\"abc\""));
+		server.enqueue(new MockResponse().setResponseCode(304));
+
+		HiscoreResult result = hiscoreManager.lookup("zezima", HiscoreEndpoint.NORMAL);
+		assertNull(server.takeRequest().getHeader("If-None-Match"));
+
+		clock.addAndGet(HiscoreManager.FRESH_MILLIS);
+		assertSame(result, hiscoreManager.lookup("zezima", HiscoreEndpoint.NORMAL));
+		assertEquals("\"abc\"", server.takeRequest().getHeader("If-None-Match"));
+
+		// revalidated, so fresh again
+		assertSame(result, hiscoreManager.lookup("zezima", HiscoreEndpoint.NORMAL));
+		assertEquals(2, server.getRequestCount());
+	}
+
+	@Test
+	public void testStaleWhileRevalidate() throws Exception
+	{
+		server.enqueue(new MockResponse().setBody(RESPONSE));
+		server.enqueue(new MockResponse().setBody(RESPONSE.replace("679419,50", "679419,51")));
+
+		HiscoreResult result = hiscoreManager.lookup("zezima", HiscoreEndpoint.NORMAL);
+		clock.addAndGet(HiscoreManager.FRESH_MILLIS);
+
+		// the stale result is returned while the new one is fetched
+		assertSame(result, hiscoreManager.lookupAsync("zezima", HiscoreEndpoint.NORMAL));
+		HiscoreResult updated = hiscoreManager.lookup("zezima", HiscoreEndpoint.NORMAL);
+		assertEquals(51, updated.getSkill(HiscoreSkill.ATTACK).getLevel());
+		assertEquals(2, server.getRequestCount());
+	}
+
+	@Test
+	public void testNotFound() throws Exception
+	{
+		server.enqueue(new MockResponse().setResponseCode(404));
+
+		assertNull(hiscoreManager.lookup("zezima", HiscoreEndpoint.NORMAL));
+		assertNull(hiscoreManager.lookupAsync("zezima", HiscoreEndpoint.NORMAL));
+		assertEquals(1, server.getRequestCount());
+	}
+
+	@Test
+	public void testFailureRetry() throws Exception
+	{
+		server.enqueue(new MockResponse().setResponseCode(500));
+		server.enqueue(new MockResponse().setBody(RESPONSE));
+
+		try
+		{
+			hiscoreManager.lookup("zezima", HiscoreEndpoint.NORMAL);
+			fail();
+		}
+		catch (IOException ex)
+		{
+			// expected
+		}
+
+		// failed async lookups are not retried immediately
+		assertNull(hiscoreManager.lookupAsync("zezima", HiscoreEndpoint.NORMAL));
+		assertEquals(1, server.getRequestCount());
+
+		// but the failure is not cached for synchronous lookups
+		assertNotNull(hiscoreManager.lookup("zezima", HiscoreEndpoint.NORMAL));
+		assertEquals(2, server.getRequestCount());
+	}
+
+	@Test
+	public void testFailureRetryAsync() throws Exception
+	{
+		server.enqueue(new MockResponse().setBody(RESPONSE));
+		server.enqueue(new MockResponse().setResponseCode(500));
+		server.enqueue(new MockResponse().setBody(RESPONSE.replace("679419,50", "679419,51")));
+
+		HiscoreResult result = hiscoreManager.lookup("zezima", HiscoreEndpoint.NORMAL);
+		clock.addAndGet(HiscoreManager.FRESH_MILLIS);
+
+		try
+		{
+			hiscoreManager.lookup("zezima", HiscoreEndpoint.NORMAL);
+			fail();
+		}
+		catch (IOException ex)
+		{
+			// expected
+		}
+
+		// the previous result is served until the retry
+		assertSame(result, hiscoreManager.lookupAsync("zezima", HiscoreEndpoint.NORMAL));
+		assertEquals(2, server.getRequestCount());
+
+		clock.addAndGet(HiscoreManager.RETRY_MILLIS);
+		assertSame(result, hiscoreManager.lookupAsync("zezima", HiscoreEndpoint.NORMAL));
+		assertEquals(51, hiscoreManager.lookup("zezima", HiscoreEndpoint.NORMAL).getSkill(HiscoreSkill.ATTACK).getLevel());
+		assertEquals(3, server.getRequestCount());
+	}
+
+	@Test
+	public void testPersistence() throws Exception
+	{
+		server.enqueue(new MockResponse().setBody(RESPONSE).setHeader("ETag", "\"abc\""));
+		server.enqueue(new MockResponse().setResponseCode(304));
+
+		HiscoreResult result = hiscoreManager.lookup("zezima", HiscoreEndpoint.NORMAL);
+		hiscoreManager.save();
+
+		HiscoreManager restarted = new HiscoreManager(hiscoreClient, cacheFile, clock::get);
+		restarted.load();
+		assertEquals(result, restarted.lookup("zezima", HiscoreEndpoint.NORMAL));
+		assertEquals(1, server.getRequestCount());
+
+		// the etag is persisted too
+		clock.addAndGet(HiscoreManager.FRESH_MILLIS);
+		assertEquals(result, restarted.lookup("zezima", HiscoreEndpoint.NORMAL));
+		server.takeRequest();
+		assertEquals("\"abc\"", server.takeRequest().getHeader("If-None-Match"));
+	}
+}
@@ -0,0 +1,355 @@
+/*
+ * Copyright (c) 2022, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.party;
+
+import com.google.gson.Gson;
+import com.google.inject.Guice;
+import com.google.inject.testing.fieldbinder.Bind;
+import com.google.inject.testing.fieldbinder.BoundFieldModule;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.inject.Inject;
+import javax.inject.Named;
+import net.runelite.api.coords.WorldPoint;
+import net.runelite.client.eventbus.EventBus;
+import net.runelite.client.party.events.UserJoin;
+import net.runelite.client.party.messages.BinaryFrameSupport;
+import net.runelite.client.party.messages.PartyChatMessage;
+import net.runelite.client.party.messages.PartyMemberMessage;
+import net.runelite.client.party.messages.WebsocketMessage;
+import net.runelite.client.plugins.party.messages.LocationUpdate;
+import net.runelite.client.plugins.party.messages.LocationUpdateCodec;
+import net.runelite.client.plugins.party.messages.StatusUpdate;
+import net.runelite.client.plugins.party.messages.StatusUpdateCodec;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.Response;
+import okhttp3.WebSocket;
+import okhttp3.WebSocketListener;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okio.ByteString;
+import org.junit.After;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import static org.mockito.ArgumentMatchers.any;
+import org.mockito.Mock;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import org.mockito.junit.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class WSClientTest
+{
+	private static final long MEMBER_ID = 42;
+
+	@Rule
+	public final MockWebServer server = new MockWebServer();
+
+	@Mock
+	@Bind
+	EventBus eventBus;
+
+	@Mock
+	@Bind
+	ScheduledExecutorService executor;
+
+	@Bind
+	OkHttpClient okHttpClient = new OkHttpClient();
+
+	@Bind
+	@Named("runelite.ws")
+	HttpUrl runeliteWs;
+
+	@Inject
+	WSClient wsClient;
+
+	/**
+	 * Data frames the stand-in server has received
+	 */
+	private final List<byte[]> frames = new CopyOnWriteArrayList<>();
+	/**
+	 * The stand-in server's end of the websocket
+	 */
+	private final CompletableFuture<WebSocket> serverSocket = new CompletableFuture<>();
+
+	@Before
+	public void before()
+	{
+		// a stand-in for the party server, which relays data back from a fixed member id
+		server.enqueue(new MockResponse().withWebSocketUpgrade(new WebSocketListener()
+		{
+			@Override
+			public void onOpen(WebSocket webSocket, Response response)
+			{
+				serverSocket.complete(webSocket);
+			}
+
+			@Override
+			public void onMessage(WebSocket webSocket, ByteString bytes)
+			{
+				try
+				{
+					Party.C2S c2s = Party.C2S.parseFrom(bytes.toByteArray());
+					if (c2s.getMsgCase() != Party.C2S.MsgCase.DATA)
+					{
+						return;
+					}
+
+					frames.add(c2s.getData().getData().toByteArray());
+					Party.S2C s2c = Party.S2C.newBuilder()
+						.setData(Party.PartyData.newBuilder()
+							.setMemberId(MEMBER_ID)
+							.setData(c2s.getData().getData()))
+						.build();
+					webSocket.send(ByteString.of(s2c.toByteArray()));
+				}
+				catch (Exception e)
+				{
+					throw new RuntimeException(e);
+				}
+			}
+
+			@Override
+			public void onClosing(WebSocket webSocket, int code, String reason)
+			{
+				webSocket.close(code, null);
+			}
+		}));
+		runeliteWs = server.url("/ws");
+
+		Guice.createInjector(BoundFieldModule.of(this)).injectMembers(this);
+
+		wsClient.registerBinaryMessage(LocationUpdate.class, 1, new LocationUpdateCodec());
+		wsClient.registerBinaryMessage(StatusUpdate.class, 2, new StatusUpdateCodec());
+		wsClient.changeSession(UUID.randomUUID());
+	}
+
+	@After
+	public void after()
+	{
+		wsClient.changeSession(null);
+	}
+
+	@Test
+	public void testCoalescedFrame() throws Exception
+	{
+		joinBinaryMember();
+
+		wsClient.send(new LocationUpdate(new WorldPoint(3200, 3200, 0)));
+		wsClient.send(new LocationUpdate(new WorldPoint(3201, 3202, 0)));
+		wsClient.send(new StatusUpdate(null, 10, null, null, null, null, null, null));
+		wsClient.send(new StatusUpdate("Zezima", null, null, 5, null, null, null, true));
+		wsClient.flush();
+
+		List<WebsocketMessage> messages = received(2);
+		assertEquals(1, binaryFrames().size());
+
+		LocationUpdate location = (LocationUpdate) messages.get(0);
+		assertEquals(new WorldPoint(3201, 3202, 0), location.getWorldPoint());
+		assertEquals(MEMBER_ID, location.getMemberId());
+
+		StatusUpdate status = (StatusUpdate) messages.get(1);
+		assertEquals("Zezima", status.getCharacterName());
+		assertEquals(Integer.valueOf(10), status.getHealthCurrent());
+		assertEquals(Integer.valueOf(5), status.getPrayerCurrent());
+		assertNull(status.getHealthMax());
+		assertEquals(Boolean.TRUE, status.getVengeanceActive());
+
+		// the next frame is a delta against the first
+		wsClient.send(new LocationUpdate(new WorldPoint(3203, 3201, 0)));
+		wsClient.flush();
+
+		messages = received(3);
+		assertEquals(new WorldPoint(3203, 3201, 0), ((LocationUpdate) messages.get(2)).getWorldPoint());
+		List<byte[]> binaryFrames = binaryFrames();
+		assertTrue(binaryFrames.get(1).length < binaryFrames.get(0).length);
+	}
+
+	@Test
+	public void testNoOtherMembers()
+	{
+		// nobody has said it can decode binary frames yet, so updates are sent as json
+		wsClient.send(new LocationUpdate(new WorldPoint(3200, 3200, 0)));
+		wsClient.flush();
+		verify(eventBus, timeout(5000)).post(any(LocationUpdate.class));
+		assertTrue(frames.stream().anyMatch(f -> f[0] == '{' && new String(f, StandardCharsets.UTF_8).contains("LocationUpdate")));
+		assertTrue(binaryFrames().isEmpty());
+	}
+
+	/**
+	 * Have the member the stand-in server relays data from join the party, and say it can decode binary frames
+	 */
+	private void joinBinaryMember() throws Exception
+	{
+		final Gson gson = WebsocketGsonFactory.build();
+		final WebSocket socket = serverSocket.get(5, TimeUnit.SECONDS);
+
+		socket.send(ByteString.of(Party.S2C.newBuilder()
+			.setJoin(Party.UserJoin.newBuilder().setPartyId(1).setMemberId(MEMBER_ID))
+			.build().toByteArray()));
+		// followed by a chat message to know when it has been read
+		sendData(socket, MEMBER_ID, gson.toJson(new BinaryFrameSupport(), WebsocketMessage.class));
+		sendData(socket, MEMBER_ID, gson.toJson(new PartyChatMessage("hi"), WebsocketMessage.class));
+		verify(eventBus, timeout(5000)).post(any(PartyChatMessage.class));
+		clearInvocations(eventBus);
+	}
+
+	private List<byte[]> binaryFrames()
+	{
+		List<byte[]> binaryFrames = new ArrayList<>();
+		for (byte[] frame : frames)
+		{
+			if (frame[0] == BinaryFrameCodec.FRAME_MAGIC)
+			{
+				binaryFrames.add(frame);
+			}
+		}
+		return binaryFrames;
+	}
+
+	@Test
+	public void testMixedVersionParty() throws Exception
+	{
+		final long otherMember = 7;
+		final Gson gson = WebsocketGsonFactory.build();
+		final WebSocket socket = serverSocket.get(5, TimeUnit.SECONDS);
+
+		// a member joins, which hasn't said it can decode binary frames
+		socket.send(ByteString.of(Party.S2C.newBuilder()
+			.setJoin(Party.UserJoin.newBuilder().setPartyId(1).setMemberId(otherMember))
+			.build().toByteArray()));
+		verify(eventBus, timeout(5000)).post(any(UserJoin.class));
+
+		// so location updates are sent as json
+		wsClient.send(new LocationUpdate(new WorldPoint(3200, 3200, 0)));
+		wsClient.flush();
+		verify(eventBus, timeout(5000)).post(any(LocationUpdate.class));
+		assertTrue(frames.stream().anyMatch(f -> f[0] == '{' && new String(f, StandardCharsets.UTF_8).contains("LocationUpdate")));
+		assertTrue(frames.stream().noneMatch(f -> f[0] == BinaryFrameCodec.FRAME_MAGIC));
+
+		// the member says it supports binary frames, followed by a chat message to know when it has been read
+		sendData(socket, otherMember, gson.toJson(new BinaryFrameSupport(), WebsocketMessage.class));
+		sendData(socket, otherMember, gson.toJson(new PartyChatMessage("hi"), WebsocketMessage.class));
+		verify(eventBus, timeout(5000)).post(any(PartyChatMessage.class));
+
+		wsClient.send(new LocationUpdate(new WorldPoint(3201, 3200, 0)));
+		wsClient.flush();
+		verify(eventBus, timeout(5000).times(2)).post(any(LocationUpdate.class));
+		assertTrue(frames.stream().anyMatch(f -> f[0] == BinaryFrameCodec.FRAME_MAGIC));
+
+		// once it leaves, a member without binary support joining goes back to json
+		socket.send(ByteString.of(Party.S2C.newBuilder()
+			.setPart(Party.UserPart.newBuilder().setMemberId(otherMember))
+			.build().toByteArray()));
+		socket.send(ByteString.of(Party.S2C.newBuilder()
+			.setJoin(Party.UserJoin.newBuilder().setPartyId(1).setMemberId(otherMember + 1))
+			.build().toByteArray()));
+		verify(eventBus, timeout(5000).times(2)).post(any(UserJoin.class));
+
+		final int binaryFrames = (int) frames.stream().filter(f -> f[0] == BinaryFrameCodec.FRAME_MAGIC).count();
+		wsClient.send(new LocationUpdate(new WorldPoint(3202, 3200, 0)));
+		wsClient.flush();
+		verify(eventBus, timeout(5000).times(3)).post(any(LocationUpdate.class));
+		assertEquals(binaryFrames, frames.stream().filter(f -> f[0] == BinaryFrameCodec.FRAME_MAGIC).count());
+	}
+
+	private static void sendData(WebSocket socket, long memberId, String json)
+	{
+		socket.send(ByteString.of(Party.S2C.newBuilder()
+			.setData(Party.PartyData.newBuilder()
+				.setMemberId(memberId)
+				.setData(com.google.protobuf.ByteString.copyFromUtf8(json)))
+			.build().toByteArray()));
+	}
+
+	@Test
+	public void testPartyTraffic()
+	{
+		// 10 members each moving and taking damage every tick for a minute
+		final int members = 10;
+		final int ticks = 100;
+
+		Gson gson = WebsocketGsonFactory.build(WebsocketGsonFactory.factory(Arrays.asList(LocationUpdate.class, StatusUpdate.class)));
+		List<BinaryFrameCodec> codecs = new ArrayList<>();
+		for (int m = 0; m < members; ++m)
+		{
+			BinaryFrameCodec codec = new BinaryFrameCodec();
+			codec.register(LocationUpdate.class, 1, new LocationUpdateCodec());
+			codec.register(StatusUpdate.class, 2, new StatusUpdateCodec());
+			codecs.add(codec);
+		}
+		BinaryFrameCodec receiver = new BinaryFrameCodec();
+		receiver.register(LocationUpdate.class, 1, new LocationUpdateCodec());
+		receiver.register(StatusUpdate.class, 2, new StatusUpdateCodec());
+
+		long jsonBytes = 0, binaryBytes = 0;
+		for (int tick = 0; tick < ticks; ++tick)
+		{
+			for (int m = 0; m < members; ++m)
+			{
+				LocationUpdate location = new LocationUpdate(new WorldPoint(3200 + tick, 3200 + m, 0));
+				StatusUpdate status = new StatusUpdate(null, 99 - tick % 50, null, 70 - tick % 30, null, null, null, null);
+
+				jsonBytes += gson.toJson(location, WebsocketMessage.class).length()
+					+ gson.toJson(status, WebsocketMessage.class).length();
+
+				BinaryFrameCodec codec = codecs.get(m);
+				codec.queue(location);
+				codec.queue(status);
+				byte[] frame = codec.flush();
+				binaryBytes += frame.length;
+
+				List<PartyMemberMessage> decoded = receiver.decode(m, frame);
+				assertEquals(2, decoded.size());
+				assertEquals(location.getWorldPoint(), ((LocationUpdate) decoded.get(0)).getWorldPoint());
+				assertEquals(status.getHealthCurrent(), ((StatusUpdate) decoded.get(1)).getHealthCurrent());
+			}
+		}
+
+		assertTrue("binary " + binaryBytes + " bytes, json " + jsonBytes + " bytes", binaryBytes * 4 < jsonBytes);
+	}
+
+	private List<WebsocketMessage> received(int count)
+	{
+		ArgumentCaptor<WebsocketMessage> captor = ArgumentCaptor.forClass(WebsocketMessage.class);
+		verify(eventBus, timeout(5000).atLeast(count)).post(captor.capture());
+		return captor.getAllValues();
+	}
+}
@@ -27,17 +27,20 @@ package net.runelite.client.plugins.banktags;
 import com.google.inject.Guice;
 import com.google.inject.testing.fieldbinder.Bind;
 import com.google.inject.testing.fieldbinder.BoundFieldModule;
+import java.util.Collections;
 import javax.inject.Inject;
 import net.runelite.api.Client;
 import static net.runelite.api.ItemID.ABYSSAL_WHIP;
 import net.runelite.api.events.ScriptCallbackEvent;
 import net.runelite.client.config.ConfigManager;
 import net.runelite.client.config.RuneLiteConfig;
+import net.runelite.client.events.ConfigChanged;
 import net.runelite.client.game.ItemManager;
 import net.runelite.client.plugins.banktags.tabs.TabInterface;
 import net.runelite.client.plugins.cluescrolls.ClueScrollService;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -102,22 +105,19 @@ public class BankTagsPluginTest
 		when(client.getIntStack()).thenReturn(new int[]{0, ABYSSAL_WHIP});
 		when(client.getStringStack()).thenReturn(new String[]{"tag:whip"});
 
-		when(configManager.getConfiguration(BankTagsPlugin.CONFIG_GROUP,
-			TagManager.ITEM_KEY_PREFIX + ABYSSAL_WHIP)).thenReturn("herb,bossing,whip");
+		loadTags("herb,bossing,whip");
 		bankTagsPlugin.onScriptCallbackEvent(EVENT);
 		assertEquals(1, client.getIntStack()[0]);
 
 		// Search should be found at the start of the tag
 		when(client.getIntStack()).thenReturn(new int[]{0, ABYSSAL_WHIP});
-		when(configManager.getConfiguration(BankTagsPlugin.CONFIG_GROUP,
-			TagManager.ITEM_KEY_PREFIX + ABYSSAL_WHIP)).thenReturn("herb,bossing,whip long tag");
+		changeTags("herb,bossing,whip long tag");
 		bankTagsPlugin.onScriptCallbackEvent(EVENT);
 		assertEquals(1, client.getIntStack()[0]);
 
 		// Search should not be be found in the middle of the tag
 		// and explicit search does not allow fall through
-		when(configManager.getConfiguration(BankTagsPlugin.CONFIG_GROUP,
-			TagManager.ITEM_KEY_PREFIX + ABYSSAL_WHIP)).thenReturn("herb,bossing whip");
+		changeTags("herb,bossing whip");
 		bankTagsPlugin.onScriptCallbackEvent(EVENT);
 		assertEquals(0, client.getIntStack()[0]);
 	}
@@ -128,8 +128,7 @@ public class BankTagsPluginTest
 		when(client.getIntStack()).thenReturn(new int[]{1, ABYSSAL_WHIP});
 		when(client.getStringStack()).thenReturn(new String[]{"whip"});
 
-		when(configManager.getConfiguration(BankTagsPlugin.CONFIG_GROUP,
-			TagManager.ITEM_KEY_PREFIX + ABYSSAL_WHIP)).thenReturn("herb,bossing");
+		loadTags("herb,bossing");
 
 		assertFalse(tagManager.findTag(ABYSSAL_WHIP, "whip"));
 		bankTagsPlugin.onScriptCallbackEvent(EVENT);
@@ -142,10 +141,49 @@ public class BankTagsPluginTest
 		when(client.getIntStack()).thenReturn(new int[]{0, ABYSSAL_WHIP});
 		when(client.getStringStack()).thenReturn(new String[]{"whip"});
 
-		when(configManager.getConfiguration(BankTagsPlugin.CONFIG_GROUP,
-			TagManager.ITEM_KEY_PREFIX + ABYSSAL_WHIP)).thenReturn("herb,bossing,whip long tag");
+		loadTags("herb,bossing,whip long tag");
 
 		bankTagsPlugin.onScriptCallbackEvent(EVENT);
 		assertEquals(1, client.getIntStack()[0]);
 	}
+
+	@Test
+	public void testTagIndex()
+	{
+		loadTags("herb,bossing");
+		assertEquals(Collections.singletonList(ABYSSAL_WHIP), tagManager.getItemsForTag("bossing"));
+		assertTrue(tagManager.findTag(ABYSSAL_WHIP, "boss"));
+
+		changeTags("herb,slayer");
+		assertEquals(Collections.emptyList(), tagManager.getItemsForTag("bossing"));
+		assertFalse(tagManager.findTag(ABYSSAL_WHIP, "boss"));
+		assertTrue(tagManager.findTag(ABYSSAL_WHIP, "SLAY"));
+
+		changeTags(null);
+		assertEquals(Collections.emptyList(), tagManager.getItemsForTag("herb"));
+		assertTrue(tagManager.getTags(ABYSSAL_WHIP, false).isEmpty());
+	}
+
+	/**
+	 * Set the tags in the config the index is first read from
+	 */
+	private void loadTags(String tags)
+	{
+		final String prefix = BankTagsPlugin.CONFIG_GROUP + "." + TagManager.ITEM_KEY_PREFIX;
+		when(configManager.getConfigurationKeys(prefix)).thenReturn(Collections.singletonList(prefix + ABYSSAL_WHIP));
+		when(configManager.getConfiguration(BankTagsPlugin.CONFIG_GROUP,
+			TagManager.ITEM_KEY_PREFIX + ABYSSAL_WHIP)).thenReturn(tags);
+	}
+
+	/**
+	 * Change the tags as the config manager would, by posting a config change
+	 */
+	private void changeTags(String tags)
+	{
+		ConfigChanged configChanged = new ConfigChanged();
+		configChanged.setGroup(BankTagsPlugin.CONFIG_GROUP);
+		configChanged.setKey(TagManager.ITEM_KEY_PREFIX + ABYSSAL_WHIP);
+		configChanged.setNewValue(tags);
+		bankTagsPlugin.onConfigChanged(configChanged);
+	}
 }
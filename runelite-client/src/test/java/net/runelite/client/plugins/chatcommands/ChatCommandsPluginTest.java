@@ -66,8 +66,8 @@ import net.runelite.client.config.ChatColorConfig;
 import net.runelite.client.config.ConfigManager;
 import net.runelite.client.config.RuneLiteConfig;
 import net.runelite.client.game.ItemManager;
-import net.runelite.client.hiscore.HiscoreClient;
 import net.runelite.client.hiscore.HiscoreEndpoint;
+import net.runelite.client.hiscore.HiscoreManager;
 import net.runelite.client.hiscore.HiscoreResult;
 import net.runelite.client.hiscore.HiscoreSkill;
 import net.runelite.client.hiscore.Skill;
@@ -124,7 +124,7 @@ public class ChatCommandsPluginTest
 
 	@Mock
 	@Bind
-	HiscoreClient hiscoreClient;
+	HiscoreManager hiscoreManager;
 
 	@Mock
 	@Bind
@@ -674,7 +674,7 @@ public class ChatCommandsPluginTest
 		HiscoreResult hiscoreResult = new HiscoreResult(PLAYER_NAME,
 			ImmutableMap.of(HiscoreSkill.CHAMBERS_OF_XERIC_CHALLENGE_MODE, new Skill(10, 1000, -1)));
 
-		when(hiscoreClient.lookup(eq(PLAYER_NAME), nullable(HiscoreEndpoint.class))).thenReturn(hiscoreResult);
+		when(hiscoreManager.lookup(eq(PLAYER_NAME), nullable(HiscoreEndpoint.class))).thenReturn(hiscoreResult);
 
 		MessageNode messageNode = mock(MessageNode.class);
 
@@ -0,0 +1,465 @@
+/*
+ * Copyright (c) 2022, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.plugins.gpu;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Proxy;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import net.runelite.api.Client;
+import net.runelite.api.Constants;
+import net.runelite.api.GameObject;
+import net.runelite.api.Model;
+import net.runelite.api.Point;
+import net.runelite.api.Scene;
+import net.runelite.api.SceneTileModel;
+import net.runelite.api.SceneTilePaint;
+import net.runelite.api.Tile;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+
+public class SceneUploaderTest
+{
+	@Test
+	public void testUpload()
+	{
+		Random random = new Random(42);
+		Client client = fakeClient(random);
+		SyntheticScene scene = new SyntheticScene(random, 32);
+
+		SceneUploader sequential = new SceneUploader(client, 0);
+		GpuIntBuffer sequentialVertices = new GpuIntBuffer();
+		GpuFloatBuffer sequentialUvs = new GpuFloatBuffer();
+		sequential.upload(scene.scene, sequentialVertices, sequentialUvs);
+		sequentialVertices.flip();
+		sequentialUvs.flip();
+
+		SceneUploader parallel = new SceneUploader(client, 3);
+		GpuIntBuffer vertexBuffer = new GpuIntBuffer();
+		GpuFloatBuffer uvBuffer = new GpuFloatBuffer();
+		// the second upload reuses the staging buffers
+		parallel.upload(scene.scene, vertexBuffer, uvBuffer);
+		parallel.upload(scene.scene, vertexBuffer, uvBuffer);
+		vertexBuffer.flip();
+		uvBuffer.flip();
+
+		// zones are concatenated in order, so the layout doesn't depend on which thread packed them
+		assertEquals(sequentialVertices.getBuffer(), vertexBuffer.getBuffer());
+		assertEquals(sequentialUvs.getBuffer(), uvBuffer.getBuffer());
+
+		// every paint, tile model and model is in the buffers once, at its buffer offset
+		int vertexCount = 0;
+		int uvCount = 0;
+		for (int i = 0; i < scene.paints.size(); ++i)
+		{
+			SceneTilePaint paint = scene.paints.get(i);
+			Tile tile = scene.paintTiles.get(i);
+			GpuIntBuffer expectedVertices = new GpuIntBuffer();
+			GpuFloatBuffer expectedUvs = new GpuFloatBuffer();
+			int len = parallel.upload(paint, tile.getRenderLevel(), tile.getSceneLocation().getX(), tile.getSceneLocation().getY(),
+				expectedVertices, expectedUvs, 0, 0, false);
+			assertEquals(len, paint.getBufferLen());
+			assertRange(expectedVertices.getBuffer(), vertexBuffer.getBuffer(), paint.getBufferOffset(), len);
+			if (paint.getTexture() != -1)
+			{
+				assertRange(expectedUvs.getBuffer(), uvBuffer.getBuffer(), paint.getUvBufferOffset(), len);
+				uvCount += len;
+			}
+			vertexCount += len;
+		}
+
+		for (int i = 0; i < scene.tileModels.size(); ++i)
+		{
+			SceneTileModel tileModel = scene.tileModels.get(i);
+			Tile tile = scene.tileModelTiles.get(i);
+			GpuIntBuffer expectedVertices = new GpuIntBuffer();
+			GpuFloatBuffer expectedUvs = new GpuFloatBuffer();
+			int len = parallel.upload(tileModel, tile.getSceneLocation().getX(), tile.getSceneLocation().getY(),
+				expectedVertices, expectedUvs, 0, 0, false);
+			assertEquals(len, tileModel.getBufferLen());
+			assertRange(expectedVertices.getBuffer(), vertexBuffer.getBuffer(), tileModel.getBufferOffset(), len);
+			if (tileModel.getTriangleTextureId() != null)
+			{
+				assertRange(expectedUvs.getBuffer(), uvBuffer.getBuffer(), tileModel.getUvBufferOffset(), len);
+				uvCount += len;
+			}
+			vertexCount += len;
+		}
+
+		for (Model model : scene.models)
+		{
+			GpuIntBuffer expectedVertices = new GpuIntBuffer();
+			GpuFloatBuffer expectedUvs = new GpuFloatBuffer();
+			int len = parallel.pushModel(model, expectedVertices, expectedUvs);
+			assertRange(expectedVertices.getBuffer(), vertexBuffer.getBuffer(), model.getBufferOffset(), len);
+			if (model.getFaceTextures() != null)
+			{
+				assertRange(expectedUvs.getBuffer(), uvBuffer.getBuffer(), model.getUvBufferOffset(), len);
+				uvCount += len;
+			}
+			else
+			{
+				assertEquals(-1, model.getUvBufferOffset());
+			}
+			vertexCount += len;
+		}
+
+		assertEquals(vertexCount * 4, vertexBuffer.getBuffer().limit());
+		assertEquals(uvCount * 4, uvBuffer.getBuffer().limit());
+	}
+
+	@Test
+	public void testRelease()
+	{
+		Random random = new Random(42);
+		Client client = fakeClient(random);
+		SyntheticScene scene = new SyntheticScene(random, 16);
+
+		SceneUploader sequential = new SceneUploader(client, 0);
+		GpuIntBuffer expected = new GpuIntBuffer();
+		sequential.upload(scene.scene, expected, new GpuFloatBuffer());
+		expected.flip();
+
+		// the helper threads are started again after being stopped
+		SceneUploader parallel = new SceneUploader(client, 3);
+		for (int i = 0; i < 2; ++i)
+		{
+			GpuIntBuffer vertexBuffer = new GpuIntBuffer();
+			parallel.upload(scene.scene, vertexBuffer, new GpuFloatBuffer());
+			parallel.releaseStagingBuffers();
+			vertexBuffer.flip();
+			assertEquals(expected.getBuffer(), vertexBuffer.getBuffer());
+		}
+	}
+
+	@Test
+	public void testFailedUpload() throws InterruptedException
+	{
+		Random random = new Random(42);
+		Client client = fakeClient(random);
+		SyntheticScene scene = new SyntheticScene(random, 16);
+
+		// tiles fail to pack on the uploading thread, and are slow to pack on the helpers
+		final Thread uploadThread = Thread.currentThread();
+		final AtomicInteger helperCalls = new AtomicInteger();
+		Tile[][][] tiles = scene.scene.getTiles();
+		for (Tile[][] plane : tiles)
+		{
+			for (Tile[] row : plane)
+			{
+				for (int y = 0; y < row.length; ++y)
+				{
+					final Tile tile = row[y];
+					if (tile == null)
+					{
+						continue;
+					}
+
+					row[y] = (Tile) Proxy.newProxyInstance(Tile.class.getClassLoader(), new Class<?>[]{Tile.class}, (proxy, method, args) ->
+					{
+						if (method.getName().equals("getSceneTilePaint"))
+						{
+							if (Thread.currentThread() == uploadThread)
+							{
+								throw new IllegalStateException();
+							}
+							helperCalls.incrementAndGet();
+							Thread.sleep(1);
+						}
+						return method.invoke(tile, args);
+					});
+				}
+			}
+		}
+
+		SceneUploader uploader = new SceneUploader(client, 3);
+		try
+		{
+			uploader.upload(scene.scene, new GpuIntBuffer(), new GpuFloatBuffer());
+			fail();
+		}
+		catch (IllegalStateException ex)
+		{
+			// expected
+		}
+
+		// the helpers have stopped by the time the upload fails
+		int calls = helperCalls.get();
+		Thread.sleep(50);
+		assertEquals(calls, helperCalls.get());
+		uploader.releaseStagingBuffers();
+	}
+
+	private static void assertRange(IntBuffer expected, IntBuffer actual, int offset, int len)
+	{
+		for (int i = 0; i < len * 4; ++i)
+		{
+			assertEquals(expected.get(i), actual.get(offset * 4 + i));
+		}
+	}
+
+	private static void assertRange(FloatBuffer expected, FloatBuffer actual, int offset, int len)
+	{
+		for (int i = 0; i < len * 4; ++i)
+		{
+			assertEquals(expected.get(i), actual.get(offset * 4 + i), 0f);
+		}
+	}
+
+	private static Client fakeClient(Random random)
+	{
+		int[][][] tileHeights = new int[Constants.MAX_Z][Constants.SCENE_SIZE + 1][Constants.SCENE_SIZE + 1];
+		for (int[][] plane : tileHeights)
+		{
+			for (int[] column : plane)
+			{
+				for (int y = 0; y < column.length; ++y)
+				{
+					column[y] = -random.nextInt(512);
+				}
+			}
+		}
+		return fake(Client.class, "TileHeights", tileHeights);
+	}
+
+	/**
+	 * A scene with a paint on every tile of the bottom plane, a few tile models, and models on the tiles of
+	 * both planes, some of which span several tiles
+	 */
+	private static class SyntheticScene
+	{
+		private final Scene scene;
+		private final List<Tile> paintTiles = new ArrayList<>();
+		private final List<SceneTilePaint> paints = new ArrayList<>();
+		private final List<Tile> tileModelTiles = new ArrayList<>();
+		private final List<SceneTileModel> tileModels = new ArrayList<>();
+		private final List<Model> models = new ArrayList<>();
+
+		private SyntheticScene(Random random, int faces)
+		{
+			Tile[][][] tiles = new Tile[Constants.MAX_Z][Constants.SCENE_SIZE][Constants.SCENE_SIZE];
+			GameObject[][][] gameObjects = new GameObject[2][Constants.SCENE_SIZE][Constants.SCENE_SIZE];
+			for (int z = 0; z < 2; ++z)
+			{
+				for (int x = 0; x < Constants.SCENE_SIZE; ++x)
+				{
+					for (int y = 0; y < Constants.SCENE_SIZE; ++y)
+					{
+						if (random.nextInt(4) == 0)
+						{
+							Model model = model(random, faces);
+							gameObjects[z][x][y] = fake(GameObject.class, "Renderable", model);
+							models.add(model);
+						}
+						else if (x > 0 && y > 0 && random.nextInt(8) == 0)
+						{
+							// objects which span several tiles are on each of them
+							gameObjects[z][x][y] = gameObjects[z][x - 1][y - 1];
+						}
+					}
+				}
+			}
+
+			for (int z = 0; z < 2; ++z)
+			{
+				for (int x = 0; x < Constants.SCENE_SIZE; ++x)
+				{
+					for (int y = 0; y < Constants.SCENE_SIZE; ++y)
+					{
+						Map<String, Object> properties = new HashMap<>();
+						properties.put("RenderLevel", z);
+						properties.put("SceneLocation", new Point(x, y));
+						properties.put("GameObjects", new GameObject[]{gameObjects[z][x][y]});
+						tiles[z][x][y] = fake(Tile.class, properties);
+
+						if (z == 0)
+						{
+							if (random.nextInt(8) == 0)
+							{
+								SceneTileModel tileModel = tileModel(random, x, y);
+								properties.put("SceneTileModel", tileModel);
+								tileModelTiles.add(tiles[z][x][y]);
+								tileModels.add(tileModel);
+							}
+							else
+							{
+								SceneTilePaint paint = fake(SceneTilePaint.class,
+									"SwColor", random.nextInt(65536),
+									"SeColor", random.nextInt(65536),
+									"NwColor", random.nextInt(65536),
+									// hidden paints are still given an offset
+									"NeColor", random.nextInt(64) == 0 ? 12345678 : random.nextInt(65536),
+									"Texture", random.nextInt(4) == 0 ? random.nextInt(100) : -1);
+								properties.put("SceneTilePaint", paint);
+								paintTiles.add(tiles[z][x][y]);
+								paints.add(paint);
+							}
+						}
+					}
+				}
+			}
+
+			scene = fake(Scene.class, "Tiles", tiles);
+		}
+
+		private static Model model(Random random, int faces)
+		{
+			int vertices = faces / 2 + 3;
+			int[] colors3 = new int[faces];
+			for (int i = 0; i < faces; ++i)
+			{
+				// -1 is a flat shaded face, and -2 a hidden face
+				colors3[i] = random.nextInt(16) == 0 ? -1 - random.nextInt(2) : random.nextInt(65536);
+			}
+
+			boolean textured = random.nextInt(4) == 0;
+			short[] textures = null;
+			float[] uvs = null;
+			if (textured)
+			{
+				textures = new short[faces];
+				uvs = new float[faces * 6];
+				for (int i = 0; i < faces; ++i)
+				{
+					textures[i] = (short) (random.nextBoolean() ? -1 : random.nextInt(100));
+				}
+				for (int i = 0; i < uvs.length; ++i)
+				{
+					uvs[i] = random.nextFloat();
+				}
+			}
+
+			return fake(Model.class,
+				"FaceCount", faces,
+				"VerticesX", ints(random, vertices, 1024),
+				"VerticesY", ints(random, vertices, 1024),
+				"VerticesZ", ints(random, vertices, 1024),
+				"FaceIndices1", ints(random, faces, vertices),
+				"FaceIndices2", ints(random, faces, vertices),
+				"FaceIndices3", ints(random, faces, vertices),
+				"FaceColors1", ints(random, faces, 65536),
+				"FaceColors2", ints(random, faces, 65536),
+				"FaceColors3", colors3,
+				"FaceTextures", textures,
+				"FaceTextureUVCoordinates", uvs,
+				"FaceRenderPriorities", random.nextBoolean() ? bytes(random, faces, 12) : null,
+				"FaceTransparencies", random.nextBoolean() ? bytes(random, faces, 256) : null,
+				"OverrideAmount", (byte) (random.nextInt(4) == 0 ? random.nextInt(128) : 0),
+				"OverrideHue", (byte) random.nextInt(64),
+				"OverrideSaturation", (byte) -1,
+				"OverrideLuminance", (byte) random.nextInt(128));
+		}
+
+		private static SceneTileModel tileModel(Random random, int tileX, int tileY)
+		{
+			int faces = 2 + random.nextInt(6);
+			int vertices = faces + 2;
+			int[] vertexX = new int[vertices];
+			int[] vertexZ = new int[vertices];
+			for (int i = 0; i < vertices; ++i)
+			{
+				vertexX[i] = tileX * 128 + random.nextInt(129);
+				vertexZ[i] = tileY * 128 + random.nextInt(129);
+			}
+
+			int[] colorA = ints(random, faces, 65536);
+			colorA[0] = 12345678; // hidden face
+
+			return fake(SceneTileModel.class,
+				"FaceX", ints(random, faces, vertices),
+				"FaceY", ints(random, faces, vertices),
+				"FaceZ", ints(random, faces, vertices),
+				"VertexX", vertexX,
+				"VertexY", ints(random, vertices, 512),
+				"VertexZ", vertexZ,
+				"TriangleColorA", colorA,
+				"TriangleColorB", ints(random, faces, 65536),
+				"TriangleColorC", ints(random, faces, 65536),
+				"TriangleTextureId", random.nextBoolean() ? ints(random, faces, 100) : null);
+		}
+	}
+
+	private static int[] ints(Random random, int length, int bound)
+	{
+		int[] values = new int[length];
+		for (int i = 0; i < length; ++i)
+		{
+			values[i] = random.nextInt(bound);
+		}
+		return values;
+	}
+
+	private static byte[] bytes(Random random, int length, int bound)
+	{
+		byte[] values = new byte[length];
+		for (int i = 0; i < length; ++i)
+		{
+			values[i] = (byte) random.nextInt(bound);
+		}
+		return values;
+	}
+
+	private static <T> T fake(Class<T> type, Object... keyValues)
+	{
+		Map<String, Object> properties = new HashMap<>();
+		for (int i = 0; i < keyValues.length; i += 2)
+		{
+			properties.put((String) keyValues[i], keyValues[i + 1]);
+		}
+		return fake(type, properties);
+	}
+
+	/**
+	 * Creates an object whose getters return the given properties, or the values last passed to their setters.
+	 * This is used instead of Mockito, which is too slow for scenes of this size.
+	 */
+	private static <T> T fake(Class<T> type, Map<String, Object> properties)
+	{
+		return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) ->
+		{
+			String name = method.getName();
+			if (name.startsWith("set") && args != null && args.length == 1)
+			{
+				properties.put(name.substring(3), args[0]);
+				return null;
+			}
+
+			Object value = properties.get(name.startsWith("get") ? name.substring(3) : name);
+			if (value == null && method.getReturnType().isPrimitive() && method.getReturnType() != void.class)
+			{
+				// the default value of the primitive
+				return Array.get(Array.newInstance(method.getReturnType(), 1), 0);
+			}
+			return value;
+		}));
+	}
+}
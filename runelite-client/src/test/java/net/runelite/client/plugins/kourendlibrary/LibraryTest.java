@@ -27,13 +27,27 @@ package net.runelite.client.plugins.kourendlibrary;
 import com.google.inject.Guice;
 import com.google.inject.Inject;
 import com.google.inject.testing.fieldbinder.BoundFieldModule;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
 import net.runelite.api.coords.WorldPoint;
+import static net.runelite.client.plugins.kourendlibrary.Book.VARLAMORE_ENVOY;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import org.junit.Before;
 import org.junit.Test;
 
 public class LibraryTest
 {
+	private static final int SEQUENCE_LENGTH = Book.values().length;
+
 	@Inject
 	private Library library;
 
@@ -74,4 +88,318 @@ public class LibraryTest
 
 		assertEquals(SolvedState.COMPLETE, library.getState());
 	}
+
+	@Test
+	public void testRandomLayouts()
+	{
+		// replay players searching random bookcases while the library is rearranged under them,
+		// and check each search leaves the solver in the same state as the original solver would
+		Random random = new Random(1);
+		ReferenceLibrary reference = new ReferenceLibrary(library);
+		List<Bookcase> bookcases = new ArrayList<>(new LinkedHashSet<>(library.getBookcases()));
+
+		for (int layout = 0; layout < 2000; ++layout)
+		{
+			Book[] books = randomLayout(random);
+			if (random.nextInt(10) == 0)
+			{
+				library.reset();
+				reference.reset();
+			}
+
+			for (int search = 20 + random.nextInt(60); search > 0; --search)
+			{
+				Bookcase bookcase = bookcases.get(random.nextInt(bookcases.size()));
+				Book book = search(bookcase, books, random);
+
+				library.mark(bookcase.getLocation(), book);
+				reference.mark(bookcase.getLocation(), book);
+
+				assertEquals(reference.state, library.getState());
+				for (Bookcase b : bookcases)
+				{
+					assertEquals(reference.books.containsKey(b), b.isBookSet());
+					assertEquals(reference.books.get(b), b.getBook());
+					assertPossibleBooks(b, reference.getPossibleBooks(b), library.getPossibleBooks(b));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testSolveRandomLayouts()
+	{
+		Random random = new Random(2);
+		List<Bookcase> bookcases = new ArrayList<>();
+		for (Bookcase bookcase : new LinkedHashSet<>(library.getBookcases()))
+		{
+			if (bookcase.getIndex().size() == 1)
+			{
+				bookcases.add(bookcase);
+			}
+		}
+
+		for (int layout = 0; layout < 2000; ++layout)
+		{
+			Book[] books = randomLayout(random);
+
+			// search until the solver is sure of every bookcase. It may settle on the wrong
+			// sequence, but will reset and recover once a search contradicts it.
+			Collections.shuffle(bookcases, random);
+			int searches = 0;
+			while (!isSolved(books))
+			{
+				assertTrue("layout " + layout + " unsolved after " + searches + " searches", searches < bookcases.size() * 2);
+
+				Bookcase bookcase = bookcases.get(searches++ % bookcases.size());
+				Book book = search(bookcase, books, random);
+
+				library.mark(bookcase.getLocation(), book);
+			}
+		}
+	}
+
+	/**
+	 * Possible books are now worked out from the current contents of the bookcase, rather than what it held
+	 * when the last book was found
+	 */
+	private static void assertPossibleBooks(Bookcase bookcase, Set<Book> expected, Set<Book> actual)
+	{
+		if (bookcase.getBook() != null)
+		{
+			// bookcases with two ids which are found to hold a book are no longer offered possible books
+			assertTrue(actual.isEmpty());
+		}
+		else if (bookcase.isBookSet() && expected.isEmpty())
+		{
+			// a dark manuscript or the envoy which has since been taken is offered again
+			assertTrue(actual.stream().allMatch(b -> b.isDarkManuscript() || b == VARLAMORE_ENVOY));
+		}
+		else
+		{
+			assertEquals(expected, actual);
+		}
+	}
+
+	private boolean isSolved(Book[] books)
+	{
+		if (library.getState() != SolvedState.COMPLETE)
+		{
+			return false;
+		}
+
+		for (Bookcase bookcase : library.getBookcases())
+		{
+			if (bookcase.getIndex().size() != 1 || bookcase.getBook() != null)
+			{
+				continue;
+			}
+
+			Book book = books[bookcase.getIndex().get(0)];
+			Set<Book> possible = library.getPossibleBooks(bookcase);
+			if (book == null ? !possible.isEmpty() : !possible.equals(EnumSet.of(book)))
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Pick a sequence and zero index at random, and place the books of the sequence into every step-th bookcase
+	 */
+	private Book[] randomLayout(Random random)
+	{
+		int size = library.getBookcases().size();
+		int step = size / SEQUENCE_LENGTH;
+		Book[] sequence = library.getSequences()[random.nextInt(library.getSequences().length)];
+		int zero = random.nextInt(size);
+
+		Book[] books = new Book[size];
+		for (int i = 0; i < sequence.length; ++i)
+		{
+			books[(zero + i * step) % size] = sequence[i];
+		}
+		return books;
+	}
+
+	/**
+	 * Search a bookcase. Dark manuscripts are often not found, as only one can be held at a time.
+	 */
+	private static Book search(Bookcase bookcase, Book[] books, Random random)
+	{
+		for (int index : bookcase.getIndex())
+		{
+			Book book = books[index];
+			if (book != null)
+			{
+				return book.isDarkManuscript() && random.nextInt(3) == 0 ? null : book;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * The solver as it was before layouts were tallied incrementally, which scanned every bookcase
+	 * for every sequence each time a book was found
+	 */
+	private static class ReferenceLibrary
+	{
+		private final Map<WorldPoint, Bookcase> byPoint = new HashMap<>();
+		private final List<Bookcase> byIndex;
+		private final Book[][] sequences;
+		private final int step;
+
+		private final Map<Bookcase, Book> books = new HashMap<>();
+		private final Map<Bookcase, Set<Book>> possibleBooks = new HashMap<>();
+		private SolvedState state = SolvedState.NO_DATA;
+
+		ReferenceLibrary(Library library)
+		{
+			byIndex = library.getBookcases();
+			sequences = library.getSequences();
+			step = byIndex.size() / SEQUENCE_LENGTH;
+			for (Bookcase bookcase : byIndex)
+			{
+				byPoint.put(bookcase.getLocation(), bookcase);
+			}
+		}
+
+		void reset()
+		{
+			state = SolvedState.NO_DATA;
+			books.clear();
+			possibleBooks.clear();
+		}
+
+		Set<Book> getPossibleBooks(Bookcase bookcase)
+		{
+			return possibleBooks.getOrDefault(bookcase, Collections.emptySet());
+		}
+
+		void mark(WorldPoint loc, Book book)
+		{
+			Bookcase bookcase = byPoint.get(loc);
+			if (books.containsKey(bookcase))
+			{
+				Book old = books.get(bookcase);
+				if (book != old && !(book == null && (old.isDarkManuscript() || old == VARLAMORE_ENVOY)))
+				{
+					reset();
+				}
+			}
+			else if (state != SolvedState.NO_DATA && book != null && !getPossibleBooks(bookcase).contains(book))
+			{
+				reset();
+			}
+
+			if (state == SolvedState.COMPLETE)
+			{
+				Set<Book> possible = getPossibleBooks(bookcase);
+				if (book == null && !possible.isEmpty() && possible.stream().noneMatch(b -> b.isDarkManuscript() || b == VARLAMORE_ENVOY))
+				{
+					reset();
+				}
+				else
+				{
+					return;
+				}
+			}
+
+			for (; ; )
+			{
+				books.put(bookcase, book);
+				if (book == null || bookcase.getIndex().size() != 1)
+				{
+					return;
+				}
+
+				int bookcaseIndex = bookcase.getIndex().get(0);
+				state = SolvedState.INCOMPLETE;
+
+				int[] certainty = new int[sequences.length];
+				for (int s = 0; s < sequences.length; ++s)
+				{
+					int zero = zero(sequences[s], bookcaseIndex, book);
+					int found = 0;
+					for (int i = 0; i < byIndex.size(); i++)
+					{
+						Bookcase iBookcase = byIndex.get((i + zero) % byIndex.size());
+						Book iBook = books.get(iBookcase);
+						boolean isSet = books.containsKey(iBookcase);
+						if (i % step == 0)
+						{
+							int seqI = i / step;
+							if (isSet && seqI < sequences[s].length)
+							{
+								Book seqBook = sequences[s][seqI];
+								if (!((seqBook.isDarkManuscript() && iBook == null) || iBook == seqBook))
+								{
+									found = 0;
+									break;
+								}
+								found++;
+							}
+						}
+						else if (isSet && iBook != null && iBookcase.getIndex().size() == 1)
+						{
+							found = 0;
+							break;
+						}
+					}
+					certainty[s] = found;
+				}
+
+				possibleBooks.clear();
+
+				int max = 0;
+				for (int c : certainty)
+				{
+					max = Math.max(max, c);
+				}
+
+				if (max == 0)
+				{
+					reset();
+					continue;
+				}
+
+				int likely = 0;
+				for (int s = 0; s < sequences.length; ++s)
+				{
+					if (certainty[s] != max)
+					{
+						continue;
+					}
+
+					++likely;
+					int zero = zero(sequences[s], bookcaseIndex, book);
+					for (int i = 0; i < byIndex.size(); i++)
+					{
+						Bookcase iBookcase = byIndex.get((i + zero) % byIndex.size());
+						if (books.get(iBookcase) == null && i % step == 0 && i / step < sequences[s].length)
+						{
+							possibleBooks.computeIfAbsent(iBookcase, k -> new HashSet<>()).add(sequences[s][i / step]);
+						}
+					}
+				}
+
+				if (likely == 1)
+				{
+					state = SolvedState.COMPLETE;
+				}
+				return;
+			}
+		}
+
+		private int zero(Book[] sequence, int bookcaseIndex, Book book)
+		{
+			int bookSequence = 0;
+			while (sequence[bookSequence] != book)
+			{
+				++bookSequence;
+			}
+			return Math.floorMod(bookcaseIndex - step * bookSequence, byIndex.size());
+		}
+	}
 }
@@ -25,14 +25,24 @@
  */
 package net.runelite.client.plugins.puzzlesolver;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
 import net.runelite.client.plugins.puzzlesolver.solver.PuzzleSolver;
 import net.runelite.client.plugins.puzzlesolver.solver.PuzzleState;
+import net.runelite.client.plugins.puzzlesolver.solver.heuristics.Heuristic;
 import net.runelite.client.plugins.puzzlesolver.solver.heuristics.ManhattanDistance;
+import net.runelite.client.plugins.puzzlesolver.solver.heuristics.PatternDatabase;
 import net.runelite.client.plugins.puzzlesolver.solver.pathfinding.IDAStar;
 import net.runelite.client.plugins.puzzlesolver.solver.pathfinding.IDAStarMM;
-import org.junit.Test;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import org.junit.Test;
 
 public class PuzzleSolverTest
 {
@@ -163,4 +173,152 @@ public class PuzzleSolverTest
 			assertTrue(solver.getStep(solver.getStepCount() - 1).hasPieces(FINISHED_STATE));
 		}
 	}
+
+	@Test
+	public void testSolverPatternDatabase() throws IOException
+	{
+		PatternDatabase database = PatternDatabase.getDefault();
+		ManhattanDistance manhattan = new ManhattanDistance();
+
+		for (PuzzleState state : START_STATES)
+		{
+			assertTrue(database.computeValue(state) >= manhattan.computeValue(state));
+
+			IDAStar idaStar = new IDAStar(database);
+			PuzzleSolver solver = new PuzzleSolver(idaStar, state);
+			solver.run();
+
+			assertTrue(solver.hasSolution());
+			assertFalse(solver.hasFailed());
+			assertTrue(solver.getStep(solver.getStepCount() - 1).hasPieces(FINISHED_STATE));
+
+			// both heuristics are admissible, so both find an optimal solution
+			List<PuzzleState> path = new IDAStar(manhattan, 1).computePath(state);
+			assertEquals(path.size(), solver.getStepCount());
+		}
+
+		for (PuzzleState state : START_STATES_MM)
+		{
+			PuzzleSolver solver = new PuzzleSolver(new IDAStarMM(database), state);
+			solver.run();
+
+			assertTrue(solver.getStep(solver.getStepCount() - 1).hasPieces(FINISHED_STATE));
+		}
+	}
+
+	@Test
+	public void testInterrupted() throws IOException
+	{
+		PatternDatabase database = PatternDatabase.getDefault();
+
+		Thread.currentThread().interrupt();
+		try
+		{
+			assertNull(new IDAStarMM(database).computePath(START_STATES_MM[0]));
+			// the interrupt is left for the caller to see
+			assertTrue(Thread.currentThread().isInterrupted());
+
+			PuzzleSolver solver = new PuzzleSolver(new IDAStarMM(database), START_STATES_MM[0]);
+			solver.run();
+			assertTrue(solver.hasFailed());
+		}
+		finally
+		{
+			Thread.interrupted();
+		}
+	}
+
+	@Test
+	public void testPatternDatabaseResource() throws IOException
+	{
+		// the shipped database must match what the current generator builds
+		ByteArrayOutputStream shipped = new ByteArrayOutputStream();
+		PatternDatabase.getDefault().write(shipped);
+
+		ByteArrayOutputStream generated = new ByteArrayOutputStream();
+		PatternDatabase.generate(PatternDatabase.DEFAULT_GROUPS).write(generated);
+
+		assertArrayEquals(generated.toByteArray(), shipped.toByteArray());
+	}
+
+	@Test
+	public void testPatternDatabaseSearch() throws IOException
+	{
+		List<PuzzleState> boards = new ArrayList<>();
+		for (PuzzleState state : START_STATES)
+		{
+			boards.add(state);
+		}
+
+		// random walks from the solved board
+		Random random = new Random(41);
+		for (int i = 0; i < 10; ++i)
+		{
+			PuzzleState state = new PuzzleState(FINISHED_STATE.clone());
+			for (int move = 0; move < 40; ++move)
+			{
+				List<PuzzleState> moves = state.computeMoves();
+				state = moves.get(random.nextInt(moves.size()));
+			}
+			boards.add(new PuzzleState(piecesOf(state)));
+		}
+
+		IDAStar manhattan = new IDAStar(new ManhattanDistance(), 1);
+		IDAStar database = new IDAStar(PatternDatabase.getDefault(), 1);
+		IDAStar parallel = new IDAStar(PatternDatabase.getDefault(), 4);
+		long manhattanNodes = 0, databaseNodes = 0;
+		for (PuzzleState board : boards)
+		{
+			List<PuzzleState> path = manhattan.computePath(board);
+			manhattanNodes += manhattan.getNodes();
+			assertTrue(path.get(path.size() - 1).hasPieces(FINISHED_STATE));
+
+			// every configuration finds an optimal solution
+			List<PuzzleState> databasePath = database.computePath(board);
+			databaseNodes += database.getNodes();
+			assertTrue(databasePath.get(databasePath.size() - 1).hasPieces(FINISHED_STATE));
+			assertEquals(path.size(), databasePath.size());
+
+			List<PuzzleState> parallelPath = parallel.computePath(board);
+			assertTrue(parallelPath.get(parallelPath.size() - 1).hasPieces(FINISHED_STATE));
+			assertEquals(path.size(), parallelPath.size());
+		}
+
+		// the pattern database is a tighter bound, so the search expands fewer boards
+		assertTrue(databaseNodes + " >= " + manhattanNodes, databaseNodes < manhattanNodes);
+	}
+
+	@Test
+	public void testOtherHeuristic()
+	{
+		// heuristics which aren't pattern databases are searched over puzzle states instead of packed boards
+		ManhattanDistance manhattan = new ManhattanDistance();
+		Heuristic heuristic = manhattan::computeValue;
+
+		Random random = new Random(7);
+		for (int i = 0; i < 10; ++i)
+		{
+			PuzzleState state = new PuzzleState(FINISHED_STATE.clone());
+			for (int move = 0; move < 16; ++move)
+			{
+				List<PuzzleState> moves = state.computeMoves();
+				state = moves.get(random.nextInt(moves.size()));
+			}
+			PuzzleState board = new PuzzleState(piecesOf(state));
+
+			List<PuzzleState> path = new IDAStar(heuristic, 1).computePath(board);
+			assertTrue(path.get(path.size() - 1).hasPieces(FINISHED_STATE));
+			assertEquals(new IDAStar(manhattan, 1).computePath(board).size(), path.size());
+		}
+	}
+
+	private static int[] piecesOf(PuzzleState state)
+	{
+		int[] pieces = new int[FINISHED_STATE.length];
+		for (int i = 0; i < pieces.length; ++i)
+		{
+			pieces[i] = state.getPiece(i % 5, i / 5);
+		}
+		return pieces;
+	}
 }
@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2022, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.plugins.screenshot;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class FrameRingTest
+{
+	private static final int WIDTH = 64;
+	private static final int HEIGHT = 48;
+
+	@Test
+	public void testCompressor()
+	{
+		Random random = new Random(1);
+		int[] table = new int[1 << FrameCompressor.HASH_BITS];
+		for (int len : new int[]{0, 1, 13, 100, 70000, 200000})
+		{
+			byte[] src = new byte[len];
+			for (int i = 0; i < len; ++i)
+			{
+				// runs of zeros, repeats and noise
+				int mode = (i / 300) % 3;
+				src[i] = mode == 0 ? 0 : mode == 1 ? (byte) (i % 17) : (byte) random.nextInt();
+			}
+
+			byte[] dst = new byte[FrameCompressor.maxCompressedLength(len)];
+			int clen = FrameCompressor.compress(src, len, dst, table);
+
+			byte[] out = new byte[len];
+			assertEquals(len, FrameCompressor.decompress(dst, 0, clen, out));
+			assertArrayEquals(src, out);
+		}
+	}
+
+	@Test
+	public void testReplay()
+	{
+		FrameRing ring = new FrameRing(1 << 20, 100);
+		List<int[]> frames = new ArrayList<>();
+		Random random = new Random(2);
+		int[] pixels = new int[WIDTH * HEIGHT];
+		for (int i = 0; i < 60; ++i)
+		{
+			// a mostly static frame with a moving square
+			Arrays.fill(pixels, 0x204060);
+			for (int y = 10; y < 20; ++y)
+			{
+				for (int x = i % 40; x < i % 40 + 10; ++x)
+				{
+					pixels[y * WIDTH + x] = random.nextInt() & 0xffffff;
+				}
+			}
+			assertTrue(ring.add(pixels, WIDTH, HEIGHT, i));
+			frames.add(pixels.clone());
+		}
+
+		// frames from 33 onwards, decoded starting at the keyframe at 25
+		List<int[]> decoded = new ArrayList<>();
+		List<Long> times = new ArrayList<>();
+		ring.snapshot(33).forEach((p, w, h, t) ->
+		{
+			decoded.add(p.clone());
+			times.add(t);
+		});
+
+		assertEquals(27, decoded.size());
+		for (int i = 0; i < decoded.size(); ++i)
+		{
+			assertEquals(33 + i, (long) times.get(i));
+			assertArrayEquals(frames.get(33 + i), decoded.get(i));
+		}
+	}
+
+	@Test
+	public void testWrap()
+	{
+		// small enough that noisy frames overwrite each other many times over
+		FrameRing ring = new FrameRing(64 << 10, 40);
+		Random random = new Random(3);
+		int[] pixels = new int[WIDTH * HEIGHT];
+		int[] last = null;
+		for (int i = 0; i < 500; ++i)
+		{
+			for (int j = 0; j < random.nextInt(pixels.length); ++j)
+			{
+				pixels[random.nextInt(pixels.length)] = random.nextInt() & 0xffffff;
+			}
+			assertTrue(ring.add(pixels, WIDTH, HEIGHT, i));
+			last = pixels.clone();
+		}
+
+		assertTrue(ring.size() <= 40);
+
+		List<int[]> decoded = new ArrayList<>();
+		ring.snapshot(499).forEach((p, w, h, t) -> decoded.add(p.clone()));
+		assertEquals(1, decoded.size());
+		assertArrayEquals(last, decoded.get(0));
+	}
+
+	@Test
+	public void testTooLarge()
+	{
+		FrameRing ring = new FrameRing(1024, 10);
+		Random random = new Random(4);
+		int[] pixels = new int[WIDTH * HEIGHT];
+		for (int i = 0; i < pixels.length; ++i)
+		{
+			pixels[i] = random.nextInt() & 0xffffff;
+		}
+		assertFalse(ring.add(pixels, WIDTH, HEIGHT, 0));
+		assertEquals(0, ring.size());
+	}
+}
@@ -0,0 +1,329 @@
+/*
+ * Copyright (c) 2022, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.plugins.worldhopper.ping;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import net.runelite.http.api.worlds.World;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class WorldPingerTest
+{
+	@Test
+	public void testTcpPing() throws Exception
+	{
+		try (ServerSocket server = new ServerSocket(0, 64, InetAddress.getLoopbackAddress());
+			TcpPinger pinger = new TcpPinger(1000))
+		{
+			InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), server.getLocalPort());
+
+			List<CompletableFuture<Integer>> futures = new ArrayList<>();
+			for (int i = 0; i < 32; ++i)
+			{
+				futures.add(pinger.ping(address));
+			}
+
+			for (CompletableFuture<Integer> future : futures)
+			{
+				int ping = future.get(5, TimeUnit.SECONDS);
+				assertTrue(ping >= 0 && ping < 1000);
+			}
+
+			// nothing is listening on a port which has just been closed
+			int closedPort;
+			try (ServerSocket closed = new ServerSocket(0, 1, InetAddress.getLoopbackAddress()))
+			{
+				closedPort = closed.getLocalPort();
+			}
+			int ping = pinger.ping(new InetSocketAddress(InetAddress.getLoopbackAddress(), closedPort)).get(5, TimeUnit.SECONDS);
+			assertEquals(-1, ping);
+		}
+	}
+
+	@Test
+	public void testTcpPingTimeout() throws Exception
+	{
+		try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+			TcpPinger pinger = new TcpPinger(200))
+		{
+			List<Socket> backlog = fillBacklog(server);
+
+			// the connect never completes, so the ping only finishes when it times out
+			int ping = pinger.ping((InetSocketAddress) server.getLocalSocketAddress()).get(30, TimeUnit.SECONDS);
+			assertEquals(-1, ping);
+
+			for (Socket socket : backlog)
+			{
+				socket.close();
+			}
+		}
+	}
+
+	@Test
+	public void testTcpPingClose() throws Exception
+	{
+		try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress()))
+		{
+			List<Socket> backlog = fillBacklog(server);
+
+			TcpPinger pinger = new TcpPinger(10_000);
+			CompletableFuture<Integer> future = pinger.ping((InetSocketAddress) server.getLocalSocketAddress());
+			pinger.close();
+			assertEquals(-1, (int) future.get(5, TimeUnit.SECONDS));
+			assertEquals(-1, (int) pinger.ping((InetSocketAddress) server.getLocalSocketAddress()).get(5, TimeUnit.SECONDS));
+
+			for (Socket socket : backlog)
+			{
+				socket.close();
+			}
+		}
+	}
+
+	@Test
+	public void testPipelined()
+	{
+		final int count = 100;
+		final int maxInFlight = 10;
+
+		// pings complete only when the test completes them
+		Map<Integer, CompletableFuture<Integer>> pending = new LinkedHashMap<>();
+		WorldPinger.Prober prober = world ->
+		{
+			CompletableFuture<Integer> future = new CompletableFuture<>();
+			pending.put(world.getId(), future);
+			return future;
+		};
+
+		List<World> worlds = worlds(count);
+		WorldPinger pinger = new WorldPinger(prober, maxInFlight, () -> 0L);
+		pinger.setWorlds(worlds);
+
+		AtomicInteger pinged = new AtomicInteger();
+		pinger.setListener((world, latency) -> pinged.incrementAndGet());
+
+		pinger.poll();
+		assertEquals(maxInFlight, pending.size());
+
+		// each completed ping makes room for the next world straight away, without waiting for a poll
+		int completed = 0;
+		while (!pending.isEmpty())
+		{
+			Map.Entry<Integer, CompletableFuture<Integer>> entry = pending.entrySet().iterator().next();
+			pending.remove(entry.getKey());
+			entry.getValue().complete(50 + entry.getKey() % 5);
+			++completed;
+
+			assertEquals(completed, pinged.get());
+			assertEquals(Math.min(maxInFlight, count - completed), pending.size());
+			assertEquals(pending.size(), pinger.getInFlight());
+		}
+
+		assertEquals(count, completed);
+		for (World world : worlds)
+		{
+			WorldLatency latency = pinger.getLatency(world.getId());
+			assertEquals(1, latency.getSamples());
+			assertEquals(50 + world.getId() % 5, latency.getSmoothedPing());
+		}
+	}
+
+	@Test
+	public void testShutDown()
+	{
+		List<CompletableFuture<Integer>> pending = new ArrayList<>();
+		WorldPinger pinger = new WorldPinger(world ->
+		{
+			CompletableFuture<Integer> future = new CompletableFuture<>();
+			pending.add(future);
+			return future;
+		}, 2, () -> 0L);
+		pinger.setWorlds(worlds(4));
+
+		AtomicInteger pinged = new AtomicInteger();
+		pinger.setListener((world, latency) -> pinged.incrementAndGet());
+
+		pinger.poll();
+		assertEquals(2, pending.size());
+
+		pinger.shutDown();
+		assertTrue(pinger.isShutDown());
+
+		// pings in flight at shutdown are discarded and do not start any more
+		for (CompletableFuture<Integer> future : pending)
+		{
+			future.complete(30);
+		}
+		pinger.poll();
+
+		assertEquals(2, pending.size());
+		assertEquals(0, pinged.get());
+		assertEquals(0, pinger.getInFlight());
+	}
+
+	@Test
+	public void testPriority()
+	{
+		AtomicLong clock = new AtomicLong();
+		List<Integer> pinged = new ArrayList<>();
+		WorldPinger pinger = new WorldPinger(world ->
+		{
+			pinged.add(world.getId());
+			return CompletableFuture.completedFuture(30);
+		}, 1, clock::get);
+
+		pinger.setWorlds(worlds(10));
+		pinger.setCurrentWorld(5);
+		pinger.setFavorite(world -> world.getId() == 7 || world.getId() == 2);
+
+		pinger.poll();
+		assertEquals(Arrays.asList(5, 2, 7, 0, 1, 3, 4, 6, 8, 9), pinged);
+
+		// only the current world is due after a second
+		pinged.clear();
+		clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+		pinger.poll();
+		assertEquals(Arrays.asList(5), pinged);
+
+		// then the favorites
+		pinged.clear();
+		clock.addAndGet(TimeUnit.SECONDS.toNanos(4));
+		pinger.poll();
+		assertEquals(Arrays.asList(5, 2, 7), pinged);
+
+		// hopping to a world makes it due straight away
+		pinged.clear();
+		pinger.setCurrentWorld(9);
+		pinger.poll();
+		assertEquals(Arrays.asList(9), pinged);
+	}
+
+	@Test
+	public void testAdaptiveInterval()
+	{
+		AtomicLong clock = new AtomicLong();
+		AtomicInteger ping = new AtomicInteger(100);
+		List<Long> pinged = new ArrayList<>();
+		WorldPinger pinger = new WorldPinger(world ->
+		{
+			pinged.add(TimeUnit.NANOSECONDS.toSeconds(clock.get()));
+			return CompletableFuture.completedFuture(ping.get());
+		}, 1, clock::get);
+		pinger.setWorlds(worlds(1));
+
+		for (int second = 0; second <= 300; ++second)
+		{
+			clock.set(TimeUnit.SECONDS.toNanos(second));
+			pinger.poll();
+		}
+
+		// a steady world backs off to every 2 minutes
+		assertEquals(Arrays.asList(0L, 15L, 45L, 105L, 225L), pinged);
+
+		// a change in ping outside of the jitter brings it straight back
+		pinged.clear();
+		ping.set(200);
+		for (int second = 301; second <= 400; ++second)
+		{
+			clock.set(TimeUnit.SECONDS.toNanos(second));
+			pinger.poll();
+		}
+		assertEquals(Arrays.asList(345L, 360L, 375L), pinged);
+
+		WorldLatency latency = pinger.getLatency(0);
+		assertEquals(200, latency.getPing());
+		assertTrue(latency.getRtt() > 100 && latency.getRtt() < 200);
+		assertTrue(latency.getJitter() > 0);
+	}
+
+	@Test
+	public void testFailures()
+	{
+		AtomicLong clock = new AtomicLong();
+		WorldPinger pinger = new WorldPinger(world ->
+		{
+			CompletableFuture<Integer> future = new CompletableFuture<>();
+			future.completeExceptionally(new IOException());
+			return future;
+		}, 4, clock::get);
+		pinger.setWorlds(worlds(1));
+		pinger.poll();
+
+		WorldLatency latency = pinger.getLatency(0);
+		assertEquals(-1, latency.getPing());
+		assertEquals(-1, latency.getSmoothedPing());
+		assertEquals(1, latency.getFailures());
+		assertEquals(0, pinger.getInFlight());
+	}
+
+	/**
+	 * Connect to a server which never accepts until its backlog is full, after which further
+	 * connects do not complete
+	 */
+	private static List<Socket> fillBacklog(ServerSocket server)
+	{
+		List<Socket> sockets = new ArrayList<>();
+		for (int i = 0; i < 8; ++i)
+		{
+			Socket socket = new Socket();
+			sockets.add(socket);
+			try
+			{
+				socket.connect(server.getLocalSocketAddress(), 100);
+			}
+			catch (IOException ex)
+			{
+				break;
+			}
+		}
+		return sockets;
+	}
+
+	private static List<World> worlds(int count)
+	{
+		List<World> worlds = new ArrayList<>();
+		for (int i = 0; i < count; ++i)
+		{
+			worlds.add(World.builder()
+				.id(i)
+				.address("127.0.0.1")
+				.build());
+		}
+		return worlds;
+	}
+}
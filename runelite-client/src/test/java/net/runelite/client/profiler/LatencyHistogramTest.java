@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2022, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.profiler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public class LatencyHistogramTest
+{
+	@Test
+	public void testBucketBounds()
+	{
+		for (long v = 0; v < 1_000_000; v = v * 3 / 2 + 1)
+		{
+			int bucket = LatencyHistogram.bucket(v);
+			assertTrue(v <= LatencyHistogram.upperBound(bucket));
+			assertTrue(bucket == 0 || v > LatencyHistogram.upperBound(bucket - 1));
+		}
+	}
+
+	@Test
+	public void testPercentiles()
+	{
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (int i = 1; i <= 100; ++i)
+		{
+			histogram.record(i * 1000);
+		}
+
+		assertEquals(100, histogram.getCount());
+		assertEquals(100_000, histogram.getMax());
+		assertEquals(50_500, histogram.getMean());
+
+		long p50 = histogram.getPercentile(50);
+		assertTrue(p50 >= 50_000 && p50 <= 50_000 * 9 / 8);
+		assertEquals(100_000, histogram.getPercentile(100));
+
+		histogram.reset();
+		assertEquals(0, histogram.getCount());
+		assertEquals(0, histogram.getPercentile(50));
+	}
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2022, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.task;
+
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import net.runelite.client.profiler.Profiler;
+import static org.junit.Assert.assertEquals;
+import org.junit.Before;
+import org.junit.Test;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class SchedulerTest
+{
+	private Scheduler scheduler;
+	private final AtomicInteger runs = new AtomicInteger();
+
+	@Schedule(period = 0, unit = ChronoUnit.MILLIS)
+	public void everyTick()
+	{
+	}
+
+	@Schedule(period = 1, unit = ChronoUnit.HOURS)
+	public void hourly()
+	{
+	}
+
+	@Schedule(period = 0, unit = ChronoUnit.MILLIS, asynchronous = true)
+	public void async()
+	{
+	}
+
+	@Before
+	public void before()
+	{
+		scheduler = new Scheduler();
+		scheduler.executor = mock(ScheduledExecutorService.class);
+		scheduler.profiler = new Profiler();
+	}
+
+	private ScheduledMethod schedule(String name) throws NoSuchMethodException
+	{
+		Schedule schedule = SchedulerTest.class.getMethod(name).getAnnotation(Schedule.class);
+		ScheduledMethod method = new ScheduledMethod(schedule, SchedulerTest.class.getMethod(name), this, runs::incrementAndGet);
+		scheduler.addScheduledMethod(method);
+		return method;
+	}
+
+	@Test
+	public void testDueMethodsRun() throws Exception
+	{
+		schedule("everyTick");
+		schedule("hourly");
+
+		scheduler.tick();
+		scheduler.tick();
+		assertEquals(2, runs.get());
+		assertEquals(2, scheduler.getScheduledMethods().size());
+	}
+
+	@Test
+	public void testRemove() throws Exception
+	{
+		ScheduledMethod method = schedule("everyTick");
+		scheduler.removeScheduledMethod(method);
+
+		scheduler.tick();
+		assertEquals(0, runs.get());
+	}
+
+	@Test
+	public void testAsyncOverrunIsSkipped() throws Exception
+	{
+		ScheduledMethod method = schedule("async");
+
+		// the mocked executor never runs the submitted task, so the first run never finishes
+		scheduler.tick();
+		scheduler.tick();
+		verify(scheduler.executor, times(1)).submit(any(Runnable.class));
+		verify(scheduler.executor, never()).execute(any(Runnable.class));
+		assertEquals(1, method.getSkipped());
+		assertEquals(0, runs.get());
+	}
+}
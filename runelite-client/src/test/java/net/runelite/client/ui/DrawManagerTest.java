@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2022, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.ui;
+
+import java.awt.Image;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import org.junit.Test;
+
+public class DrawManagerTest
+{
+	private final DrawManager drawManager = new DrawManager();
+
+	@Test
+	public void testFrameSharedByListeners()
+	{
+		final List<Image> held = new ArrayList<>();
+		// the first listener is done with the frame immediately, the second holds on to it
+		drawManager.requestNextFrameListener(drawManager::releaseFrameBuffer);
+		drawManager.requestNextFrameListener(held::add);
+		drawManager.processDrawComplete(() -> drawManager.acquireFrameBuffer(10, 10));
+
+		final Image frame = held.get(0);
+		assertNotSame(frame, drawManager.acquireFrameBuffer(10, 10));
+
+		// once the last listener releases it, it can be reused
+		drawManager.releaseFrameBuffer(frame);
+		assertSame(frame, drawManager.acquireFrameBuffer(10, 10));
+	}
+
+	@Test
+	public void testReleaseTwice()
+	{
+		final List<Image> held = new ArrayList<>();
+		drawManager.requestNextFrameListener(held::add);
+		drawManager.processDrawComplete(() -> drawManager.acquireFrameBuffer(10, 10));
+
+		final Image frame = held.get(0);
+		drawManager.releaseFrameBuffer(frame);
+		drawManager.releaseFrameBuffer(frame);
+
+		// the frame is only pooled once
+		assertSame(frame, drawManager.acquireFrameBuffer(10, 10));
+		assertNotSame(frame, drawManager.acquireFrameBuffer(10, 10));
+	}
+
+	@Test
+	public void testUnpooledImage()
+	{
+		final BufferedImage image = new BufferedImage(10, 10, BufferedImage.TYPE_INT_RGB);
+		drawManager.releaseFrameBuffer(image);
+		assertNotSame(image, drawManager.acquireFrameBuffer(10, 10));
+	}
+}
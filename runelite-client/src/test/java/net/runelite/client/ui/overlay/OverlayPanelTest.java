@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2022, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.ui.overlay;
+
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import net.runelite.client.ui.overlay.components.LineComponent;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import org.junit.Test;
+
+public class OverlayPanelTest
+{
+	private static class TextOverlay extends OverlayPanel
+	{
+		private String text;
+
+		@Override
+		public Dimension render(Graphics2D graphics)
+		{
+			panelComponent.getChildren().add(LineComponent.builder()
+				.left(text)
+				.right(text)
+				.build());
+			return super.render(graphics);
+		}
+	}
+
+	private static int[] render(TextOverlay overlay, String text)
+	{
+		overlay.text = text;
+		final BufferedImage image = new BufferedImage(200, 50, BufferedImage.TYPE_INT_ARGB);
+		final Graphics2D graphics = image.createGraphics();
+		try
+		{
+			overlay.render(graphics);
+		}
+		finally
+		{
+			graphics.dispose();
+		}
+		return image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
+	}
+
+	@Test
+	public void testCacheInvalidation()
+	{
+		// "Aa" and "BB" have the same String hash code
+		assertEquals("Aa".hashCode(), "BB".hashCode());
+
+		final TextOverlay direct = new TextOverlay();
+		render(direct, "Aa");
+		final int[] expectedAa = render(direct, "Aa");
+		final int[] expectedBB = render(direct, "BB");
+		assertFalse(Arrays.equals(expectedAa, expectedBB));
+
+		final TextOverlay cached = new TextOverlay();
+		cached.setCacheRendering(true);
+		// the first render lays out the panel, the second fills the cache, and later renders draw from it
+		render(cached, "Aa");
+		for (int i = 0; i < 3; ++i)
+		{
+			assertArrayEquals("frame " + i, expectedAa, render(cached, "Aa"));
+		}
+
+		for (int i = 0; i < 3; ++i)
+		{
+			assertArrayEquals("frame " + i, expectedBB, render(cached, "BB"));
+		}
+
+		assertArrayEquals(expectedAa, render(cached, "Aa"));
+	}
+}
@@ -0,0 +1,254 @@
+/*
+ * Copyright (c) 2022, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.ui.overlay.outline;
+
+import java.util.Arrays;
+import java.util.Random;
+import net.runelite.api.Client;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+import static org.mockito.Mockito.mock;
+
+public class ModelOutlineRendererTest
+{
+	private static final int WIDTH = 765;
+	private static final int HEIGHT = 503;
+	private static final int CLIP_X1 = 4;
+	private static final int CLIP_Y1 = 4;
+	private static final int CLIP_X2 = 516;
+	private static final int CLIP_Y2 = 338;
+
+	@Test
+	public void testDistanceTransform()
+	{
+		Random random = new Random(42);
+		ModelOutlineRenderer renderer = new ModelOutlineRenderer(mock(Client.class), 0);
+
+		for (int iteration = 0; iteration < 200; iteration++)
+		{
+			int outlineWidth = 1 + random.nextInt(iteration < 100 ? 6 : 50);
+			ModelOutline outline = renderer.nextOutline();
+			outline.reset(CLIP_X1, CLIP_Y1, CLIP_X2, CLIP_Y2, outlineWidth, random.nextInt(5), 0xFF00FFFF);
+			// a few random triangles, sometimes hanging off the edge of the viewport
+			int cx = random.nextInt(WIDTH);
+			int cy = random.nextInt(HEIGHT);
+			addSphere(outline, cx, cy, 5 + random.nextInt(60), 2 + random.nextInt(6), random);
+			outline.compute();
+
+			// brute force the distance of each pixel in the viewport to the rasterized model
+			int[] modelPixels = new int[(CLIP_X2 - CLIP_X1) * (CLIP_Y2 - CLIP_Y1)];
+			int count = 0;
+			for (int y = CLIP_Y1; y < CLIP_Y2; y++)
+			{
+				for (int x = CLIP_X1; x < CLIP_X2; x++)
+				{
+					// the nearest model pixel to any other pixel is always on the edge of the model
+					if (outline.getSquaredDistance(x, y) == 0
+						&& (!isModel(outline, x - 1, y) || !isModel(outline, x + 1, y)
+						|| !isModel(outline, x, y - 1) || !isModel(outline, x, y + 1)))
+					{
+						modelPixels[count++] = (y << 16) | x;
+					}
+				}
+			}
+
+			if (cx >= CLIP_X1 + 5 && cx < CLIP_X2 - 5 && cy >= CLIP_Y1 + 5 && cy < CLIP_Y2 - 5)
+			{
+				assertTrue(count > 0);
+			}
+
+			int maxDistance = outlineWidth * outlineWidth;
+			for (int y = CLIP_Y1; y < CLIP_Y2; y++)
+			{
+				for (int x = CLIP_X1; x < CLIP_X2; x++)
+				{
+					int expected = isModel(outline, x, y) ? 0 : Integer.MAX_VALUE;
+					for (int i = 0; i < count; i++)
+					{
+						int dx = x - (modelPixels[i] & 0xFFFF);
+						int dy = y - (modelPixels[i] >>> 16);
+						expected = Math.min(expected, dx * dx + dy * dy);
+					}
+
+					int actual = outline.getSquaredDistance(x, y);
+					if (expected <= maxDistance || actual <= maxDistance)
+					{
+						assertEquals("distance of " + x + "," + y, expected, actual);
+					}
+				}
+			}
+
+			renderer.drawOutlines(new int[WIDTH * HEIGHT], WIDTH);
+		}
+	}
+
+	@Test
+	public void testComposite()
+	{
+		ModelOutlineRenderer renderer = new ModelOutlineRenderer(mock(Client.class), 0);
+		ModelOutline outline = renderer.nextOutline();
+		outline.reset(CLIP_X1, CLIP_Y1, CLIP_X2, CLIP_Y2, 4, 0, 0xFFFF0000);
+		// a 10x10 square
+		outline.addVertex(100, 100);
+		outline.addVertex(109, 109);
+		outline.addTriangle(100, 100, 110, 110, 100, 110);
+		outline.addTriangle(100, 100, 110, 100, 110, 110);
+
+		int[] image = new int[WIDTH * HEIGHT];
+		renderer.drawOutlines(image, WIDTH);
+
+		assertEquals(0, image[105 * WIDTH + 105]); // model
+		assertEquals(0xFFFF0000, image[105 * WIDTH + 99]); // left
+		assertEquals(0xFFFF0000, image[105 * WIDTH + 96]);
+		assertEquals(0, image[105 * WIDTH + 95]);
+		assertEquals(0xFFFF0000, image[113 * WIDTH + 109]); // below
+		assertEquals(0, image[114 * WIDTH + 109]);
+		assertEquals(0xFFFF0000, image[111 * WIDTH + 111]); // diagonal, distance sqrt(8)
+		assertEquals(0, image[112 * WIDTH + 112]); // distance sqrt(18)
+
+		// translucent and feathered outlines are blended
+		outline = renderer.nextOutline();
+		outline.reset(CLIP_X1, CLIP_Y1, CLIP_X2, CLIP_Y2, 4, 4, 0x80FFFFFF);
+		outline.addVertex(100, 100);
+		outline.addVertex(109, 109);
+		outline.addTriangle(100, 100, 110, 110, 100, 110);
+		outline.addTriangle(100, 100, 110, 100, 110, 110);
+
+		Arrays.fill(image, 0xFF000000);
+		renderer.drawOutlines(image, WIDTH);
+		int near = image[105 * WIDTH + 99] & 0xFF;
+		int far = image[105 * WIDTH + 96] & 0xFF;
+		assertTrue(near > far && far > 0 && near < 0xFF);
+	}
+
+	@Test
+	public void testBatchOrder()
+	{
+		ModelOutlineRenderer sequential = new ModelOutlineRenderer(mock(Client.class), 0);
+		ModelOutlineRenderer parallel = new ModelOutlineRenderer(mock(Client.class), 3);
+
+		int[] expected = new int[WIDTH * HEIGHT];
+		int[] actual = new int[WIDTH * HEIGHT];
+		for (int round = 0; round < 5; round++)
+		{
+			queueOverlappingModels(sequential, new Random(round));
+			sequential.drawOutlines(expected, WIDTH);
+			queueOverlappingModels(parallel, new Random(round));
+			parallel.drawOutlines(actual, WIDTH);
+			assertArrayEquals(expected, actual);
+		}
+	}
+
+	@Test
+	public void testDirectWrite()
+	{
+		ModelOutlineRenderer renderer = new ModelOutlineRenderer(mock(Client.class), 0);
+		int[] expected = new int[WIDTH * HEIGHT];
+		int[] actual = new int[WIDTH * HEIGHT];
+
+		for (int iteration = 0; iteration < 100; iteration++)
+		{
+			int outlineWidth = 1 + iteration % 10;
+			int feather = outlineWidth == 1 ? iteration % 5 : 0;
+			int radius = 5 + (iteration * 7) % 60;
+			int rings = 2 + iteration % 6;
+			assertTrue(ModelOutline.canDrawDirect(outlineWidth, feather, 0xFF00FFFF));
+
+			// direct drawing only visits the edges of the model, but draws the same pixels as the distance transform
+			Arrays.fill(expected, 0);
+			ModelOutline outline = renderer.nextOutline();
+			outline.reset(CLIP_X1, CLIP_Y1, CLIP_X2, CLIP_Y2, outlineWidth, feather, 0xFF00FFFF);
+			addSphere(outline, 260, 170, radius, rings, new Random(iteration));
+			renderer.drawOutlines(expected, WIDTH);
+
+			Arrays.fill(actual, 0);
+			outline = new ModelOutline();
+			outline.reset(CLIP_X1, CLIP_Y1, CLIP_X2, CLIP_Y2, outlineWidth, feather, 0xFF00FFFF);
+			addSphere(outline, 260, 170, radius, rings, new Random(iteration));
+			outline.drawDirect(actual, WIDTH);
+
+			assertArrayEquals("width " + outlineWidth + ", radius " + radius, expected, actual);
+		}
+
+		assertFalse(ModelOutline.canDrawDirect(2, 0, 0x80FFFFFF));
+		assertFalse(ModelOutline.canDrawDirect(2, 1, 0xFFFFFFFF));
+		assertFalse(ModelOutline.canDrawDirect(11, 0, 0xFFFFFFFF));
+	}
+
+	private static void queueOverlappingModels(ModelOutlineRenderer renderer, Random random)
+	{
+		for (int m = 0; m < 10; m++)
+		{
+			ModelOutline outline = renderer.nextOutline();
+			outline.reset(CLIP_X1, CLIP_Y1, CLIP_X2, CLIP_Y2, 1 + random.nextInt(12), random.nextInt(5),
+				(64 + random.nextInt(192)) << 24 | random.nextInt(0xFFFFFF));
+			addSphere(outline, 200 + random.nextInt(100), 150 + random.nextInt(60), 20 + random.nextInt(40), 4, random);
+		}
+	}
+
+	private static boolean isModel(ModelOutline outline, int x, int y)
+	{
+		return x >= CLIP_X1 && x < CLIP_X2 && y >= CLIP_Y1 && y < CLIP_Y2 && outline.getSquaredDistance(x, y) == 0;
+	}
+
+	/**
+	 * Adds a lumpy disc of 4 * rings^2 triangles, as a sphere would project to the screen
+	 */
+	private static void addSphere(ModelOutline outline, int cx, int cy, int radius, int rings, Random random)
+	{
+		int segments = rings * 2;
+		int[] xs = new int[(rings + 1) * segments];
+		int[] ys = new int[(rings + 1) * segments];
+		for (int r = 0; r <= rings; r++)
+		{
+			for (int s = 0; s < segments; s++)
+			{
+				double angle = 2 * Math.PI * s / segments;
+				double dist = radius * (double) r / rings * (0.8 + 0.2 * random.nextDouble());
+				int x = cx + (int) (Math.cos(angle) * dist);
+				int y = cy + (int) (Math.sin(angle) * dist);
+				xs[r * segments + s] = x;
+				ys[r * segments + s] = y;
+				outline.addVertex(x, y);
+			}
+		}
+
+		for (int r = 0; r < rings; r++)
+		{
+			for (int s = 0; s < segments; s++)
+			{
+				int a = r * segments + s;
+				int b = r * segments + (s + 1) % segments;
+				int c = a + segments;
+				int d = b + segments;
+				outline.addTriangle(xs[a], ys[a], xs[c], ys[c], xs[b], ys[b]);
+				outline.addTriangle(xs[b], ys[b], xs[c], ys[c], xs[d], ys[d]);
+			}
+		}
+	}
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2022, Adam <Adam@sigterm.info>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package net.runelite.client.util;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.zip.Deflater;
+import javax.imageio.ImageIO;
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+public class PngEncoderTest
+{
+	@Test
+	public void testRoundTrip() throws IOException
+	{
+		// odd sizes, and larger than one IDAT chunk
+		for (int type : new int[]{BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_INT_ARGB, BufferedImage.TYPE_3BYTE_BGR})
+		{
+			BufferedImage image = randomImage(301, 257, type);
+			for (PngEncoder.Filter filter : PngEncoder.Filter.values())
+			{
+				for (int level : new int[]{Deflater.NO_COMPRESSION, Deflater.BEST_SPEED, Deflater.BEST_COMPRESSION})
+				{
+					assertImageEquals(image, roundTrip(image, new PngEncoder(level, filter)));
+				}
+			}
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidLevel()
+	{
+		new PngEncoder(10, PngEncoder.Filter.NONE);
+	}
+
+	private static BufferedImage roundTrip(BufferedImage image, PngEncoder encoder) throws IOException
+	{
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		encoder.write(image, out);
+		return ImageIO.read(new ByteArrayInputStream(out.toByteArray()));
+	}
+
+	private static BufferedImage randomImage(int width, int height, int type)
+	{
+		Random random = new Random(width * 31 + type);
+		BufferedImage image = new BufferedImage(width, height, type);
+		for (int y = 0; y < height; ++y)
+		{
+			for (int x = 0; x < width; ++x)
+			{
+				// mix noise with flat runs so the filters have something to predict
+				int rgb = (x / 7 + y / 5) % 3 == 0 ? random.nextInt() : 0xff102030 + x + (y << 8);
+				image.setRGB(x, y, rgb);
+			}
+		}
+		return image;
+	}
+
+	private static void assertImageEquals(BufferedImage expected, BufferedImage actual)
+	{
+		assertEquals(expected.getWidth(), actual.getWidth());
+		assertEquals(expected.getHeight(), actual.getHeight());
+		assertEquals(expected.getColorModel().hasAlpha(), actual.getColorModel().hasAlpha());
+		for (int y = 0; y < expected.getHeight(); ++y)
+		{
+			for (int x = 0; x < expected.getWidth(); ++x)
+			{
+				assertEquals(expected.getRGB(x, y), actual.getRGB(x, y));
+			}
+		}
+	}
+}